@@ -0,0 +1,91 @@
+package com.schmidthappens.markd.AdapterClasses;
+
+import android.content.Context;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+import android.support.v7.widget.LinearLayoutManager;
+import android.support.v7.widget.RecyclerView;
+import android.view.ContextThemeWrapper;
+import android.view.View;
+import android.view.ViewGroup;
+
+import com.schmidthappens.markd.R;
+import com.schmidthappens.markd.data_objects.Contractor;
+import com.schmidthappens.markd.data_objects.ContractorDetails;
+import com.schmidthappens.markd.utilities.ContractorUpdater;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Scrolls a contractor search result a row at a time. Every row on screen, recycled or not,
+ * has to show and pick the contractor at its own position.
+ */
+@RunWith(AndroidJUnit4.class)
+public class ContractorListRecyclerViewAdapterTest {
+    private static final int ROWS = 200;
+
+    private int holdersCreated;
+
+    @Test
+    public void recycled_rows_show_and_pick_their_own_contractor() throws Exception {
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                scroll();
+            }
+        });
+    }
+
+    private void scroll() {
+        Context context = new ContextThemeWrapper(InstrumentationRegistry.getTargetContext(), R.style.AppTheme);
+        List<Contractor> contractors = new ArrayList<>();
+        List<String> references = new ArrayList<>();
+        for(int i = 0; i < ROWS; i++) {
+            contractors.add(new Contractor(null).setContractorDetails(new ContractorDetails("Contractor " + i, "203555" + (1000 + i), "www.contractor" + i + ".com", "06840")));
+            references.add("contractor" + i);
+        }
+        ContractorListRecyclerViewAdapter adapter = new ContractorListRecyclerViewAdapter(context, contractors, references, new ContractorUpdater() {
+            @Override
+            public void update(String contractorReference) {
+            }
+        }) {
+            @Override
+            public ContractorViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
+                holdersCreated++;
+                return super.onCreateViewHolder(parent, viewType);
+            }
+        };
+
+        RecyclerView recyclerView = new RecyclerView(context);
+        recyclerView.setLayoutManager(new LinearLayoutManager(context));
+        recyclerView.setAdapter(adapter);
+        recyclerView.measure(View.MeasureSpec.makeMeasureSpec(1080, View.MeasureSpec.EXACTLY), View.MeasureSpec.makeMeasureSpec(1920, View.MeasureSpec.EXACTLY));
+        recyclerView.layout(0, 0, 1080, 1920);
+        int rowHeight = recyclerView.getChildAt(0).getHeight();
+        int visibleRows = recyclerView.getChildCount();
+
+        for(int row = 1; row <= ROWS - visibleRows; row++) {
+            recyclerView.scrollBy(0, rowHeight);
+            for(int child = 0; child < recyclerView.getChildCount(); child++) {
+                assertShowsOwnContractor(recyclerView, recyclerView.getChildAt(child));
+            }
+        }
+        assertTrue("rows were not recycled, created " + holdersCreated + " holders", holdersCreated < ROWS / 2);
+    }
+
+    private static void assertShowsOwnContractor(RecyclerView recyclerView, View row) {
+        ContractorListRecyclerViewAdapter.ContractorViewHolder holder = (ContractorListRecyclerViewAdapter.ContractorViewHolder)recyclerView.getChildViewHolder(row);
+        int position = holder.getAdapterPosition();
+        assertEquals("Contractor " + position, holder.contractorName.getText().toString());
+        assertEquals("www.contractor" + position + ".com", holder.website.getText().toString());
+        //What the row's click and logo click act on
+        assertEquals("contractor" + position, holder.contractorReference);
+        assertEquals("Contractor " + position, holder.contractor.getContractorDetails().getCompanyName());
+    }
+}
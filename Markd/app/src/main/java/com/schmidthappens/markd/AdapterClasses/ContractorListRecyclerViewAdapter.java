@@ -1,24 +1,26 @@
 package com.schmidthappens.markd.AdapterClasses;
 
-import android.app.Activity;
 import android.app.AlertDialog;
 import android.content.Context;
 import android.content.DialogInterface;
 import android.content.Intent;
 import android.net.Uri;
 import android.support.v7.widget.RecyclerView;
+import android.text.TextUtils;
 import android.util.Log;
-import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
-import android.widget.FrameLayout;
+import android.widget.ImageView;
+import android.widget.TextView;
 
 import com.schmidthappens.markd.R;
 import com.schmidthappens.markd.data_objects.Contractor;
+import com.schmidthappens.markd.file_storage.MarkdFirebaseStorage;
 import com.schmidthappens.markd.utilities.ContractorUpdater;
 import com.schmidthappens.markd.view_initializers.ContractorFooterViewInitializer;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * Created by joshua.schmidtibm.com on 11/11/17.
@@ -39,10 +41,27 @@ public class ContractorListRecyclerViewAdapter extends RecyclerView.Adapter<Cont
         this.updater = updater;
     }
 
+    /*
+        Lists contractors after those already shown, in map order, without rebinding the rows above
+     */
+    public void addContractors(Map<String, Contractor> contractors) {
+        int start = contractorsList.size();
+        for(Map.Entry<String, Contractor> contractor : contractors.entrySet()) {
+            references.add(contractor.getKey());
+            contractorsList.add(contractor.getValue());
+        }
+        notifyItemRangeInserted(start, contractors.size());
+    }
+    public void clearContractors() {
+        int count = contractorsList.size();
+        contractorsList.clear();
+        references.clear();
+        notifyItemRangeRemoved(0, count);
+    }
+
     @Override
     public ContractorViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
-        View view = LayoutInflater.from(parent.getContext()).inflate(viewType, parent, false);
-        return new ContractorViewHolder(view);
+        return new ContractorViewHolder(ContractorFooterViewInitializer.inflateRecyclerFooterView(parent.getContext(), parent));
     }
 
     @Override
@@ -51,41 +70,72 @@ public class ContractorListRecyclerViewAdapter extends RecyclerView.Adapter<Cont
     }
 
     @Override
-    public int getItemCount() {
-        return (null != contractorsList ? contractorsList.size() : 0);
+    public void onViewRecycled(ContractorViewHolder holder) {
+        super.onViewRecycled(holder);
+        holder.cancelLogoLoad();
     }
 
     @Override
-    public int getItemViewType(final int position) {
-        return R.layout.frame_layout_footer_view;
+    public int getItemCount() {
+        return (null != contractorsList ? contractorsList.size() : 0);
     }
 
+    /*
+        The footer is inflated once per holder, binding only sets its text and starts the logo load
+     */
     class ContractorViewHolder extends RecyclerView.ViewHolder {
         Contractor contractor;
         String contractorReference;
-        FrameLayout footerFrame;
+        ImageView footerLogo;
+        TextView contractorName;
+        TextView phoneNumber;
+        TextView website;
+        MarkdFirebaseStorage.ImageLoad logoLoad;
+        String logoFileName;
 
         ContractorViewHolder(View v) {
             super(v);
-            if(v instanceof FrameLayout) {
-                footerFrame = (FrameLayout)v;
-            }
+            footerLogo = v.findViewById(R.id.footer_logo);
+            contractorName = v.findViewById(R.id.footer_contractor_name);
+            phoneNumber = v.findViewById(R.id.footer_phone_number);
+            website = v.findViewById(R.id.footer_website);
+            footerLogo.setOnClickListener(websiteClickListener);
             v.setOnClickListener(setContractorClickListener);
         }
 
         void bindData(final Contractor contractor, final String reference) {
             this.contractor = contractor;
             this.contractorReference = reference;
-            footerFrame.addView(ContractorFooterViewInitializer
-                    .createFooterView(
-                            (Activity)ctx,
-                            contractor.getContractorDetails().getCompanyName(),
-                            contractor.getContractorDetails().getTelephoneNumber(),
-                            contractor.getContractorDetails().getWebsiteUrl(),
-                            contractor.getLogoFileName(),
-                            true));
+            contractorName.setText(contractor.getContractorDetails().getCompanyName());
+            phoneNumber.setText(contractor.getContractorDetails().getTelephoneNumber());
+            website.setText(contractor.getContractorDetails().getWebsiteUrl());
+            //Rebinding the same contractor keeps the logo already loading or shown
+            String newLogoFileName = contractor.getLogoFileName();
+            if(logoLoad != null && TextUtils.equals(logoFileName, newLogoFileName)) {
+                return;
+            }
+            cancelLogoLoad();
+            logoFileName = newLogoFileName;
+            logoLoad = MarkdFirebaseStorage.loadCancellableImage(ctx, logoFileName, footerLogo);
+        }
+        void cancelLogoLoad() {
+            if(logoLoad != null) {
+                logoLoad.cancel();
+                logoLoad = null;
+            }
         }
 
+        private View.OnClickListener websiteClickListener = new View.OnClickListener() {
+            @Override
+            public void onClick(View view) {
+                Intent intent = new Intent();
+                intent.setAction(Intent.ACTION_VIEW);
+                intent.addCategory(Intent.CATEGORY_BROWSABLE);
+                intent.setData(Uri.parse(contractor.getContractorDetails().getWebsiteUrl()));
+                ctx.startActivity(intent);
+            }
+        };
+
         private View.OnClickListener phoneClickListener = new View.OnClickListener() {
             @Override
             public void onClick(View view) {
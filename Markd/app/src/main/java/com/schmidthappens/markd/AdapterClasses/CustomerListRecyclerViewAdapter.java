@@ -9,13 +9,17 @@ import android.view.ViewGroup;
 import android.widget.TextView;
 
 import com.schmidthappens.markd.R;
-import com.schmidthappens.markd.data_objects.Customer;
+import com.schmidthappens.markd.data_objects.CustomerSummary;
+import com.schmidthappens.markd.utilities.CustomerSearchIndex;
 import com.schmidthappens.markd.utilities.CustomerSelectedInterface;
-import com.schmidthappens.markd.utilities.StringUtilities;
 
 import java.util.ArrayList;
-import java.util.Iterator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Created by joshua.schmidtibm.com on 9/30/17.
@@ -24,42 +28,298 @@ import java.util.List;
 
 public class CustomerListRecyclerViewAdapter extends RecyclerView.Adapter<CustomerListRecyclerViewAdapter.CustomerViewHolder> {
     private final static String TAG = "CustomerListRecycler";
+    //Rows from the end of the loaded customers at which the next page is asked for
+    private static final int PREFETCH_DISTANCE = 20;
     private Context context;
-    private List<Customer> customerList;
-    private List<String> customerReferenceList;
+    //Every customer loaded, in the order of their pages
+    private List<CustomerSummary> allCustomers = new ArrayList<>();
+    private List<String> allCustomerReferences = new ArrayList<>();
+    //The ones matching query in the same order, shown
+    private List<CustomerSummary> customerList = new ArrayList<>();
+    private List<String> customerReferenceList = new ArrayList<>();
+    private CustomerSearchIndex searchIndex = new CustomerSearchIndex();
+    private String query = "";
+    //Customers the contractor has, without a query the rows not loaded yet show as placeholders
+    private int totalCount;
+    private boolean endReached;
+    //Stable row ids by customer, so moves and changes animate the row instead of rebinding the list
+    private Map<String, Long> itemIds = new HashMap<>();
+    private OnLoadMoreListener onLoadMoreListener;
+    private OnCustomerRowListener onCustomerRowListener;
 
-    public CustomerListRecyclerViewAdapter(Context context, List<Customer> customerList, List<String> customerReferenceList) {
-        this.context = context;
-        this.customerList = customerList;
-        this.customerReferenceList = customerReferenceList;
+    public interface OnLoadMoreListener {
+        void onLoadMore();
+    }
+    /*
+        A row started or stopped showing the customer, a customer can be bound to two rows while their change animates
+     */
+    public interface OnCustomerRowListener {
+        void onRowBound(String customerReference);
+        void onRowRecycled(String customerReference);
     }
 
-    public CustomerListRecyclerViewAdapter(Context context, List<Customer> customerList, List<String> customerReferenceList, String lastName) {
+    public CustomerListRecyclerViewAdapter(Context context) {
         this.context = context;
-        this.customerList = new ArrayList<>();
-        this.customerReferenceList = new ArrayList<>();
-        if(customerList != null && customerReferenceList != null) {
-            this.customerList.addAll(customerList);
-            this.customerReferenceList.addAll(customerReferenceList);
-            filterListByLastName(lastName);
-        }
-
-    }
-
-    private void filterListByLastName(String lastName) {
-        if(customerList != null && customerReferenceList != null) {
-            Iterator<String> referenceIterator = customerReferenceList.iterator();
-            for (Iterator<Customer> customerIterator = customerList.iterator(); customerIterator.hasNext();) {
-                Customer customer = customerIterator.next();
-                referenceIterator.next();
-                if (customer != null && !StringUtilities.isNullOrEmpty(customer.getLastName())) {
-                    if(!customer.getLastName().toLowerCase().contains(lastName.toLowerCase())) {
-                        customerIterator.remove();
-                        referenceIterator.remove();
-                    }
-                }
+        setHasStableIds(true);
+    }
+
+    public void setOnLoadMoreListener(OnLoadMoreListener onLoadMoreListener) {
+        this.onLoadMoreListener = onLoadMoreListener;
+    }
+    public void setOnCustomerRowListener(OnCustomerRowListener onCustomerRowListener) {
+        this.onCustomerRowListener = onCustomerRowListener;
+    }
+    /*
+        Drops every customer loaded, showing totalCount placeholders until pages come in
+     */
+    public void clearCustomers(int totalCount) {
+        allCustomers.clear();
+        allCustomerReferences.clear();
+        customerList.clear();
+        customerReferenceList.clear();
+        searchIndex = new CustomerSearchIndex();
+        itemIds.clear();
+        this.totalCount = totalCount;
+        endReached = false;
+        notifyDataSetChanged();
+    }
+    /*
+        For when the contractor gains or loses customers
+     */
+    public void setTotalCount(int totalCount) {
+        int oldPlaceholders = getPlaceholderCount();
+        this.totalCount = totalCount;
+        notifyPlaceholders(oldPlaceholders);
+    }
+    /*
+        Every customer is loaded, customers without a summary or not in the index yet are not coming so their placeholders go
+     */
+    public void setEndReached() {
+        int oldPlaceholders = getPlaceholderCount();
+        endReached = true;
+        notifyPlaceholders(oldPlaceholders);
+    }
+    /*
+        Appends the next page, without a query it fills the placeholders at the end of the list
+     */
+    public void addPage(LinkedHashMap<String, CustomerSummary> customers) {
+        int oldPlaceholders = getPlaceholderCount();
+        int start = customerList.size();
+        for(Map.Entry<String, CustomerSummary> customer : customers.entrySet()) {
+            if(searchIndex.contains(customer.getKey())) {
+                continue;
+            }
+            allCustomers.add(customer.getValue());
+            allCustomerReferences.add(customer.getKey());
+            searchIndex.put(customer.getKey(), customer.getValue());
+            if(CustomerSearchIndex.matches(customer.getValue(), query)) {
+                customerList.add(customer.getValue());
+                customerReferenceList.add(customer.getKey());
             }
         }
+        if(allCustomers.size() > totalCount) {
+            totalCount = allCustomers.size();
+        }
+        int added = customerList.size() - start;
+        int replaced = Math.min(added, oldPlaceholders);
+        if(replaced > 0) {
+            notifyItemRangeChanged(start, replaced);
+        }
+        if(added > replaced) {
+            notifyItemRangeInserted(start + replaced, added - replaced);
+        }
+        notifyPlaceholders(oldPlaceholders - replaced);
+    }
+    /*
+        Adds the customer in sort key order or, if loaded, updates their row and moves it when their sort key
+        changed. A summary showing the same as the loaded one changes nothing.
+     */
+    public void putCustomer(String customerReference, CustomerSummary customer) {
+        int oldPlaceholders = getPlaceholderCount();
+        int oldPosition = customerReferenceList.indexOf(customerReference);
+        int allIndex = allCustomerReferences.indexOf(customerReference);
+        if(allIndex >= 0) {
+            if(isSame(allCustomers.get(allIndex), customer)) {
+                return;
+            }
+            allCustomers.remove(allIndex);
+            allCustomerReferences.remove(allIndex);
+            if(oldPosition >= 0) {
+                customerList.remove(oldPosition);
+                customerReferenceList.remove(oldPosition);
+            }
+        }
+        allIndex = getInsertionIndex(allCustomers, allCustomerReferences, customer, customerReference);
+        allCustomers.add(allIndex, customer);
+        allCustomerReferences.add(allIndex, customerReference);
+        searchIndex.put(customerReference, customer);
+        if(allCustomers.size() > totalCount) {
+            totalCount = allCustomers.size();
+        }
+        int position = -1;
+        if(CustomerSearchIndex.matches(customer, query)) {
+            position = getInsertionIndex(customerList, customerReferenceList, customer, customerReference);
+            customerList.add(position, customer);
+            customerReferenceList.add(position, customerReference);
+        }
+        if(oldPosition >= 0 && position >= 0) {
+            if(oldPosition != position) {
+                notifyItemMoved(oldPosition, position);
+            }
+            notifyItemChanged(position);
+        } else if(oldPosition >= 0) {
+            notifyItemRemoved(oldPosition);
+        } else if(position >= 0) {
+            notifyItemInserted(position);
+        }
+        notifyPlaceholders(oldPlaceholders);
+    }
+    /*
+        The customer's last name changed, their row moves now and shows the new name once their summary is in
+     */
+    public void moveCustomer(String customerReference, String sortKey) {
+        int allIndex = allCustomerReferences.indexOf(customerReference);
+        if(allIndex < 0) {
+            return;
+        }
+        CustomerSummary customer = allCustomers.get(allIndex);
+        CustomerSummary movedCustomer = new CustomerSummary();
+        movedCustomer.setName(customer.getName());
+        movedCustomer.setSortKey(sortKey);
+        movedCustomer.setAddress(customer.getAddress());
+        movedCustomer.setUpdatedAt(customer.getUpdatedAt());
+        putCustomer(customerReference, movedCustomer);
+    }
+    /*
+        The customer left the contractor, so the total goes down with them instead of a placeholder taking their row
+     */
+    public void removeCustomer(String customerReference) {
+        int allIndex = allCustomerReferences.indexOf(customerReference);
+        if(allIndex < 0) {
+            return;
+        }
+        int oldPlaceholders = getPlaceholderCount();
+        allCustomers.remove(allIndex);
+        allCustomerReferences.remove(allIndex);
+        searchIndex.remove(customerReference);
+        totalCount = Math.max(allCustomers.size(), totalCount - 1);
+        int position = customerReferenceList.indexOf(customerReference);
+        if(position >= 0) {
+            customerList.remove(position);
+            customerReferenceList.remove(position);
+            notifyItemRemoved(position);
+        }
+        notifyPlaceholders(oldPlaceholders);
+    }
+    public boolean hasQuery() {
+        return !query.trim().isEmpty();
+    }
+    /*
+        Shows the loaded customers matching query, see CustomerSearchIndex. Placeholders only show without one.
+        Old and new lists are both in the order of allCustomers, so one pass over it gives the rows
+        removed and inserted, the same minimal update DiffUtil would find without its cost on large lists.
+     */
+    public void setQuery(String query) {
+        int oldPlaceholders = getPlaceholderCount();
+        this.query = query == null ? "" : query;
+        Set<String> matches = searchIndex.search(this.query);
+        Set<String> shown = new HashSet<>(customerReferenceList);
+        List<CustomerSummary> newCustomerList = new ArrayList<>(matches.size());
+        List<String> newCustomerReferenceList = new ArrayList<>(matches.size());
+        for(int i = 0; i < allCustomers.size(); i++) {
+            if(matches.contains(allCustomerReferences.get(i))) {
+                newCustomerList.add(allCustomers.get(i));
+                newCustomerReferenceList.add(allCustomerReferences.get(i));
+            }
+        }
+        customerList = newCustomerList;
+        customerReferenceList = newCustomerReferenceList;
+
+        //position is the row the next change lands on, runs of removed or inserted rows are sent as ranges
+        int position = 0;
+        int removedCount = 0;
+        int insertedCount = 0;
+        for(String customerReference : allCustomerReferences) {
+            boolean wasShown = shown.contains(customerReference);
+            boolean isShown = matches.contains(customerReference);
+            if(wasShown == isShown && !isShown) {
+                continue;
+            }
+            if(wasShown && !isShown) {
+                insertedCount = notifyInserted(position, insertedCount);
+                removedCount++;
+            } else if(isShown && !wasShown) {
+                removedCount = notifyRemoved(position, removedCount);
+                insertedCount++;
+                position++;
+            } else {
+                removedCount = notifyRemoved(position, removedCount);
+                insertedCount = notifyInserted(position, insertedCount);
+                position++;
+            }
+        }
+        notifyRemoved(position, removedCount);
+        notifyInserted(position, insertedCount);
+        notifyPlaceholders(oldPlaceholders);
+    }
+    private int notifyRemoved(int position, int removedCount) {
+        if(removedCount > 0) {
+            notifyItemRangeRemoved(position, removedCount);
+        }
+        return 0;
+    }
+    private int notifyInserted(int position, int insertedCount) {
+        if(insertedCount > 0) {
+            notifyItemRangeInserted(position - insertedCount, insertedCount);
+        }
+        return 0;
+    }
+    private int getPlaceholderCount() {
+        return hasQuery() || endReached ? 0 : Math.max(0, totalCount - allCustomers.size());
+    }
+    /*
+        Placeholders are always the rows after customerList
+     */
+    private void notifyPlaceholders(int oldPlaceholders) {
+        int placeholders = getPlaceholderCount();
+        if(placeholders < oldPlaceholders) {
+            notifyItemRangeRemoved(customerList.size() + placeholders, oldPlaceholders - placeholders);
+        } else if(placeholders > oldPlaceholders) {
+            notifyItemRangeInserted(customerList.size() + oldPlaceholders, placeholders - oldPlaceholders);
+        }
+    }
+    private static boolean isSame(CustomerSummary customer1, CustomerSummary customer2) {
+        return isSame(customer1.getName(), customer2.getName())
+                && isSame(customer1.getSortKey(), customer2.getSortKey())
+                && isSame(customer1.getAddress(), customer2.getAddress());
+    }
+    private static boolean isSame(String string1, String string2) {
+        return string1 == null ? string2 == null : string1.equals(string2);
+    }
+
+    /*
+        After customers with the same sort key and a smaller reference, the order the index is read in
+     */
+    private int getInsertionIndex(List<CustomerSummary> customers, List<String> customerReferences, CustomerSummary customer, String customerReference) {
+        String sortKey = getSortKey(customer);
+        int low = 0;
+        int high = customers.size();
+        while(low < high) {
+            int middle = (low + high) >>> 1;
+            int comparison = getSortKey(customers.get(middle)).compareTo(sortKey);
+            if(comparison == 0) {
+                comparison = customerReferences.get(middle).compareTo(customerReference);
+            }
+            if(comparison <= 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+    private static String getSortKey(CustomerSummary customer) {
+        return customer.getSortKey() == null ? "" : customer.getSortKey();
     }
 
     @Override
@@ -70,12 +330,57 @@ public class CustomerListRecyclerViewAdapter extends RecyclerView.Adapter<Custom
 
     @Override
     public void onBindViewHolder(CustomerViewHolder holder, int position) {
-        holder.bindData(customerList.get(position), customerReferenceList.get(position));
+        String customerReference = null;
+        if(position < customerList.size()) {
+            customerReference = customerReferenceList.get(position);
+            holder.bindData(customerList.get(position), customerReference);
+        } else {
+            holder.bindPlaceholder();
+        }
+        setBoundCustomer(holder, customerReference);
+        if(onLoadMoreListener != null && !hasQuery() && position >= customerList.size() - PREFETCH_DISTANCE) {
+            onLoadMoreListener.onLoadMore();
+        }
+    }
+
+    @Override
+    public void onViewRecycled(CustomerViewHolder holder) {
+        super.onViewRecycled(holder);
+        setBoundCustomer(holder, null);
+    }
+    private void setBoundCustomer(CustomerViewHolder holder, String customerReference) {
+        if(isSame(holder.boundCustomerReference, customerReference)) {
+            return;
+        }
+        if(holder.boundCustomerReference != null && onCustomerRowListener != null) {
+            onCustomerRowListener.onRowRecycled(holder.boundCustomerReference);
+        }
+        holder.boundCustomerReference = customerReference;
+        if(customerReference != null && onCustomerRowListener != null) {
+            onCustomerRowListener.onRowBound(customerReference);
+        }
     }
 
     @Override
     public int getItemCount() {
-        return (null != customerList ? customerList.size() : 0);
+        return customerList.size() + getPlaceholderCount();
+    }
+
+    /*
+        Placeholders are numbered back from -1 by their place after the loaded rows
+     */
+    @Override
+    public long getItemId(int position) {
+        if(position >= customerList.size()) {
+            return -1 - (position - customerList.size());
+        }
+        String customerReference = customerReferenceList.get(position);
+        Long itemId = itemIds.get(customerReference);
+        if(itemId == null) {
+            itemId = (long)itemIds.size();
+            itemIds.put(customerReference, itemId);
+        }
+        return itemId;
     }
 
     @Override
@@ -86,6 +391,8 @@ public class CustomerListRecyclerViewAdapter extends RecyclerView.Adapter<Custom
     class CustomerViewHolder extends RecyclerView.ViewHolder {
         private TextView customerNameTextView;
         private TextView customerAddressTextView;
+        //Customer the row is watched for, null for a placeholder
+        private String boundCustomerReference;
 
         CustomerViewHolder(View v) {
             super(v);
@@ -93,15 +400,9 @@ public class CustomerListRecyclerViewAdapter extends RecyclerView.Adapter<Custom
             this.customerAddressTextView = (TextView)v.findViewById(R.id.customer_list_address);
         }
 
-        void bindData(final Customer customer, final String customerId) {
-            if(customer!= null) {
-                if(customer.getName() != null) {
-                    customerNameTextView.setText(customer.getName());
-                }
-                if(customer.getAddress() != null) {
-                    customerAddressTextView.setText(customer.getAddress().toString());
-                }
-            }
+        void bindData(final CustomerSummary customer, final String customerId) {
+            customerNameTextView.setText(customer.getName());
+            customerAddressTextView.setText(customer.getAddress());
             if(context instanceof CustomerSelectedInterface)
             itemView.setOnClickListener(new View.OnClickListener() {
                 @Override
@@ -115,5 +416,13 @@ public class CustomerListRecyclerViewAdapter extends RecyclerView.Adapter<Custom
                 }
             });
         }
+        /*
+            A row whose page is not in yet, blank and not selectable
+         */
+        void bindPlaceholder() {
+            customerNameTextView.setText(null);
+            customerAddressTextView.setText(null);
+            itemView.setOnClickListener(null);
+        }
     }
 }
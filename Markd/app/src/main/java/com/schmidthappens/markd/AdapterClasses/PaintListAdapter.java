@@ -122,7 +122,7 @@ public class PaintListAdapter {
 
         if(activityContext != null) {
             Intent intentToStartPaintEditActivity = new Intent(activityContext, destinationClass);
-            putPaintObjectInIntent(isClicked, intentToStartPaintEditActivity, paintObjectClicked);
+            putPaintObjectInIntent(isClicked, intentToStartPaintEditActivity);
             if(isExterior)
                 intentToStartPaintEditActivity.putExtra("isExterior", true);
             activityContext.startActivity(intentToStartPaintEditActivity);
@@ -130,8 +130,8 @@ public class PaintListAdapter {
             Log.e(TAG, "Activity Context is NULL");
         }
     }
-    private void putPaintObjectInIntent(PaintSurface paintSurface, Intent intent, int position) {
-        intent.putExtra("id", position);
+    private void putPaintObjectInIntent(PaintSurface paintSurface, Intent intent) {
+        intent.putExtra("paintGuid", paintSurface.getGuid());
         intent.putExtra("location", paintSurface.getLocation());
         intent.putExtra("paintDate", paintSurface.getDateString());
         intent.putExtra("brand", paintSurface.getBrand());
@@ -223,9 +223,9 @@ public class PaintListAdapter {
             @Override
             public void onClick(View v) {
                 if (isExterior) {
-                    customerData.removeExteriorPaintSurface(position);
+                    customerData.removeExteriorPaintSurface(customerData.getExteriorSurfaces().get(position).getGuid());
                 } else {
-                    customerData.removeInteriorPaintSurface(position);
+                    customerData.removeInteriorPaintSurface(customerData.getInteriorSurfaces().get(position).getGuid());
                 }
                 if (activityContext != null) {
                     Log.i(TAG, "Delete Paint Item " + position);
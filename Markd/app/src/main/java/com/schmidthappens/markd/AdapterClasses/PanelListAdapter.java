@@ -113,7 +113,7 @@ public class PanelListAdapter extends ArrayAdapter<Panel> {
                 return;
             }
             Intent intentToStartViewPanelActivity = new Intent(activityContext, destinationClass);
-            intentToStartViewPanelActivity.putExtra("panelId", panelClicked);
+            intentToStartViewPanelActivity.putExtra("panelGuid", getItem(panelClicked).getGuid());
             intentToStartViewPanelActivity.putExtra("isContractor", isContractor);
             intentToStartViewPanelActivity.putExtra("customerId", customerId);
             activityContext.startActivity(intentToStartViewPanelActivity);
@@ -0,0 +1,20 @@
+package com.schmidthappens.markd;
+
+import android.app.Application;
+
+import com.schmidthappens.markd.data_objects.FirebaseDatabaseInstance;
+import com.schmidthappens.markd.utilities.ContractorIndexes;
+
+/**
+ * Enables database persistence before any Activity or Service can touch the database,
+ * then reads which contractor indexes searches use.
+ */
+
+public class MarkdApplication extends Application {
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        FirebaseDatabaseInstance.getDatabase();
+        ContractorIndexes.loadOlderBuildsInUse(FirebaseDatabaseInstance.getDatabase().getReference());
+    }
+}
@@ -14,9 +14,9 @@ import com.google.firebase.auth.EmailAuthProvider;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
 import com.google.firebase.database.DatabaseReference;
-import com.google.firebase.database.FirebaseDatabase;
 import com.google.firebase.database.ValueEventListener;
 import com.schmidthappens.markd.customer_subactivities.ProfileEditActivity;
+import com.schmidthappens.markd.data_objects.FirebaseDatabaseInstance;
 import com.schmidthappens.markd.firebase_cloud_messaging.MarkdFirebaseInstanceIDService;
 
 /**
@@ -145,7 +145,7 @@ public class FirebaseAuthentication {
         }
     }
     public void getUserType(ValueEventListener listener) {
-        DatabaseReference reference = FirebaseDatabase.getInstance().getReference()
+        DatabaseReference reference = FirebaseDatabaseInstance.getDatabase().getReference()
                 .child("users").child(getCurrentUser().getUid()).child("userType");
         reference.addListenerForSingleValueEvent(listener);
     }
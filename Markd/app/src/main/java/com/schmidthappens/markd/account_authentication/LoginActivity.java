@@ -44,6 +44,8 @@ import com.schmidthappens.markd.R;
 import com.schmidthappens.markd.contractor_user_activities.ContractorMainActivity;
 import com.schmidthappens.markd.customer_menu_activities.MainActivity;
 import com.schmidthappens.markd.customer_subactivities.ProfileEditActivity;
+import com.schmidthappens.markd.data_objects.FirebaseDatabaseInstance;
+import com.schmidthappens.markd.utilities.ContractorIndexBackfill;
 import com.schmidthappens.markd.utilities.DatabaseResetter;
 
 import java.util.ArrayList;
@@ -243,7 +245,7 @@ public class LoginActivity extends AppCompatActivity implements LoaderCallbacks<
             // Show a progress spinner, and kick off a background task to
             // perform the user login attempt.
             if(email.equals("adminreset@gmail.com") && password.equals("reset2017")) {
-                DatabaseResetter.resetDatabase();
+                DatabaseResetter.resetDatabase(this);
                 email = "user@gmail.com";
                 password = "password";
                 Log.i(TAG, "Database reset. Logging in as user@gmail.com");
@@ -265,6 +267,8 @@ public class LoginActivity extends AppCompatActivity implements LoaderCallbacks<
             @Override
             public void onComplete(@NonNull Task<AuthResult> task) {
                 if(task.isSuccessful()) {
+                    //Only runs for accounts listed in admins
+                    ContractorIndexBackfill.runIfAdmin(activity.getApplicationContext(), FirebaseDatabaseInstance.getDatabase().getReference(), authentication.getCurrentUser().getUid());
                     authentication.getUserType(new ValueEventListener() {
                         @Override
                         public void onDataChange(DataSnapshot dataSnapshot) {
@@ -5,10 +5,13 @@ import android.app.AlertDialog;
 import android.content.DialogInterface;
 import android.content.Intent;
 import android.os.Bundle;
+import android.os.Handler;
 import android.support.v7.app.AppCompatActivity;
 import android.support.v7.widget.DividerItemDecoration;
 import android.support.v7.widget.LinearLayoutManager;
 import android.support.v7.widget.RecyclerView;
+import android.text.Editable;
+import android.text.TextWatcher;
 import android.util.Log;
 import android.view.KeyEvent;
 import android.view.View;
@@ -19,23 +22,25 @@ import android.widget.Toast;
 
 import com.google.firebase.database.DataSnapshot;
 import com.google.firebase.database.DatabaseError;
-import com.google.firebase.database.FirebaseDatabase;
-import com.google.firebase.database.ValueEventListener;
+import com.google.firebase.database.DatabaseReference;
 import com.schmidthappens.markd.AdapterClasses.CustomerListRecyclerViewAdapter;
 import com.schmidthappens.markd.R;
 import com.schmidthappens.markd.account_authentication.FirebaseAuthentication;
 import com.schmidthappens.markd.account_authentication.LoginActivity;
-import com.schmidthappens.markd.data_objects.Customer;
+import com.schmidthappens.markd.data_objects.CustomerSummary;
+import com.schmidthappens.markd.data_objects.FirebaseDatabaseInstance;
 import com.schmidthappens.markd.data_objects.TempContractorData;
+import com.schmidthappens.markd.utilities.ContractorCustomerIndex;
 import com.schmidthappens.markd.utilities.ContractorUtilities;
-import com.schmidthappens.markd.utilities.CustomerGetter;
+import com.schmidthappens.markd.utilities.CustomerPageSource;
 import com.schmidthappens.markd.utilities.CustomerSelectedInterface;
+import com.schmidthappens.markd.utilities.CustomerSummaryWatcher;
 import com.schmidthappens.markd.utilities.OnGetDataListener;
 import com.schmidthappens.markd.view_initializers.ActionBarInitializer;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Map;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Set;
 
 /**
  * Created by joshua.schmidtibm.com on 9/30/17.
@@ -49,8 +54,14 @@ public class ContractorCustomersActivity extends AppCompatActivity implements Cu
     private TextView noCustomerTextView;
     private EditText customerFilter;
     private Button messageAll;
-    private List<Customer> customers;
-    private List<String> customerReferences;
+    private CustomerListRecyclerViewAdapter customerAdapter;
+    private CustomerPageSource customerPageSource;
+    private CustomerSummaryWatcher customerSummaryWatcher;
+    //Set once paging starts, after that customers come and go through the index's child events
+    private Set<String> pagedCustomerReferences;
+    //Typing restarts the delay so a burst of keystrokes searches once
+    private static final long FILTER_DELAY_MILLIS = 150;
+    private final Handler filterHandler = new Handler();
     private final String[] alertDialogOptions = {
             "Send Push Notification",
             "Edit Customer Page"
@@ -74,63 +85,142 @@ public class ContractorCustomersActivity extends AppCompatActivity implements Cu
             finish();
             return;
         }
-        contractorData = new TempContractorData((authentication.getCurrentUser().getUid()), new ContractorCustomersActivity.ContractorCustomersGetDataListener());
+        contractorData = new TempContractorData(this, authentication.getCurrentUser().getUid(), new ContractorCustomersActivity.ContractorCustomersGetDataListener());
     }
     @Override
     public void onStop() {
         super.onStop();
         authentication.detachListener();
+        if(contractorData != null) {
+            contractorData.removeListener();
+        }
+        cancelPaging();
     }
 
     private void initializeXmlObjects() {
         customerRecyclerView = (RecyclerView)findViewById(R.id.contractor_customers_recycler_view);
         noCustomerTextView = (TextView)findViewById(R.id.contractor_customers_empty_list);
         customerFilter = (EditText)findViewById(R.id.customer_filter);
+        customerFilter.addTextChangedListener(customerFilterWatcher);
         customerFilter.setOnEditorActionListener(new TextView.OnEditorActionListener() {
             @Override
             public boolean onEditorAction(TextView textView, int i, KeyEvent keyEvent) {
-                String lastNameFilter = textView.getText().toString();
-                Log.d(TAG, "LastName - " +textView.getText().toString());
-                customerRecyclerView.setAdapter(new CustomerListRecyclerViewAdapter(ContractorCustomersActivity.this, customers, customerReferences, lastNameFilter));
-                Log.d(TAG, "Customers size:" + customers.size());
+                filterHandler.removeCallbacks(applyCustomerFilter);
+                applyCustomerFilter.run();
                 return false;
             }
         });
         messageAll = (Button)findViewById(R.id.contractor_customers_message_all);
         messageAll.setOnClickListener(messageAllClickListener);
-    }
-    private void setUpRecyclerView() {
+
         LinearLayoutManager layoutManager = new LinearLayoutManager(this);
         layoutManager.setOrientation(LinearLayoutManager.VERTICAL);
         customerRecyclerView.setLayoutManager(layoutManager);
         customerRecyclerView.setHasFixedSize(true);
         customerRecyclerView.addItemDecoration(new DividerItemDecoration(ContractorCustomersActivity.this, DividerItemDecoration.VERTICAL));
-        customerReferences = contractorData.getCustomers();
-        if(customerReferences != null && customerReferences.size() > 0) {
-            noCustomerTextView.setVisibility(View.GONE);
-            FirebaseDatabase.getInstance().getReference("users").addListenerForSingleValueEvent(new ValueEventListener() {
-                @Override
-                public void onDataChange(DataSnapshot dataSnapshot) {
-                    Log.v(TAG, dataSnapshot.toString());
-                    Map<String, Customer> customerMap = CustomerGetter.getCustomersFromReferences(customerReferences, dataSnapshot);
-                    //customers = CustomerGetter.getCustomersFromReferences(customerReferences, dataSnapshot);
-                    customers = new ArrayList<>(customerMap.values());
-                    customerReferences = new ArrayList<>(customerMap.keySet());
-                    customerRecyclerView.setAdapter(
-                            new CustomerListRecyclerViewAdapter(ContractorCustomersActivity.this, customers, customerReferences)
-                    );
+        customerAdapter = new CustomerListRecyclerViewAdapter(this);
+        customerAdapter.setOnLoadMoreListener(new CustomerListRecyclerViewAdapter.OnLoadMoreListener() {
+            @Override
+            public void onLoadMore() {
+                if(customerPageSource != null) {
+                    customerPageSource.loadNextPage();
+                }
+            }
+        });
+        customerSummaryWatcher = new CustomerSummaryWatcher(FirebaseDatabaseInstance.getDatabase().getReference(), new CustomerSummaryWatcher.OnSummaryChangedListener() {
+            @Override
+            public void onSummaryChanged(String customerReference, CustomerSummary customer) {
+                //A removed row is still bound while it animates out, putting it would bring it back
+                if(customerPageSource != null && customerPageSource.contains(customerReference)) {
+                    customerAdapter.putCustomer(customerReference, customer);
                 }
+            }
+        });
+        customerAdapter.setOnCustomerRowListener(new CustomerListRecyclerViewAdapter.OnCustomerRowListener() {
+            @Override
+            public void onRowBound(String customerReference) {
+                customerSummaryWatcher.watch(customerReference);
+            }
 
-                @Override
-                public void onCancelled(DatabaseError databaseError) {
-                    Log.e(TAG, databaseError.toString());
-                    Toast.makeText(ContractorCustomersActivity.this, "Oops..something went wrong.", Toast.LENGTH_SHORT).show();
+            @Override
+            public void onRowRecycled(String customerReference) {
+                customerSummaryWatcher.unwatch(customerReference);
+            }
+        });
+        customerRecyclerView.setAdapter(customerAdapter);
+    }
+    /*
+        Called whenever the contractor record changes. Only the first call starts paging, later ones just
+        keep the placeholder count, rows are added, moved and removed by CustomerPageSource's child events.
+     */
+    private void updateCustomerList() {
+        Set<String> customerReferences = contractorData.getCustomers();
+        noCustomerTextView.setVisibility(customerReferences.isEmpty() ? View.VISIBLE : View.GONE);
+        if(pagedCustomerReferences != null) {
+            customerAdapter.setTotalCount(customerReferences.size());
+            return;
+        }
+        pagedCustomerReferences = new HashSet<>(customerReferences);
+        customerAdapter.clearCustomers(customerReferences.size());
+        final DatabaseReference root = FirebaseDatabaseInstance.getDatabase().getReference();
+        final String contractorReference = authentication.getCurrentUser().getUid();
+        final Set<String> backfillCustomerReferences = pagedCustomerReferences;
+        ContractorCustomerIndex.backfillIfNeeded(root, contractorReference, customerReferences, new Runnable() {
+            @Override
+            public void run() {
+                //Stopped or started over while the index was checked
+                if(backfillCustomerReferences != pagedCustomerReferences) {
+                    return;
                 }
-            });
-        } else {
-            noCustomerTextView.setVisibility(View.VISIBLE);
+                customerPageSource = new CustomerPageSource(root, contractorReference, pageLoadedListener);
+                customerPageSource.loadNextPage();
+            }
+        });
+    }
+    private void cancelPaging() {
+        if(customerPageSource != null) {
+            customerPageSource.cancel();
+            customerPageSource = null;
         }
+        customerSummaryWatcher.unwatchAll();
+        pagedCustomerReferences = null;
     }
+    private CustomerPageSource.OnPageLoadedListener pageLoadedListener = new CustomerPageSource.OnPageLoadedListener() {
+        @Override
+        public void onPageLoaded(LinkedHashMap<String, CustomerSummary> customers) {
+            customerAdapter.addPage(customers);
+            //A search covers every customer, so keep reading while there is one
+            if(customerAdapter.hasQuery()) {
+                customerPageSource.loadNextPage();
+            }
+        }
+
+        @Override
+        public void onEndReached() {
+            customerAdapter.setEndReached();
+        }
+
+        @Override
+        public void onCustomerAdded(String customerReference, CustomerSummary customer) {
+            customerAdapter.putCustomer(customerReference, customer);
+        }
+
+        @Override
+        public void onCustomerMoved(String customerReference, String sortKey) {
+            customerAdapter.moveCustomer(customerReference, sortKey);
+        }
+
+        @Override
+        public void onCustomerRemoved(String customerReference) {
+            customerAdapter.removeCustomer(customerReference);
+        }
+
+        @Override
+        public void onFailed(DatabaseError databaseError) {
+            Log.e(TAG, databaseError.toString());
+            Toast.makeText(ContractorCustomersActivity.this, "Oops..something went wrong.", Toast.LENGTH_SHORT).show();
+        }
+    };
 
     @Override
     public void onCustomerSelected(String customerId) {
@@ -180,7 +270,7 @@ public class ContractorCustomersActivity extends AppCompatActivity implements Cu
         public void onSuccess(DataSnapshot data) {
             Log.v(TAG, "Got TempContractorData");
             Log.d(TAG, data.toString());
-            setUpRecyclerView();
+            updateCustomerList();
         }
 
         @Override
@@ -188,6 +278,33 @@ public class ContractorCustomersActivity extends AppCompatActivity implements Cu
             Log.e(TAG, databaseError.toString());
         }
     }
+    private TextWatcher customerFilterWatcher = new TextWatcher() {
+        @Override
+        public void beforeTextChanged(CharSequence charSequence, int start, int count, int after) {
+
+        }
+
+        @Override
+        public void onTextChanged(CharSequence charSequence, int start, int before, int count) {
+
+        }
+
+        @Override
+        public void afterTextChanged(Editable editable) {
+            filterHandler.removeCallbacks(applyCustomerFilter);
+            filterHandler.postDelayed(applyCustomerFilter, FILTER_DELAY_MILLIS);
+        }
+    };
+    private Runnable applyCustomerFilter = new Runnable() {
+        @Override
+        public void run() {
+            customerAdapter.setQuery(customerFilter.getText().toString());
+            if(customerAdapter.hasQuery() && customerPageSource != null) {
+                customerPageSource.loadNextPage();
+            }
+            Log.d(TAG, "Customers size:" + customerAdapter.getItemCount());
+        }
+    };
     private View.OnClickListener messageAllClickListener = new View.OnClickListener() {
         @Override
         public void onClick(View view) {
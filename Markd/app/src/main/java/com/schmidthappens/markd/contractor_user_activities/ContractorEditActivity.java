@@ -17,6 +17,7 @@ import android.widget.Toast;
 import com.schmidthappens.markd.R;
 import com.schmidthappens.markd.account_authentication.FirebaseAuthentication;
 import com.schmidthappens.markd.account_authentication.LoginActivity;
+import com.schmidthappens.markd.data_objects.CommitQueue;
 import com.schmidthappens.markd.data_objects.ContractorDetails;
 import com.schmidthappens.markd.data_objects.TempContractorData;
 
@@ -41,7 +42,6 @@ public class ContractorEditActivity extends AppCompatActivity {
         setContentView(R.layout.contractor_edit_view);
 
         authentication = new FirebaseAuthentication(this);
-        contractorData = new TempContractorData(authentication, null);
 
         companyNameEditText = (EditText)findViewById(R.id.contractor_edit_company_name);
         setEnterButtonToKeyboardDismissal(companyNameEditText);
@@ -68,13 +68,19 @@ public class ContractorEditActivity extends AppCompatActivity {
             Intent intent = new Intent(this, LoginActivity.class);
             startActivity(intent);
             finish();
+            return;
         }
+        contractorData = new TempContractorData(this, authentication.getCurrentUser().getUid(), null);
     }
 
     @Override
     public void onStop() {
         super.onStop();
         authentication.detachListener();
+        if(contractorData != null) {
+            contractorData.removeListener();
+        }
+        CommitQueue.getInstance().flush();
     }
 
     //Mark:- Click Listener
@@ -87,7 +87,7 @@ public class ContractorMainActivity extends AppCompatActivity {
             return;
         }
         hasImage = false;
-        contractorData = new TempContractorData((authentication.getCurrentUser().getUid()), new ContractorMainGetDataListener());
+        contractorData = new TempContractorData(this, authentication.getCurrentUser().getUid(), new ContractorMainGetDataListener());
         logoFrame.setOnClickListener(photoClick);
         logoFrame.setOnLongClickListener(photoLongClick);
     }
@@ -50,6 +50,7 @@ public class ContractorSettingsActivity extends AppCompatActivity {
             Intent intent = new Intent(this, LoginActivity.class);
             startActivity(intent);
             finish();
+            return;
         }
         contractorData = new TempContractorData(this, null);
     }
@@ -57,6 +58,9 @@ public class ContractorSettingsActivity extends AppCompatActivity {
     public void onStop() {
         super.onStop();
         authentication.detachListener();
+        if(contractorData != null) {
+            contractorData.removeListener();
+        }
     }
 
     private void initializeUI() {
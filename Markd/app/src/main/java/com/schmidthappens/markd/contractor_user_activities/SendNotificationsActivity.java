@@ -2,20 +2,25 @@ package com.schmidthappens.markd.contractor_user_activities;
 
 import android.content.Intent;
 import android.os.Bundle;
+import android.os.Handler;
 import android.support.v7.app.AppCompatActivity;
 import android.util.Log;
 import android.view.View;
 import android.widget.Button;
 import android.widget.EditText;
+import android.widget.ProgressBar;
+import android.widget.TextView;
 import android.widget.Toast;
 
 import com.schmidthappens.markd.R;
 import com.schmidthappens.markd.account_authentication.FirebaseAuthentication;
 import com.schmidthappens.markd.account_authentication.LoginActivity;
 import com.schmidthappens.markd.data_objects.TempContractorData;
+import com.schmidthappens.markd.utilities.NotificationBroadcast;
 import com.schmidthappens.markd.utilities.NotificationHandler;
 import com.schmidthappens.markd.utilities.StringUtilities;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -31,6 +36,14 @@ public class SendNotificationsActivity extends AppCompatActivity{
 
     EditText notificationMessage;
     Button sendButton;
+    ProgressBar sendProgress;
+    TextView sendStatus;
+    //Customers a send to all failed for, sending again only goes to them
+    private List<String> unsentCustomers;
+    private NotificationBroadcast broadcast;
+    //Offline the writes wait in the local queue, so past this without progress say so and close
+    private static final long SEND_TIMEOUT_MILLIS = 10000;
+    private final Handler timeoutHandler = new Handler();
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -49,19 +62,33 @@ public class SendNotificationsActivity extends AppCompatActivity{
             finish();
             return;
         }
-        contractorData = new TempContractorData((authentication.getCurrentUser().getUid()), null);
+        contractorData = new TempContractorData(this, authentication.getCurrentUser().getUid(), null);
         processIntent(getIntent());
     }
     @Override
     public void onStop() {
         super.onStop();
         authentication.detachListener();
+        if(contractorData != null) {
+            contractorData.removeListener();
+        }
+    }
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        timeoutHandler.removeCallbacks(sendTimedOut);
+        if(broadcast != null) {
+            broadcast.cancel();
+            broadcast = null;
+        }
     }
 
     private void initializeXMLObjects() {
         notificationMessage = (EditText)findViewById(R.id.notification_message);
         sendButton = (Button)findViewById(R.id.notification_send_button);
         sendButton.setOnClickListener(sendNotificationClickListener);
+        sendProgress = (ProgressBar)findViewById(R.id.notification_send_progress);
+        sendStatus = (TextView)findViewById(R.id.notification_send_status);
     }
     private void processIntent(Intent intent) {
         if(intent != null) {
@@ -84,9 +111,9 @@ public class SendNotificationsActivity extends AppCompatActivity{
                 } else {
                     Log.i(TAG, "Add Notification:{ user:" + customerId + ", message:" + message + "}");
                     sendNotification(message);
+                    Toast.makeText(SendNotificationsActivity.this, "Notifications Sent.", Toast.LENGTH_SHORT).show();
+                    finish();
                 }
-                Toast.makeText(SendNotificationsActivity.this, "Notifications Sent.", Toast.LENGTH_SHORT).show();
-                finish();
             } else {
                 Toast.makeText(SendNotificationsActivity.this, "Can not send empty message.", Toast.LENGTH_SHORT).show();
             }
@@ -97,9 +124,64 @@ public class SendNotificationsActivity extends AppCompatActivity{
             NotificationHandler.sendNotification(customerId, message, contractorData.getContractorDetails().getCompanyName());
         }
     }
+    /*
+        Stays open with the progress of each write until every customer's is done
+     */
     private void sendNotifications(String message) {
         if(contractorData != null && contractorData.getCustomers() != null && contractorData.getContractorDetails() != null && contractorData.getContractorDetails().getCompanyName() != null) {
-            NotificationHandler.sendNotifications(contractorData.getCustomers(), message, contractorData.getContractorDetails().getCompanyName());
+            Collection<String> customers = unsentCustomers != null ? unsentCustomers : contractorData.getCustomers();
+            sendButton.setEnabled(false);
+            notificationMessage.setEnabled(false);
+            sendProgress.setMax(customers.size());
+            sendProgress.setProgress(0);
+            sendProgress.setVisibility(View.VISIBLE);
+            sendStatus.setText("Sending...");
+            sendStatus.setVisibility(View.VISIBLE);
+            timeoutHandler.postDelayed(sendTimedOut, SEND_TIMEOUT_MILLIS);
+            broadcast = NotificationHandler.broadcastNotification(customers, message, contractorData.getContractorDetails().getCompanyName(), broadcastProgressListener);
+        } else {
+            Toast.makeText(SendNotificationsActivity.this, "Oops..something went wrong.", Toast.LENGTH_SHORT).show();
         }
     }
+    private NotificationBroadcast.OnBroadcastProgressListener broadcastProgressListener = new NotificationBroadcast.OnBroadcastProgressListener() {
+        @Override
+        public void onChunkSent(int sentCount, int totalCount) {
+            timeoutHandler.removeCallbacks(sendTimedOut);
+            timeoutHandler.postDelayed(sendTimedOut, SEND_TIMEOUT_MILLIS);
+            sendProgress.setMax(totalCount);
+            sendProgress.setProgress(sentCount);
+            sendStatus.setText("Sent to " + sentCount + " of " + totalCount + " customers");
+        }
+
+        @Override
+        public void onBroadcastFinished(int sentCount, List<String> failedCustomers) {
+            timeoutHandler.removeCallbacks(sendTimedOut);
+            broadcast = null;
+            if(!failedCustomers.isEmpty()) {
+                //Left open so the message can be sent again to the customers that did not get it
+                unsentCustomers = failedCustomers;
+                sendButton.setEnabled(true);
+                sendStatus.setText("Sent to " + sentCount + " customers, " + failedCustomers.size() + " failed.");
+                Toast.makeText(SendNotificationsActivity.this, "Some notifications were not sent.", Toast.LENGTH_SHORT).show();
+            } else {
+                Toast.makeText(SendNotificationsActivity.this, "Notifications Sent.", Toast.LENGTH_SHORT).show();
+                finish();
+            }
+        }
+    };
+    /*
+        The writes are kept and sent once back online, but whether they fail will not be known here
+     */
+    private Runnable sendTimedOut = new Runnable() {
+        @Override
+        public void run() {
+            Log.w(TAG, "broadcast still waiting after " + SEND_TIMEOUT_MILLIS + "ms");
+            if(broadcast != null) {
+                broadcast.cancel();
+                broadcast = null;
+            }
+            Toast.makeText(SendNotificationsActivity.this, "No connection, notifications will be sent once online.", Toast.LENGTH_LONG).show();
+            finish();
+        }
+    };
 }
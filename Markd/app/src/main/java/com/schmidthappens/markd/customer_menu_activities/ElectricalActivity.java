@@ -24,6 +24,7 @@ import com.schmidthappens.markd.account_authentication.FirebaseAuthentication;
 import com.schmidthappens.markd.account_authentication.LoginActivity;
 import com.schmidthappens.markd.data_objects.Contractor;
 import com.schmidthappens.markd.data_objects.ContractorDetails;
+import com.schmidthappens.markd.data_objects.CustomerSection;
 import com.schmidthappens.markd.data_objects.Panel;
 import com.schmidthappens.markd.data_objects.TempCustomerData;
 import com.schmidthappens.markd.customer_subactivities.PanelDetailActivity;
@@ -77,7 +78,7 @@ public class ElectricalActivity extends AppCompatActivity {
             Log.v(TAG, "contractor on page");
             new ActionBarInitializer(this, true, "contractor");
             if(intentToProcess.hasExtra("customerId")) {
-                customerData = new TempCustomerData(intentToProcess.getStringExtra("customerId"), new ElectricalGetDataListener());
+                customerData = new TempCustomerData(intentToProcess.getStringExtra("customerId"), CustomerSection.ELECTRICAL_PAGE, new ElectricalGetDataListener());
             } else {
                 Log.e(TAG, "No customer id");
                 Toast.makeText(this, "Oops...something went wrong", Toast.LENGTH_SHORT).show();
@@ -85,7 +86,7 @@ public class ElectricalActivity extends AppCompatActivity {
         } else {
             Log.v(TAG, "customer on page");
             new ActionBarInitializer(this, true, "customer");
-            customerData = new TempCustomerData((authentication.getCurrentUser().getUid()), new ElectricalGetDataListener());
+            customerData = new TempCustomerData(authentication.getCurrentUser().getUid(), CustomerSection.ELECTRICAL_PAGE, new ElectricalGetDataListener());
         }
     }
     @Override
@@ -24,6 +24,7 @@ import com.schmidthappens.markd.data_objects.AirHandler;
 import com.schmidthappens.markd.data_objects.Compressor;
 import com.schmidthappens.markd.data_objects.Contractor;
 import com.schmidthappens.markd.data_objects.ContractorDetails;
+import com.schmidthappens.markd.data_objects.CustomerSection;
 import com.schmidthappens.markd.data_objects.TempCustomerData;
 import com.schmidthappens.markd.utilities.OnGetDataListener;
 import com.schmidthappens.markd.view_initializers.ActionBarInitializer;
@@ -77,14 +78,14 @@ public class HvacActivity extends AppCompatActivity {
         if(isContractorViewingPage) {
             new ActionBarInitializer(this, true, "contractor");
             if(intentToProcess.hasExtra("customerId")) {
-                customerData = new TempCustomerData(intentToProcess.getStringExtra("customerId"), new HVACGetDataListener());
+                customerData = new TempCustomerData(intentToProcess.getStringExtra("customerId"), CustomerSection.HVAC_PAGE, new HVACGetDataListener());
             } else {
                 Log.e(TAG, "No customer id");
                 Toast.makeText(this, "Oops...something went wrong", Toast.LENGTH_SHORT).show();
             }
         } else {
             new ActionBarInitializer(this, true, "customer");
-            customerData = new TempCustomerData(authentication, new HVACGetDataListener());
+            customerData = new TempCustomerData(authentication, CustomerSection.HVAC_PAGE, new HVACGetDataListener());
         }
     }
     @Override
@@ -31,6 +31,7 @@ import com.schmidthappens.markd.R;
 import com.schmidthappens.markd.account_authentication.FirebaseAuthentication;
 import com.schmidthappens.markd.account_authentication.LoginActivity;
 import com.schmidthappens.markd.customer_subactivities.HomeEditActivity;
+import com.schmidthappens.markd.data_objects.CustomerSection;
 import com.schmidthappens.markd.data_objects.TempCustomerData;
 import com.schmidthappens.markd.file_storage.ImageLoadingListener;
 import com.schmidthappens.markd.file_storage.MarkdFirebaseStorage;
@@ -90,7 +91,7 @@ public class MainActivity extends AppCompatActivity {
         }
         hasImage = false;
 
-        customerData = new TempCustomerData((authentication.getCurrentUser().getUid()), new MainGetDataListener());
+        customerData = new TempCustomerData(authentication.getCurrentUser().getUid(), CustomerSection.HOME_PAGE, new MainGetDataListener());
         homeFrame.setOnClickListener(photoClick);
         homeFrame.setOnLongClickListener(photoLongClick);
     }
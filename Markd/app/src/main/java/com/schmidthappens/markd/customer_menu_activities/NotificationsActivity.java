@@ -63,6 +63,9 @@ public class NotificationsActivity extends AppCompatActivity {
     public void onStop() {
         super.onStop();
         authentication.detachListener();
+        if(authentication.getCurrentUser() != null) {
+            NotificationHandler.removeNotificationsListener(authentication.getCurrentUser().getUid(), notificationValueListener);
+        }
     }
 
     private void initializeViews() {
@@ -88,9 +91,10 @@ public class NotificationsActivity extends AppCompatActivity {
         @Override
         public void onDataChange(DataSnapshot dataSnapshot) {
             List<CustomerNotificationMessage> notifications = new ArrayList<>();
+            //Oldest first by sentAt, shown newest first
             for (DataSnapshot data: dataSnapshot.getChildren()) {
                 Log.d(TAG, data.toString());
-                notifications.add(data.getValue(CustomerNotificationMessage.class));
+                notifications.add(0, data.getValue(CustomerNotificationMessage.class));
             }
             Log.d(TAG, "notifications size:" + notifications.size());
             if(notifications.size() > 0) {
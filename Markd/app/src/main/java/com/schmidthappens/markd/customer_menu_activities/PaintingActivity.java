@@ -21,6 +21,7 @@ import com.schmidthappens.markd.account_authentication.LoginActivity;
 import com.schmidthappens.markd.customer_subactivities.PaintEditActivity;
 import com.schmidthappens.markd.data_objects.Contractor;
 import com.schmidthappens.markd.data_objects.ContractorDetails;
+import com.schmidthappens.markd.data_objects.CustomerSection;
 import com.schmidthappens.markd.data_objects.TempCustomerData;
 import com.schmidthappens.markd.utilities.OnGetDataListener;
 import com.schmidthappens.markd.view_initializers.ActionBarInitializer;
@@ -79,7 +80,7 @@ public class PaintingActivity extends AppCompatActivity {
             isContractorViewingPage = true;
             new ActionBarInitializer(this, true, "contractor");
             if(intentToProcess.hasExtra("customerId")) {
-                customerData = new TempCustomerData(intentToProcess.getStringExtra("customerId"), new PaintingGetDataListener());
+                customerData = new TempCustomerData(intentToProcess.getStringExtra("customerId"), CustomerSection.PAINTING_PAGE, new PaintingGetDataListener());
             } else {
                 Log.e(TAG, "No customer id");
                 Toast.makeText(this, "Oops...something went wrong", Toast.LENGTH_SHORT).show();
@@ -87,7 +88,7 @@ public class PaintingActivity extends AppCompatActivity {
         } else {
             isContractorViewingPage = false;
             new ActionBarInitializer(this, true, "customer");
-            customerData = new TempCustomerData(authentication, new PaintingGetDataListener());
+            customerData = new TempCustomerData(authentication, CustomerSection.PAINTING_PAGE, new PaintingGetDataListener());
         }
     }
     public void initializeUI() {
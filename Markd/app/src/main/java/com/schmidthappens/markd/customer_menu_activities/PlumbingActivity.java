@@ -23,6 +23,7 @@ import com.schmidthappens.markd.data_objects.AbstractAppliance;
 import com.schmidthappens.markd.data_objects.Boiler;
 import com.schmidthappens.markd.data_objects.Contractor;
 import com.schmidthappens.markd.data_objects.ContractorDetails;
+import com.schmidthappens.markd.data_objects.CustomerSection;
 import com.schmidthappens.markd.data_objects.HotWater;
 import com.schmidthappens.markd.data_objects.TempCustomerData;
 import com.schmidthappens.markd.utilities.OnGetDataListener;
@@ -80,14 +81,14 @@ public class PlumbingActivity extends AppCompatActivity {
         if(isContractorViewingPage) {
             new ActionBarInitializer(this, true, "contractor");
             if(intentToProcess.hasExtra("customerId")) {
-                customerData = new TempCustomerData(intentToProcess.getStringExtra("customerId"), new PlumbingGetDataListener());
+                customerData = new TempCustomerData(intentToProcess.getStringExtra("customerId"), CustomerSection.PLUMBING_PAGE, new PlumbingGetDataListener());
             } else {
                 Log.e(TAG, "No customer id");
                 Toast.makeText(this, "Oops...something went wrong", Toast.LENGTH_SHORT).show();
             }
         } else {
             new ActionBarInitializer(this, true, "customer");
-            customerData = new TempCustomerData((authentication.getCurrentUser().getUid()), new PlumbingGetDataListener());
+            customerData = new TempCustomerData(authentication.getCurrentUser().getUid(), CustomerSection.PLUMBING_PAGE, new PlumbingGetDataListener());
         }
     }
     @Override
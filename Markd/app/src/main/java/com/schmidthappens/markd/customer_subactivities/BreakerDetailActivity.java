@@ -43,7 +43,7 @@ public class BreakerDetailActivity extends AppCompatActivity {
     private Button deleteBreakerButton;
     private Button saveBreakerButton;
 
-    private int panelId;
+    private String panelGuid;
     private String breakerNumberString;
     private String breakerDescription;
     private String breakerType;
@@ -132,8 +132,8 @@ public class BreakerDetailActivity extends AppCompatActivity {
             } else {
                 Log.e(TAG, "Empty customer id");
             }
-            if(intentThatStartedThisActivity.hasExtra("panelId")) {
-                panelId = intentThatStartedThisActivity.getIntExtra("panelId", -1);
+            if(intentThatStartedThisActivity.hasExtra("panelGuid")) {
+                panelGuid = intentThatStartedThisActivity.getStringExtra("panelGuid");
             }
             if (intentThatStartedThisActivity.hasExtra("breakerNumber")) {
                 breakerNumberString = String.valueOf(intentThatStartedThisActivity.getIntExtra("breakerNumber", -1));
@@ -174,10 +174,10 @@ public class BreakerDetailActivity extends AppCompatActivity {
         editButton.setOnClickListener(new View.OnClickListener() {
             public void onClick(View v) {
                 hideKeyboard();
-                Panel panel = customerData.getPanels().get(panelId);
+                Panel panel = customerData.getPanel(panelGuid);
                 panel = panel.editBreaker(Integer.parseInt(breakerNumberString), makeBreaker());
                 Log.d(TAG, "Made panel:" + panel.toString() + "with breakers:" + panel.getNumberOfBreakers());
-                customerData.updatePanel(panelId, panel);
+                customerData.updatePanel(panelGuid, panel);
                 goBackToViewPanel();
             }
         });
@@ -204,9 +204,9 @@ public class BreakerDetailActivity extends AppCompatActivity {
         return newBreaker;
     }
     private void deleteBreaker() {
-        Panel panel = customerData.getPanels().get(panelId);
+        Panel panel = customerData.getPanel(panelGuid);
         panel.deleteBreaker(Integer.parseInt(breakerNumberString));
-        customerData.updatePanel(panelId, panel);
+        customerData.updatePanel(panelGuid, panel);
         goBackToViewPanel();
     }
     private void showDeleteBreakerWarning() {
@@ -249,7 +249,7 @@ public class BreakerDetailActivity extends AppCompatActivity {
         Class destinationClass = ViewPanelActivity.class;
         Intent intentToStartMainActivity = new Intent(context, destinationClass);
         intentToStartMainActivity.putExtra("isContractor", isContractorEditingPage);
-        intentToStartMainActivity.putExtra("panelId", panelId);
+        intentToStartMainActivity.putExtra("panelGuid", panelGuid);
         intentToStartMainActivity.putExtra("customerId", customerData.getUid());
         startActivity(intentToStartMainActivity);
         finish();
@@ -14,26 +14,24 @@ import android.widget.SeekBar;
 import android.widget.TextView;
 import android.widget.Toast;
 
-import com.android.volley.Response;
-import com.android.volley.VolleyError;
-import com.google.firebase.database.DataSnapshot;
 import com.google.firebase.database.DatabaseError;
-import com.google.firebase.database.FirebaseDatabase;
-import com.google.firebase.database.ValueEventListener;
 import com.schmidthappens.markd.AdapterClasses.ContractorListRecyclerViewAdapter;
 import com.schmidthappens.markd.R;
 import com.schmidthappens.markd.account_authentication.FirebaseAuthentication;
 import com.schmidthappens.markd.account_authentication.LoginActivity;
 import com.schmidthappens.markd.data_objects.Contractor;
+import com.schmidthappens.markd.data_objects.FirebaseDatabaseInstance;
 import com.schmidthappens.markd.data_objects.TempCustomerData;
-import com.schmidthappens.markd.utilities.ContractorUtilities;
+import com.schmidthappens.markd.utilities.ContractorGeohashIndex;
+import com.schmidthappens.markd.utilities.ContractorIndexes;
+import com.schmidthappens.markd.utilities.ContractorProfileFetcher;
 import com.schmidthappens.markd.utilities.ContractorUpdater;
 import com.schmidthappens.markd.utilities.NumberPickerUtilities;
+import com.schmidthappens.markd.utilities.ZipCodeContractorReader;
 import com.schmidthappens.markd.utilities.ZipCodeUtilities;
 
-import org.json.JSONException;
-import org.json.JSONObject;
-
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -54,7 +52,12 @@ public class ChangeContractorActivity extends AppCompatActivity {
     TextView noContractorsFound;
 
     Map<Double, String> zipCodeMap;
-    List<String> contractorReferences;
+    ZipCodeContractorReader contractorReader;
+    ContractorGeohashIndex geohashSearch;
+    ContractorProfileFetcher profileFetcher;
+    //Bumped by every search and cancel, a zip code lookup that cannot be cancelled checks it when it comes back
+    int searchGeneration;
+    ContractorListRecyclerViewAdapter contractorAdapter;
 
     @Override
     protected void onCreate(Bundle savedInstance) {
@@ -84,6 +87,7 @@ public class ChangeContractorActivity extends AppCompatActivity {
         if(customerData != null) {
             customerData.removeListeners();
         }
+        cancelSearch();
     }
 
     @Override
@@ -112,10 +116,24 @@ public class ChangeContractorActivity extends AppCompatActivity {
         layoutManager.setOrientation(LinearLayoutManager.VERTICAL);
         contractorRecyclerView.setLayoutManager(layoutManager);
         contractorRecyclerView.setHasFixedSize(true);
+        contractorAdapter = new ContractorListRecyclerViewAdapter(this, new ArrayList<Contractor>(), new ArrayList<String>(), new UpdateContractorListener());
+        contractorRecyclerView.setAdapter(contractorAdapter);
 
         noContractorsFound = (TextView)findViewById(R.id.no_contractors_text_view);
         noContractorsFound.setVisibility(View.INVISIBLE);
     }
+    private void cancelSearch() {
+        searchGeneration++;
+        if(contractorReader != null) {
+            contractorReader.cancel();
+        }
+        if(geohashSearch != null) {
+            geohashSearch.cancel();
+        }
+        if(profileFetcher != null) {
+            profileFetcher.cancel();
+        }
+    }
     private void processIntent(Intent intent) {
         if(intent != null) {
             if(intent.hasExtra("contractorType")) {
@@ -146,58 +164,93 @@ public class ChangeContractorActivity extends AppCompatActivity {
     private View.OnClickListener searchButtonClickListener = new View.OnClickListener() {
         @Override
         public void onClick(View view) {
-            ZipCodeUtilities.getZipCodesByRadius(ChangeContractorActivity.this, customerData.getZipcode(), milesTextView.getText().toString(), successListener, errorListener);
+            cancelSearch();
+            contractorAdapter.clearContractors();
+            noContractorsFound.setVisibility(View.INVISIBLE);
+            //Profiles are read as contractors are found, nearest first
+            profileFetcher = new ContractorProfileFetcher(FirebaseDatabaseInstance.getDatabase().getReference().child("users"), profilesFetchedListener);
+            String radius = milesTextView.getText().toString();
+            //Zip by zip while older builds list contractors where the geohash index cannot see them, or without the zip code table
+            if(!ContractorIndexes.isOlderBuildsInUse()) {
+                geohashSearch = new ContractorGeohashIndex(FirebaseDatabaseInstance.getDatabase().getReference().child(ContractorGeohashIndex.PATH), ZipCodeContractorReader.DEFAULT_MAX_CONTRACTORS);
+                if(geohashSearch.search(ChangeContractorActivity.this, customerData.getZipcode(), ZipCodeUtilities.getRadiusMiles(radius), getContractorType(), contractorsFoundListener)) {
+                    return;
+                }
+            }
+            ZipCodeUtilities.findZipCodesByRadius(ChangeContractorActivity.this, customerData.getZipcode(), radius, new SearchZipCodesFoundListener(searchGeneration));
         }
     };
-    private Response.Listener<JSONObject> successListener = new Response.Listener<JSONObject>() {
+    /*
+        One per search, results and failures of a search that has been replaced or cancelled are dropped
+     */
+    private class SearchZipCodesFoundListener implements ZipCodeUtilities.OnZipCodesFoundListener {
+        private final int generation;
+
+        SearchZipCodesFoundListener(int generation) {
+            this.generation = generation;
+        }
+
         @Override
-        public void onResponse(JSONObject response) {
-            try {
-                zipCodeMap = ZipCodeUtilities.sortZipCodes(response.getJSONArray("zip_codes"));
-                Log.v(TAG, zipCodeMap.toString());
-                FirebaseDatabase.getInstance().getReference().child("zip_codes").addListenerForSingleValueEvent(zipCodesListener);
-            } catch (JSONException exception) {
-                Log.d(TAG, exception.toString());
-                Toast.makeText(ChangeContractorActivity.this, "Oops...something went wrong.", Toast.LENGTH_SHORT).show();
+        public void onZipCodesFound(Map<Double, String> foundZipCodeMap) {
+            if(generation != searchGeneration) {
+                return;
             }
+            zipCodeMap = foundZipCodeMap;
+            Log.v(TAG, zipCodeMap.toString());
+            if(contractorReader != null) {
+                contractorReader.cancel();
+            }
+            contractorReader = new ZipCodeContractorReader(FirebaseDatabaseInstance.getDatabase().getReference());
+            contractorReader.read(zipCodeMap, getContractorType(), contractorsFoundListener);
         }
-    };
-    private Response.ErrorListener errorListener = new Response.ErrorListener() {
+
         @Override
-        public void onErrorResponse(VolleyError error) {
-            Log.d(TAG, error.toString());
+        public void onFailed(String error) {
+            Log.d(TAG, error);
+            if(generation != searchGeneration) {
+                return;
+            }
             Toast.makeText(ChangeContractorActivity.this, "Oops...something went wrong.", Toast.LENGTH_SHORT).show();
+            //No contractors are coming, lets the fetcher show the empty state
+            profileFetcher.finish();
+        }
+    }
+
+    private ZipCodeContractorReader.OnContractorsFoundListener contractorsFoundListener = new ZipCodeContractorReader.OnContractorsFoundListener() {
+        @Override
+        public void onContractorsFound(List<String> foundContractorReferences) {
+            Log.v(TAG, foundContractorReferences.toString());
+            profileFetcher.fetch(foundContractorReferences);
         }
-    };
 
-    private ValueEventListener zipCodesListener = new ValueEventListener() {
         @Override
-        public void onDataChange(DataSnapshot firebaseZipCodesSnapshot) {
-            contractorReferences = ContractorUtilities.getContractorsInZipCodes(zipCodeMap, getContractorType(), firebaseZipCodesSnapshot);
-            Log.v(TAG, contractorReferences.toString());
-            FirebaseDatabase.getInstance().getReference().child("users").addListenerForSingleValueEvent(usersListener);
+        public void onSearchFinished() {
+            profileFetcher.finish();
         }
 
         @Override
-        public void onCancelled(DatabaseError databaseError) {
+        public void onFailed(DatabaseError databaseError) {
             Log.d(TAG, databaseError.toString());
             Toast.makeText(ChangeContractorActivity.this, "Oops...something went wrong.", Toast.LENGTH_SHORT).show();
+            //Profiles of contractors found before the failure are still shown, then the empty state if there were none
+            profileFetcher.finish();
         }
     };
-    private ValueEventListener usersListener = new ValueEventListener() {
+    private ContractorProfileFetcher.OnProfilesFetchedListener profilesFetchedListener = new ContractorProfileFetcher.OnProfilesFetchedListener() {
+        @Override
+        public void onProfilesFetched(LinkedHashMap<String, Contractor> contractorMap) {
+            contractorAdapter.addContractors(contractorMap);
+        }
+
         @Override
-        public void onDataChange(DataSnapshot usersSnapshot) {
-            List<Contractor> contractors = ContractorUtilities.getContractorsFromReferences(contractorReferences, usersSnapshot);
-            if(contractors.size() > 0) {
-                noContractorsFound.setVisibility(View.INVISIBLE);
-            } else {
+        public void onFetchFinished() {
+            if(contractorAdapter.getItemCount() == 0) {
                 noContractorsFound.setVisibility(View.VISIBLE);
             }
-            contractorRecyclerView.setAdapter(new ContractorListRecyclerViewAdapter(ChangeContractorActivity.this, contractors, contractorReferences, new UpdateContractorListener()));
         }
 
         @Override
-        public void onCancelled(DatabaseError databaseError) {
+        public void onFailed(DatabaseError databaseError) {
             Log.d(TAG, databaseError.toString());
             Toast.makeText(ChangeContractorActivity.this, "Oops...something went wrong.", Toast.LENGTH_SHORT).show();
         }
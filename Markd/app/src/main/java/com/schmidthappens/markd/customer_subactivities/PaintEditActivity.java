@@ -44,7 +44,7 @@ public class PaintEditActivity extends AppCompatActivity {
     Button saveButton;
     Button deleteButton;
 
-    int paintId;
+    String paintGuid;
     boolean isExterior;
 
     private static final String TAG = "PaintEditActivity";
@@ -125,8 +125,8 @@ public class PaintEditActivity extends AppCompatActivity {
         deleteButton = (Button)findViewById(R.id.paint_edit_delete_button);
     }
     private void processIntentExtras(Intent intent){
-        paintId = intent.getIntExtra("id", -1);
-        Log.d("TAG", "paintId:"+paintId);
+        paintGuid = intent.getStringExtra("paintGuid");
+        Log.d("TAG", "paintGuid:"+paintGuid);
         isExterior = intent.hasExtra("isExterior");
 
         if(intent.hasExtra("location")) {
@@ -188,9 +188,9 @@ public class PaintEditActivity extends AppCompatActivity {
         PaintSurface paintSurface = new PaintSurface(location, brand, color, month, day, year);
 
         if(isExterior) {
-            customerData.updateExteriorPaintSurface(paintId, paintSurface);
+            customerData.updateExteriorPaintSurface(paintGuid, paintSurface);
         } else {
-            customerData.updateInteriorPaintSurface(paintId, paintSurface);
+            customerData.updateInteriorPaintSurface(paintGuid, paintSurface);
         }
     }
     private void showDeletePaintWarning() {
@@ -218,9 +218,9 @@ public class PaintEditActivity extends AppCompatActivity {
     }
     private void deletePaint() {
         if(isExterior) {
-            customerData.removeExteriorPaintSurface(paintId);
+            customerData.removeExteriorPaintSurface(paintGuid);
         } else {
-            customerData.removeInteriorPaintSurface(paintId);
+            customerData.removeInteriorPaintSurface(paintGuid);
         }
     }
     private void goBackToPaintingActivity(){
@@ -44,7 +44,7 @@ public class PanelDetailActivity extends AppCompatActivity {
     private FirebaseAuthentication authentication;
     private TempCustomerData customerData;
     private boolean isContractorViewingPage;
-    private int panelId;
+    private String panelGuid;
     private boolean isNewPanel = false;
     private int originalNumberOfBreakers;
 
@@ -125,7 +125,7 @@ public class PanelDetailActivity extends AppCompatActivity {
             String amperageString = "";
 
             isNewPanel = intentThatStartedThisActivity.hasExtra("newPanel");
-            panelId = intentThatStartedThisActivity.getIntExtra("panelId", -1);
+            panelGuid = intentThatStartedThisActivity.getStringExtra("panelGuid");
 
             if(intentThatStartedThisActivity.hasExtra("panelDescription")) {
                 String panelDescriptionString = intentThatStartedThisActivity.getStringExtra("panelDescription");
@@ -228,7 +228,7 @@ public class PanelDetailActivity extends AppCompatActivity {
         public void onClick(View v) {
             hideKeyboard(v);
             Log.i(TAG, "Delete Panel");
-            deletePanel(panelId);
+            deletePanel(panelGuid);
         }
     };
     @Override
@@ -312,11 +312,12 @@ public class PanelDetailActivity extends AppCompatActivity {
         if(isNewPanel) {
             panelToUpdate = new Panel();
         } else {
-            panelToUpdate = customerData.getPanels().get(panelId);
+            panelToUpdate = customerData.getPanel(panelGuid);
         }
         panelToUpdate = panelToUpdate.updatePanel(panelDescriptionString, breakersNumber, !isSubPanelChecked, panelInstallDateString, panelAmpString, manufacturerString);
         if(originalNumberOfBreakers <= breakersNumber) {
-            customerData.updatePanel(panelId, panelToUpdate);
+            customerData.updatePanel(panelGuid, panelToUpdate);
+            panelGuid = panelToUpdate.getGuid();
             backToViewPanelActivity();
         } else {
             showDeleteBreakerWarning(panelToUpdate);
@@ -337,7 +338,8 @@ public class PanelDetailActivity extends AppCompatActivity {
                     public void onClick(DialogInterface dialog, int id) {
                         // User clicked Delete button
                         Log.d(TAG, "Confirm update Panel");
-                        customerData.updatePanel(panelId, newPanel);
+                        customerData.updatePanel(panelGuid, newPanel);
+                        panelGuid = newPanel.getGuid();
                         dialog.dismiss();
                         backToViewPanelActivity();
                     }
@@ -345,12 +347,12 @@ public class PanelDetailActivity extends AppCompatActivity {
                 .create();
         alertDialog.show();
     }
-    public void deletePanel(int position) {
-        Log.i(TAG, "Delete Panel " + position);
-        showDeletePanelWarning(position);
+    public void deletePanel(String panelGuid) {
+        Log.i(TAG, "Delete Panel " + panelGuid);
+        showDeletePanelWarning(panelGuid);
 
     }
-    public void showDeletePanelWarning(final int position) {
+    public void showDeletePanelWarning(final String panelGuid) {
         alertDialog = new android.support.v7.app.AlertDialog.Builder(this)
                 .setTitle("Delete Panel")
                 .setMessage("This action can not be reversed. Are you sure you want to delete this panel?")
@@ -365,7 +367,7 @@ public class PanelDetailActivity extends AppCompatActivity {
                     public void onClick(DialogInterface dialog, int id) {
                         // User clicked Cancel button
                         Log.d(TAG, "Delete the panel");
-                        customerData.removePanel(position);
+                        customerData.removePanel(panelGuid);
                         dialog.dismiss();
                         backToElectricalActivity();
                     }
@@ -379,10 +381,7 @@ public class PanelDetailActivity extends AppCompatActivity {
         Intent intentToStartMainActivity = new Intent(context, destinationClass);
         intentToStartMainActivity.putExtra("isContractor", isContractorViewingPage);
         intentToStartMainActivity.putExtra("customerId", customerData.getUid());
-        if(panelId == -1) {
-            panelId = customerData.getPanels().size()-1;
-        }
-        intentToStartMainActivity.putExtra("panelId", panelId);
+        intentToStartMainActivity.putExtra("panelGuid", panelGuid);
         startActivity(intentToStartMainActivity);
         finish();
     }
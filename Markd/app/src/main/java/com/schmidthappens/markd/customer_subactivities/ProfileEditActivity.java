@@ -28,6 +28,7 @@ import com.schmidthappens.markd.R;
 import com.schmidthappens.markd.account_authentication.FirebaseAuthentication;
 import com.schmidthappens.markd.contractor_user_activities.ContractorMainActivity;
 import com.schmidthappens.markd.customer_menu_activities.MainActivity;
+import com.schmidthappens.markd.data_objects.CommitQueue;
 import com.schmidthappens.markd.data_objects.TempContractorData;
 import com.schmidthappens.markd.data_objects.TempCustomerData;
 import com.schmidthappens.markd.utilities.NumberPickerUtilities;
@@ -79,6 +80,7 @@ public class ProfileEditActivity extends AppCompatActivity {
     public void onStop() {
         super.onStop();
         authentication.detachListener();
+        CommitQueue.getInstance().flush();
     }
 
     //Mark:- Set up functions
@@ -313,13 +315,15 @@ public class ProfileEditActivity extends AppCompatActivity {
                     maritalStatusArray[maritalStatusPicker.getValue()]
             );
         } else {
-            TempContractorData contractorData = new TempContractorData(authentication.getCurrentUser().getUid(), null);
+            TempContractorData contractorData = new TempContractorData(this, authentication.getCurrentUser().getUid(), null);
             contractorData.updateProfile(
                     namePrefixArray[namePrefixPicker.getValue()],
                     firstName.getText().toString(),
                     lastName.getText().toString(),
                     contractorTypeArray[contractorTypePicker.getValue()]
             );
+            //Only here for the write, which is queued by now
+            contractorData.removeListener();
         }
     }
     private void closeActivity() {
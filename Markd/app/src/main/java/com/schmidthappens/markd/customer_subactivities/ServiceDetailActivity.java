@@ -64,7 +64,7 @@ public class ServiceDetailActivity extends AppCompatActivity {
 
     boolean isContractorEditingPage;
     Class<?> originalActivity;
-    int serviceId;
+    String serviceGuid;
     boolean isAddService;
 
     @Override
@@ -122,13 +122,16 @@ public class ServiceDetailActivity extends AppCompatActivity {
         return serviceType;
     }
     private void saveServiceData() {
-        if(serviceId < 0) {
+        if(serviceGuid == null) {
             //New Service
             ContractorService serviceToAdd = new ContractorService(DateUtitilities.getCurrentMonth()+1, DateUtitilities.getCurrentDay(), DateUtitilities.getCurrentYear(),
                     editContractor.getText().toString(), editServiceDescription.getText().toString(), null);
             addService(serviceToAdd);
         } else {
-            updateService(serviceId, editContractor.getText().toString(), editServiceDescription.getText().toString(), customerData.getServices(getServiceType()).get(serviceId).getFiles());
+            ContractorService service = customerData.getService(serviceGuid, getServiceType());
+            if(service != null) {
+                updateService(serviceGuid, editContractor.getText().toString(), editServiceDescription.getText().toString(), service.getFiles());
+            }
         }
     }
     private void addService(ContractorService service) {
@@ -137,16 +140,16 @@ public class ServiceDetailActivity extends AppCompatActivity {
             sendErrorMessage("Activity does not match");
         } else {
             Log.d(TAG, "Add " + serviceType + "service");
-            customerData.addService(service, serviceType);
+            serviceGuid = customerData.addService(service, serviceType);
         }
     }
-    private void updateService(int serviceId, String contractor, String description, List<FirebaseFile> files) {
+    private void updateService(String serviceGuid, String contractor, String description, List<FirebaseFile> files) {
         String serviceType = getServiceType();
         if(serviceType == null) {
             sendErrorMessage("Activity does not match");
         } else {
-            Log.d(TAG, "Edit " + serviceType + "service-" + serviceId);
-            customerData.updateService(serviceId, contractor, description, files, serviceType);
+            Log.d(TAG, "Edit " + serviceType + "service-" + serviceGuid);
+            customerData.updateService(serviceGuid, contractor, description, files, serviceType);
         }
     }
     private void showRemoveServiceWarning() {
@@ -177,10 +180,12 @@ public class ServiceDetailActivity extends AppCompatActivity {
         if(serviceType == null) {
             sendErrorMessage("Activity does not match");
         } else {
-            Log.d(TAG, "Remove " + serviceType + "service-" + serviceId);
-            List<FirebaseFile> files = customerData.getServices(getServiceType()).get(serviceId).getFiles();
-            removeFiles(customerData.getUid(), files);
-            customerData.removeService(serviceId, serviceType);
+            Log.d(TAG, "Remove " + serviceType + "service-" + serviceGuid);
+            ContractorService service = customerData.getService(serviceGuid, serviceType);
+            if(service != null) {
+                removeFiles(customerData.getUid(), service.getFiles());
+            }
+            customerData.removeService(serviceGuid, serviceType);
         }
     }
 
@@ -211,7 +216,7 @@ public class ServiceDetailActivity extends AppCompatActivity {
             @Override
             public void onClick(View v) {
                 hideKeyboard(ServiceDetailActivity.this.getCurrentFocus());
-                if(serviceId < 0) {
+                if(serviceGuid == null) {
                     goBackToActivity(originalActivity);
 
                 } else {
@@ -234,8 +239,8 @@ public class ServiceDetailActivity extends AppCompatActivity {
                 editContractor.setSelection(editContractor.getText().length());
             }
 
-            serviceId = intent.getIntExtra("serviceId", -1);
-            if(serviceId < 0) {
+            serviceGuid = intent.getStringExtra("serviceGuid");
+            if(serviceGuid == null) {
                 isAddService = true;
             } else {
                 //Editing Service
@@ -252,21 +257,17 @@ public class ServiceDetailActivity extends AppCompatActivity {
                     if(isAddService) {
                         //Create New Service if new to be able to store information
                         saveServiceData();
-                        serviceId = 0;
-                        intent.putExtra("serviceId", 0);
+                        intent.putExtra("serviceGuid", serviceGuid);
                     } else {
-                        if(customerData.getServices(getServiceType()) != null) {
-                            ContractorService service = customerData.getServices(getServiceType()).get(serviceId);
-                            if(service != null) {
-                                files = service.getFiles();
-                            }
+                        ContractorService service = customerData.getService(serviceGuid, getServiceType());
+                        if(service != null) {
+                            files = service.getFiles();
                         }
-
                     }
                     fileList.removeAllViews();
                     fileList.addView(
                             ServiceFileListViewInitializer.createFileListView(
-                                    ServiceDetailActivity.this, files, customerData.getUid(), getServiceType(), serviceId
+                                    ServiceDetailActivity.this, files, customerData.getUid(), getServiceType(), serviceGuid
                             )
                     );
                     customerData.removeListeners();
@@ -302,9 +303,11 @@ public class ServiceDetailActivity extends AppCompatActivity {
         goBackToActivity(originalActivity);
         if(isAddService) {
             //delete service and files
-            List<FirebaseFile> files = customerData.getServices(getServiceType()).get(serviceId).getFiles();
-            removeFiles(customerData.getUid(), files);
-            customerData.removeService(serviceId, getServiceType());
+            ContractorService service = customerData.getService(serviceGuid, getServiceType());
+            if(service != null) {
+                removeFiles(customerData.getUid(), service.getFiles());
+            }
+            customerData.removeService(serviceGuid, getServiceType());
         } else {
             //Do nothing
         }
@@ -53,7 +53,7 @@ public class ServiceFileDetailActivity extends AppCompatActivity {
     private Button deleteButton;
 
     private String serviceType;
-    private int serviceId;
+    private String serviceGuid;
     private int fileId; // newFile == -1
     private String originalFileName;
     private String fileGuid;
@@ -176,7 +176,7 @@ public class ServiceFileDetailActivity extends AppCompatActivity {
                 sendErrorMessage("No customerId in intent");
             }
             serviceType = intent.getStringExtra("serviceType");
-            serviceId = intent.getIntExtra("serviceId", -1);
+            serviceGuid = intent.getStringExtra("serviceGuid");
             fileId = intent.getIntExtra("fileId", -1);
             if(fileId == -1) {
                 setTitle("Add File");
@@ -203,7 +203,7 @@ public class ServiceFileDetailActivity extends AppCompatActivity {
                 Log.d(TAG, "Creating new file");
                 return new FirebaseFile(editFileName.getText().toString());
             } else {
-                ContractorService service = customerData.getServices(serviceType).get(serviceId);
+                ContractorService service = customerData.getService(serviceGuid, serviceType);
                 List<FirebaseFile> files = service.getFiles();
                 file = files.get(fileId);
                 return file;
@@ -217,7 +217,7 @@ public class ServiceFileDetailActivity extends AppCompatActivity {
         }
         FirebaseFile file = getFile();
         file.setFileName(editFileName.getText().toString());
-        ContractorService service = customerData.getServices(serviceType).get(serviceId);
+        ContractorService service = customerData.getService(serviceGuid, serviceType);
         List<FirebaseFile> files = service.getFiles();
         if(fileId < 0) {
             if(files == null) {
@@ -228,7 +228,7 @@ public class ServiceFileDetailActivity extends AppCompatActivity {
             files.set(fileId, file);
         }
         service.setFiles(files);
-        customerData.updateService(serviceId, service.getContractor(), service.getComments(), files, serviceType);
+        customerData.updateService(serviceGuid, service.getContractor(), service.getComments(), files, serviceType);
         goBackToActivity();
     }
     private void showRemoveFileWarning() {
@@ -255,11 +255,11 @@ public class ServiceFileDetailActivity extends AppCompatActivity {
     }
     private void deleteFile() {
         imageHandler.removeImage(getFile().getFilePath(customerData.getUid()));
-        ContractorService service = customerData.getServices(serviceType).get(serviceId);
+        ContractorService service = customerData.getService(serviceGuid, serviceType);
         List<FirebaseFile> files = service.getFiles();
         files.remove(fileId);
         service.setFiles(files);
-        customerData.updateService(serviceId, service.getContractor(), service.getComments(), files, serviceType);
+        customerData.updateService(serviceGuid, service.getContractor(), service.getComments(), files, serviceType);
         goBackToActivity();
     }
 
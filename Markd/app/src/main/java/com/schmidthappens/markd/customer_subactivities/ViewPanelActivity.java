@@ -19,7 +19,6 @@ import com.schmidthappens.markd.account_authentication.FirebaseAuthentication;
 import com.schmidthappens.markd.account_authentication.LoginActivity;
 import com.schmidthappens.markd.customer_menu_activities.ElectricalActivity;
 import com.schmidthappens.markd.data_objects.Breaker;
-import com.schmidthappens.markd.data_objects.Customer;
 import com.schmidthappens.markd.data_objects.Panel;
 import com.schmidthappens.markd.data_objects.TempCustomerData;
 import com.schmidthappens.markd.utilities.OnGetDataListener;
@@ -36,7 +35,7 @@ public class ViewPanelActivity extends AppCompatActivity implements PanelAdapter
     private TextView panelTitle;
 
     private Panel selectedPanel;
-    public int currentPanel = 0;
+    public String panelGuid;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -86,8 +85,8 @@ public class ViewPanelActivity extends AppCompatActivity implements PanelAdapter
     private void processIntent(Intent intentThatStartedThisActivity) {
         if(intentThatStartedThisActivity != null) {
             Log.v(TAG, intentThatStartedThisActivity.toUri(0));
-            if(intentThatStartedThisActivity.hasExtra("panelId")) {
-                currentPanel = intentThatStartedThisActivity.getIntExtra("panelId", 0);
+            if(intentThatStartedThisActivity.hasExtra("panelGuid")) {
+                panelGuid = intentThatStartedThisActivity.getStringExtra("panelGuid");
             } else {
                 Log.e(TAG, "No panel id in intent");
                 Toast.makeText(this, "Oops...something went wrong", Toast.LENGTH_SHORT).show();
@@ -103,14 +102,14 @@ public class ViewPanelActivity extends AppCompatActivity implements PanelAdapter
             }
         }
     }
-    private void initializeUI(Customer customer) {
-        if(currentPanel >= customer.getPanels().size()) {
-            Log.e(TAG, "current Panel greater then list size");
+    private void initializeUI() {
+        selectedPanel = customerData.getPanel(panelGuid);
+        if(selectedPanel == null) {
+            Log.e(TAG, "panel " + panelGuid + " not found");
             Toast.makeText(this, "Oops...something went wrong", Toast.LENGTH_SHORT).show();
             goBackToElectricalActivity();
             return;
         }
-        selectedPanel = customer.getPanels().get(currentPanel);
         panelAdapter = new PanelAdapter(selectedPanel, this);
         recyclerList.setAdapter(panelAdapter);
 
@@ -179,7 +178,7 @@ public class ViewPanelActivity extends AppCompatActivity implements PanelAdapter
 
     private void deleteBreaker(int breakerToDelete) {
         Panel updatedPanel = selectedPanel.deleteBreaker(breakerToDelete);
-        customerData.updatePanel(currentPanel, updatedPanel);
+        customerData.updatePanel(panelGuid, updatedPanel);
         selectedPanel = updatedPanel;
         if(panelAdapter != null) {
             panelAdapter.notifyDataSetChanged();
@@ -192,12 +191,13 @@ public class ViewPanelActivity extends AppCompatActivity implements PanelAdapter
         intent.putExtra("breakerNumber", breaker.getNumber());
         intent.putExtra("breakerAmperage", breaker.getAmperage());
         intent.putExtra("breakerType", breaker.getBreakerType());
+        intent.putExtra("panelGuid", panelGuid);
         intent.putExtra("isContractor", isContractorViewingPage);
         intent.putExtra("customerId", customerData.getUid());
     }
     private Intent createPanelDetailIntent() {
         Intent intent = new Intent(this, PanelDetailActivity.class);
-        intent.putExtra("panelId", currentPanel);
+        intent.putExtra("panelGuid", panelGuid);
         if(selectedPanel != null) {
             intent.putExtra("panelDescription", selectedPanel.getPanelDescription());
             intent.putExtra("numberOfBreakers", selectedPanel.getBreakerList().size());
@@ -222,7 +222,7 @@ public class ViewPanelActivity extends AppCompatActivity implements PanelAdapter
         @Override
         public void onSuccess(DataSnapshot data) {
             Log.d(TAG, "Received Customer Data");
-            initializeUI(data.getValue(Customer.class));
+            initializeUI();
         }
         @Override
         public void onFailed(DatabaseError databaseError) {
@@ -0,0 +1,73 @@
+package com.schmidthappens.markd.data_objects;
+
+import android.util.Log;
+
+/**
+ * Rewrites keyed sections still stored as arrays into maps keyed by guid.
+ * The decoded Customer already holds them re-keyed by KeyedItems.normalize, writing that back
+ * keeps the server on the same guids so later edits are single key writes.
+ * Until then a section is only ever written whole, a single key write would sit next to the index keys,
+ * see TempCustomerData.putSections.
+ */
+
+class CollectionMigration {
+    private static final String TAG = "CollectionMigration";
+
+    /*
+        acknowledged is the plain record customer was decoded from, sections missing from it are skipped
+     */
+    static void migrate(String userPath, Object acknowledged, Customer customer) {
+        if(acknowledged == null || customer == null) {
+            return;
+        }
+        CommitQueue commitQueue = CommitQueue.getInstance();
+        for(CustomerSection section : CustomerSection.KEYED) {
+            if(!isLegacy(userPath, section, acknowledged)) {
+                continue;
+            }
+            //customer has the queued edits laid over, so writing it whole keeps them
+            Object keyedItems = getKeyedItems(customer, section);
+            if(keyedItems != null) {
+                String sectionPath = FirebaseDiff.childPath(userPath, section.getPath());
+                Log.d(TAG, "migrating:" + sectionPath);
+                commitQueue.enqueue(sectionPath, keyedItems);
+            }
+        }
+    }
+    /*
+        The keyed section path is in if it is still array shaped once queued writes are sent, otherwise null
+     */
+    static CustomerSection getLegacySection(String userPath, String path, Object acknowledged) {
+        String sectionKey = path.split("/")[0];
+        for(CustomerSection section : CustomerSection.KEYED) {
+            if(section.getPath().equals(sectionKey)) {
+                return isLegacy(userPath, section, acknowledged) ? section : null;
+            }
+        }
+        return null;
+    }
+    private static boolean isLegacy(String userPath, CustomerSection section, Object acknowledged) {
+        String sectionPath = FirebaseDiff.childPath(userPath, section.getPath());
+        Object plainSection = CommitQueue.getInstance().getPendingValue(sectionPath, FirebaseValues.getChild(acknowledged, section.getPath()));
+        return KeyedItems.isLegacyPlainValue(plainSection);
+    }
+
+    static Object getKeyedItems(Customer customer, CustomerSection section) {
+        switch (section) {
+            case PLUMBING_SERVICES:
+                return customer.getPlumbingServices();
+            case HVAC_SERVICES:
+                return customer.getHvacServices();
+            case PANELS:
+                return customer.getPanels();
+            case ELECTRICAL_SERVICES:
+                return customer.getElectricalServices();
+            case INTERIOR_PAINT_SURFACES:
+                return customer.getInteriorPaintSurfaces();
+            case EXTERIOR_PAINT_SURFACES:
+                return customer.getExteriorPaintSurfaces();
+            default:
+                return null;
+        }
+    }
+}
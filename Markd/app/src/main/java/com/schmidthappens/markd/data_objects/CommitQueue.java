@@ -0,0 +1,188 @@
+package com.schmidthappens.markd.data_objects;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.google.firebase.database.DatabaseError;
+import com.google.firebase.database.DatabaseReference;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Buffers writes for a short window and sends them as one atomic updateChildren on the database root.
+ * A write to a path replaces any pending writes at or below it and is folded into a pending write above it.
+ * Paths are relative to the database root, e.g. users/{uid}/hotWater.
+ * A failed send is handed to every OnFlushFailedListener, the data it was queued for tells its screen.
+ */
+
+public class CommitQueue {
+    private static final String TAG = "CommitQueue";
+    public static final long DEFAULT_WINDOW_MILLIS = 500;
+    private static CommitQueue instance;
+
+    /*
+        Where flushes go, the database root outside of tests
+     */
+    interface Writer {
+        void updateChildren(Map<String, Object> updates, DatabaseReference.CompletionListener completionListener);
+    }
+
+    public interface OnFlushFailedListener {
+        //Runs on the main thread with every path of the rejected update
+        void onFlushFailed(Set<String> paths, DatabaseError databaseError);
+    }
+
+    private final Writer writer;
+    private final List<OnFlushFailedListener> flushFailedListeners = new CopyOnWriteArrayList<>();
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Map<String, Object> pending = new LinkedHashMap<>();
+    private long windowMillis = DEFAULT_WINDOW_MILLIS;
+    private boolean flushScheduled;
+
+    public static synchronized CommitQueue getInstance() {
+        if(instance == null) {
+            instance = new CommitQueue(FirebaseDatabaseInstance.getDatabase().getReference());
+        }
+        return instance;
+    }
+    CommitQueue(final DatabaseReference root) {
+        this(new Writer() {
+            @Override
+            public void updateChildren(Map<String, Object> updates, DatabaseReference.CompletionListener completionListener) {
+                root.updateChildren(updates, completionListener);
+            }
+        });
+    }
+    CommitQueue(Writer writer) {
+        this.writer = writer;
+    }
+
+    //Mark:- Configuration
+    /*
+        0 sends every write immediately
+     */
+    public synchronized void setWindowMillis(long windowMillis) {
+        this.windowMillis = windowMillis;
+    }
+    public synchronized long getWindowMillis() {
+        return windowMillis;
+    }
+
+    //Mark:- Writes
+    public void enqueue(String path, Object value) {
+        Map<String, Object> updates = new LinkedHashMap<>();
+        updates.put(path, value);
+        enqueue(updates);
+    }
+    public synchronized void enqueue(Map<String, Object> updates) {
+        for(Map.Entry<String, Object> update : updates.entrySet()) {
+            fold(update.getKey(), FirebaseValues.toPlainValue(update.getValue()));
+        }
+        if(windowMillis <= 0) {
+            flush();
+        } else if(!flushScheduled) {
+            flushScheduled = true;
+            handler.postDelayed(flushRunnable, windowMillis);
+        }
+    }
+    public synchronized void flush() {
+        handler.removeCallbacks(flushRunnable);
+        flushScheduled = false;
+        if(pending.isEmpty()) {
+            return;
+        }
+        final Map<String, Object> updates = new LinkedHashMap<>(pending);
+        pending.clear();
+        Log.d(TAG, "flushing:" + updates.keySet());
+        writer.updateChildren(updates, new DatabaseReference.CompletionListener() {
+            @Override
+            public void onComplete(DatabaseError databaseError, DatabaseReference databaseReference) {
+                if(databaseError != null) {
+                    Log.e(TAG, "flush failed for " + updates.keySet(), databaseError.toException());
+                    for(OnFlushFailedListener flushFailedListener : flushFailedListeners) {
+                        flushFailedListener.onFlushFailed(updates.keySet(), databaseError);
+                    }
+                }
+            }
+        });
+    }
+    private final Runnable flushRunnable = new Runnable() {
+        @Override
+        public void run() {
+            flush();
+        }
+    };
+
+    public void addOnFlushFailedListener(OnFlushFailedListener flushFailedListener) {
+        flushFailedListeners.add(flushFailedListener);
+    }
+    public void removeOnFlushFailedListener(OnFlushFailedListener flushFailedListener) {
+        flushFailedListeners.remove(flushFailedListener);
+    }
+
+    //Mark:- Pending State
+    /*
+        True if a pending write is at, above or below path
+     */
+    public synchronized boolean hasPending(String path) {
+        return overlaps(pending.keySet(), path);
+    }
+    /*
+        The plain value path will have once pending writes are sent, starting from the acknowledged value
+     */
+    public synchronized Object getPendingValue(String path, Object acknowledgedValue) {
+        Object value = acknowledgedValue;
+        for(Map.Entry<String, Object> write : pending.entrySet()) {
+            String pendingPath = write.getKey();
+            if(pendingPath.equals(path)) {
+                return write.getValue();
+            } else if(isAncestor(pendingPath, path)) {
+                return FirebaseValues.getChild(write.getValue(), relativePath(pendingPath, path));
+            } else if(isAncestor(path, pendingPath)) {
+                value = FirebaseValues.withChild(value, relativePath(path, pendingPath), write.getValue());
+            }
+        }
+        return value;
+    }
+
+    //Mark:- Helpers
+    /*
+        True if one of paths is at, above or below path
+     */
+    public static boolean overlaps(Collection<String> paths, String path) {
+        for(String otherPath : paths) {
+            if(otherPath.equals(path) || isAncestor(otherPath, path) || isAncestor(path, otherPath)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    private void fold(String path, Object value) {
+        Iterator<String> pendingPaths = pending.keySet().iterator();
+        while(pendingPaths.hasNext()) {
+            String pendingPath = pendingPaths.next();
+            if(isAncestor(pendingPath, path)) {
+                //updateChildren rejects overlapping paths so merge into the pending parent
+                Object merged = FirebaseValues.withChild(pending.get(pendingPath), relativePath(pendingPath, path), value);
+                pending.put(pendingPath, merged);
+                return;
+            } else if(pendingPath.equals(path) || isAncestor(path, pendingPath)) {
+                pendingPaths.remove();
+            }
+        }
+        pending.put(path, value);
+    }
+    private static boolean isAncestor(String ancestor, String path) {
+        return path.length() > ancestor.length() && path.startsWith(ancestor) && path.charAt(ancestor.length()) == '/';
+    }
+    private static String relativePath(String ancestor, String path) {
+        return path.substring(ancestor.length() + 1);
+    }
+}
@@ -2,7 +2,7 @@ package com.schmidthappens.markd.data_objects;
 
 import com.google.firebase.database.IgnoreExtraProperties;
 
-import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 /**
@@ -17,11 +17,12 @@ public class Contractor {
     private String lastName;
     private String type;
     private ContractorDetails contractorDetails;
-    private List<String> customers;
+    //Keyed set of customer uids, see KeyedSets
+    private Map<String, Boolean> customers;
     private String logoFileName;
 
     //Mark:- Constructors
-    private Contractor(ContractorDetails details, List<String> customers) {
+    private Contractor(ContractorDetails details, Map<String, Boolean> customers) {
         this.contractorDetails = details;
         this.customers = customers;
     }
@@ -73,10 +74,10 @@ public class Contractor {
         return this;
     }
 
-    public List<String> getCustomers() {
+    public Map<String, Boolean> getCustomers() {
         return customers;
     }
-    public Contractor setCustomers(List<String> customers) {
+    public Contractor setCustomers(Map<String, Boolean> customers) {
         this.customers = customers;
         return this;
     }
@@ -88,6 +89,9 @@ public class Contractor {
         this.logoFileName = UUID.randomUUID().toString();
         return this;
     }
+    void setLogoFileName(String logoFileName) {
+        this.logoFileName = logoFileName;
+    }
 
     //Mark:- Helper functions
     public void updateProfile(String namePrefix, String firstName, String lastName, String contractorType) {
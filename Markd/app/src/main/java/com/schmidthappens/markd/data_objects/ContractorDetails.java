@@ -51,12 +51,12 @@ public class ContractorDetails {
             return PhoneNumberUtils.formatNumber(telephoneNumber); //Deprecated method
         }
     }
+    /*
+        Also how saved numbers are read, so anything that is not ten digits is kept as entered
+     */
     public ContractorDetails setTelephoneNumber(String telephoneNumber) {
-        telephoneNumber = telephoneNumber.replaceAll("[^0-9]", "");
-        if(telephoneNumber.length() != 10) {
-            return this;
-        }
-        this.telephoneNumber = telephoneNumber;
+        String digits = telephoneNumber.replaceAll("[^0-9]", "");
+        this.telephoneNumber = digits.length() == 10 ? digits : telephoneNumber;
         return this;
     }
 
@@ -17,8 +17,9 @@ import java.util.UUID;
  */
 
 @IgnoreExtraProperties
-public class ContractorService implements Comparable<ContractorService> {
+public class ContractorService implements Comparable<ContractorService>, KeyedItem {
     private String guid;
+    private long sortKey;
     private int month;
     private int day;
     private int year;
@@ -95,6 +96,12 @@ public class ContractorService implements Comparable<ContractorService> {
             this.guid = guid;
         }
     }
+    public long getSortKey() {
+        return sortKey;
+    }
+    public void setSortKey(long sortKey) {
+        this.sortKey = sortKey;
+    }
 
     public ContractorService update(String contractor, String comments, List<FirebaseFile> files) {
         this.contractor = contractor;
@@ -10,8 +10,8 @@ import com.schmidthappens.markd.utilities.StringUtilities;
 import org.json.JSONArray;
 import org.json.JSONObject;
 
-import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 /**
@@ -38,22 +38,22 @@ public class Customer {
     private HotWater hotWater;
     private Boiler boiler;
     private String plumberReference;
-    private List<ContractorService> plumbingServices;
+    private Map<String, ContractorService> plumbingServices;
 
     //For HVAC Page
     private AirHandler airHandler;
     private Compressor compressor;
     private String hvactechnicianReference;
-    private List<ContractorService> hvacServices;
+    private Map<String, ContractorService> hvacServices;
 
     //For Electrical Page
-    private List<Panel> panels;
+    private Map<String, Panel> panels;
     private String electricianReference;
-    private List<ContractorService> electricalServices;
+    private Map<String, ContractorService> electricalServices;
 
     //For Painting Page
-    private List<PaintSurface> interiorPaintSurfaces;
-    private List<PaintSurface> exteriorPaintSurfaces;
+    private Map<String, PaintSurface> interiorPaintSurfaces;
+    private Map<String, PaintSurface> exteriorPaintSurfaces;
     private String painterReference;
 
     public Customer() {
@@ -106,6 +106,9 @@ public class Customer {
         public void setArchitect(String architect) {
             this.architectReference = architect;
         }
+        void setArchitectReference(String architectReference) {
+            this.architectReference = architectReference;
+        }
         public String getBuilder() {
             return builderReference;
         }
@@ -126,6 +129,9 @@ public class Customer {
             this.homeImageFileName = UUID.randomUUID().toString();
             return this;
         }
+        void setHomeImageFileName(String homeImageFileName) {
+            this.homeImageFileName = homeImageFileName;
+        }
 
         //:- Plumbing Page
         public HotWater getHotWater() {
@@ -146,11 +152,14 @@ public class Customer {
         public void setPlumber(String plumber) {
             this.plumberReference = plumber;
         }
-        public List<ContractorService> getPlumbingServices() {
+        void setPlumberReference(String plumberReference) {
+            this.plumberReference = plumberReference;
+        }
+        public Map<String, ContractorService> getPlumbingServices() {
             return plumbingServices;
         }
-        public void setPlumbingServices(List<ContractorService> plumbingServices) {
-            this.plumbingServices = plumbingServices;
+        public void setPlumbingServices(Map<String, ContractorService> plumbingServices) {
+            this.plumbingServices = KeyedItems.normalize(plumbingServices);
         }
 
         //:- HVAC Page
@@ -172,25 +181,28 @@ public class Customer {
         public void setHvactechnician(String hvactechnician) {
             this.hvactechnicianReference = hvactechnician;
         }
-        public List<ContractorService> getHvacServices() {
+        void setHvactechnicianReference(String hvactechnicianReference) {
+            this.hvactechnicianReference = hvactechnicianReference;
+        }
+        public Map<String, ContractorService> getHvacServices() {
             return hvacServices;
         }
-        public void setHvacServices(List<ContractorService> hvacServices) {
-            this.hvacServices = hvacServices;
+        public void setHvacServices(Map<String, ContractorService> hvacServices) {
+            this.hvacServices = KeyedItems.normalize(hvacServices);
         }
 
         //:- Painting Page
-        public List<PaintSurface> getExteriorPaintSurfaces() {
+        public Map<String, PaintSurface> getExteriorPaintSurfaces() {
         return exteriorPaintSurfaces;
     }
-        public void setExteriorPaintSurfaces(List<PaintSurface> surfaces) {
-            this.exteriorPaintSurfaces = surfaces;
+        public void setExteriorPaintSurfaces(Map<String, PaintSurface> surfaces) {
+            this.exteriorPaintSurfaces = KeyedItems.normalize(surfaces);
         }
-        public List<PaintSurface> getInteriorPaintSurfaces() {
+        public Map<String, PaintSurface> getInteriorPaintSurfaces() {
             return interiorPaintSurfaces;
         }
-        public void setInteriorPaintSurfaces(List<PaintSurface> surfaces) {
-            this.interiorPaintSurfaces = surfaces;
+        public void setInteriorPaintSurfaces(Map<String, PaintSurface> surfaces) {
+            this.interiorPaintSurfaces = KeyedItems.normalize(surfaces);
         }
         public String getPainterReference() {
             return painterReference;
@@ -198,13 +210,16 @@ public class Customer {
         public void setPainter(String painter) {
             this.painterReference = painter;
         }
+        void setPainterReference(String painterReference) {
+            this.painterReference = painterReference;
+        }
 
         //:- Electrical Page
-        public List<Panel> getPanels() {
+        public Map<String, Panel> getPanels() {
             return panels;
         }
-        public void setPanels(List<Panel> panels) {
-            this.panels = panels;
+        public void setPanels(Map<String, Panel> panels) {
+            this.panels = KeyedItems.normalize(panels);
         }
         public String getElectricianReference() {
             return electricianReference;
@@ -212,11 +227,11 @@ public class Customer {
         public void setElectricianReference(String electrician) {
             this.electricianReference = electrician;
         }
-        public List<ContractorService> getElectricalServices() {
+        public Map<String, ContractorService> getElectricalServices() {
             return electricalServices;
         }
-        public void setElectricalServices(List<ContractorService> electricalServices) {
-            this.electricalServices = electricalServices;
+        public void setElectricalServices(Map<String, ContractorService> electricalServices) {
+            this.electricalServices = KeyedItems.normalize(electricalServices);
         }
 
     //Mark:- Helper functions
@@ -236,125 +251,87 @@ public class Customer {
     }
     @Exclude
     public void addService(ContractorService service, String serviceType) {
-        insertService(service, serviceType);
+        //Newest service is shown first
+        putService(null, service, serviceType);
     }
     @Exclude
-    public void updateService(int serviceId, String contractor, String comments, List<FirebaseFile> files, String serviceType) {
-        setService(serviceId, contractor, comments, files, serviceType);
+    public void updateService(String serviceGuid, String contractor, String comments, List<FirebaseFile> files, String serviceType) {
+        ContractorService service = getService(serviceGuid, serviceType);
+        if(service != null) {
+            putService(serviceGuid, service.update(contractor, comments, files), serviceType);
+        }
     }
     @Exclude
-    public void deleteService(int serviceId, String serviceType) {
+    public void deleteService(String serviceGuid, String serviceType) {
         if(serviceType.equalsIgnoreCase("Plumber")) {
-            setPlumbingServices(deleteService(getPlumbingServices(), serviceId));
+            setPlumbingServices(KeyedItems.remove(getPlumbingServices(), serviceGuid));
         } else if(serviceType.equalsIgnoreCase("Electrician")) {
-            setElectricalServices(deleteService(getElectricalServices(), serviceId));
+            setElectricalServices(KeyedItems.remove(getElectricalServices(), serviceGuid));
         } else if(serviceType.equalsIgnoreCase("Hvac")) {
-            setHvacServices(deleteService(getHvacServices(), serviceId));
+            setHvacServices(KeyedItems.remove(getHvacServices(), serviceGuid));
         } else {
             Log.e("CustomerDataObject", "No matching ServiceType");
         }
     }
     @Exclude
-    private void insertService(ContractorService service, String serviceType) {
-        int serviceId = -1;
+    public ContractorService getService(String serviceGuid, String serviceType) {
+        Map<String, ContractorService> services = getServices(serviceType);
+        if(services == null || serviceGuid == null) {
+            return null;
+        }
+        return services.get(serviceGuid);
+    }
+    @Exclude
+    public Map<String, ContractorService> getServices(String serviceType) {
         if(serviceType.equalsIgnoreCase("Plumber")) {
-            setPlumbingServices(setService(getPlumbingServices(), serviceId, service));
+            return getPlumbingServices();
         } else if(serviceType.equalsIgnoreCase("Electrician")) {
-            setElectricalServices(setService(getElectricalServices(), serviceId, service));
+            return getElectricalServices();
         } else if(serviceType.equalsIgnoreCase("Hvac")) {
-            setHvacServices(setService(getHvacServices(), serviceId, service));
-        } else {
-            Log.e("CustomerDataObject", "No matching ServiceType");
+            return getHvacServices();
         }
+        Log.e("CustomerDataObject", "No matching ServiceType");
+        return null;
     }
     @Exclude
-    private void setService(int serviceId, String contractor, String comments, List<FirebaseFile> files, String serviceType) {
+    private void putService(String serviceGuid, ContractorService service, String serviceType) {
         if(serviceType.equalsIgnoreCase("Plumber")) {
-            List<ContractorService> services = getPlumbingServices();
-            if(services == null || serviceId < 0 || serviceId > services.size()) {
-                return;
-            }
-            ContractorService service = services.get(serviceId).update(contractor, comments, files);
-            setPlumbingServices(setService(services, serviceId, service));
+            setPlumbingServices(KeyedItems.put(getPlumbingServices(), serviceGuid, service, true));
         } else if(serviceType.equalsIgnoreCase("Electrician")) {
-            List<ContractorService> services = getElectricalServices();
-            if(services == null || serviceId < 0 || serviceId > services.size()) {
-                return;
-            }
-            ContractorService service = services.get(serviceId).update(contractor, comments, files);
-            setElectricalServices(setService(services, serviceId, service));
+            setElectricalServices(KeyedItems.put(getElectricalServices(), serviceGuid, service, true));
         } else if(serviceType.equalsIgnoreCase("Hvac")) {
-            List<ContractorService> services = getHvacServices();
-            if(services == null || serviceId < 0 || serviceId > services.size()) {
-                return;
-            }
-            ContractorService service = services.get(serviceId).update(contractor, comments, files);
-            setHvacServices(setService(services, serviceId, service));
+            setHvacServices(KeyedItems.put(getHvacServices(), serviceGuid, service, true));
         } else {
             Log.e("CustomerDataObject", "No matching ServiceType");
         }
     }
-    @Exclude
-    private List<ContractorService> setService(List<ContractorService> services, int serviceId, ContractorService service) {
-        if(serviceId == -1) {
-            if(services == null) {
-                services = new ArrayList<>();
-            }
-            services.add(0, service);
-        } else {
-            services.set(serviceId, service);
-        }
-        return services;
-    }
-    @Exclude
-    private List<ContractorService> deleteService(List<ContractorService> services, int serviceId) {
-        if(services != null && serviceId >= 0 && serviceId < services.size()) {
-            services.remove(serviceId);
-        }
-        return services;
-    }
     //Painting
+    /*
+        A null paintGuid adds surface after the others
+     */
     @Exclude
-    public void setExteriorPaintSurface(int paintId, PaintSurface surface) {
-        if(paintId == -1) {
-            if(exteriorPaintSurfaces == null) {
-                exteriorPaintSurfaces = new ArrayList<>();
-            }
-            exteriorPaintSurfaces.add(surface);
-        } else {
-            exteriorPaintSurfaces.set(paintId, surface);
-        }
+    public void setExteriorPaintSurface(String paintGuid, PaintSurface surface) {
+        exteriorPaintSurfaces = KeyedItems.put(exteriorPaintSurfaces, paintGuid, surface, false);
     }
     @Exclude
-    public void setInteriorPaintSurface(int paintId, PaintSurface surface) {
-        if(paintId == -1) {
-            if(interiorPaintSurfaces == null) {
-                interiorPaintSurfaces = new ArrayList<>();
-            }
-            interiorPaintSurfaces.add(surface);
-        } else {
-            interiorPaintSurfaces.set(paintId, surface);
-        }
+    public void setInteriorPaintSurface(String paintGuid, PaintSurface surface) {
+        interiorPaintSurfaces = KeyedItems.put(interiorPaintSurfaces, paintGuid, surface, false);
     }
-    public void deleteExteriorPaintSurface(int paintId){
-        exteriorPaintSurfaces.remove(paintId);
+    public void deleteExteriorPaintSurface(String paintGuid){
+        KeyedItems.remove(exteriorPaintSurfaces, paintGuid);
     }
-    public void deleteInteriorPaintSurface(int paintId) {
-        interiorPaintSurfaces.remove(paintId);
+    public void deleteInteriorPaintSurface(String paintGuid) {
+        KeyedItems.remove(interiorPaintSurfaces, paintGuid);
     }
     //Electrical
+    /*
+        A null panelGuid adds updatedPanel after the others
+     */
     @Exclude
-    public void setPanel(int panelId, Panel updatedPanel) {
-        if(panelId == -1) {
-            if(panels == null) {
-                panels = new ArrayList<>();
-            }
-            panels.add(updatedPanel);
-        } else {
-            panels.set(panelId, updatedPanel);
-        }
+    public void setPanel(String panelGuid, Panel updatedPanel) {
+        panels = KeyedItems.put(panels, panelGuid, updatedPanel, false);
     }
-    public void deletePanel(int panelId) {
-        panels.remove(panelId);
+    public void deletePanel(String panelGuid) {
+        KeyedItems.remove(panels, panelGuid);
     }
 }
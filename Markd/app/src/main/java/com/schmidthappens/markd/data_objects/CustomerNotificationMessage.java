@@ -13,6 +13,8 @@ public class CustomerNotificationMessage {
     private String dateSent;
     private String companyFrom;
     private String message;
+    //Server time, see NotificationInbox
+    private Long sentAt;
 
     public CustomerNotificationMessage(String companyFrom, String message) {
         this.companyFrom = companyFrom;
@@ -41,4 +43,10 @@ public class CustomerNotificationMessage {
     public void setMessage(String message) {
         this.message = message;
     }
+    public Long getSentAt() {
+        return sentAt;
+    }
+    public void setSentAt(Long sentAt) {
+        this.sentAt = sentAt;
+    }
 }
@@ -0,0 +1,530 @@
+package com.schmidthappens.markd.data_objects;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.support.annotation.Nullable;
+import android.util.Log;
+
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseError;
+import com.google.firebase.database.DatabaseReference;
+import com.google.firebase.database.ValueEventListener;
+import com.schmidthappens.markd.utilities.OnGetDataListener;
+import com.schmidthappens.markd.utilities.SnapshotDecoder;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Holds the listeners on users/{uid} per customer for the whole process and fans snapshots out to subscribers.
+ * Subscribers either take the whole record or only the CustomerSections their screen renders,
+ * in which case only users/{uid}/{section} is listened to and the Customer holds just the loaded sections.
+ * Pages of more than MAX_SECTION_LISTENERS sections, like the home page's scalars, are given the whole record
+ * from one listener on users/{uid} instead.
+ * Whole record and section snapshots are numbered as they arrive and a decode is only applied if nothing newer has been,
+ * so a slow whole record decode can not undo a section that changed after it.
+ * Every listener is reference counted and detached RELEASE_DELAY_MILLIS after its last subscriber leaves,
+ * so moving between activities does not re-attach and re-decode the same data.
+ * Snapshots are decoded off the main thread and each one replaces the decoded Customer rather than patching it,
+ * with edits still waiting in the CommitQueue laid over it. Subscribers of a record whose edits failed to send get onFailed.
+ * Keyed sections still stored as arrays are written back keyed by guid once decoded, see CollectionMigration.
+ * Whole records stay synced on disk per KeepSyncedPolicy after they are detached.
+ * Up to MAX_RELEASED_ENTRIES customers nothing listens to any more are kept in memory, the least recently used go first.
+ * Must be used from the main thread.
+ */
+
+public class CustomerRepository {
+    private static final String TAG = "CustomerRepository";
+    public static final long RELEASE_DELAY_MILLIS = 10000;
+    static final int MAX_RELEASED_ENTRIES = 20;
+    static final int MAX_SECTION_LISTENERS = 4;
+    private static CustomerRepository instance;
+
+    private final DatabaseReference usersReference;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    //Access ordered so released entries are evicted least recently used first
+    private final Map<String, CustomerEntry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    public static synchronized CustomerRepository getInstance() {
+        if(instance == null) {
+            instance = new CustomerRepository(FirebaseDatabaseInstance.getDatabase().getReference().child("users"));
+        }
+        return instance;
+    }
+    CustomerRepository(DatabaseReference usersReference) {
+        this.usersReference = usersReference;
+        CommitQueue.getInstance().addOnFlushFailedListener(new CommitQueue.OnFlushFailedListener() {
+            @Override
+            public void onFlushFailed(Set<String> paths, DatabaseError databaseError) {
+                for(CustomerEntry entry : new ArrayList<>(entries.values())) {
+                    if(CommitQueue.overlaps(paths, entry.path)) {
+                        entry.notifyFailed(databaseError);
+                    }
+                }
+            }
+        });
+    }
+
+    //Mark:- Subscriptions
+    /*
+        subscriber can be null for callers that only read the cached Customer
+     */
+    public void subscribe(String uid, @Nullable OnGetDataListener subscriber) {
+        getEntry(uid).subscribe(subscriber);
+    }
+    public void unsubscribe(String uid, @Nullable OnGetDataListener subscriber) {
+        CustomerEntry entry = entries.get(uid);
+        if(entry != null) {
+            entry.unsubscribe(subscriber);
+        }
+    }
+    /*
+        Listens to only these sections, subscriber is called once all of them have loaded and again when one changes
+     */
+    public void subscribe(String uid, Set<CustomerSection> sections, @Nullable OnGetDataListener subscriber) {
+        if(sections.size() > MAX_SECTION_LISTENERS) {
+            subscribe(uid, subscriber);
+        } else {
+            getEntry(uid).subscribe(sections, subscriber);
+        }
+    }
+    public void unsubscribe(String uid, Set<CustomerSection> sections, @Nullable OnGetDataListener subscriber) {
+        if(sections.size() > MAX_SECTION_LISTENERS) {
+            unsubscribe(uid, subscriber);
+            return;
+        }
+        CustomerEntry entry = entries.get(uid);
+        if(entry != null) {
+            entry.unsubscribe(sections, subscriber);
+        }
+    }
+
+    //Mark:- Cached Values
+    @Nullable
+    public Customer getCustomer(String uid) {
+        CustomerEntry entry = entries.get(uid);
+        return entry == null ? null : entry.customer;
+    }
+    /*
+        Plain value of the last snapshots, edits are diffed against it
+     */
+    @Nullable
+    Object getAcknowledgedValue(String uid) {
+        CustomerEntry entry = entries.get(uid);
+        return entry == null ? null : entry.acknowledged;
+    }
+    /*
+        For records that have not been written yet, replaced by the first snapshot
+     */
+    void putLocalCustomer(String uid, Customer customer) {
+        getEntry(uid).customer = customer;
+    }
+
+    private CustomerEntry getEntry(String uid) {
+        CustomerEntry entry = entries.get(uid);
+        if(entry == null) {
+            entry = new CustomerEntry(uid);
+            entries.put(uid, entry);
+        }
+        return entry;
+    }
+
+    /*
+        Drops the least recently used released entries past MAX_RELEASED_ENTRIES
+     */
+    private void evictReleasedEntries() {
+        int releasedCount = 0;
+        for(CustomerEntry entry : entries.values()) {
+            if(entry.isReleased()) {
+                releasedCount++;
+            }
+        }
+        Iterator<CustomerEntry> iterator = entries.values().iterator();
+        while(releasedCount > MAX_RELEASED_ENTRIES && iterator.hasNext()) {
+            CustomerEntry entry = iterator.next();
+            if(entry.isReleased()) {
+                Log.d(TAG, "evicting:" + entry.uid);
+                iterator.remove();
+                releasedCount--;
+            }
+        }
+    }
+
+    private class CustomerEntry implements ValueEventListener {
+        private final String uid;
+        private final String path;
+        private final DatabaseReference reference;
+        private final List<OnGetDataListener> subscribers = new ArrayList<>();
+        private final SnapshotDecoder<DecodedRecord<Customer>> decoder;
+        private int referenceCount;
+        private boolean attached;
+        private DataSnapshot snapshot;
+        private Customer customer;
+        //Read by sectionsDecoder, only ever replaced, never changed in place
+        private volatile Object acknowledged;
+        //Numbers every whole record and section snapshot as it arrives, and the newest applied to customer
+        private int snapshotSequence;
+        private int appliedSequence;
+
+        private final Map<CustomerSection, SectionListener> sectionListeners = new EnumMap<>(CustomerSection.class);
+        private final List<SectionSubscription> sectionSubscriptions = new ArrayList<>();
+        private final Set<CustomerSection> changedSections = EnumSet.noneOf(CustomerSection.class);
+        private final SnapshotDecoder<DecodedRecord<Customer>> sectionsDecoder = new SnapshotDecoder<>(new SnapshotDecoder.Decoder<DecodedRecord<Customer>>() {
+            @Override
+            public DecodedRecord<Customer> decode(DataSnapshot sectionSnapshot) {
+                //Rebuilt from every loaded section, not just the one in the snapshot
+                return DecodedRecord.fromPlainValue(acknowledged, Customer.class, path);
+            }
+        });
+
+        CustomerEntry(String uid) {
+            this.uid = uid;
+            this.path = "users/" + uid;
+            this.reference = usersReference.child(uid);
+            this.decoder = DecodedRecord.decoderFor(Customer.class, path);
+        }
+
+        //Mark:- Whole Record
+        void subscribe(final OnGetDataListener subscriber) {
+            handler.removeCallbacks(detachRunnable);
+            referenceCount++;
+            if(subscriber != null) {
+                subscribers.add(subscriber);
+            }
+            if(!attached) {
+                Log.d(TAG, "attaching:" + uid);
+                attached = true;
+                KeepSyncedPolicy.getInstance().retain(path, reference);
+                //Local writes show up in the first snapshot only once they are sent
+                CommitQueue.getInstance().flush();
+                reference.addValueEventListener(this);
+            } else if(subscriber != null && snapshot != null) {
+                //Late subscribers get the current snapshot the same way Firebase would deliver it, after they are set up
+                final DataSnapshot currentSnapshot = snapshot;
+                handler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        if(snapshot == currentSnapshot && subscribers.contains(subscriber)) {
+                            subscriber.onSuccess(currentSnapshot);
+                        }
+                    }
+                });
+            }
+        }
+        void unsubscribe(OnGetDataListener subscriber) {
+            if(subscriber != null) {
+                subscribers.remove(subscriber);
+            }
+            referenceCount = Math.max(0, referenceCount - 1);
+            if(referenceCount == 0 && attached) {
+                handler.removeCallbacks(detachRunnable);
+                handler.postDelayed(detachRunnable, RELEASE_DELAY_MILLIS);
+            }
+        }
+        private final Runnable detachRunnable = new Runnable() {
+            @Override
+            public void run() {
+                if(referenceCount > 0 || !attached) {
+                    return;
+                }
+                Log.d(TAG, "detaching:" + uid);
+                reference.removeEventListener(CustomerEntry.this);
+                decoder.cancel();
+                attached = false;
+                KeepSyncedPolicy.getInstance().release(path);
+                //The Customer is kept for callers still holding a released TempCustomerData, until evicted
+                snapshot = null;
+                evictReleasedEntries();
+            }
+        };
+        /*
+            Nothing is listening and nothing is subscribed, whole record or sections
+         */
+        boolean isReleased() {
+            if(attached || referenceCount > 0 || !sectionSubscriptions.isEmpty()) {
+                return false;
+            }
+            for(SectionListener sectionListener : sectionListeners.values()) {
+                if(sectionListener.sectionAttached) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public void onDataChange(DataSnapshot dataSnapshot) {
+            Log.d(TAG, "dataChanged:" + uid);
+            //Decoding a large record on the main thread is what makes screens stutter
+            decoder.decode(dataSnapshot, new RecordDecodedListener(++snapshotSequence));
+        }
+        private class RecordDecodedListener implements SnapshotDecoder.OnDecodedListener<DecodedRecord<Customer>> {
+            private final int sequence;
+
+            RecordDecodedListener(int sequence) {
+                this.sequence = sequence;
+            }
+
+            @Override
+            public void onDecoded(DataSnapshot dataSnapshot, DecodedRecord<Customer> record) {
+                if(sequence < appliedSequence) {
+                    //A section changed since this snapshot, the whole record raised with it is on its way
+                    return;
+                }
+                appliedSequence = sequence;
+                //The whole record already has every section, a rebuild from older sections would undo it
+                sectionsDecoder.cancel();
+                snapshot = dataSnapshot;
+                customer = record.value;
+                acknowledged = record.plainValue;
+                KeepSyncedPolicy.getInstance().recordSize(path, record.estimatedBytes);
+                CollectionMigration.migrate(path, record.plainValue, customer);
+                for(OnGetDataListener subscriber : new ArrayList<>(subscribers)) {
+                    subscriber.onSuccess(dataSnapshot);
+                }
+                notifySectionSubscribers();
+            }
+
+            @Override
+            public void onFailed(DataSnapshot dataSnapshot, DatabaseError databaseError) {
+                //The Customer already shown is kept, subscribers are told the same way as a cancelled listener
+                onCancelled(databaseError);
+            }
+        }
+
+        @Override
+        public void onCancelled(DatabaseError databaseError) {
+            Log.w(TAG, "onCancelled:" + uid, databaseError.toException());
+            for(OnGetDataListener subscriber : new ArrayList<>(subscribers)) {
+                subscriber.onFailed(databaseError);
+            }
+        }
+        /*
+            Edits to this record were not saved, whole record and section subscribers alike are told
+         */
+        void notifyFailed(DatabaseError databaseError) {
+            Set<OnGetDataListener> failedSubscribers = new LinkedHashSet<>(subscribers);
+            for(SectionSubscription subscription : sectionSubscriptions) {
+                if(subscription.subscriber != null) {
+                    failedSubscribers.add(subscription.subscriber);
+                }
+            }
+            for(OnGetDataListener subscriber : failedSubscribers) {
+                subscriber.onFailed(databaseError);
+            }
+        }
+
+        //Mark:- Sections
+        void subscribe(Set<CustomerSection> sections, OnGetDataListener subscriber) {
+            final SectionSubscription subscription = new SectionSubscription(sections, subscriber);
+            sectionSubscriptions.add(subscription);
+            boolean loaded = true;
+            for(CustomerSection section : sections) {
+                SectionListener sectionListener = sectionListeners.get(section);
+                if(sectionListener == null) {
+                    sectionListener = new SectionListener(section);
+                    sectionListeners.put(section, sectionListener);
+                }
+                sectionListener.retain();
+                loaded &= sectionListener.snapshot != null;
+            }
+            if(loaded && subscriber != null && !sections.isEmpty()) {
+                //Same as a late whole record subscriber, but only once the decoded Customer has these sections
+                handler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        if(sectionSubscriptions.contains(subscription) && isLoaded(subscription.sections) && !isDecoding(subscription.sections)) {
+                            subscription.subscriber.onSuccess(getFirstSnapshot(subscription.sections));
+                        }
+                    }
+                });
+            }
+        }
+        void unsubscribe(Set<CustomerSection> sections, OnGetDataListener subscriber) {
+            for(SectionSubscription subscription : sectionSubscriptions) {
+                if(subscription.subscriber == subscriber && subscription.sections.equals(sections)) {
+                    sectionSubscriptions.remove(subscription);
+                    break;
+                }
+            }
+            for(CustomerSection section : sections) {
+                SectionListener sectionListener = sectionListeners.get(section);
+                if(sectionListener != null) {
+                    sectionListener.release();
+                }
+            }
+        }
+
+        private void onSectionDecoded(CustomerSection section, Object plainSection, int sequence) {
+            changedSections.add(section);
+            if(sequence < appliedSequence) {
+                //A newer whole record already has this section
+                notifySectionSubscribers();
+                return;
+            }
+            acknowledged = FirebaseValues.withChild(acknowledged, section.getPath(), plainSection);
+            sectionsDecoder.decode(sectionListeners.get(section).snapshot, new SectionsDecodedListener(sequence));
+        }
+        private class SectionsDecodedListener implements SnapshotDecoder.OnDecodedListener<DecodedRecord<Customer>> {
+            private final int sequence;
+
+            SectionsDecodedListener(int sequence) {
+                this.sequence = sequence;
+            }
+
+            @Override
+            public void onDecoded(DataSnapshot sectionSnapshot, DecodedRecord<Customer> record) {
+                //Built from acknowledged, which has every section applied so far
+                appliedSequence = Math.max(appliedSequence, sequence);
+                customer = record.value;
+                CollectionMigration.migrate(path, record.plainValue, customer);
+                notifySectionSubscribers();
+            }
+
+            @Override
+            public void onFailed(DataSnapshot sectionSnapshot, DatabaseError databaseError) {
+                Set<CustomerSection> failed = EnumSet.copyOf(changedSections);
+                changedSections.clear();
+                for(SectionSubscription subscription : new ArrayList<>(sectionSubscriptions)) {
+                    if(subscription.subscriber != null && !Collections.disjoint(subscription.sections, failed)) {
+                        subscription.subscriber.onFailed(databaseError);
+                    }
+                }
+            }
+        }
+        /*
+            Tells subscribers of the sections changed since the last decode that the Customer has them
+         */
+        private void notifySectionSubscribers() {
+            if(changedSections.isEmpty()) {
+                return;
+            }
+            Set<CustomerSection> changed = EnumSet.copyOf(changedSections);
+            changedSections.clear();
+            for(SectionSubscription subscription : new ArrayList<>(sectionSubscriptions)) {
+                if(subscription.subscriber != null && !Collections.disjoint(subscription.sections, changed)
+                        && isLoaded(subscription.sections)) {
+                    subscription.subscriber.onSuccess(getFirstSnapshot(subscription.sections));
+                }
+            }
+        }
+        private DataSnapshot getFirstSnapshot(Set<CustomerSection> sections) {
+            return sectionListeners.get(sections.iterator().next()).snapshot;
+        }
+        private boolean isLoaded(Set<CustomerSection> sections) {
+            for(CustomerSection section : sections) {
+                SectionListener sectionListener = sectionListeners.get(section);
+                if(sectionListener == null || sectionListener.snapshot == null) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        /*
+            A change to one of sections is still being decoded, its subscribers hear about it when it lands
+         */
+        private boolean isDecoding(Set<CustomerSection> sections) {
+            return !Collections.disjoint(sections, changedSections);
+        }
+
+        private class SectionListener implements ValueEventListener {
+            private final CustomerSection section;
+            private final String sectionPath;
+            private final DatabaseReference sectionReference;
+            private final SnapshotDecoder<Object> sectionDecoder = new SnapshotDecoder<>(new SnapshotDecoder.Decoder<Object>() {
+                @Override
+                public Object decode(DataSnapshot sectionSnapshot) {
+                    return sectionSnapshot.getValue();
+                }
+            });
+            private int sectionReferenceCount;
+            private boolean sectionAttached;
+            //Null until the first snapshot after attaching
+            private DataSnapshot snapshot;
+
+            SectionListener(CustomerSection section) {
+                this.section = section;
+                this.sectionPath = FirebaseDiff.childPath(path, section.getPath());
+                this.sectionReference = reference.child(section.getPath());
+            }
+
+            void retain() {
+                handler.removeCallbacks(sectionDetachRunnable);
+                sectionReferenceCount++;
+                if(!sectionAttached) {
+                    Log.d(TAG, "attaching:" + sectionPath);
+                    sectionAttached = true;
+                    CommitQueue.getInstance().flush();
+                    sectionReference.addValueEventListener(this);
+                }
+            }
+            void release() {
+                sectionReferenceCount = Math.max(0, sectionReferenceCount - 1);
+                if(sectionReferenceCount == 0 && sectionAttached) {
+                    handler.removeCallbacks(sectionDetachRunnable);
+                    handler.postDelayed(sectionDetachRunnable, RELEASE_DELAY_MILLIS);
+                }
+            }
+            private final Runnable sectionDetachRunnable = new Runnable() {
+                @Override
+                public void run() {
+                    if(sectionReferenceCount > 0 || !sectionAttached) {
+                        return;
+                    }
+                    Log.d(TAG, "detaching:" + sectionPath);
+                    sectionReference.removeEventListener(SectionListener.this);
+                    sectionDecoder.cancel();
+                    sectionAttached = false;
+                    snapshot = null;
+                    evictReleasedEntries();
+                }
+            };
+
+            @Override
+            public void onDataChange(DataSnapshot dataSnapshot) {
+                Log.d(TAG, "dataChanged:" + sectionPath);
+                final int sequence = ++snapshotSequence;
+                sectionDecoder.decode(dataSnapshot, new SnapshotDecoder.OnDecodedListener<Object>() {
+                    @Override
+                    public void onDecoded(DataSnapshot sectionSnapshot, Object plainSection) {
+                        snapshot = sectionSnapshot;
+                        onSectionDecoded(section, plainSection, sequence);
+                    }
+
+                    @Override
+                    public void onFailed(DataSnapshot sectionSnapshot, DatabaseError databaseError) {
+                        onCancelled(databaseError);
+                    }
+                });
+            }
+
+            @Override
+            public void onCancelled(DatabaseError databaseError) {
+                Log.w(TAG, "onCancelled:" + sectionPath, databaseError.toException());
+                for(SectionSubscription subscription : new ArrayList<>(sectionSubscriptions)) {
+                    if(subscription.subscriber != null && subscription.sections.contains(section)) {
+                        subscription.subscriber.onFailed(databaseError);
+                    }
+                }
+            }
+        }
+    }
+
+    private static class SectionSubscription {
+        private final Set<CustomerSection> sections;
+        private final OnGetDataListener subscriber;
+
+        SectionSubscription(Set<CustomerSection> sections, OnGetDataListener subscriber) {
+            this.sections = sections;
+            this.subscriber = subscriber;
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.schmidthappens.markd.data_objects;
+
+import android.support.annotation.Nullable;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Top level children of users/{uid} for a Customer.
+ * Paths match the property names Firebase uses when serializing Customer.
+ * The page sets are what each customer menu screen renders, see CustomerRepository.subscribe.
+ */
+
+public enum CustomerSection {
+    //Home Page
+    NAME_PREFIX("namePrefix"),
+    FIRST_NAME("firstName"),
+    LAST_NAME("lastName"),
+    MARITAL_STATUS("maritalStatus"),
+    USER_TYPE("userType"),
+    ADDRESS("address"),
+    HOME("home"),
+    HOME_IMAGE("homeImageFileName"),
+    ARCHITECT("architectReference"),
+    BUILDER("builder"),
+    REALTOR("realtor"),
+
+    //Plumbing Page
+    HOT_WATER("hotWater"),
+    BOILER("boiler"),
+    PLUMBER("plumberReference"),
+    PLUMBING_SERVICES("plumbingServices"),
+
+    //HVAC Page
+    AIR_HANDLER("airHandler"),
+    COMPRESSOR("compressor"),
+    HVAC_TECHNICIAN("hvactechnicianReference"),
+    HVAC_SERVICES("hvacServices"),
+
+    //Electrical Page
+    PANELS("panels"),
+    ELECTRICIAN("electricianReference"),
+    ELECTRICAL_SERVICES("electricalServices"),
+
+    //Painting Page
+    INTERIOR_PAINT_SURFACES("interiorPaintSurfaces"),
+    EXTERIOR_PAINT_SURFACES("exteriorPaintSurfaces"),
+    PAINTER("painterReference");
+
+    public static final Set<CustomerSection> HOME_PAGE = Collections.unmodifiableSet(EnumSet.range(NAME_PREFIX, REALTOR));
+    public static final Set<CustomerSection> PLUMBING_PAGE = Collections.unmodifiableSet(EnumSet.range(HOT_WATER, PLUMBING_SERVICES));
+    public static final Set<CustomerSection> HVAC_PAGE = Collections.unmodifiableSet(EnumSet.range(AIR_HANDLER, HVAC_SERVICES));
+    public static final Set<CustomerSection> ELECTRICAL_PAGE = Collections.unmodifiableSet(EnumSet.range(PANELS, ELECTRICAL_SERVICES));
+    public static final Set<CustomerSection> PAINTING_PAGE = Collections.unmodifiableSet(EnumSet.range(INTERIOR_PAINT_SURFACES, PAINTER));
+    //Stored as maps of KeyedItem by guid
+    public static final Set<CustomerSection> KEYED = Collections.unmodifiableSet(EnumSet.of(PLUMBING_SERVICES, HVAC_SERVICES,
+            PANELS, ELECTRICAL_SERVICES, INTERIOR_PAINT_SURFACES, EXTERIOR_PAINT_SURFACES));
+
+    private final String path;
+
+    CustomerSection(String path) {
+        this.path = path;
+    }
+
+    public String getPath() {
+        return path;
+    }
+    /*
+        Path of one item in a keyed section, key is the item's guid
+     */
+    public String getItemPath(String key) {
+        return path + "/" + key;
+    }
+    public boolean isKeyed() {
+        return KEYED.contains(this);
+    }
+
+    @Nullable
+    public static CustomerSection fromServiceType(String serviceType) {
+        if(serviceType == null) {
+            return null;
+        } else if(serviceType.equalsIgnoreCase("Plumber")) {
+            return PLUMBING_SERVICES;
+        } else if(serviceType.equalsIgnoreCase("Electrician")) {
+            return ELECTRICAL_SERVICES;
+        } else if(serviceType.equalsIgnoreCase("Hvac")) {
+            return HVAC_SERVICES;
+        }
+        return null;
+    }
+    @Nullable
+    public static CustomerSection fromContractorType(String contractorType) {
+        if(contractorType == null) {
+            return null;
+        }
+        switch (contractorType) {
+            case "Plumber":
+                return PLUMBER;
+            case "Hvac":
+                return HVAC_TECHNICIAN;
+            case "Electrician":
+                return ELECTRICIAN;
+            case "Painter":
+                return PAINTER;
+            case "Architect":
+                return ARCHITECT;
+            case "Builder":
+                return BUILDER;
+            case "Realtor":
+                return REALTOR;
+            default:
+                return null;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.schmidthappens.markd.data_objects;
+
+import com.google.firebase.database.IgnoreExtraProperties;
+import com.google.firebase.database.ServerValue;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * What a contractor's customer list shows, kept at customer_summaries/{uid} next to the full record
+ * in users/{uid} so listing 2,000 customers reads a few hundred bytes each instead of their homes.
+ * Written with the profile and home in the same update by TempCustomerData.
+ */
+
+@IgnoreExtraProperties
+public class CustomerSummary {
+    public static final String PATH = "customer_summaries";
+
+    private String name;
+    private String sortKey;
+    private String address;
+    private Long updatedAt;
+
+    public CustomerSummary() {
+        // Default constructor required for calls to DataSnapshot.getValue(CustomerSummary.class)
+    }
+
+    public static CustomerSummary fromCustomer(Customer customer) {
+        CustomerSummary summary = new CustomerSummary();
+        summary.name = customer.getName();
+        summary.sortKey = customer.getLastName() == null ? "" : customer.getLastName().toLowerCase();
+        summary.address = customer.getAddress() == null ? null : customer.getAddress().toString();
+        return summary;
+    }
+    /*
+        Root relative update replacing the customer's summary, updatedAt is set by the server
+     */
+    public static Map<String, Object> getUpdates(String uid, Customer customer) {
+        CustomerSummary summary = fromCustomer(customer);
+        Map<String, Object> value = new HashMap<>();
+        value.put("name", summary.name);
+        value.put("sortKey", summary.sortKey);
+        value.put("address", summary.address);
+        value.put("updatedAt", ServerValue.TIMESTAMP);
+        Map<String, Object> updates = new HashMap<>();
+        updates.put(PATH + "/" + uid, value);
+        return updates;
+    }
+
+    //Mark:- Getters/Setters
+    public String getName() {
+        return name;
+    }
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    /*
+        Lowercased last name, customer lists are ordered and filtered by it
+     */
+    public String getSortKey() {
+        return sortKey;
+    }
+    public void setSortKey(String sortKey) {
+        this.sortKey = sortKey;
+    }
+
+    /*
+        Address on one line, null without an address
+     */
+    public String getAddress() {
+        return address;
+    }
+    public void setAddress(String address) {
+        this.address = address;
+    }
+
+    public Long getUpdatedAt() {
+        return updatedAt;
+    }
+    public void setUpdatedAt(Long updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
@@ -0,0 +1,49 @@
+package com.schmidthappens.markd.data_objects;
+
+import com.google.firebase.database.DataSnapshot;
+import com.schmidthappens.markd.utilities.SnapshotDecoder;
+
+/**
+ * A record decoded off the main thread along with the plain snapshot value edits are diffed against.
+ * estimatedBytes is its approximate JSON size, for KeepSyncedPolicy stats.
+ * Given the record's path, value also shows writes still waiting in the CommitQueue, so a snapshot landing
+ * before they are sent does not undo an edit on screen. plainValue is always just the snapshot.
+ */
+
+class DecodedRecord<T> {
+    final T value;
+    final Object plainValue;
+    final long estimatedBytes;
+
+    private DecodedRecord(T value, Object plainValue) {
+        this.value = value;
+        this.plainValue = plainValue;
+        this.estimatedBytes = FirebaseValues.estimateJsonBytes(plainValue);
+    }
+
+    static <T> SnapshotDecoder<DecodedRecord<T>> decoderFor(final Class<T> recordClass, final String path) {
+        return new SnapshotDecoder<>(new SnapshotDecoder.Decoder<DecodedRecord<T>>() {
+            @Override
+            public DecodedRecord<T> decode(DataSnapshot snapshot) {
+                Object plainValue = snapshot.getValue();
+                FirebaseMapper<T> mapper = FirebaseMappers.get(recordClass);
+                if(mapper == null) {
+                    //Without a mapper the pending writes cannot be laid over, the next snapshot has them
+                    return new DecodedRecord<>(snapshot.getValue(recordClass), plainValue);
+                }
+                //The record is built from the same plain value instead of walking the snapshot twice
+                return new DecodedRecord<>(FirebaseMappers.readObject(withPendingWrites(path, plainValue), mapper), plainValue);
+            }
+        });
+    }
+    /*
+        For plain values assembled from several snapshots, recordClass must have a generated mapper
+     */
+    static <T> DecodedRecord<T> fromPlainValue(Object plainValue, Class<T> recordClass, String path) {
+        return new DecodedRecord<>(FirebaseMappers.fromPlainValue(withPendingWrites(path, plainValue), recordClass), plainValue);
+    }
+    private static Object withPendingWrites(String path, Object plainValue) {
+        CommitQueue commitQueue = CommitQueue.getInstance();
+        return commitQueue.hasPending(path) ? commitQueue.getPendingValue(path, plainValue) : plainValue;
+    }
+}
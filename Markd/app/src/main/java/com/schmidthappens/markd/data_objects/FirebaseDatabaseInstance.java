@@ -1,18 +1,47 @@
 package com.schmidthappens.markd.data_objects;
 
+import android.util.Log;
+
 import com.google.firebase.database.FirebaseDatabase;
 
 /**
  * Created by joshua.schmidtibm.com on 3/29/18.
+ *
+ * Disk persistence is enabled when the database is first used, MarkdApplication does that before anything
+ * else runs. Every use of the database goes through getDatabase, what stays synced is up to KeepSyncedPolicy.
  */
 
 public class FirebaseDatabaseInstance {
+    private static final String TAG = "FirebaseDatabase";
+    //Firebase accepts 1MB to 100MB
+    public static final long MIN_CACHE_SIZE_BYTES = 1024 * 1024;
+    public static final long MAX_CACHE_SIZE_BYTES = 100 * 1024 * 1024;
+    public static final long DEFAULT_CACHE_SIZE_BYTES = 10 * 1024 * 1024;
     private static FirebaseDatabase mDatabase;
+    private static long cacheSizeBytes = DEFAULT_CACHE_SIZE_BYTES;
 
-    public static FirebaseDatabase getDatabase() {
+    public static synchronized FirebaseDatabase getDatabase() {
         if (mDatabase == null) {
             mDatabase = FirebaseDatabase.getInstance();
+            //Has to happen before any other use of the database
+            mDatabase.setPersistenceEnabled(true);
+            mDatabase.setPersistenceCacheSizeBytes(cacheSizeBytes);
+            Log.d(TAG, "persistence enabled, cache bytes:" + cacheSizeBytes);
         }
         return mDatabase;
     }
+
+    /*
+        Only takes effect if called before the first getDatabase
+     */
+    public static synchronized void setCacheSizeBytes(long cacheSizeBytes) {
+        if(mDatabase != null) {
+            Log.w(TAG, "setCacheSizeBytes after the database was created, ignored");
+            return;
+        }
+        FirebaseDatabaseInstance.cacheSizeBytes = Math.min(MAX_CACHE_SIZE_BYTES, Math.max(MIN_CACHE_SIZE_BYTES, cacheSizeBytes));
+    }
+    public static synchronized long getCacheSizeBytes() {
+        return cacheSizeBytes;
+    }
 }
@@ -0,0 +1,125 @@
+package com.schmidthappens.markd.data_objects;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Compares the last acknowledged value of a node with its edited value and returns
+ * the path -> value changes for a single updateChildren call.
+ * Either side can be a data object or the plain value from DataSnapshot.getValue().
+ */
+
+public class FirebaseDiff {
+
+    /*
+        Changes relative to the node being compared. The node itself must be an object (not a leaf).
+     */
+    public static Map<String, Object> diff(Object acknowledged, Object edited) {
+        if(FirebaseValues.isLeaf(edited)) {
+            throw new IllegalArgumentException("Can only diff objects, use diff(path, ...) for leaf values");
+        }
+        Map<String, Object> updates = new LinkedHashMap<>();
+        diff("", acknowledged, edited, updates);
+        return updates;
+    }
+
+    /*
+        Adds the changes needed to turn acknowledged into edited at path to updates
+     */
+    public static void diff(String path, Object acknowledged, Object edited, Map<String, Object> updates) {
+        if(acknowledged == null && edited == null) {
+            return;
+        }
+        if(acknowledged == null && path.isEmpty()) {
+            acknowledged = new LinkedHashMap<String, Object>();
+        }
+        if(edited == null) {
+            updates.put(path, null);
+            return;
+        }
+        if(FirebaseValues.isLeaf(edited) || FirebaseValues.isLeaf(acknowledged)) {
+            if(!leafEquals(acknowledged, edited)) {
+                updates.put(path, FirebaseValues.toPlainValue(edited));
+            }
+            return;
+        }
+
+        Map<String, Object> acknowledgedChildren = FirebaseValues.toChildMap(acknowledged);
+        Map<String, Object> editedChildren = FirebaseValues.toChildMap(edited);
+        if(editedChildren.isEmpty()) {
+            //Firebase does not store empty objects
+            if(!acknowledgedChildren.isEmpty()) {
+                updates.put(path, null);
+            }
+            return;
+        }
+
+        Map<String, Object> childUpdates = new LinkedHashMap<>();
+        for(Map.Entry<String, Object> editedChild : editedChildren.entrySet()) {
+            String key = editedChild.getKey();
+            Object acknowledgedChild = acknowledgedChildren.get(key);
+            //Skip building paths for the unchanged leaves that make up most of a record
+            if(FirebaseValues.isLeaf(acknowledgedChild) && FirebaseValues.isLeaf(editedChild.getValue())
+                    && leafEquals(acknowledgedChild, editedChild.getValue())) {
+                continue;
+            }
+            diff(childPath(path, key), acknowledgedChild, editedChild.getValue(), childUpdates);
+        }
+        for(String key : acknowledgedChildren.keySet()) {
+            if(!editedChildren.containsKey(key)) {
+                childUpdates.put(childPath(path, key), null);
+            }
+        }
+
+        //Replace the whole node when that sends less than the individual changes
+        if(childUpdates.size() > 1 && !path.isEmpty()) {
+            Object plainEdited = FirebaseValues.toPlainValue(edited);
+            if(estimateBytes(childUpdates) >= estimateBytes(path, plainEdited)) {
+                updates.put(path, plainEdited);
+                return;
+            }
+        }
+        updates.putAll(childUpdates);
+    }
+
+    public static String childPath(String path, String key) {
+        if(path == null || path.isEmpty()) {
+            return key;
+        }
+        return path + "/" + key;
+    }
+
+    //Mark:- Helpers
+    /*
+        Firebase stores whole doubles as longs so numbers are compared by value
+     */
+    static boolean leafEquals(Object acknowledged, Object edited) {
+        if(acknowledged == null || edited == null) {
+            return acknowledged == edited;
+        }
+        if(acknowledged instanceof Number && edited instanceof Number) {
+            Number first = (Number)acknowledged;
+            Number second = (Number)edited;
+            if(isIntegral(first) && isIntegral(second)) {
+                return first.longValue() == second.longValue();
+            }
+            return Double.compare(first.doubleValue(), second.doubleValue()) == 0;
+        }
+        Object plainAcknowledged = FirebaseValues.toPlainValue(acknowledged);
+        Object plainEdited = FirebaseValues.toPlainValue(edited);
+        return plainAcknowledged.equals(plainEdited);
+    }
+    private static boolean isIntegral(Number number) {
+        return number instanceof Long || number instanceof Integer || number instanceof Short || number instanceof Byte;
+    }
+    private static long estimateBytes(Map<String, Object> updates) {
+        long size = 0;
+        for(Map.Entry<String, Object> update : updates.entrySet()) {
+            size += estimateBytes(update.getKey(), update.getValue());
+        }
+        return size;
+    }
+    private static long estimateBytes(String path, Object plainValue) {
+        return path.length() + 4 + FirebaseValues.estimateJsonBytes(plainValue);
+    }
+}
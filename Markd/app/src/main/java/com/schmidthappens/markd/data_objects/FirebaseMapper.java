@@ -0,0 +1,14 @@
+package com.schmidthappens.markd.data_objects;
+
+import java.util.Map;
+
+/**
+ * Converts a data object to and from the plain Map Firebase stores it as.
+ * Implementations are generated by FirebaseMapperProcessor for every @IgnoreExtraProperties class.
+ */
+
+public interface FirebaseMapper<T> {
+    Class<T> getType();
+    T fromMap(Map<String, Object> map);
+    Map<String, Object> toMap(T object);
+}
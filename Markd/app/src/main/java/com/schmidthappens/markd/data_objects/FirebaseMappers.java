@@ -0,0 +1,278 @@
+package com.schmidthappens.markd.data_objects;
+
+import com.google.firebase.database.DataSnapshot;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Looks up the generated FirebaseMapper for a class and holds the conversions the generated code calls.
+ * Conversions accept the same values DataSnapshot.getValue(Class) does and fail the same way.
+ */
+
+public class FirebaseMappers {
+
+    public static <T> FirebaseMapper<T> get(Class<T> type) {
+        return FirebaseMapperRegistry.get(type);
+    }
+
+    /*
+        Same result as snapshot.getValue(type) without reflection when type has a generated mapper
+     */
+    public static <T> T getValue(DataSnapshot snapshot, Class<T> type) {
+        FirebaseMapper<T> mapper = get(type);
+        if(mapper == null) {
+            return snapshot.getValue(type);
+        }
+        return readObject(snapshot.getValue(), mapper);
+    }
+    /*
+        For plain values assembled from several snapshots, type must have a generated mapper
+     */
+    public static <T> T fromPlainValue(Object plainValue, Class<T> type) {
+        FirebaseMapper<T> mapper = get(type);
+        if(mapper == null) {
+            throw new IllegalStateException("No FirebaseMapper generated for " + type.getName());
+        }
+        return readObject(plainValue, mapper);
+    }
+
+    /*
+        Plain Map for a mapped object, or null when the object's class has no mapper
+     */
+    @SuppressWarnings("unchecked")
+    static Map<String, Object> toMap(Object object) {
+        FirebaseMapper<Object> mapper = (FirebaseMapper<Object>)get(object.getClass());
+        if(mapper == null) {
+            return null;
+        }
+        return mapper.toMap(object);
+    }
+
+    //Mark:- Reading
+    public static String readString(Object value) {
+        if(value instanceof String) {
+            return (String)value;
+        }
+        throw conversionException(value, "String");
+    }
+    public static Integer readInteger(Object value) {
+        if(value instanceof Integer) {
+            return (Integer)value;
+        } else if(value instanceof Long || value instanceof Double) {
+            double number = ((Number)value).doubleValue();
+            if(number >= Integer.MIN_VALUE && number <= Integer.MAX_VALUE) {
+                return ((Number)value).intValue();
+            }
+            throw new IllegalArgumentException("Numeric value out of 32-bit integer range: " + number
+                    + ". Did you mean to use a long or double instead of an int?");
+        }
+        throw conversionException(value, "int");
+    }
+    public static Long readLong(Object value) {
+        if(value instanceof Integer) {
+            return ((Integer)value).longValue();
+        } else if(value instanceof Long) {
+            return (Long)value;
+        } else if(value instanceof Double) {
+            double number = (Double)value;
+            if(number >= Long.MIN_VALUE && number <= Long.MAX_VALUE) {
+                return (long)number;
+            }
+            throw new IllegalArgumentException("Numeric value out of 64-bit long range: " + number
+                    + ". Did you mean to use a double instead of a long?");
+        }
+        throw conversionException(value, "long");
+    }
+    public static Double readDouble(Object value) {
+        if(value instanceof Double) {
+            return (Double)value;
+        } else if(value instanceof Long || value instanceof Integer) {
+            return ((Number)value).doubleValue();
+        }
+        throw conversionException(value, "double");
+    }
+    public static Float readFloat(Object value) {
+        return readDouble(value).floatValue();
+    }
+    public static Boolean readBoolean(Object value) {
+        if(value instanceof Boolean) {
+            return (Boolean)value;
+        }
+        throw conversionException(value, "boolean");
+    }
+    public static <E extends Enum<E>> E readEnum(Object value, Class<E> enumClass) {
+        String name = readString(value);
+        try {
+            return Enum.valueOf(enumClass, name);
+        } catch (IllegalArgumentException exception) {
+            throw new IllegalArgumentException("Could not find enum value of " + enumClass.getName() + " for value \"" + name + "\"");
+        }
+    }
+    public static <T> T readObject(Object value, FirebaseMapper<T> mapper) {
+        if(value == null) {
+            return null;
+        }
+        return mapper.fromMap(asMap(value));
+    }
+    public static <E> List<E> readList(Object value, Class<E> elementClass) {
+        List<?> plainList = asList(value);
+        List<E> list = new ArrayList<>(plainList.size());
+        for(Object item : plainList) {
+            list.add(item == null ? null : readLeaf(item, elementClass));
+        }
+        return list;
+    }
+    public static <E> List<E> readList(Object value, FirebaseMapper<E> mapper) {
+        List<?> plainList = asList(value);
+        List<E> list = new ArrayList<>(plainList.size());
+        for(Object item : plainList) {
+            list.add(readObject(item, mapper));
+        }
+        return list;
+    }
+    /*
+        Also reads a List as a map keyed by index, which is how keyed collections were stored before they had guids.
+        A Map<String, Boolean> is a keyed set, which used to be stored as a List of its keys.
+     */
+    @SuppressWarnings("unchecked")
+    public static <E> Map<String, E> readMap(Object value, Class<E> elementClass) {
+        if(elementClass == Boolean.class && KeyedSets.isLegacyPlainValue(value)) {
+            return (Map<String, E>)KeyedSets.fromPlainValue(value);
+        }
+        Map<String, Object> plainMap = asMapOrIndexed(value);
+        Map<String, E> map = new HashMap<>();
+        for(Map.Entry<String, Object> entry : plainMap.entrySet()) {
+            map.put(entry.getKey(), entry.getValue() == null ? null : readLeaf(entry.getValue(), elementClass));
+        }
+        return map;
+    }
+    public static <E> Map<String, E> readMap(Object value, FirebaseMapper<E> mapper) {
+        Map<String, Object> plainMap = asMapOrIndexed(value);
+        Map<String, E> map = new HashMap<>();
+        for(Map.Entry<String, Object> entry : plainMap.entrySet()) {
+            map.put(entry.getKey(), readObject(entry.getValue(), mapper));
+        }
+        return map;
+    }
+
+    //Mark:- Writing
+    public static Object writeValue(Object value) {
+        return FirebaseValues.toPlainValue(value);
+    }
+    public static String writeEnum(Enum<?> value) {
+        return value == null ? null : value.name();
+    }
+    /*
+        Subclasses are written with everything they add, the same as CustomClassMapper
+     */
+    public static <T> Map<String, Object> writeObject(T value, FirebaseMapper<T> mapper) {
+        if(value == null) {
+            return null;
+        } else if(value.getClass() != mapper.getType()) {
+            Map<String, Object> subclassMap = toMap(value);
+            if(subclassMap != null) {
+                return subclassMap;
+            }
+            return asMap(FirebaseValues.toPlainValue(value));
+        }
+        return mapper.toMap(value);
+    }
+    public static List<Object> writeList(List<?> list) {
+        if(list == null) {
+            return null;
+        }
+        List<Object> plainList = new ArrayList<>(list.size());
+        for(Object item : list) {
+            plainList.add(writeValue(item));
+        }
+        return plainList;
+    }
+    public static <E> List<Object> writeList(List<E> list, FirebaseMapper<E> mapper) {
+        if(list == null) {
+            return null;
+        }
+        List<Object> plainList = new ArrayList<>(list.size());
+        for(E item : list) {
+            plainList.add(writeObject(item, mapper));
+        }
+        return plainList;
+    }
+    public static Map<String, Object> writeMap(Map<String, ?> map) {
+        if(map == null) {
+            return null;
+        }
+        Map<String, Object> plainMap = new LinkedHashMap<>();
+        for(Map.Entry<String, ?> entry : map.entrySet()) {
+            put(plainMap, entry.getKey(), writeValue(entry.getValue()));
+        }
+        return plainMap;
+    }
+    public static <E> Map<String, Object> writeMap(Map<String, E> map, FirebaseMapper<E> mapper) {
+        if(map == null) {
+            return null;
+        }
+        Map<String, Object> plainMap = new LinkedHashMap<>();
+        for(Map.Entry<String, E> entry : map.entrySet()) {
+            put(plainMap, entry.getKey(), writeObject(entry.getValue(), mapper));
+        }
+        return plainMap;
+    }
+    /*
+        Firebase does not store nulls
+     */
+    public static void put(Map<String, Object> map, String key, Object plainValue) {
+        if(plainValue != null) {
+            map.put(key, plainValue);
+        }
+    }
+
+    //Mark:- Helpers
+    @SuppressWarnings("unchecked")
+    private static <E> E readLeaf(Object value, Class<E> leafClass) {
+        if(leafClass == String.class) {
+            return (E)readString(value);
+        } else if(leafClass == Integer.class) {
+            return (E)readInteger(value);
+        } else if(leafClass == Long.class) {
+            return (E)readLong(value);
+        } else if(leafClass == Double.class) {
+            return (E)readDouble(value);
+        } else if(leafClass == Float.class) {
+            return (E)readFloat(value);
+        } else if(leafClass == Boolean.class) {
+            return (E)readBoolean(value);
+        }
+        return (E)value;
+    }
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> asMap(Object value) {
+        if(value instanceof Map) {
+            return (Map<String, Object>)value;
+        }
+        throw new IllegalArgumentException("Expected a Map while deserializing, but got a " + value.getClass());
+    }
+    private static Map<String, Object> asMapOrIndexed(Object value) {
+        if(!(value instanceof List)) {
+            return asMap(value);
+        }
+        List<?> plainList = (List<?>)value;
+        Map<String, Object> indexedMap = new LinkedHashMap<>();
+        for(int index = 0; index < plainList.size(); index++) {
+            put(indexedMap, String.valueOf(index), plainList.get(index));
+        }
+        return indexedMap;
+    }
+    private static List<?> asList(Object value) {
+        if(value instanceof List) {
+            return (List<?>)value;
+        }
+        throw new IllegalArgumentException("Expected a List while deserializing, but got a " + value.getClass());
+    }
+    private static IllegalArgumentException conversionException(Object value, String typeName) {
+        return new IllegalArgumentException("Failed to convert value of type " + value.getClass().getName() + " to " + typeName);
+    }
+}
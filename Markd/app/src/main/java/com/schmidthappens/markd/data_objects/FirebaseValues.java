@@ -0,0 +1,289 @@
+package com.schmidthappens.markd.data_objects;
+
+import com.google.firebase.database.Exclude;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Converts data objects into the plain values (Map, List, String, Number, Boolean)
+ * Firebase stores, using the same getter/public field rules as DataSnapshot.getValue(Class).
+ * Classes with a generated FirebaseMapper are converted by it, reflection is the fallback.
+ * Null properties are left out since Firebase does not store them.
+ */
+
+public class FirebaseValues {
+    private static final Map<Class<?>, List<Property>> propertyCache = new HashMap<>();
+
+    public static Object toPlainValue(Object value) {
+        if(value == null) {
+            return null;
+        } else if(value instanceof String || value instanceof Number || value instanceof Boolean) {
+            return value;
+        } else if(value instanceof Character) {
+            return value.toString();
+        } else if(value instanceof Enum) {
+            return ((Enum<?>)value).name();
+        } else if(value instanceof Map) {
+            Map<String, Object> plainMap = new LinkedHashMap<>();
+            for(Map.Entry<?, ?> entry : ((Map<?, ?>)value).entrySet()) {
+                Object plainValue = toPlainValue(entry.getValue());
+                if(plainValue != null) {
+                    plainMap.put(String.valueOf(entry.getKey()), plainValue);
+                }
+            }
+            return plainMap;
+        } else if(value instanceof Collection) {
+            List<Object> plainList = new ArrayList<>();
+            for(Object item : (Collection<?>)value) {
+                plainList.add(toPlainValue(item));
+            }
+            return plainList;
+        }
+
+        Map<String, Object> mappedObject = FirebaseMappers.toMap(value);
+        if(mappedObject != null) {
+            return mappedObject;
+        }
+        Map<String, Object> plainObject = new LinkedHashMap<>();
+        for(Property property : getProperties(value.getClass())) {
+            Object plainValue = toPlainValue(property.get(value));
+            if(plainValue != null) {
+                plainObject.put(property.name, plainValue);
+            }
+        }
+        return plainObject;
+    }
+
+    /*
+        Leaves are the values Firebase stores directly, everything else has children
+     */
+    static boolean isLeaf(Object value) {
+        return value == null || value instanceof String || value instanceof Number
+                || value instanceof Boolean || value instanceof Character || value instanceof Enum;
+    }
+
+    /*
+        One level of children keyed the way Firebase keys them: list items by index, properties by name.
+        Child values are left unconverted so callers only convert what they use,
+        except for mapped objects which are converted in one pass.
+     */
+    @SuppressWarnings("unchecked")
+    static Map<String, Object> toChildMap(Object value) {
+        Map<String, Object> children = new LinkedHashMap<>();
+        if(value instanceof Map) {
+            if(!((Map<?, ?>)value).containsValue(null)) {
+                //Snapshot values are already keyed by String with no nulls
+                return (Map<String, Object>)value;
+            }
+            for(Map.Entry<?, ?> entry : ((Map<?, ?>)value).entrySet()) {
+                if(entry.getValue() != null) {
+                    children.put(String.valueOf(entry.getKey()), entry.getValue());
+                }
+            }
+        } else if(value instanceof List) {
+            List<?> list = (List<?>)value;
+            for(int i = 0; i < list.size(); i++) {
+                if(list.get(i) != null) {
+                    children.put(String.valueOf(i), list.get(i));
+                }
+            }
+        } else if(value instanceof Collection) {
+            int index = 0;
+            for(Object item : (Collection<?>)value) {
+                if(item != null) {
+                    children.put(String.valueOf(index), item);
+                }
+                index++;
+            }
+        } else if(!isLeaf(value)) {
+            Map<String, Object> mappedObject = FirebaseMappers.toMap(value);
+            if(mappedObject != null) {
+                return mappedObject;
+            }
+            for(Property property : getProperties(value.getClass())) {
+                Object propertyValue = property.get(value);
+                if(propertyValue != null) {
+                    children.put(property.name, propertyValue);
+                }
+            }
+        }
+        return children;
+    }
+
+    /*
+        Returns the value at a slash separated path, or null if nothing is stored there
+     */
+    public static Object getChild(Object value, String path) {
+        if(path == null || path.isEmpty()) {
+            return value;
+        }
+        Object current = value;
+        for(String key : path.split("/")) {
+            if(current == null || isLeaf(current)) {
+                return null;
+            }
+            current = toChildMap(current).get(key);
+        }
+        return current;
+    }
+
+    /*
+        Returns a copy of a plain value with the value at path replaced, only the maps along path are copied.
+        A null childValue removes the child.
+     */
+    static Object withChild(Object plainValue, String path, Object childValue) {
+        if(path == null || path.isEmpty()) {
+            return childValue;
+        }
+        int slash = path.indexOf('/');
+        String key = slash < 0 ? path : path.substring(0, slash);
+        String remainingPath = slash < 0 ? "" : path.substring(slash + 1);
+
+        Map<String, Object> copy = new LinkedHashMap<>();
+        if(!isLeaf(plainValue)) {
+            copy.putAll(toChildMap(plainValue));
+        }
+        Object child = withChild(copy.get(key), remainingPath, childValue);
+        if(child == null) {
+            copy.remove(key);
+        } else {
+            copy.put(key, child);
+        }
+        return copy;
+    }
+
+    /*
+        Approximate size in bytes of the JSON Firebase sends for a plain value
+     */
+    public static long estimateJsonBytes(Object plainValue) {
+        if(plainValue == null) {
+            return 4;
+        } else if(plainValue instanceof String) {
+            return utf8Length((String)plainValue) + 2;
+        } else if(plainValue instanceof Number || plainValue instanceof Boolean) {
+            return plainValue.toString().length();
+        } else if(plainValue instanceof Map) {
+            Map<?, ?> map = (Map<?, ?>)plainValue;
+            long size = 2 + Math.max(0, map.size() - 1);
+            for(Map.Entry<?, ?> entry : map.entrySet()) {
+                size += utf8Length(String.valueOf(entry.getKey())) + 3;
+                size += estimateJsonBytes(entry.getValue());
+            }
+            return size;
+        } else if(plainValue instanceof List) {
+            List<?> list = (List<?>)plainValue;
+            long size = 2 + Math.max(0, list.size() - 1);
+            for(Object item : list) {
+                size += estimateJsonBytes(item);
+            }
+            return size;
+        }
+        return estimateJsonBytes(toPlainValue(plainValue));
+    }
+
+    private static int utf8Length(String string) {
+        int length = 0;
+        for(int i = 0; i < string.length(); i++) {
+            char c = string.charAt(i);
+            if(c < 0x80) {
+                length += 1;
+            } else if(c < 0x800) {
+                length += 2;
+            } else if(Character.isHighSurrogate(c)) {
+                length += 4;
+                i++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
+    //Mark:- Reflection
+    private static synchronized List<Property> getProperties(Class<?> clazz) {
+        List<Property> properties = propertyCache.get(clazz);
+        if(properties != null) {
+            return properties;
+        }
+
+        Map<String, Property> propertiesByName = new LinkedHashMap<>();
+        for(Method method : clazz.getMethods()) {
+            String name = getterPropertyName(method);
+            if(name != null) {
+                method.setAccessible(true);
+                propertiesByName.put(name, new Property(name, method, null));
+            }
+        }
+        for(Field field : clazz.getFields()) {
+            int modifiers = field.getModifiers();
+            if(Modifier.isStatic(modifiers) || Modifier.isTransient(modifiers) || field.isAnnotationPresent(Exclude.class)
+                    || propertiesByName.containsKey(field.getName())) {
+                continue;
+            }
+            propertiesByName.put(field.getName(), new Property(field.getName(), null, field));
+        }
+        properties = new ArrayList<>(propertiesByName.values());
+        propertyCache.put(clazz, properties);
+        return properties;
+    }
+    private static String getterPropertyName(Method method) {
+        if(Modifier.isStatic(method.getModifiers())
+                || method.getDeclaringClass().equals(Object.class)
+                || method.getParameterTypes().length != 0
+                || method.getReturnType().equals(Void.TYPE)
+                || method.isAnnotationPresent(Exclude.class)) {
+            return null;
+        }
+        String methodName = method.getName();
+        String prefix;
+        if(methodName.startsWith("get")) {
+            prefix = "get";
+        } else if(methodName.startsWith("is")) {
+            prefix = "is";
+        } else {
+            return null;
+        }
+        if(methodName.length() == prefix.length()) {
+            return null;
+        }
+        //Same naming as Firebase: lowercase the leading run of capitals
+        char[] chars = methodName.substring(prefix.length()).toCharArray();
+        int position = 0;
+        while(position < chars.length && Character.isUpperCase(chars[position])) {
+            chars[position] = Character.toLowerCase(chars[position]);
+            position++;
+        }
+        return new String(chars);
+    }
+
+    private static class Property {
+        private final String name;
+        private final Method getter;
+        private final Field field;
+
+        Property(String name, Method getter, Field field) {
+            this.name = name;
+            this.getter = getter;
+            this.field = field;
+        }
+
+        Object get(Object object) {
+            try {
+                if(getter != null) {
+                    return getter.invoke(object);
+                }
+                return field.get(object);
+            } catch (Exception exception) {
+                throw new IllegalStateException("Unable to read " + name + " on " + object.getClass().getSimpleName(), exception);
+            }
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.schmidthappens.markd.data_objects;
+
+import android.util.Log;
+
+import com.google.firebase.database.DatabaseReference;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Decides which references the Firebase SDK keeps mirrored on disk.
+ * A reference is kept synced while it is retained and, once released, until it is one of the
+ * least recently used past maxSyncedPaths, so recently viewed records still open from the cache
+ * but a contractor browsing customers does not leave all of them synced for good.
+ * Paths are relative to the database root, e.g. users/{uid}.
+ */
+
+public class KeepSyncedPolicy {
+    private static final String TAG = "KeepSyncedPolicy";
+    public static final int DEFAULT_MAX_SYNCED_PATHS = 10;
+    private static KeepSyncedPolicy instance;
+
+    //Access ordered, eldest first
+    private final Map<String, SyncedPath> syncedPaths = new LinkedHashMap<>(16, 0.75f, true);
+    private int maxSyncedPaths = DEFAULT_MAX_SYNCED_PATHS;
+    private long evictionCount;
+
+    public static synchronized KeepSyncedPolicy getInstance() {
+        if(instance == null) {
+            instance = new KeepSyncedPolicy();
+        }
+        return instance;
+    }
+    KeepSyncedPolicy() {}
+
+    //Mark:- Configuration
+    /*
+        Released paths past this are un-synced, retained paths never are
+     */
+    public synchronized void setMaxSyncedPaths(int maxSyncedPaths) {
+        this.maxSyncedPaths = Math.max(0, maxSyncedPaths);
+        trim();
+    }
+    public synchronized int getMaxSyncedPaths() {
+        return maxSyncedPaths;
+    }
+
+    //Mark:- Retain/Release
+    public synchronized void retain(String path, DatabaseReference reference) {
+        SyncedPath syncedPath = syncedPaths.get(path);
+        if(syncedPath == null) {
+            Log.d(TAG, "keepSynced:" + path);
+            syncedPath = new SyncedPath(reference);
+            syncedPaths.put(path, syncedPath);
+            reference.keepSynced(true);
+        }
+        syncedPath.retainCount++;
+    }
+    /*
+        The path stays synced until enough other paths are used after it
+     */
+    public synchronized void release(String path) {
+        SyncedPath syncedPath = syncedPaths.get(path);
+        if(syncedPath == null) {
+            return;
+        }
+        syncedPath.retainCount = Math.max(0, syncedPath.retainCount - 1);
+        trim();
+    }
+    /*
+        Approximate size of the last value seen at path, see FirebaseValues.estimateJsonBytes
+     */
+    public synchronized void recordSize(String path, long bytes) {
+        SyncedPath syncedPath = syncedPaths.get(path);
+        if(syncedPath != null) {
+            syncedPath.bytes = bytes;
+        }
+    }
+
+    private void trim() {
+        Iterator<Map.Entry<String, SyncedPath>> iterator = syncedPaths.entrySet().iterator();
+        int excess = syncedPaths.size() - maxSyncedPaths;
+        while(excess > 0 && iterator.hasNext()) {
+            Map.Entry<String, SyncedPath> entry = iterator.next();
+            if(entry.getValue().retainCount > 0) {
+                continue;
+            }
+            Log.d(TAG, "unsynced:" + entry.getKey());
+            entry.getValue().reference.keepSynced(false);
+            iterator.remove();
+            evictionCount++;
+            excess--;
+        }
+    }
+
+    //Mark:- Stats
+    public synchronized int getSyncedPathCount() {
+        return syncedPaths.size();
+    }
+    public synchronized int getRetainedPathCount() {
+        int retained = 0;
+        for(SyncedPath syncedPath : syncedPaths.values()) {
+            if(syncedPath.retainCount > 0) {
+                retained++;
+            }
+        }
+        return retained;
+    }
+    /*
+        Sum of the last recorded sizes of synced paths, paths that have not loaded yet count as 0
+     */
+    public synchronized long getApproximateCacheBytes() {
+        long bytes = 0;
+        for(SyncedPath syncedPath : syncedPaths.values()) {
+            bytes += syncedPath.bytes;
+        }
+        return bytes;
+    }
+    public synchronized long getEvictionCount() {
+        return evictionCount;
+    }
+    @Override
+    public synchronized String toString() {
+        return "synced:" + getSyncedPathCount() + " retained:" + getRetainedPathCount()
+                + " bytes:" + getApproximateCacheBytes() + " evicted:" + evictionCount
+                + " budget:" + FirebaseDatabaseInstance.getCacheSizeBytes();
+    }
+
+    private static class SyncedPath {
+        private final DatabaseReference reference;
+        private int retainCount;
+        private long bytes;
+
+        SyncedPath(DatabaseReference reference) {
+            this.reference = reference;
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.schmidthappens.markd.data_objects;
+
+/**
+ * An item stored under its guid in a Firebase map instead of at a list index.
+ * Display order comes from sortKey, so adding or removing one item writes only that item's key.
+ */
+
+public interface KeyedItem {
+    String getGuid();
+    void setGuid(String guid);
+    long getSortKey();
+    void setSortKey(long sortKey);
+}
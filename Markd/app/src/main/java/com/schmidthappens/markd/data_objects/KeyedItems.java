@@ -0,0 +1,194 @@
+package com.schmidthappens.markd.data_objects;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Helpers for guid keyed collections of KeyedItem.
+ * Older records stored these collections as arrays, FirebaseMappers.readMap reads those as maps keyed by index
+ * and normalize re-keys them by guid in their original order. CollectionMigration writes the re-keyed map back.
+ * Sections holding both, guid keys written next to an array's index keys, keep the guid keyed items over
+ * the index keyed ones they replace.
+ */
+
+public class KeyedItems {
+    private static final Comparator<KeyedItem> DISPLAY_ORDER = new Comparator<KeyedItem>() {
+        @Override
+        public int compare(KeyedItem first, KeyedItem second) {
+            if(first.getSortKey() != second.getSortKey()) {
+                return first.getSortKey() < second.getSortKey() ? -1 : 1;
+            }
+            return String.valueOf(first.getGuid()).compareTo(String.valueOf(second.getGuid()));
+        }
+    };
+
+    /*
+        Items in display order, null if items is null
+     */
+    public static <T extends KeyedItem> List<T> sorted(Map<String, T> items) {
+        if(items == null) {
+            return null;
+        }
+        List<T> sortedItems = new ArrayList<>(items.values());
+        sortedItems.remove(null);
+        Collections.sort(sortedItems, DISPLAY_ORDER);
+        return sortedItems;
+    }
+    /*
+        Keys items by guid with sort keys in list order.
+        Items without a guid get one derived from their index so re-keying the same array always gives the same keys.
+     */
+    public static <T extends KeyedItem> Map<String, T> fromList(List<T> items) {
+        if(items == null) {
+            return null;
+        }
+        Map<String, T> keyedItems = new HashMap<>();
+        Set<String> usedGuids = new HashSet<>();
+        for(int index = 0; index < items.size(); index++) {
+            T item = items.get(index);
+            if(item == null) {
+                continue;
+            }
+            if(item.getGuid() == null || !usedGuids.add(item.getGuid())) {
+                item.setGuid(UUID.nameUUIDFromBytes(("index/" + index).getBytes()).toString());
+                usedGuids.add(item.getGuid());
+            }
+            item.setSortKey(index);
+            keyedItems.put(item.getGuid(), item);
+        }
+        return keyedItems;
+    }
+    /*
+        Returns items unchanged if every item is stored under its guid, otherwise re-keys them by guid.
+        Items already under their guid are kept as they are, the rest are re-keyed as fromList would the array.
+     */
+    public static <T extends KeyedItem> Map<String, T> normalize(Map<String, T> items) {
+        if(items == null || !isLegacy(items)) {
+            return items;
+        }
+        List<String> indexKeys = new ArrayList<>();
+        Map<String, T> keyedItems = new HashMap<>();
+        for(Map.Entry<String, T> entry : items.entrySet()) {
+            if(entry.getValue() != null && entry.getKey().equals(entry.getValue().getGuid())) {
+                keyedItems.put(entry.getKey(), entry.getValue());
+            } else {
+                indexKeys.add(entry.getKey());
+            }
+        }
+        Collections.sort(indexKeys, INDEX_ORDER);
+        List<T> legacyItems = new ArrayList<>(indexKeys.size());
+        for(String indexKey : indexKeys) {
+            legacyItems.add(items.get(indexKey));
+        }
+        Map<String, T> normalized = fromList(legacyItems);
+        //A guid key was written after the array, it replaces the index keyed item with the same guid
+        normalized.putAll(keyedItems);
+        return normalized;
+    }
+
+    //Mark:- Editing
+    /*
+        Replaces the item stored under guid keeping its place, or adds item as the first or last item.
+        A null guid adds item under its own guid.
+     */
+    public static <T extends KeyedItem> Map<String, T> put(Map<String, T> items, String guid, T item, boolean addFirst) {
+        if(items == null) {
+            items = new HashMap<>();
+        }
+        T existing = guid == null ? null : items.get(guid);
+        if(existing != null) {
+            item.setGuid(guid);
+            item.setSortKey(existing.getSortKey());
+        } else {
+            if(guid != null || item.getGuid() == null) {
+                item.setGuid(guid);
+            }
+            item.setSortKey(addFirst ? getFirstSortKey(items) - 1 : getLastSortKey(items) + 1);
+        }
+        items.put(item.getGuid(), item);
+        return items;
+    }
+    public static <T extends KeyedItem> Map<String, T> remove(Map<String, T> items, String guid) {
+        if(items != null && guid != null) {
+            items.remove(guid);
+        }
+        return items;
+    }
+
+    //Mark:- Legacy Data
+    /*
+        True if a plain section value is still in the array shape, or keyed by anything but each item's guid
+     */
+    static boolean isLegacyPlainValue(Object plainItems) {
+        if(plainItems instanceof List) {
+            return true;
+        } else if(plainItems instanceof Map) {
+            for(Map.Entry<?, ?> entry : ((Map<?, ?>)plainItems).entrySet()) {
+                if(!(entry.getValue() instanceof Map) || !entry.getKey().equals(((Map<?, ?>)entry.getValue()).get("guid"))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+    private static boolean isLegacy(Map<String, ? extends KeyedItem> items) {
+        for(Map.Entry<String, ? extends KeyedItem> entry : items.entrySet()) {
+            if(entry.getValue() == null || !entry.getKey().equals(entry.getValue().getGuid())) {
+                return true;
+            }
+        }
+        return false;
+    }
+    /*
+        Array indexes in number order, then any other keys by name
+     */
+    private static final Comparator<String> INDEX_ORDER = new Comparator<String>() {
+        @Override
+        public int compare(String first, String second) {
+            Long firstIndex = parseIndex(first);
+            Long secondIndex = parseIndex(second);
+            if(firstIndex != null && secondIndex != null) {
+                return Long.compare(firstIndex, secondIndex);
+            } else if(firstIndex != null || secondIndex != null) {
+                return firstIndex != null ? -1 : 1;
+            }
+            return first.compareTo(second);
+        }
+    };
+    private static Long parseIndex(String key) {
+        try {
+            return Long.parseLong(key);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    //Mark:- Helpers
+    private static long getFirstSortKey(Map<String, ? extends KeyedItem> items) {
+        if(items.isEmpty()) {
+            return 1;
+        }
+        long firstSortKey = Long.MAX_VALUE;
+        for(KeyedItem item : items.values()) {
+            firstSortKey = Math.min(firstSortKey, item.getSortKey());
+        }
+        return firstSortKey;
+    }
+    private static long getLastSortKey(Map<String, ? extends KeyedItem> items) {
+        if(items.isEmpty()) {
+            return -1;
+        }
+        long lastSortKey = Long.MIN_VALUE;
+        for(KeyedItem item : items.values()) {
+            lastSortKey = Math.max(lastSortKey, item.getSortKey());
+        }
+        return lastSortKey;
+    }
+}
@@ -0,0 +1,79 @@
+package com.schmidthappens.markd.data_objects;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Sets stored in Firebase as {key: true} so adding or removing a member writes a single key.
+ * Older records stored them as arrays of keys, and older builds still add a member as the next index,
+ * so a set can be an array, a map of index to key, or those index entries mixed in with {key: true}.
+ * fromPlainValue reads every shape. A removed member is written as false instead of deleted, so the same
+ * key at an index is dropped too.
+ */
+
+public class KeyedSets {
+
+    /*
+        Members of a plain set value in any of its shapes, or null
+     */
+    public static Map<String, Boolean> fromPlainValue(Object plainSet) {
+        Map<String, Boolean> set = new HashMap<>();
+        Set<String> removed = new HashSet<>();
+        if(plainSet instanceof List) {
+            for(Object key : (List<?>)plainSet) {
+                putKey(set, key);
+            }
+        } else if(plainSet instanceof Map) {
+            for(Map.Entry<?, ?> entry : ((Map<?, ?>)plainSet).entrySet()) {
+                if(Boolean.TRUE.equals(entry.getValue())) {
+                    set.put((String)entry.getKey(), true);
+                } else if(Boolean.FALSE.equals(entry.getValue())) {
+                    removed.add((String)entry.getKey());
+                } else {
+                    putKey(set, entry.getValue());
+                }
+            }
+        }
+        set.keySet().removeAll(removed);
+        return set;
+    }
+    public static Set<String> members(Map<String, Boolean> set) {
+        if(set == null) {
+            return Collections.emptySet();
+        }
+        Set<String> members = new LinkedHashSet<>();
+        for(Map.Entry<String, Boolean> entry : set.entrySet()) {
+            if(Boolean.TRUE.equals(entry.getValue())) {
+                members.add(entry.getKey());
+            }
+        }
+        return members;
+    }
+    /*
+        True while any member is stored as a key at an index, until the set has been rewritten
+     */
+    public static boolean isLegacyPlainValue(Object plainSet) {
+        if(plainSet instanceof List) {
+            return true;
+        }
+        if(plainSet instanceof Map) {
+            for(Object value : ((Map<?, ?>)plainSet).values()) {
+                if(value instanceof String) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static void putKey(Map<String, Boolean> set, Object key) {
+        if(key instanceof String && !((String)key).isEmpty()) {
+            set.put((String)key, true);
+        }
+    }
+}
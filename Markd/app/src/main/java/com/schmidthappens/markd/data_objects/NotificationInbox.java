@@ -0,0 +1,127 @@
+package com.schmidthappens.markd.data_objects;
+
+import com.google.firebase.database.ServerValue;
+
+import java.util.Calendar;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A customer's notifications at notifications/{uid}/{pushKey}, each a CustomerNotificationMessage with
+ * the server's sentAt so the inbox is read with orderByChild(SENT_AT). Sending adds one child, however
+ * long the inbox, and contractors sending at once each get their own key.
+ * Older inboxes were arrays rewritten whole on every send, newest first. fromLegacyPlainValue rekeys them.
+ */
+
+public class NotificationInbox {
+    public static final String PATH = "notifications";
+    public static final String SENT_AT = "sentAt";
+    private static final String LEGACY_KEY_PREFIX = "legacy_";
+
+    /*
+        Root relative update adding one message under key, a push key of the customer's inbox
+     */
+    public static Map<String, Object> getUpdates(String customerId, String key, String companyFrom, String message) {
+        Map<String, Object> updates = new LinkedHashMap<>();
+        updates.put(getPath(customerId, key), getValue(companyFrom, message));
+        return updates;
+    }
+    public static String getPath(String customerId, String key) {
+        return PATH + "/" + customerId + "/" + key;
+    }
+    /*
+        The message as written, sentAt is set by the server. Never changed after, so a broadcast can share one.
+     */
+    public static Map<String, Object> getValue(String companyFrom, String message) {
+        CustomerNotificationMessage notification = new CustomerNotificationMessage(companyFrom, message);
+        Map<String, Object> value = new LinkedHashMap<>();
+        value.put("dateSent", notification.getDateSent());
+        value.put("companyFrom", notification.getCompanyFrom());
+        value.put("message", notification.getMessage());
+        value.put(SENT_AT, ServerValue.TIMESTAMP);
+        return value;
+    }
+
+    /*
+        True while the inbox has messages from before sentAt, an array or array entries next to newer keyed ones
+     */
+    public static boolean isLegacyPlainValue(Object plainInbox) {
+        if(plainInbox instanceof List) {
+            return true;
+        }
+        if(plainInbox instanceof Map) {
+            for(Object notification : ((Map<?, ?>)plainInbox).values()) {
+                if(notification instanceof Map && !((Map<?, ?>)notification).containsKey(SENT_AT)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+    /*
+        The inbox with every message keyed and given a sentAt. Messages without one get midnight of their
+        dateSent, less their place in the old newest first array so the order within a day is kept.
+        Keys are derived from the old index so a transaction retrying this gives the same result.
+     */
+    public static Map<String, Object> fromLegacyPlainValue(Object plainInbox) {
+        Map<String, Object> inbox = new LinkedHashMap<>();
+        if(plainInbox instanceof List) {
+            List<?> notifications = (List<?>)plainInbox;
+            for(int i = 0; i < notifications.size(); i++) {
+                putMigrated(inbox, String.valueOf(i), notifications.get(i));
+            }
+        } else if(plainInbox instanceof Map) {
+            for(Map.Entry<?, ?> notification : ((Map<?, ?>)plainInbox).entrySet()) {
+                putMigrated(inbox, (String)notification.getKey(), notification.getValue());
+            }
+        }
+        return inbox;
+    }
+    private static void putMigrated(Map<String, Object> inbox, String key, Object notification) {
+        if(!(notification instanceof Map)) {
+            return;
+        }
+        Map<?, ?> fields = (Map<?, ?>)notification;
+        if(fields.containsKey(SENT_AT)) {
+            inbox.put(key, notification);
+            return;
+        }
+        int index = getLegacyIndex(key);
+        Map<String, Object> migrated = new LinkedHashMap<>();
+        for(Map.Entry<?, ?> field : fields.entrySet()) {
+            migrated.put((String)field.getKey(), field.getValue());
+        }
+        Object dateSent = fields.get("dateSent");
+        migrated.put(SENT_AT, getLegacySentAt(dateSent instanceof String ? (String)dateSent : null, index));
+        inbox.put(index >= 0 ? LEGACY_KEY_PREFIX + String.format("%05d", index) : key, migrated);
+    }
+    /*
+        The array index of an entry from an array inbox, -1 for any other key
+     */
+    private static int getLegacyIndex(String key) {
+        try {
+            return Integer.parseInt(key);
+        } catch(NumberFormatException exception) {
+            return -1;
+        }
+    }
+    /*
+        dateSent is mm.dd.yy in the device's time zone, unparseable dates sort before every parsed one
+     */
+    static long getLegacySentAt(String dateSent, int index) {
+        long offset = Math.max(0, index);
+        String[] parts = dateSent == null ? new String[0] : dateSent.split("\\.");
+        if(parts.length != 3) {
+            return -offset;
+        }
+        try {
+            Calendar calendar = Calendar.getInstance();
+            calendar.clear();
+            calendar.set(2000 + Integer.parseInt(parts[2]), Integer.parseInt(parts[0]) - 1, Integer.parseInt(parts[1]));
+            return calendar.getTimeInMillis() - offset;
+        } catch(NumberFormatException exception) {
+            return -offset;
+        }
+    }
+}
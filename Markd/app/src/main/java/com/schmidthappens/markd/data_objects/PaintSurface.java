@@ -6,12 +6,16 @@ import com.google.firebase.database.Exclude;
 import com.google.firebase.database.IgnoreExtraProperties;
 import com.schmidthappens.markd.utilities.StringUtilities;
 
+import java.util.UUID;
+
 /**
  * Created by Josh on 5/29/2017.
  */
 
 @IgnoreExtraProperties
-public class PaintSurface {
+public class PaintSurface implements KeyedItem {
+    private String guid;
+    private long sortKey;
     private String location;
     private String brand;
     private String color;
@@ -26,6 +30,7 @@ public class PaintSurface {
         this.month = month;
         this.day = day;
         this.year = year;
+        setGuid(null);
     }
     public PaintSurface() {
         // Default constructor required for calls to DataSnapshot.getValue(PaintSurface.class)
@@ -73,6 +78,24 @@ public class PaintSurface {
         this.year = year;
     }
 
+    public String getGuid() {
+        return guid;
+    }
+    public void setGuid(String guid) {
+        if(guid == null) {
+            this.guid = UUID.randomUUID().toString();
+        } else {
+            this.guid = guid;
+        }
+    }
+
+    public long getSortKey() {
+        return sortKey;
+    }
+    public void setSortKey(long sortKey) {
+        this.sortKey = sortKey;
+    }
+
     /*
         Returns string in format mm.dd.yy
         If something is wrong returns null
@@ -11,15 +11,18 @@ import java.lang.annotation.RetentionPolicy;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.UUID;
 
 /**
  * Created by Josh on 3/6/2017.
  */
 
 @IgnoreExtraProperties
-public class Panel {
+public class Panel implements KeyedItem {
     @Exclude
     private static final String TAG = "PanelDataObject";
+    private String guid;
+    private long sortKey;
     private boolean isMainPanel;
     private @PanelAmperage String amperage;
     private String panelDescription;
@@ -35,6 +38,7 @@ public class Panel {
         this.breakerList = breakerList;
         this.manufacturer = manufacturer;
         this.numberOfBreakers = breakerList.size();
+        setGuid(null);
     }
     public Panel(boolean isMainPanel, @PanelAmperage String amperage, List<Breaker> breakerList) {
         this(isMainPanel, amperage, breakerList, Panel.OTHER);
@@ -50,6 +54,22 @@ public class Panel {
     }
 
     // Mark:- Getters/Setters
+    public String getGuid() {
+        return guid;
+    }
+    public void setGuid(String guid) {
+        if(guid == null) {
+            this.guid = UUID.randomUUID().toString();
+        } else {
+            this.guid = guid;
+        }
+    }
+    public long getSortKey() {
+        return sortKey;
+    }
+    public void setSortKey(long sortKey) {
+        this.sortKey = sortKey;
+    }
     public boolean getIsMainPanel() {
         return isMainPanel;
     }
@@ -1,23 +1,30 @@
 package com.schmidthappens.markd.data_objects;
 
 import android.app.Activity;
+import android.content.Context;
 import android.util.Log;
 
 import com.google.firebase.database.DataSnapshot;
 import com.google.firebase.database.DatabaseError;
 import com.google.firebase.database.DatabaseReference;
 import com.google.firebase.database.FirebaseDatabase;
+import com.google.firebase.database.MutableData;
+import com.google.firebase.database.Transaction;
 import com.google.firebase.database.ValueEventListener;
 import com.schmidthappens.markd.account_authentication.FirebaseAuthentication;
+import com.schmidthappens.markd.utilities.ContractorIndexes;
+import com.schmidthappens.markd.utilities.ContractorProfileFetcher;
 import com.schmidthappens.markd.utilities.OnGetDataListener;
+import com.schmidthappens.markd.utilities.SnapshotDecoder;
 
 import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 
-import java.util.ArrayList;
 import java.util.Collections;
-import java.util.List;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Created by joshua.schmidtibm.com on 9/30/17.
@@ -27,20 +34,27 @@ public class TempContractorData {
     private static final String TAG = "FirebaseContractorData";
     private static DatabaseReference database = FirebaseDatabaseInstance.getDatabase().getReference();
     private String uid;
+    //Application context, the zip code table behind the contractor_geohashes entry is read through it
+    private final Context context;
+    private String userPath;
     private DatabaseReference userReference;
     private OnGetDataListener listener;
+    private final SnapshotDecoder<DecodedRecord<Contractor>> decoder;
 
-    public TempContractorData(FirebaseAuthentication authentication, OnGetDataListener listener) {
-        this(authentication.getCurrentUser().getUid(), listener);
-    }
     public TempContractorData(Activity activity, OnGetDataListener listener) {
-        this(new FirebaseAuthentication(activity).getCurrentUser().getUid(), listener);
+        this(activity, new FirebaseAuthentication(activity).getCurrentUser().getUid(), listener);
     }
-    public TempContractorData(String uid, OnGetDataListener listener) {
+    public TempContractorData(Context context, String uid, OnGetDataListener listener) {
         this.uid = uid;
+        this.context = context.getApplicationContext();
         this.listener = listener;
         userReference = database.child("users").child(uid);
-        userReference.keepSynced(true);
+        userPath = "users/" + uid;
+        decoder = DecodedRecord.decoderFor(Contractor.class, userPath);
+        CommitQueue.getInstance().addOnFlushFailedListener(flushFailedListener);
+        KeepSyncedPolicy.getInstance().retain(userPath, userReference);
+        //Local writes show up in the first snapshot only once they are sent
+        CommitQueue.getInstance().flush();
         if(listener != null) {
             listener.onStart();
         }
@@ -49,10 +63,27 @@ public class TempContractorData {
     private ValueEventListener valueEventListener = new ValueEventListener() {
         @Override
         public void onDataChange(DataSnapshot dataSnapshot) {
-            contractor = dataSnapshot.getValue(Contractor.class);
-            if(listener != null) {
-                listener.onSuccess(dataSnapshot);
-            }
+            decoder.decode(dataSnapshot, new SnapshotDecoder.OnDecodedListener<DecodedRecord<Contractor>>() {
+                @Override
+                public void onDecoded(DataSnapshot dataSnapshot, DecodedRecord<Contractor> record) {
+                    contractor = record.value;
+                    acknowledgedContractor = record.plainValue;
+                    KeepSyncedPolicy.getInstance().recordSize(userPath, record.estimatedBytes);
+                    if(KeyedSets.isLegacyPlainValue(FirebaseValues.getChild(record.plainValue, "customers"))) {
+                        migrateCustomerSet(userReference.child("customers"));
+                    }
+                    if(listener != null) {
+                        listener.onSuccess(dataSnapshot);
+                    }
+                }
+
+                @Override
+                public void onFailed(DataSnapshot dataSnapshot, DatabaseError databaseError) {
+                    if(listener != null) {
+                        listener.onFailed(databaseError);
+                    }
+                }
+            });
             Log.d(TAG, "valueEventListener:dataChanged");
         }
 
@@ -62,28 +93,59 @@ public class TempContractorData {
             listener.onFailed(databaseError);
         }
     };
+    /*
+        Edits to this contractor were not saved, the snapshot Firebase raises next puts the screen back
+     */
+    private final CommitQueue.OnFlushFailedListener flushFailedListener = new CommitQueue.OnFlushFailedListener() {
+        @Override
+        public void onFlushFailed(Set<String> paths, DatabaseError databaseError) {
+            if(listener != null && CommitQueue.overlaps(paths, userPath)) {
+                listener.onFailed(databaseError);
+            }
+        }
+    };
     public void removeListener() {
         userReference.removeEventListener(valueEventListener);
+        CommitQueue.getInstance().removeOnFlushFailedListener(flushFailedListener);
+        decoder.cancel();
+        KeepSyncedPolicy.getInstance().release(userPath);
+        CommitQueue.getInstance().flush();
     }
 
     private static Contractor contractor;
+    //Plain value of the last snapshot, edits are diffed against it
+    private static Object acknowledgedContractor;
     private Contractor getContractor() {
         return contractor;
     }
     private void putContractor(Contractor contractor) {
-        Log.d(TAG, "putting contractor");
-        database.child("users").child(uid).setValue(contractor);
+        CommitQueue commitQueue = CommitQueue.getInstance();
+        //Diff against what the server will have once queued writes are sent
+        Object acknowledged = commitQueue.getPendingValue(userPath, acknowledgedContractor);
+        Map<String, Object> updates = new LinkedHashMap<>();
+        FirebaseDiff.diff(userPath, acknowledged, contractor, updates);
+        Log.d(TAG, "queueing contractor changes:" + updates.keySet());
+        commitQueue.enqueue(updates);
         putIntoZipCode(contractor);
+        //So this contractor sees their own edits when searching as a customer
+        ContractorProfileFetcher.invalidate(uid);
     }
+    /*
+        Index writes are queued with the contractor's own so they go out in the same updateChildren, see ContractorIndexes
+     */
     private void putIntoZipCode(Contractor contractor) {
         if(contractor != null && contractor.getContractorDetails() != null && contractor.getContractorDetails().getZipCode() != null) {
-            Log.i(TAG, "Putting Contractor into Zipcode:" + contractor.getContractorDetails().getZipCode());
-            database.child("zip_codes").child(contractor.getContractorDetails().getZipCode()).child(uid).setValue(contractor.getType());
+            String zipCode = contractor.getContractorDetails().getZipCode();
+            Log.i(TAG, "Putting Contractor into Zipcode:" + zipCode);
+            CommitQueue.getInstance().enqueue(ContractorIndexes.getUpdates(context, uid, zipCode, contractor.getType(), true));
         }
     }
-    private void removeFromOldZipCode(String zipCode) {
+    private void removeFromOldZipCode(String zipCode, String contractorType) {
+        if(zipCode == null) {
+            return;
+        }
         Log.i(TAG, "Removing Contractor from Zipcode:" + zipCode);
-        database.child("zip_codes").child(zipCode).child(uid).removeValue();
+        CommitQueue.getInstance().enqueue(ContractorIndexes.getUpdates(context, uid, zipCode, contractorType, false));
     }
 
     //Mark:- Home Page
@@ -95,7 +157,7 @@ public class TempContractorData {
     }
     public void updateContractorDetails(ContractorDetails contractorDetails) {
         if(contractor.getContractorDetails() != null) {
-            removeFromOldZipCode(contractor.getContractorDetails().getZipCode());
+            removeFromOldZipCode(contractor.getContractorDetails().getZipCode(), contractor.getType());
         }
         contractor.setContractorDetails(contractorDetails);
         putContractor(contractor);
@@ -114,46 +176,45 @@ public class TempContractorData {
     }
 
     //Mark:- Customers Page
-    public List<String> getCustomers() {
-        if(contractor != null && getContractor().getCustomers() != null) {
-            return getContractor().getCustomers();
+    public Set<String> getCustomers() {
+        if(contractor != null) {
+            return KeyedSets.members(getContractor().getCustomers());
         } else {
-            return Collections.emptyList();
+            return Collections.emptySet();
         }
     }
-    static void addCustomerToContractor(String contractorReference, final String customerReference) {
-        final DatabaseReference customerListReference = database.child("users").child(contractorReference).child("customers");
-        customerListReference.addListenerForSingleValueEvent(new ValueEventListener() {
-            @Override
-            public void onDataChange(DataSnapshot customerListSnapshot) {
-                long listSize = customerListSnapshot.getChildrenCount();
-                customerListReference.child(String.valueOf(listSize)).setValue(customerReference);
-            }
-
-            @Override
-            public void onCancelled(DatabaseError databaseError) {
-                Log.e(TAG, databaseError.toString());
-            }
-        });
+    static void addCustomerToContractor(String contractorReference, String customerReference) {
+        updateCustomerSet(contractorReference, customerReference, true);
     }
-    static void removeCustomerFromContractor(String contractorReference, final String customerReference) {
-        DatabaseReference customerListReference = database.child("users").child(contractorReference).child("customers");
-        customerListReference.addListenerForSingleValueEvent(new ValueEventListener() {
+    static void removeCustomerFromContractor(String contractorReference, String customerReference) {
+        updateCustomerSet(contractorReference, customerReference, false);
+    }
+    /*
+        A single key write, queued offline too. A set still stored as an array is rewritten the next time
+        the contractor's record is read, see KeyedSets for why a removal writes false.
+     */
+    private static void updateCustomerSet(String contractorReference, String customerReference, boolean isCustomer) {
+        CommitQueue.getInstance().enqueue(FirebaseDiff.childPath("users/" + contractorReference + "/customers", customerReference), isCustomer);
+    }
+    /*
+        Rewrites an array of uids as a keyed set in a transaction so concurrent signups are not lost
+     */
+    private static void migrateCustomerSet(DatabaseReference customerSetReference) {
+        customerSetReference.runTransaction(new Transaction.Handler() {
             @Override
-            public void onDataChange(DataSnapshot customerListSnapshot) {
-                List<String> customers = new ArrayList<>();
-                for(DataSnapshot customerSnapshot: customerListSnapshot.getChildren()) {
-                    String customer = customerSnapshot.getValue(String.class);
-                    if(customer != null && !customer.equals(customerReference)) {
-                        customers.add(customer);
-                    }
-                }
-                customerListSnapshot.getRef().setValue(customers);
+            public Transaction.Result doTransaction(MutableData customerSetData) {
+                Map<String, Boolean> customerSet = KeyedSets.fromPlainValue(customerSetData.getValue());
+                customerSetData.setValue(customerSet.isEmpty() ? null : customerSet);
+                return Transaction.success(customerSetData);
             }
 
             @Override
-            public void onCancelled(DatabaseError databaseError) {
-                Log.e(TAG, databaseError.toString());
+            public void onComplete(DatabaseError databaseError, boolean committed, DataSnapshot customerSetSnapshot) {
+                if(databaseError != null) {
+                    Log.e(TAG, "customer set migration failed", databaseError.toException());
+                } else {
+                    Log.d(TAG, "migrated customer set:" + customerSetSnapshot.getKey());
+                }
             }
         });
     }
@@ -192,6 +253,10 @@ public class TempContractorData {
             Log.d(TAG, "customer null");
             contractor = new Contractor();
         }
+        if(contractor.getType() != null && !contractor.getType().equals(contractorType) && contractor.getContractorDetails() != null) {
+            //The old trade's partitions, putIntoZipCode lists the new one
+            removeFromOldZipCode(contractor.getContractorDetails().getZipCode(), contractor.getType());
+        }
         contractor.updateProfile(namePrefix, firstName, lastName, contractorType);
         putContractor(contractor);
     }
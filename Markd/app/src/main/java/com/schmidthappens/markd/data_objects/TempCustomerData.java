@@ -11,6 +11,7 @@ import com.google.firebase.database.FirebaseDatabase;
 import com.google.firebase.database.ValueEventListener;
 import com.schmidthappens.markd.account_authentication.FirebaseAuthentication;
 import com.schmidthappens.markd.file_storage.FirebaseFile;
+import com.schmidthappens.markd.utilities.ContractorCustomerIndex;
 import com.schmidthappens.markd.utilities.OnGetDataListener;
 
 import org.json.JSONArray;
@@ -18,8 +19,13 @@ import org.json.JSONException;
 import org.json.JSONObject;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Created by joshua.schmidtibm.com on 9/23/17.
@@ -29,8 +35,11 @@ public class TempCustomerData {
     private static final String TAG = "FirebaseCustomerData";
     private static DatabaseReference database = FirebaseDatabaseInstance.getDatabase().getReference().child("users");
     private DatabaseReference userReference;
+    private String userPath;
     private String uid;
     private OnGetDataListener listener;
+    private Set<CustomerSection> sections;
+    private boolean subscribed;
 
     public TempCustomerData(FirebaseAuthentication authentication, OnGetDataListener listener) {
         this(authentication.getCurrentUser().getUid(), listener);
@@ -39,36 +48,95 @@ public class TempCustomerData {
         this(new FirebaseAuthentication(activity).getCurrentUser().getUid(), listener);
     }
     public TempCustomerData(String uid, OnGetDataListener listener) {
+        this(uid, null, listener);
+    }
+    public TempCustomerData(FirebaseAuthentication authentication, Set<CustomerSection> sections, OnGetDataListener listener) {
+        this(authentication.getCurrentUser().getUid(), sections, listener);
+    }
+    /*
+        Only downloads sections, getters for any other section return null. A null sections loads the whole record.
+     */
+    public TempCustomerData(String uid, Set<CustomerSection> sections, OnGetDataListener listener) {
         this.uid = uid;
         this.listener = listener;
+        this.sections = sections;
         userReference = database.child(uid);
-        userReference.keepSynced(true);
-        userReference.addValueEventListener(valueEventListener);
-    }
-    private ValueEventListener valueEventListener = new ValueEventListener() {
-        @Override
-        public void onDataChange(DataSnapshot dataSnapshot) {
-            Log.d(TAG, "valueEventListener:dataChanged");
-            customer = dataSnapshot.getValue(Customer.class);
-            if(listener != null) {
-                listener.onSuccess(dataSnapshot);
-            }
-        }
-
-        @Override
-        public void onCancelled(DatabaseError databaseError) {
-            Log.w(TAG, "valueEventListener:onCancelled", databaseError.toException());
-            listener.onFailed(databaseError);
+        userPath = "users/" + uid;
+        if(sections == null) {
+            CustomerRepository.getInstance().subscribe(uid, listener);
+        } else {
+            CustomerRepository.getInstance().subscribe(uid, sections, listener);
         }
-    };
+        subscribed = true;
+    }
 
-    private static Customer customer;
     private Customer getCustomer() {
-        return customer;
+        return CustomerRepository.getInstance().getCustomer(uid);
     }
-    private void putCustomer(Customer customer) {
-        Log.d(TAG, "putting customer");
-        database.child(uid).setValue(customer);
+    private Customer getOrCreateCustomer() {
+        if(getCustomer() == null) {
+            Log.e(TAG, "customer null");
+            CustomerRepository.getInstance().putLocalCustomer(uid, new Customer());
+        }
+        return getCustomer();
+    }
+    private void putSection(CustomerSection section, Object value) {
+        putSections(Collections.singletonMap(section.getPath(), value));
+    }
+    /*
+        A null value removes the item
+     */
+    private void putSectionItem(CustomerSection section, String guid, Object value) {
+        putSections(Collections.singletonMap(section.getItemPath(guid), value));
+    }
+    private void putSections(Map<String, Object> sections) {
+        putSections(sections, false);
+    }
+    /*
+        With updateSummary the customer's CustomerSummary and their sort key in each contractor's
+        ContractorCustomerIndex go out in the same update
+     */
+    private void putSections(Map<String, Object> sections, boolean updateSummary) {
+        CommitQueue commitQueue = CommitQueue.getInstance();
+        Map<String, Object> updates = new LinkedHashMap<>();
+        Object acknowledgedCustomer = CustomerRepository.getInstance().getAcknowledgedValue(uid);
+        for(Map.Entry<String, Object> section : sections.entrySet()) {
+            CustomerSection legacySection = CollectionMigration.getLegacySection(userPath, section.getKey(), acknowledgedCustomer);
+            if(legacySection != null) {
+                //Still an array on the server, rewritten whole and keyed so the edit does not land next to index keys
+                updates.put(FirebaseDiff.childPath(userPath, legacySection.getPath()), CollectionMigration.getKeyedItems(getCustomer(), legacySection));
+                continue;
+            }
+            String sectionPath = FirebaseDiff.childPath(userPath, section.getKey());
+            //Diff against what the server will have once queued writes are sent
+            Object acknowledgedSection = commitQueue.getPendingValue(sectionPath, FirebaseValues.getChild(acknowledgedCustomer, section.getKey()));
+            FirebaseDiff.diff(sectionPath, acknowledgedSection, section.getValue(), updates);
+        }
+        if(updates.isEmpty()) {
+            Log.d(TAG, "no changes in sections:" + sections.keySet());
+            return;
+        }
+        if(updateSummary) {
+            updates.putAll(CustomerSummary.getUpdates(uid, getCustomer()));
+            String sortKey = CustomerSummary.fromCustomer(getCustomer()).getSortKey();
+            for(String contractorReference : getContractorReferences()) {
+                updates.putAll(ContractorCustomerIndex.getUpdates(contractorReference, uid, sortKey));
+            }
+        }
+        Log.d(TAG, "queueing changes:" + updates.keySet());
+        UploadByteCounter.recordWrite(updates, getCustomer());
+        commitQueue.enqueue(updates);
+    }
+    private List<String> getContractorReferences() {
+        Customer customer = getCustomer();
+        List<String> contractorReferences = new ArrayList<>();
+        for(String contractorReference : new String[] {customer.getPlumberReference(), customer.getHvactechnicianReference(), customer.getElectricianReference(),
+                customer.getPainterReference(), customer.getArchitectReference(), customer.getBuilder(), customer.getRealtor()}) {
+            if(contractorReference != null && !contractorReferences.contains(contractorReference)) {
+                contractorReferences.add(contractorReference);
+            }
+        }
+        return contractorReferences;
     }
     private void addContractorListener(final DatabaseReference reference, final OnGetDataListener contractorListener) {
         if(contractorListener != null) {
@@ -94,7 +162,15 @@ public class TempCustomerData {
         userReference.addListenerForSingleValueEvent(listener);
     }
     public void removeListeners() {
-        userReference.removeEventListener(valueEventListener);
+        if(subscribed) {
+            subscribed = false;
+            if(sections == null) {
+                CustomerRepository.getInstance().unsubscribe(uid, listener);
+            } else {
+                CustomerRepository.getInstance().unsubscribe(uid, sections, listener);
+            }
+        }
+        CommitQueue.getInstance().flush();
     }
     public String getUid() {
         return uid;
@@ -102,19 +178,19 @@ public class TempCustomerData {
 
     //Mark:- Home Page
     public String getName() {
-        if(customer == null) {
+        if(getCustomer() == null) {
             return "";
         }
-        return customer.getName();
+        return getCustomer().getName();
     }
     public String getFormattedAddress() {
-        if(customer == null || customer.getHome() == null) {
+        if(getCustomer() == null || getCustomer().getHome() == null) {
             return null;
         }
         return getStreet() + "\n" + getCity() + ", " + getState() + " " + getZipcode();
     }
     public String getRoomInformation() {
-        if(customer.getHome() == null) {
+        if(getCustomer().getHome() == null) {
             return null;
         }
         StringBuilder builder = new StringBuilder();
@@ -156,15 +232,15 @@ public class TempCustomerData {
         }
     }
     public String getHomeImageFileName() {
-        if(customer == null) {
+        if(getCustomer() == null) {
             return null;
         } else {
-            return "homes/" + uid + "/" + customer.getHomeImageFileName();
+            return "homes/" + uid + "/" + getCustomer().getHomeImageFileName();
         }
     }
     public String setHomeImageFileName() {
-        customer.setHomeImageFileName();
-        putCustomer(customer);
+        getCustomer().setHomeImageFileName();
+        putSection(CustomerSection.HOME_IMAGE, getCustomer().getHomeImageFileName());
         return getHomeImageFileName();
     }
 
@@ -173,18 +249,18 @@ public class TempCustomerData {
         return getCustomer().getHotWater();
     }
     public void updateHotWater(HotWater hotWater) {
-        customer.setHotWater(hotWater);
-        putCustomer(customer);
+        getCustomer().setHotWater(hotWater);
+        putSection(CustomerSection.HOT_WATER, hotWater);
     }
     public Boiler getBoiler() {
         return getCustomer().getBoiler();
     }
     public void updateBoiler(Boiler boiler) {
-        customer.setBoiler(boiler);
-        putCustomer(customer);
+        getCustomer().setBoiler(boiler);
+        putSection(CustomerSection.BOILER, boiler);
     }
     public boolean getPlumber(final OnGetDataListener plumberListener) {
-        String plumber = customer.getPlumberReference();
+        String plumber = getCustomer().getPlumberReference();
         if(plumber == null) {
             return false;
         }
@@ -193,10 +269,10 @@ public class TempCustomerData {
         return true;
     }
     public String getPlumberReference() {
-        return customer.getPlumberReference();
+        return getCustomer().getPlumberReference();
     }
     public List<ContractorService> getPlumbingServices() {
-        return getCustomer().getPlumbingServices();
+        return KeyedItems.sorted(getCustomer().getPlumbingServices());
     }
 
     //Mark:- HVAC
@@ -204,18 +280,18 @@ public class TempCustomerData {
         return getCustomer().getAirHandler();
     }
     public void updateAirHandler(AirHandler airHandler) {
-        customer.setAirHandler(airHandler);
-        putCustomer(customer);
+        getCustomer().setAirHandler(airHandler);
+        putSection(CustomerSection.AIR_HANDLER, airHandler);
     }
     public Compressor getCompressor() {
         return getCustomer().getCompressor();
     }
     public void updateCompressor(Compressor compressor) {
-        customer.setCompressor(compressor);
-        putCustomer(customer);
+        getCustomer().setCompressor(compressor);
+        putSection(CustomerSection.COMPRESSOR, compressor);
     }
     public boolean getHvacTechnician(final OnGetDataListener hvacListener) {
-        String hvacTechnician = customer.getHvactechnicianReference();
+        String hvacTechnician = getCustomer().getHvactechnicianReference();
         if(hvacTechnician == null) {
             return false;
         }
@@ -224,29 +300,41 @@ public class TempCustomerData {
         return true;
     }
     public String getHvactechnicianReference() {
-        return customer.getHvactechnicianReference();
+        return getCustomer().getHvactechnicianReference();
     }
     public List<ContractorService> getHvacServices() {
-        return getCustomer().getHvacServices();
+        return KeyedItems.sorted(getCustomer().getHvacServices());
     }
 
     //MarK:- Electrical
     public List<Panel> getPanels() {
-        return getCustomer().getPanels();
-    }
-    public void updatePanel(int panelId, Panel updatedPanel){
-        customer.setPanel(panelId, updatedPanel);
-        putCustomer(customer);
+        return KeyedItems.sorted(getCustomer().getPanels());
     }
-    public void removePanel(int panelId) {
-        customer.deletePanel(panelId);
-        putCustomer(customer);
+    public Panel getPanel(String panelGuid) {
+        if(getCustomer().getPanels() == null || panelGuid == null) {
+            return null;
+        }
+        return getCustomer().getPanels().get(panelGuid);
+    }
+    /*
+        A null panelGuid adds a new panel
+     */
+    public void updatePanel(String panelGuid, Panel updatedPanel){
+        getCustomer().setPanel(panelGuid, updatedPanel);
+        putSectionItem(CustomerSection.PANELS, updatedPanel.getGuid(), updatedPanel);
+    }
+    public void removePanel(String panelGuid) {
+        if(panelGuid == null) {
+            return;
+        }
+        getCustomer().deletePanel(panelGuid);
+        putSectionItem(CustomerSection.PANELS, panelGuid, null);
     }
     public List<ContractorService> getElectricalServices() {
-        return getCustomer().getElectricalServices();
+        return KeyedItems.sorted(getCustomer().getElectricalServices());
     }
     public boolean getElectrician(final OnGetDataListener electricianListener) {
-        String electrician = customer.getElectricianReference();
+        String electrician = getCustomer().getElectricianReference();
         if(electrician == null) {
             return false;
         }
@@ -255,34 +343,43 @@ public class TempCustomerData {
         return true;
     }
     public String getElectricianReference() {
-        return customer.getElectricianReference();
+        return getCustomer().getElectricianReference();
     }
 
     //Mark:- Painting
     public List<PaintSurface> getExteriorSurfaces() {
-        return getCustomer().getExteriorPaintSurfaces();
-    }
-    public void updateExteriorPaintSurface(int paintId, PaintSurface paintSurface) {
-        customer.setExteriorPaintSurface(paintId, paintSurface);
-        putCustomer(customer);
-    }
-    public void removeExteriorPaintSurface(int paintId){
-        customer.deleteExteriorPaintSurface(paintId);
-        putCustomer(customer);
+        return KeyedItems.sorted(getCustomer().getExteriorPaintSurfaces());
+    }
+    /*
+        A null paintGuid adds a new surface
+     */
+    public void updateExteriorPaintSurface(String paintGuid, PaintSurface paintSurface) {
+        getCustomer().setExteriorPaintSurface(paintGuid, paintSurface);
+        putSectionItem(CustomerSection.EXTERIOR_PAINT_SURFACES, paintSurface.getGuid(), paintSurface);
+    }
+    public void removeExteriorPaintSurface(String paintGuid){
+        if(paintGuid == null) {
+            return;
+        }
+        getCustomer().deleteExteriorPaintSurface(paintGuid);
+        putSectionItem(CustomerSection.EXTERIOR_PAINT_SURFACES, paintGuid, null);
     }
     public List<PaintSurface> getInteriorSurfaces() {
-        return getCustomer().getInteriorPaintSurfaces();
+        return KeyedItems.sorted(getCustomer().getInteriorPaintSurfaces());
     }
-    public void updateInteriorPaintSurface(int paintId, PaintSurface paintSurface) {
-        customer.setInteriorPaintSurface(paintId, paintSurface);
-        putCustomer(customer);
+    public void updateInteriorPaintSurface(String paintGuid, PaintSurface paintSurface) {
+        getCustomer().setInteriorPaintSurface(paintGuid, paintSurface);
+        putSectionItem(CustomerSection.INTERIOR_PAINT_SURFACES, paintSurface.getGuid(), paintSurface);
     }
-    public void removeInteriorPaintSurface(int paintId) {
-        customer.deleteInteriorPaintSurface(paintId);
-        putCustomer(customer);
+    public void removeInteriorPaintSurface(String paintGuid) {
+        if(paintGuid == null) {
+            return;
+        }
+        getCustomer().deleteInteriorPaintSurface(paintGuid);
+        putSectionItem(CustomerSection.INTERIOR_PAINT_SURFACES, paintGuid, null);
     }
     public boolean getPainter(final OnGetDataListener painterListener) {
-        String painter = customer.getPainterReference();
+        String painter = getCustomer().getPainterReference();
         if(painter == null) {
             return false;
         }
@@ -291,32 +388,48 @@ public class TempCustomerData {
         return true;
     }
     public String getPainterReference() {
-        return customer.getPainterReference();
+        return getCustomer().getPainterReference();
     }
 
     //Mark:- Services
-    public void addService(ContractorService service, String serviceType) {
-        customer.addService(service, serviceType);
-        putCustomer(customer);
-    }
-    public void updateService(int serviceId, String contractor, String comments, List<FirebaseFile> files, String serviceType) {
-        customer.updateService(serviceId, contractor, comments, files, serviceType);
-        putCustomer(customer);
+    /*
+        Returns the guid the service was added under
+     */
+    public String addService(ContractorService service, String serviceType) {
+        getCustomer().addService(service, serviceType);
+        putService(service.getGuid(), serviceType);
+        return service.getGuid();
+    }
+    public void updateService(String serviceGuid, String contractor, String comments, List<FirebaseFile> files, String serviceType) {
+        getCustomer().updateService(serviceGuid, contractor, comments, files, serviceType);
+        putService(serviceGuid, serviceType);
+    }
+    public void removeService(String serviceGuid, String serviceType) {
+        getCustomer().deleteService(serviceGuid, serviceType);
+        putService(serviceGuid, serviceType);
+    }
+    private void putService(String serviceGuid, String serviceType) {
+        CustomerSection section = CustomerSection.fromServiceType(serviceType);
+        if(section != null && serviceGuid != null) {
+            putSectionItem(section, serviceGuid, getCustomer().getService(serviceGuid, serviceType));
+        }
     }
-    public void removeService(int serviceId, String serviceType) {
-        customer.deleteService(serviceId, serviceType);
-        putCustomer(customer);
+    public ContractorService getService(String serviceGuid, String serviceType) {
+        if(getCustomer() == null) {
+            return null;
+        }
+        return getCustomer().getService(serviceGuid, serviceType);
     }
     public List<ContractorService> getServices(String serviceType) {
-        if(customer == null) {
+        if(getCustomer() == null) {
             return new ArrayList<>();
         } else {
             if(serviceType.equalsIgnoreCase("Plumber")) {
-                return customer.getPlumbingServices();
+                return getPlumbingServices();
             } else if(serviceType.equalsIgnoreCase("Electrician")) {
-                return customer.getElectricalServices();
+                return getElectricalServices();
             } else if(serviceType.equalsIgnoreCase("Hvac")) {
-                return customer.getHvacServices();
+                return getHvacServices();
             } else {
                 Log.e(TAG, "No matching ServiceType");
                 return new ArrayList<>();
@@ -338,55 +451,84 @@ public class TempCustomerData {
         return getCustomer().getMaritalStatus();
     }
     public void updateProfile(String namePrefix, String firstName, String lastName, String maritalStatus) {
-        if(customer == null) {
-            Log.e(TAG, "customer null");
-            customer = new Customer();
-        }
+        Customer customer = getOrCreateCustomer();
         customer.updateProfile(namePrefix, firstName, lastName, maritalStatus);
-        putCustomer(customer);
+        Map<String, Object> sections = new HashMap<>();
+        sections.put(CustomerSection.NAME_PREFIX.getPath(), namePrefix);
+        sections.put(CustomerSection.FIRST_NAME.getPath(), firstName);
+        sections.put(CustomerSection.LAST_NAME.getPath(), lastName);
+        sections.put(CustomerSection.MARITAL_STATUS.getPath(), maritalStatus);
+        sections.put(CustomerSection.USER_TYPE.getPath(), customer.userType);
+        putSections(sections, true);
     }
     public void updateContractor(String contractorType, String contractorReference) {
+        List<String> previousContractorReferences = getContractorReferences();
         if(contractorType.equals("Plumber")) {
-            if(customer.getPlumberReference() != null) {
-                Log.d(TAG, "Deleting plumber:" + customer.getPlumberReference());
-                TempContractorData.removeCustomerFromContractor(customer.getPlumberReference(), uid);
+            if(getCustomer().getPlumberReference() != null) {
+                Log.d(TAG, "Deleting plumber:" + getCustomer().getPlumberReference());
+                TempContractorData.removeCustomerFromContractor(getCustomer().getPlumberReference(), uid);
             }
-            customer.setPlumber(contractorReference);
+            getCustomer().setPlumber(contractorReference);
         } else if(contractorType.equals("Hvac")) {
-            if(customer.getHvactechnicianReference() != null) {
-                TempContractorData.removeCustomerFromContractor(customer.getHvactechnicianReference(), uid);
+            if(getCustomer().getHvactechnicianReference() != null) {
+                TempContractorData.removeCustomerFromContractor(getCustomer().getHvactechnicianReference(), uid);
             }
-            customer.setHvactechnician(contractorReference);
+            getCustomer().setHvactechnician(contractorReference);
         } else if(contractorType.equals("Electrician")) {
-            if(customer.getElectricianReference() != null) {
-                TempContractorData.removeCustomerFromContractor(customer.getElectricianReference(), uid);
+            if(getCustomer().getElectricianReference() != null) {
+                TempContractorData.removeCustomerFromContractor(getCustomer().getElectricianReference(), uid);
             }
-            customer.setElectricianReference(contractorReference);
+            getCustomer().setElectricianReference(contractorReference);
         } else if(contractorType.equals("Painter")) {
-            if(customer.getPainterReference() != null) {
-                TempContractorData.removeCustomerFromContractor(customer.getPainterReference(), uid);
+            if(getCustomer().getPainterReference() != null) {
+                TempContractorData.removeCustomerFromContractor(getCustomer().getPainterReference(), uid);
             }
-            customer.setPainter(contractorReference);
+            getCustomer().setPainter(contractorReference);
         } else if(contractorType.equals("Architect")) {
-            if(customer.getArchitectReference() != null) {
-                TempContractorData.removeCustomerFromContractor(customer.getArchitectReference(), uid);
+            if(getCustomer().getArchitectReference() != null) {
+                TempContractorData.removeCustomerFromContractor(getCustomer().getArchitectReference(), uid);
             }
-            customer.setArchitect(contractorReference);
+            getCustomer().setArchitect(contractorReference);
         } else if(contractorType.equals("Builder")) {
-            if(customer.getBuilder() != null) {
-                TempContractorData.removeCustomerFromContractor(customer.getBuilder(), uid);
+            if(getCustomer().getBuilder() != null) {
+                TempContractorData.removeCustomerFromContractor(getCustomer().getBuilder(), uid);
             }
-            customer.setBuilder(contractorReference);
+            getCustomer().setBuilder(contractorReference);
         } else if(contractorType.equals("Realtor")) {
-            if(customer.getRealtor() != null) {
-                TempContractorData.removeCustomerFromContractor(customer.getRealtor(), uid);
+            if(getCustomer().getRealtor() != null) {
+                TempContractorData.removeCustomerFromContractor(getCustomer().getRealtor(), uid);
             }
-            customer.setRealtor(contractorReference);
+            getCustomer().setRealtor(contractorReference);
         } else {
             Log.e(TAG, "contractorType(" + contractorType + ") not found!");
         }
         TempContractorData.addCustomerToContractor(contractorReference, uid);
-        putCustomer(customer);
+        CustomerSection section = CustomerSection.fromContractorType(contractorType);
+        if(section != null) {
+            putSection(section, contractorReference);
+        }
+        updateContractorCustomerIndex(previousContractorReferences);
+    }
+    /*
+        Unlists the customer from contractors they no longer have and lists them under new ones
+     */
+    private void updateContractorCustomerIndex(List<String> previousContractorReferences) {
+        List<String> contractorReferences = getContractorReferences();
+        Map<String, Object> updates = new LinkedHashMap<>();
+        for(String contractorReference : previousContractorReferences) {
+            if(!contractorReferences.contains(contractorReference)) {
+                updates.putAll(ContractorCustomerIndex.getUpdates(contractorReference, uid, null));
+            }
+        }
+        String sortKey = CustomerSummary.fromCustomer(getCustomer()).getSortKey();
+        for(String contractorReference : contractorReferences) {
+            if(!previousContractorReferences.contains(contractorReference)) {
+                updates.putAll(ContractorCustomerIndex.getUpdates(contractorReference, uid, sortKey));
+            }
+        }
+        if(!updates.isEmpty()) {
+            CommitQueue.getInstance().enqueue(updates);
+        }
     }
 
     public String getStreet() {
@@ -411,12 +553,12 @@ public class TempCustomerData {
         return getCustomer().getHome().getSquareFootage().toString();
     }
     public void updateHome(String street, String city, String state, String zipcode, Double bedrooms, Double bathrooms, Integer squareFootage) {
-        if(customer == null) {
-            Log.e(TAG, "customer null");
-            customer = new Customer();
-        }
+        Customer customer = getOrCreateCustomer();
         customer.updateHome(street, city, state, zipcode, bedrooms, bathrooms, squareFootage);
-        putCustomer(customer);
+        Map<String, Object> sections = new HashMap<>();
+        sections.put(CustomerSection.ADDRESS.getPath(), customer.getAddress());
+        sections.put(CustomerSection.HOME.getPath(), customer.getHome());
+        putSections(sections, true);
     }
 
    //TODO: Remove with database reset
@@ -436,22 +578,22 @@ public class TempCustomerData {
         newCustomer.setHotWater(initialHotWater());
         newCustomer.setBoiler(initialBoiler());
         newCustomer.setPlumber("s5VWMQvH17ZJnVqxtOkqvWpufmu2");
-        newCustomer.setPlumbingServices(TempContractorServiceData.getInstance().getPlumbingServices());
+        newCustomer.setPlumbingServices(KeyedItems.fromList(TempContractorServiceData.getInstance().getPlumbingServices()));
 
         //HVAC
         newCustomer.setAirHandler(initialAirHandler());
         newCustomer.setCompressor(initialCompressor());
         newCustomer.setHvactechnician("defaultHvacOne");
-        newCustomer.setHvacServices(TempContractorServiceData.getInstance().getHvacServices());
+        newCustomer.setHvacServices(KeyedItems.fromList(TempContractorServiceData.getInstance().getHvacServices()));
 
         //Electrical
-        newCustomer.setPanels(initialPanelList());
+        newCustomer.setPanels(KeyedItems.fromList(initialPanelList()));
         newCustomer.setElectricianReference("defaultElectricianThree");
-        newCustomer.setElectricalServices(TempContractorServiceData.getInstance().getElectricalServices());
+        newCustomer.setElectricalServices(KeyedItems.fromList(TempContractorServiceData.getInstance().getElectricalServices()));
 
         //Painting
-        newCustomer.setInteriorPaintSurfaces(initialInteriorSurfaces());
-        newCustomer.setExteriorPaintSurfaces(initialExteriorSurfaces());
+        newCustomer.setInteriorPaintSurfaces(KeyedItems.fromList(initialInteriorSurfaces()));
+        newCustomer.setExteriorPaintSurfaces(KeyedItems.fromList(initialExteriorSurfaces()));
         newCustomer.setPainter("defaultPainterOne");
 
         return newCustomer;
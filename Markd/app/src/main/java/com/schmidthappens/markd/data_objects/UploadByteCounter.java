@@ -0,0 +1,62 @@
+package com.schmidthappens.markd.data_objects;
+
+import android.util.Log;
+
+import com.schmidthappens.markd.BuildConfig;
+
+import java.util.Map;
+
+/**
+ * Keeps a running count of the bytes uploaded by partial writes compared to
+ * the bytes a setValue of the whole record would have uploaded.
+ */
+
+public class UploadByteCounter {
+    private static final String TAG = "UploadByteCounter";
+    private static boolean enabled = BuildConfig.DEBUG;
+    private static long writeCount;
+    private static long bytesWritten;
+    private static long fullRecordBytes;
+
+    public static synchronized void setEnabled(boolean isEnabled) {
+        enabled = isEnabled;
+    }
+    public static synchronized boolean isEnabled() {
+        return enabled;
+    }
+
+    /*
+        updates are relative to the record, fullRecord is what a whole record write would have sent
+     */
+    public static void recordWrite(Map<String, Object> updates, Object fullRecord) {
+        if(!isEnabled()) {
+            return;
+        }
+        long updateBytes = FirebaseValues.estimateJsonBytes(FirebaseValues.toPlainValue(updates));
+        long recordBytes = FirebaseValues.estimateJsonBytes(FirebaseValues.toPlainValue(fullRecord));
+        synchronized (UploadByteCounter.class) {
+            writeCount++;
+            bytesWritten += updateBytes;
+            fullRecordBytes += recordBytes;
+        }
+        Log.d(TAG, "wrote " + updates.keySet() + ": " + updateBytes + " bytes instead of " + recordBytes + " bytes");
+    }
+
+    public static synchronized long getWriteCount() {
+        return writeCount;
+    }
+    public static synchronized long getBytesWritten() {
+        return bytesWritten;
+    }
+    public static synchronized long getFullRecordBytes() {
+        return fullRecordBytes;
+    }
+    public static synchronized long getBytesSaved() {
+        return fullRecordBytes - bytesWritten;
+    }
+    public static synchronized void reset() {
+        writeCount = 0;
+        bytesWritten = 0;
+        fullRecordBytes = 0;
+    }
+}
@@ -1,6 +1,7 @@
 package com.schmidthappens.markd.file_storage;
 
 import com.google.firebase.database.Exclude;
+import com.google.firebase.database.IgnoreExtraProperties;
 
 import java.util.UUID;
 
@@ -8,6 +9,7 @@ import java.util.UUID;
  * Created by joshua.schmidtibm.com on 2/2/18.
  */
 
+@IgnoreExtraProperties
 public class FirebaseFile {
     private String fileName;
     private String guid;
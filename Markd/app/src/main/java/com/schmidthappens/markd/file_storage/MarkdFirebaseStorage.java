@@ -1,6 +1,7 @@
 package com.schmidthappens.markd.file_storage;
 
 import android.app.Activity;
+import android.content.Context;
 import android.net.Uri;
 import android.support.annotation.NonNull;
 import android.util.Log;
@@ -125,6 +126,56 @@ public class MarkdFirebaseStorage {
             }
         });
     }
+    /*
+        For recycled views, cancel the load before the view is bound to another image.
+        A cancelled load never touches the view, even if its metadata comes back later.
+     */
+    public static ImageLoad loadCancellableImage(final Context context, final String path, final ImageView imageView) {
+        final ImageLoad imageLoad = new ImageLoad(imageView);
+        if(StringUtilities.isNullOrEmpty(path)) {
+            return imageLoad;
+        }
+        final StorageReference storageReference = storage.getReference().child("images/" + path);
+        storageReference.getMetadata().addOnSuccessListener(new OnSuccessListener<StorageMetadata>() {
+            @Override
+            public void onSuccess(StorageMetadata storageMetadata) {
+                if(imageLoad.isCancelled || (context instanceof Activity && ((Activity)context).isDestroyed())) {
+                    return;
+                }
+                if (!("image/jpeg".equals(storageMetadata.getContentType()) || "image/png".equals(storageMetadata.getContentType()))) {
+                    Log.e(TAG, "Wrong Content Type:" + storageMetadata.getContentType());
+                    return;
+                }
+                Glide.with(context)
+                        .using(new FirebaseImageLoader())
+                        .load(storageReference)
+                        .into(imageView);
+            }
+        }).addOnFailureListener(new OnFailureListener() {
+            @Override
+            public void onFailure(@NonNull Exception e) {
+                Log.d(TAG, "Not loading image:" + path, e);
+            }
+        });
+        return imageLoad;
+    }
+    public static class ImageLoad {
+        private final ImageView imageView;
+        private boolean isCancelled;
+
+        private ImageLoad(ImageView imageView) {
+            this.imageView = imageView;
+        }
+        /*
+            Stops the load and clears the view, call on the main thread
+         */
+        public void cancel() {
+            isCancelled = true;
+            Glide.clear(imageView);
+            imageView.setImageDrawable(null);
+        }
+    }
+
     public static void updateImage(final Activity context, final String path, final Uri file, final ImageView imageView, final ImageLoadingListener listener) {
         Log.d(TAG, path);
         if(listener != null) {
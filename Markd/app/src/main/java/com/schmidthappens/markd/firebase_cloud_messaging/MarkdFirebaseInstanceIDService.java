@@ -7,10 +7,10 @@ import android.util.Log;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
 import com.google.firebase.database.DatabaseReference;
-import com.google.firebase.database.FirebaseDatabase;
 import com.google.firebase.iid.FirebaseInstanceId;
 import com.google.firebase.iid.FirebaseInstanceIdService;
 import com.schmidthappens.markd.account_authentication.FirebaseAuthentication;
+import com.schmidthappens.markd.data_objects.FirebaseDatabaseInstance;
 
 import java.io.IOException;
 
@@ -56,7 +56,7 @@ public class MarkdFirebaseInstanceIDService extends FirebaseInstanceIdService {
     }
 
     private static DatabaseReference getReference(String uid, Context context) {
-        return FirebaseDatabase.getInstance().getReference("tokens").child(uid).child(Installation.id(context));
+        return FirebaseDatabaseInstance.getDatabase().getReference("tokens").child(uid).child(Installation.id(context));
     }
 
     private static void getToken() {
@@ -0,0 +1,104 @@
+package com.schmidthappens.markd.utilities;
+
+import android.util.Log;
+
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseError;
+import com.google.firebase.database.DatabaseReference;
+import com.google.firebase.database.ValueEventListener;
+import com.schmidthappens.markd.data_objects.CustomerSummary;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A contractor's customers ordered by last name on the server:
+ *   contractor_customers/{contractorUid}/{customerUid} = the customer's CustomerSummary sort key
+ * so CustomerPageSource can read them a page at a time with orderByValue. The database rules need
+ * ".indexOn": ".value" on contractor_customers/$contractorUid for the ordering to happen on the server.
+ * Written by TempCustomerData with the customer's contractor and profile changes, customers from before
+ * the index are copied in by backfillIfNeeded.
+ */
+
+public class ContractorCustomerIndex {
+    private static final String TAG = "ContractorCustomerIndex";
+    public static final String PATH = "contractor_customers";
+    private static final String INDEX_VERSIONS = "index_versions";
+    private static final int VERSION = 1;
+
+    /*
+        Root relative update listing the customer under the contractor or, with a null sortKey, unlisting them
+     */
+    public static Map<String, Object> getUpdates(String contractorReference, String customerReference, String sortKey) {
+        Map<String, Object> updates = new LinkedHashMap<>();
+        if(StringUtilities.isNullOrEmpty(contractorReference) || StringUtilities.isNullOrEmpty(customerReference)) {
+            return updates;
+        }
+        updates.put(PATH + "/" + contractorReference + "/" + customerReference, sortKey);
+        return updates;
+    }
+
+    /*
+        Fills the contractor's index from their customer set once, index_versions/contractor_customers/{uid}
+        records that it is done. onDone runs either way, paging what is there if the backfill failed.
+     */
+    public static void backfillIfNeeded(final DatabaseReference root, final String contractorReference, final Collection<String> customerReferences, final Runnable onDone) {
+        final String versionPath = INDEX_VERSIONS + "/" + PATH + "/" + contractorReference;
+        root.child(versionPath).addListenerForSingleValueEvent(new ValueEventListener() {
+            @Override
+            public void onDataChange(DataSnapshot versionSnapshot) {
+                Long version = versionSnapshot.getValue(Long.class);
+                if(version != null && version >= VERSION) {
+                    onDone.run();
+                } else {
+                    backfill(root, contractorReference, customerReferences, versionPath, onDone);
+                }
+            }
+
+            @Override
+            public void onCancelled(DatabaseError databaseError) {
+                Log.w(TAG, "index version read failed:" + contractorReference, databaseError.toException());
+                onDone.run();
+            }
+        });
+    }
+    private static void backfill(final DatabaseReference root, final String contractorReference, Collection<String> customerReferences, final String versionPath, final Runnable onDone) {
+        Log.i(TAG, "backfilling:" + contractorReference + " customers:" + customerReferences.size());
+        final Map<String, Object> write = new HashMap<>();
+        final boolean[] failed = {false};
+        CustomerFetcher fetcher = new CustomerFetcher(root, new CustomerFetcher.OnCustomersFetchedListener() {
+            @Override
+            public void onCustomerFetched(String customerReference, CustomerSummary customer) {
+                write.putAll(getUpdates(contractorReference, customerReference, getSortKey(customer)));
+            }
+
+            @Override
+            public void onFetchFinished() {
+                //Without every customer the version is left unset so the next start tries again
+                if(!failed[0]) {
+                    write.put(versionPath, VERSION);
+                }
+                root.updateChildren(write, new DatabaseReference.CompletionListener() {
+                    @Override
+                    public void onComplete(DatabaseError databaseError, DatabaseReference databaseReference) {
+                        if(databaseError != null) {
+                            Log.w(TAG, "backfill write failed:" + contractorReference, databaseError.toException());
+                        }
+                        onDone.run();
+                    }
+                });
+            }
+
+            @Override
+            public void onFailed(DatabaseError databaseError) {
+                failed[0] = true;
+            }
+        });
+        fetcher.fetch(customerReferences);
+    }
+    private static String getSortKey(CustomerSummary customer) {
+        return customer.getSortKey() == null ? "" : customer.getSortKey();
+    }
+}
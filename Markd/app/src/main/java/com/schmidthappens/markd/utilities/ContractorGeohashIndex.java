@@ -0,0 +1,153 @@
+package com.schmidthappens.markd.utilities;
+
+import android.content.Context;
+import android.support.annotation.Nullable;
+import android.util.Log;
+
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseError;
+import com.google.firebase.database.DatabaseReference;
+import com.google.firebase.database.ValueEventListener;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Contractors by location, contractor_geohashes/{contractorType}/{geohash}_{uid} = true, see ContractorIndexes.
+ * The geohash is of the contractor's zip centroid, so keys that share a prefix are in the same cell and a radius
+ * search is a few orderByKey range reads of the covering cells, narrowed to the exact radius here.
+ * Contractors are handed on nearest first as soon as no cell still being read could hold a nearer one.
+ * One search per instance, used from the main thread.
+ */
+
+public class ContractorGeohashIndex {
+    private static final String TAG = "ContractorGeohashIndex";
+    public static final String PATH = "contractor_geohashes";
+    private static final String KEY_SEPARATOR = "_";
+    //Sorts after every key character, so endAt(prefix + it) ends the prefix's range
+    private static final String RANGE_END = "\uf8ff";
+
+    /*
+        Path of the contractor's index entry, null if the zip code is not in the zip code table
+     */
+    @Nullable
+    public static String getPath(Context context, String contractorType, String zipCode, String uid) {
+        double[] location = ZipCodeUtilities.getZipCodeLocation(context, zipCode);
+        if(location == null || uid == null) {
+            return null;
+        }
+        return PATH + "/" + contractorType + "/" + Geohash.encode(location[0], location[1], Geohash.PRECISION) + KEY_SEPARATOR + uid;
+    }
+
+    private final DatabaseReference indexReference;
+    private final int maxContractors;
+    //Found but not yet handed on
+    private final TreeMap<Double, String> contractorsByDistance = new TreeMap<>();
+    //Cells still being read, by how near they come to the origin
+    private final Map<String, Double> pendingCells = new HashMap<>();
+    private ZipCodeContractorReader.OnContractorsFoundListener listener;
+    private int contractorsFound;
+    private DatabaseError lastError;
+    private boolean finished;
+
+    public ContractorGeohashIndex(DatabaseReference indexReference, int maxContractors) {
+        this.indexReference = indexReference;
+        this.maxContractors = Math.max(1, maxContractors);
+    }
+
+    /*
+        Calls listener with the nearest contractors of contractorType within radiusMiles, nearest first, as cells come in.
+        False without calling listener if zipCode is not in the zip code table.
+     */
+    public boolean search(Context context, String zipCode, final double radiusMiles, String contractorType, ZipCodeContractorReader.OnContractorsFoundListener listener) {
+        final double[] origin = ZipCodeUtilities.getZipCodeLocation(context, zipCode);
+        if(origin == null) {
+            return false;
+        }
+        this.listener = listener;
+        Set<String> prefixes = Geohash.getCoveringPrefixes(origin[0], origin[1], radiusMiles);
+        Log.d(TAG, "searching cells:" + prefixes);
+        for(String prefix : prefixes) {
+            pendingCells.put(prefix, Geohash.distanceToCellMiles(origin[0], origin[1], Geohash.getBounds(prefix)));
+        }
+        for(final String prefix : prefixes) {
+            indexReference.child(contractorType).orderByKey().startAt(prefix).endAt(prefix + RANGE_END).addListenerForSingleValueEvent(new ValueEventListener() {
+                @Override
+                public void onDataChange(DataSnapshot cellSnapshot) {
+                    for(DataSnapshot entry : cellSnapshot.getChildren()) {
+                        String key = entry.getKey();
+                        int separator = key.indexOf(KEY_SEPARATOR);
+                        if(!Boolean.TRUE.equals(entry.getValue()) || separator < 0) {
+                            continue;
+                        }
+                        double[] location = Geohash.decode(key.substring(0, separator));
+                        if(location == null) {
+                            continue;
+                        }
+                        double distance = ZipCodeIndex.distanceMiles(origin[0], origin[1], location[0], location[1]);
+                        if(distance <= radiusMiles) {
+                            Double distanceKey = distance;
+                            while(contractorsByDistance.containsKey(distanceKey)) {
+                                distanceKey += 0.0000001;
+                            }
+                            contractorsByDistance.put(distanceKey, key.substring(separator + 1));
+                        }
+                    }
+                    onRead(prefix);
+                }
+
+                @Override
+                public void onCancelled(DatabaseError databaseError) {
+                    Log.w(TAG, "read failed:" + prefix, databaseError.toException());
+                    lastError = databaseError;
+                    onRead(prefix);
+                }
+            });
+        }
+        return true;
+    }
+    /*
+        Reads still in flight are ignored and the listener is not called
+     */
+    public void cancel() {
+        finished = true;
+    }
+
+    private void onRead(String prefix) {
+        if(finished) {
+            return;
+        }
+        pendingCells.remove(prefix);
+        double nearestPending = Double.MAX_VALUE;
+        for(double cellDistance : pendingCells.values()) {
+            nearestPending = Math.min(nearestPending, cellDistance);
+        }
+        //Everything nearer than the nearest unread cell is final
+        Map<Double, String> ready = contractorsByDistance.headMap(nearestPending, true);
+        List<String> contractors = new ArrayList<>();
+        for(String uid : ready.values()) {
+            if(contractorsFound + contractors.size() >= maxContractors) {
+                break;
+            }
+            contractors.add(uid);
+        }
+        ready.clear();
+        contractorsFound += contractors.size();
+        if(!contractors.isEmpty()) {
+            listener.onContractorsFound(contractors);
+        }
+        if(finished || (!pendingCells.isEmpty() && contractorsFound < maxContractors)) {
+            return;
+        }
+        finished = true;
+        if(lastError != null && contractorsFound == 0) {
+            listener.onFailed(lastError);
+            return;
+        }
+        listener.onSearchFinished();
+    }
+}
@@ -0,0 +1,144 @@
+package com.schmidthappens.markd.utilities;
+
+import android.content.Context;
+import android.util.Log;
+
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseError;
+import com.google.firebase.database.DatabaseReference;
+import com.google.firebase.database.ValueEventListener;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Copies the contractors listed in zip_codes into the per trade indexes of ContractorIndexes.
+ * An admin job, run when a user listed in admins/{uid} signs in and never by other clients, since it reads all
+ * of zip_codes and writes every contractor's entries. It only adds index entries, so it is safe on live data.
+ * index_versions/{index} records which indexes are done, clearIndexVersions runs it again.
+ * Contractors older builds list afterwards are only in zip_codes, searches read it too, see ContractorIndexes.isOlderBuildsInUse.
+ */
+
+public class ContractorIndexBackfill {
+    private static final String TAG = "ContractorIndexBackfill";
+    private static final String INDEX_VERSIONS = "index_versions";
+    private static final int VERSION = 1;
+    private static final int MAX_PATHS_PER_WRITE = 500;
+    private static final String ADMINS = "admins";
+
+    /*
+        Called on sign in, does nothing unless admins/{uid} is true
+     */
+    public static void runIfAdmin(final Context context, final DatabaseReference root, String uid) {
+        root.child(ADMINS).child(uid).addListenerForSingleValueEvent(new ValueEventListener() {
+            @Override
+            public void onDataChange(DataSnapshot adminSnapshot) {
+                if(Boolean.TRUE.equals(adminSnapshot.getValue())) {
+                    runIfNeeded(context, root);
+                }
+            }
+
+            @Override
+            public void onCancelled(DatabaseError databaseError) {
+                Log.w(TAG, "admins read failed", databaseError.toException());
+            }
+        });
+    }
+    /*
+        Just the versions of the two indexes this fills, others share index_versions
+     */
+    public static void clearIndexVersions(DatabaseReference root) {
+        Map<String, Object> updates = new LinkedHashMap<>();
+        updates.put(INDEX_VERSIONS + "/" + ContractorIndexes.ZIP_CODES_BY_TYPE, null);
+        updates.put(INDEX_VERSIONS + "/" + ContractorGeohashIndex.PATH, null);
+        root.updateChildren(updates);
+    }
+    public static void runIfNeeded(final Context context, final DatabaseReference root) {
+        root.child(INDEX_VERSIONS).addListenerForSingleValueEvent(new ValueEventListener() {
+            @Override
+            public void onDataChange(DataSnapshot versionsSnapshot) {
+                final boolean byType = !isDone(versionsSnapshot, ContractorIndexes.ZIP_CODES_BY_TYPE);
+                final boolean geohashes = !isDone(versionsSnapshot, ContractorGeohashIndex.PATH)
+                        && ZipCodeUtilities.hasZipCodeIndex(context);
+                if(!byType && !geohashes) {
+                    return;
+                }
+                Log.i(TAG, "backfilling by type:" + byType + " geohashes:" + geohashes);
+                root.child(ContractorIndexes.ZIP_CODES).addListenerForSingleValueEvent(new ValueEventListener() {
+                    @Override
+                    public void onDataChange(DataSnapshot zipCodesSnapshot) {
+                        write(root, getUpdates(context, zipCodesSnapshot, byType, geohashes), byType, geohashes);
+                    }
+
+                    @Override
+                    public void onCancelled(DatabaseError databaseError) {
+                        Log.w(TAG, "zip_codes read failed", databaseError.toException());
+                    }
+                });
+            }
+
+            @Override
+            public void onCancelled(DatabaseError databaseError) {
+                Log.w(TAG, "index_versions read failed", databaseError.toException());
+            }
+        });
+    }
+    private static boolean isDone(DataSnapshot versionsSnapshot, String index) {
+        Long version = versionsSnapshot.child(index).getValue(Long.class);
+        return version != null && version >= VERSION;
+    }
+
+    private static List<Map<String, Object>> getUpdates(Context context, DataSnapshot zipCodesSnapshot, boolean byType, boolean geohashes) {
+        List<Map<String, Object>> writes = new ArrayList<>();
+        Map<String, Object> write = new LinkedHashMap<>();
+        for(DataSnapshot zipCodeSnapshot : zipCodesSnapshot.getChildren()) {
+            for(DataSnapshot contractorSnapshot : zipCodeSnapshot.getChildren()) {
+                Object contractorType = contractorSnapshot.getValue();
+                if(!(contractorType instanceof String)) {
+                    continue;
+                }
+                Map<String, Object> updates = ContractorIndexes.getPartitionedUpdates(context, contractorSnapshot.getKey(), zipCodeSnapshot.getKey(), (String)contractorType, true);
+                for(Map.Entry<String, Object> update : updates.entrySet()) {
+                    boolean isGeohash = update.getKey().startsWith(ContractorGeohashIndex.PATH + "/");
+                    if(isGeohash ? geohashes : byType) {
+                        write.put(update.getKey(), update.getValue());
+                    }
+                }
+                if(write.size() >= MAX_PATHS_PER_WRITE) {
+                    writes.add(write);
+                    write = new LinkedHashMap<>();
+                }
+            }
+        }
+        writes.add(write);
+        return writes;
+    }
+    /*
+        One write at a time, the versions go with the last so a failed backfill is retried on the next run
+     */
+    private static void write(final DatabaseReference root, final List<Map<String, Object>> writes, final boolean byType, final boolean geohashes) {
+        Map<String, Object> write = writes.remove(0);
+        if(writes.isEmpty()) {
+            if(byType) {
+                write.put(INDEX_VERSIONS + "/" + ContractorIndexes.ZIP_CODES_BY_TYPE, VERSION);
+            }
+            if(geohashes) {
+                write.put(INDEX_VERSIONS + "/" + ContractorGeohashIndex.PATH, VERSION);
+            }
+        }
+        root.updateChildren(write, new DatabaseReference.CompletionListener() {
+            @Override
+            public void onComplete(DatabaseError databaseError, DatabaseReference databaseReference) {
+                if(databaseError != null) {
+                    Log.w(TAG, "backfill write failed", databaseError.toException());
+                } else if(!writes.isEmpty()) {
+                    write(root, writes, byType, geohashes);
+                } else {
+                    Log.i(TAG, "backfill done");
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,85 @@
+package com.schmidthappens.markd.utilities;
+
+import android.content.Context;
+import android.util.Log;
+
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseError;
+import com.google.firebase.database.DatabaseReference;
+import com.google.firebase.database.ValueEventListener;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Where a contractor is listed for customer searches:
+ *   zip_codes/{zip}/{uid} = contractorType, the original index, still read by older builds
+ *   zip_codes_by_type/{contractorType}/{zip}/{uid} = true
+ *   contractor_geohashes/{contractorType}/{geohash}_{uid} = true, see ContractorGeohashIndex
+ * Searches only read the partition of the trade they are for. Existing data is copied over by ContractorIndexBackfill,
+ * an admin job run on an admin's sign in.
+ */
+
+public class ContractorIndexes {
+    private static final String TAG = "ContractorIndexes";
+    public static final String ZIP_CODES = "zip_codes";
+    public static final String ZIP_CODES_BY_TYPE = "zip_codes_by_type";
+    public static final String APP_CONFIG = "app_config";
+    private static final String OLDER_BUILDS_IN_USE = "older_builds_in_use";
+    //Assumed until app_config says otherwise
+    private static volatile boolean olderBuildsInUse = true;
+
+    /*
+        Builds from before the per trade indexes still list contractors in zip_codes only. While they are in use
+        searches read zip_codes next to zip_codes_by_type and skip contractor_geohashes, which they never write.
+     */
+    public static boolean isOlderBuildsInUse() {
+        return olderBuildsInUse;
+    }
+    /*
+        Read once at startup. An admin sets app_config/older_builds_in_use to false once those builds are retired
+        and ContractorIndexBackfill has run, from then on searches only read the trade's own partitions.
+     */
+    public static void loadOlderBuildsInUse(DatabaseReference root) {
+        root.child(APP_CONFIG).child(OLDER_BUILDS_IN_USE).addListenerForSingleValueEvent(new ValueEventListener() {
+            @Override
+            public void onDataChange(DataSnapshot olderBuildsSnapshot) {
+                olderBuildsInUse = !Boolean.FALSE.equals(olderBuildsSnapshot.getValue());
+                Log.d(TAG, "older builds in use:" + olderBuildsInUse);
+            }
+
+            @Override
+            public void onCancelled(DatabaseError databaseError) {
+                Log.w(TAG, "app_config read failed", databaseError.toException());
+            }
+        });
+    }
+
+    /*
+        Root relative updates listing or, with isListed false, unlisting the contractor, for CommitQueue.enqueue
+     */
+    public static Map<String, Object> getUpdates(Context context, String uid, String zipCode, String contractorType, boolean isListed) {
+        Map<String, Object> updates = new LinkedHashMap<>();
+        if(uid == null || zipCode == null) {
+            return updates;
+        }
+        updates.put(ZIP_CODES + "/" + zipCode + "/" + uid, isListed ? contractorType : null);
+        updates.putAll(getPartitionedUpdates(context, uid, zipCode, contractorType, isListed));
+        return updates;
+    }
+    /*
+        Just the per trade indexes, empty without a contractorType
+     */
+    static Map<String, Object> getPartitionedUpdates(Context context, String uid, String zipCode, String contractorType, boolean isListed) {
+        Map<String, Object> updates = new LinkedHashMap<>();
+        if(contractorType == null || contractorType.isEmpty()) {
+            return updates;
+        }
+        updates.put(ZIP_CODES_BY_TYPE + "/" + contractorType + "/" + zipCode + "/" + uid, isListed ? true : null);
+        String geohashPath = ContractorGeohashIndex.getPath(context, contractorType, zipCode, uid);
+        if(geohashPath != null) {
+            updates.put(geohashPath, isListed ? true : null);
+        }
+        return updates;
+    }
+}
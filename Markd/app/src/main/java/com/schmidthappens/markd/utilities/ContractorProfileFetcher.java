@@ -0,0 +1,233 @@
+package com.schmidthappens.markd.utilities;
+
+import android.os.SystemClock;
+import android.util.Log;
+
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseError;
+import com.google.firebase.database.DatabaseReference;
+import com.google.firebase.database.ValueEventListener;
+import com.schmidthappens.markd.data_objects.Contractor;
+import com.schmidthappens.markd.data_objects.ContractorDetails;
+import com.schmidthappens.markd.data_objects.FirebaseMappers;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Fetches what a contractor list shows, users/{uid}/contractorDetails and users/{uid}/logoFileName,
+ * for just the requested contractors instead of reading all of users.
+ * At most maxInFlight contractors are read at a time. Profiles are kept in a process wide
+ * least recently used cache for PROFILE_TTL_MILLIS, so searching again only reads new contractors.
+ * Uids can be added as a search finds them and profiles are handed on in that order as soon as they
+ * and every earlier one are in. One search per instance, used from the main thread.
+ */
+
+public class ContractorProfileFetcher {
+    private static final String TAG = "ContractorProfileFetchr";
+    public static final int DEFAULT_MAX_IN_FLIGHT = 6;
+    private static final int MAX_CACHED_PROFILES = 100;
+    private static final long PROFILE_TTL_MILLIS = 5 * 60 * 1000;
+
+    //Access ordered, eldest first. A null contractor caches that the uid has no contractorDetails.
+    private static final Map<String, CachedProfile> profileCache = new LinkedHashMap<String, CachedProfile>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CachedProfile> eldest) {
+            return size() > MAX_CACHED_PROFILES;
+        }
+    };
+
+    public interface OnProfilesFetchedListener {
+        /*
+            The next contractors with contractorDetails by uid, in the order requested
+         */
+        void onProfilesFetched(LinkedHashMap<String, Contractor> contractors);
+        /*
+            Every profile requested before finish has been handed on
+         */
+        void onFetchFinished();
+        /*
+            In place of onFetchFinished when some profiles could not be read, the rest have been handed on
+         */
+        void onFailed(DatabaseError databaseError);
+    }
+
+    /*
+        For when a contractor's own edit should show up before the cached profile expires
+     */
+    public static void invalidate(String uid) {
+        profileCache.remove(uid);
+    }
+
+    private final DatabaseReference usersReference;
+    private final int maxInFlight;
+    private final List<String> uids = new ArrayList<>();
+    private final Map<String, Contractor> fetched = new HashMap<>();
+    private final List<String> toFetch = new ArrayList<>();
+    private final OnProfilesFetchedListener listener;
+    private int nextFetch;
+    private int nextDelivery;
+    private int inFlight;
+    private DatabaseError lastError;
+    private boolean allRequested;
+    private boolean finished;
+
+    public ContractorProfileFetcher(DatabaseReference usersReference, OnProfilesFetchedListener listener) {
+        this(usersReference, DEFAULT_MAX_IN_FLIGHT, listener);
+    }
+    public ContractorProfileFetcher(DatabaseReference usersReference, int maxInFlight, OnProfilesFetchedListener listener) {
+        this.usersReference = usersReference;
+        this.maxInFlight = Math.max(1, maxInFlight);
+        this.listener = listener;
+    }
+
+    /*
+        uids go after those of earlier calls
+     */
+    public void fetch(List<String> uids) {
+        if(allRequested) {
+            throw new IllegalStateException("ContractorProfileFetcher is single use");
+        }
+        long now = SystemClock.elapsedRealtime();
+        int cached = 0;
+        for(String uid : uids) {
+            if(this.uids.contains(uid)) {
+                continue;
+            }
+            this.uids.add(uid);
+            CachedProfile cachedProfile = profileCache.get(uid);
+            if(cachedProfile != null && now - cachedProfile.fetchedAt < PROFILE_TTL_MILLIS) {
+                fetched.put(uid, cachedProfile.contractor);
+                cached++;
+            } else {
+                toFetch.add(uid);
+            }
+        }
+        Log.d(TAG, "cached:" + cached + " fetching:" + (toFetch.size() - nextFetch));
+        fetchMore();
+        deliver();
+    }
+    /*
+        No more uids are coming
+     */
+    public void finish() {
+        allRequested = true;
+        deliver();
+    }
+    /*
+        Reads still in flight are cached but the listener is not called
+     */
+    public void cancel() {
+        finished = true;
+    }
+
+    private void fetchMore() {
+        while(!finished && inFlight < maxInFlight && nextFetch < toFetch.size()) {
+            inFlight++;
+            new ProfileRead(toFetch.get(nextFetch++)).start();
+        }
+    }
+    private void onFetched(String uid, Contractor contractor, DatabaseError databaseError) {
+        inFlight--;
+        if(databaseError == null) {
+            profileCache.put(uid, new CachedProfile(contractor, SystemClock.elapsedRealtime()));
+        } else {
+            lastError = databaseError;
+        }
+        fetched.put(uid, contractor);
+        fetchMore();
+        deliver();
+    }
+    /*
+        Hands on the run of profiles that are in, stopping at the first still being read so order is kept
+     */
+    private void deliver() {
+        if(finished) {
+            return;
+        }
+        LinkedHashMap<String, Contractor> contractors = new LinkedHashMap<>();
+        while(nextDelivery < uids.size() && fetched.containsKey(uids.get(nextDelivery))) {
+            String uid = uids.get(nextDelivery++);
+            Contractor contractor = fetched.get(uid);
+            if(contractor != null) {
+                contractors.put(uid, contractor);
+            }
+        }
+        if(!contractors.isEmpty()) {
+            listener.onProfilesFetched(contractors);
+        }
+        if(!finished && allRequested && nextDelivery == uids.size()) {
+            finished = true;
+            if(lastError != null) {
+                listener.onFailed(lastError);
+                return;
+            }
+            listener.onFetchFinished();
+        }
+    }
+
+    /*
+        The two children a list row needs, read side by side
+     */
+    private class ProfileRead {
+        private final String uid;
+        private ContractorDetails details;
+        private String logoFileName;
+        private int pendingReads = 2;
+        private DatabaseError error;
+
+        ProfileRead(String uid) {
+            this.uid = uid;
+        }
+        void start() {
+            DatabaseReference userReference = usersReference.child(uid);
+            userReference.child("contractorDetails").addListenerForSingleValueEvent(new ValueEventListener() {
+                @Override
+                public void onDataChange(DataSnapshot detailsSnapshot) {
+                    details = detailsSnapshot.exists() ? FirebaseMappers.getValue(detailsSnapshot, ContractorDetails.class) : null;
+                    onRead();
+                }
+
+                @Override
+                public void onCancelled(DatabaseError databaseError) {
+                    Log.w(TAG, "contractorDetails read failed:" + uid, databaseError.toException());
+                    error = databaseError;
+                    onRead();
+                }
+            });
+            userReference.child("logoFileName").addListenerForSingleValueEvent(new ValueEventListener() {
+                @Override
+                public void onDataChange(DataSnapshot logoSnapshot) {
+                    logoFileName = logoSnapshot.getValue(String.class);
+                    onRead();
+                }
+
+                @Override
+                public void onCancelled(DatabaseError databaseError) {
+                    Log.w(TAG, "logoFileName read failed:" + uid, databaseError.toException());
+                    error = databaseError;
+                    onRead();
+                }
+            });
+        }
+        private void onRead() {
+            if(--pendingReads > 0) {
+                return;
+            }
+            onFetched(uid, details == null ? null : new Contractor(logoFileName).setContractorDetails(details), error);
+        }
+    }
+
+    private static class CachedProfile {
+        private final Contractor contractor;
+        private final long fetchedAt;
+
+        CachedProfile(Contractor contractor, long fetchedAt) {
+            this.contractor = contractor;
+            this.fetchedAt = fetchedAt;
+        }
+    }
+}
@@ -8,12 +8,9 @@ import com.schmidthappens.markd.customer_menu_activities.ElectricalActivity;
 import com.schmidthappens.markd.customer_menu_activities.HvacActivity;
 import com.schmidthappens.markd.customer_menu_activities.PaintingActivity;
 import com.schmidthappens.markd.customer_menu_activities.PlumbingActivity;
-import com.schmidthappens.markd.data_objects.Contractor;
-import com.schmidthappens.markd.data_objects.ContractorDetails;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 
 /**
  * Created by joshua.schmidtibm.com on 11/18/17.
@@ -23,42 +20,31 @@ public class ContractorUtilities {
     private static final String TAG = "ContractorUtilities";
 
     /*
-        Returns a list of Contractor Database Keys in zipCodes with the specified contractorType
+        Returns a list of Contractor Database Keys in a zip_codes_by_type/{contractorType}/{zip} snapshot,
+        see ZipCodeContractorReader
      */
-    public static List<String> getContractorsInZipCodes(final Map<Double, String> zipCodeMap, final String contractorType, final DataSnapshot firebaseZipCodesSnapshot) {
+    public static List<String> getContractorsAtZipCode(final DataSnapshot listOfContractorsAtZipCode) {
         List<String> contractors = new ArrayList<>();
-
-        for (Map.Entry<Double, String> zipCode : zipCodeMap.entrySet()) {
-            DataSnapshot listOfContractorsAtZipCode = firebaseZipCodesSnapshot.child(zipCode.getValue());
-            Log.v(TAG, listOfContractorsAtZipCode.toString());
-            if (listOfContractorsAtZipCode.exists()) {
-                Log.i(TAG, "contractors at zipcode:" + zipCode.getValue());
-                for (DataSnapshot contractorReference : listOfContractorsAtZipCode.getChildren()) {
-                    String contractorReferenceType = contractorReference.getValue(String.class);
-                    if (contractorReferenceType != null && contractorReferenceType.equals(contractorType)) {
-                        contractors.add(contractorReference.getKey());
-                    }
+        if (listOfContractorsAtZipCode.exists()) {
+            Log.i(TAG, "contractors at zipcode:" + listOfContractorsAtZipCode.getKey());
+            for (DataSnapshot contractorReference : listOfContractorsAtZipCode.getChildren()) {
+                if (Boolean.TRUE.equals(contractorReference.getValue())) {
+                    contractors.add(contractorReference.getKey());
                 }
-            } else {
-                Log.i(TAG, "No contractors at zipcode:" + zipCode.getValue());
             }
+        } else {
+            Log.i(TAG, "No contractors at zipcode:" + listOfContractorsAtZipCode.getKey());
         }
-        Log.d(TAG, contractors.toString());
         return contractors;
     }
-
-    public static List<Contractor> getContractorsFromReferences(List<String> contractorReferences, DataSnapshot usersSnapshot) {
-        final List<Contractor> contractors = new ArrayList<>();
-        for(String contractorKey: contractorReferences) {
-            DataSnapshot contractor = usersSnapshot.child(contractorKey);
-            if (contractor.exists()) {
-                DataSnapshot contractorDetails = contractor.child("contractorDetails");
-                if(contractorDetails.exists()) {
-                    ContractorDetails details = contractorDetails.getValue(ContractorDetails.class);
-                    if(details != null) {
-                        contractors.add(contractor.getValue(Contractor.class));
-                    }
-                }
+    /*
+        Returns the Contractor Database Keys of contractorType in a zip_codes/{zip} snapshot, the index older builds write
+     */
+    public static List<String> getContractorsOfTypeAtZipCode(final DataSnapshot listOfContractorsAtZipCode, String contractorType) {
+        List<String> contractors = new ArrayList<>();
+        for (DataSnapshot contractorReference : listOfContractorsAtZipCode.getChildren()) {
+            if (contractorType != null && contractorType.equals(contractorReference.getValue())) {
+                contractors.add(contractorReference.getKey());
             }
         }
         return contractors;
@@ -0,0 +1,196 @@
+package com.schmidthappens.markd.utilities;
+
+import android.util.Log;
+
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseError;
+import com.google.firebase.database.DatabaseReference;
+import com.google.firebase.database.ValueEventListener;
+import com.schmidthappens.markd.data_objects.CommitQueue;
+import com.schmidthappens.markd.data_objects.Customer;
+import com.schmidthappens.markd.data_objects.CustomerSummary;
+import com.schmidthappens.markd.data_objects.FirebaseMappers;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Reads customer_summaries/{uid} for just the given customers, at most maxInFlight at a time, and hands each
+ * summary on as soon as it is in, in no particular order. A customer without a summary yet is read once from
+ * users/{uid}, decoded off the main thread, and its summary written so the next read is the small one.
+ * More uids can be added while reading, cancel removes the listeners of reads still in flight.
+ * Used from the main thread.
+ */
+
+public class CustomerFetcher {
+    private static final String TAG = "CustomerFetcher";
+    public static final int DEFAULT_MAX_IN_FLIGHT = 6;
+
+    public interface OnCustomersFetchedListener {
+        void onCustomerFetched(String customerReference, CustomerSummary customer);
+        /*
+            Every customer requested so far has been handed on, found missing or failed
+         */
+        void onFetchFinished();
+        /*
+            Only the first failed read is reported, later ones are just logged
+         */
+        void onFailed(DatabaseError databaseError);
+    }
+
+    private final DatabaseReference root;
+    private final int maxInFlight;
+    private final OnCustomersFetchedListener listener;
+    private final List<String> toFetch = new ArrayList<>();
+    private final Set<String> requested = new HashSet<>();
+    //By the path being read
+    private final Map<String, ValueEventListener> readsInFlight = new HashMap<>();
+    private final Map<String, SnapshotDecoder<Customer>> decodesInFlight = new HashMap<>();
+    private int nextFetch;
+    private boolean failureReported;
+    private boolean cancelled;
+
+    public CustomerFetcher(DatabaseReference root, OnCustomersFetchedListener listener) {
+        this(root, DEFAULT_MAX_IN_FLIGHT, listener);
+    }
+    public CustomerFetcher(DatabaseReference root, int maxInFlight, OnCustomersFetchedListener listener) {
+        this.root = root;
+        this.maxInFlight = Math.max(1, maxInFlight);
+        this.listener = listener;
+    }
+
+    /*
+        Uids already requested are skipped
+     */
+    public void fetch(Collection<String> customerReferences) {
+        for(String customerReference : customerReferences) {
+            if(!StringUtilities.isNullOrEmpty(customerReference) && requested.add(customerReference)) {
+                toFetch.add(customerReference);
+            }
+        }
+        Log.d(TAG, "fetching:" + (toFetch.size() - nextFetch));
+        fetchMore();
+        finishIfDone();
+    }
+    /*
+        Nothing is handed on after this
+     */
+    public void cancel() {
+        cancelled = true;
+        for(Map.Entry<String, ValueEventListener> read : readsInFlight.entrySet()) {
+            root.child(read.getKey()).removeEventListener(read.getValue());
+        }
+        readsInFlight.clear();
+        for(SnapshotDecoder<Customer> decoder : decodesInFlight.values()) {
+            decoder.cancel();
+        }
+        decodesInFlight.clear();
+    }
+
+    private void fetchMore() {
+        while(!cancelled && readsInFlight.size() < maxInFlight && nextFetch < toFetch.size()) {
+            readSummary(toFetch.get(nextFetch++));
+        }
+    }
+    private void readSummary(final String customerReference) {
+        read(CustomerSummary.PATH + "/" + customerReference, new OnReadListener() {
+            @Override
+            public void onRead(DataSnapshot summarySnapshot) {
+                CustomerSummary summary = summarySnapshot.exists() ? FirebaseMappers.getValue(summarySnapshot, CustomerSummary.class) : null;
+                if(summary != null) {
+                    listener.onCustomerFetched(customerReference, summary);
+                } else {
+                    readCustomer(customerReference);
+                }
+            }
+        });
+    }
+    /*
+        Customers from before summaries existed, goes ahead of the queue since its summary read is already done
+     */
+    private void readCustomer(final String customerReference) {
+        read("users/" + customerReference, new OnReadListener() {
+            @Override
+            public void onRead(DataSnapshot customerSnapshot) {
+                if(customerSnapshot.exists()) {
+                    decode(customerReference, customerSnapshot);
+                } else {
+                    Log.d(TAG, "no customer:" + customerReference);
+                }
+            }
+        });
+    }
+    private void read(final String path, final OnReadListener onReadListener) {
+        ValueEventListener valueListener = new ValueEventListener() {
+            @Override
+            public void onDataChange(DataSnapshot snapshot) {
+                if(readsInFlight.remove(path) == null) {
+                    return;
+                }
+                onReadListener.onRead(snapshot);
+                fetchMore();
+                finishIfDone();
+            }
+
+            @Override
+            public void onCancelled(DatabaseError databaseError) {
+                if(readsInFlight.remove(path) == null) {
+                    return;
+                }
+                Log.w(TAG, "read failed:" + path, databaseError.toException());
+                if(!failureReported) {
+                    failureReported = true;
+                    listener.onFailed(databaseError);
+                }
+                fetchMore();
+                finishIfDone();
+            }
+        };
+        readsInFlight.put(path, valueListener);
+        root.child(path).addListenerForSingleValueEvent(valueListener);
+    }
+    private void decode(final String customerReference, DataSnapshot customerSnapshot) {
+        SnapshotDecoder<Customer> decoder = new SnapshotDecoder<>(new SnapshotDecoder.Decoder<Customer>() {
+            @Override
+            public Customer decode(DataSnapshot snapshot) {
+                return FirebaseMappers.getValue(snapshot, Customer.class);
+            }
+        });
+        decodesInFlight.put(customerReference, decoder);
+        decoder.decode(customerSnapshot, new SnapshotDecoder.OnDecodedListener<Customer>() {
+            @Override
+            public void onDecoded(DataSnapshot snapshot, Customer customer) {
+                decodesInFlight.remove(customerReference);
+                if(customer != null) {
+                    CommitQueue.getInstance().enqueue(CustomerSummary.getUpdates(customerReference, customer));
+                    listener.onCustomerFetched(customerReference, CustomerSummary.fromCustomer(customer));
+                }
+                finishIfDone();
+            }
+
+            @Override
+            public void onFailed(DataSnapshot snapshot, DatabaseError databaseError) {
+                decodesInFlight.remove(customerReference);
+                if(!failureReported) {
+                    failureReported = true;
+                    listener.onFailed(databaseError);
+                }
+                finishIfDone();
+            }
+        });
+    }
+    private void finishIfDone() {
+        if(!cancelled && readsInFlight.isEmpty() && decodesInFlight.isEmpty() && nextFetch == toFetch.size()) {
+            listener.onFetchFinished();
+        }
+    }
+
+    private interface OnReadListener {
+        void onRead(DataSnapshot snapshot);
+    }
+}
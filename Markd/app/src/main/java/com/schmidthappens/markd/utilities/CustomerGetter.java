@@ -5,8 +5,10 @@ import android.util.Log;
 
 import com.google.firebase.database.DataSnapshot;
 import com.schmidthappens.markd.data_objects.Customer;
+import com.schmidthappens.markd.data_objects.FirebaseMappers;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.LinkedHashMap;
@@ -21,7 +23,8 @@ import java.util.TreeMap;
 
 public class CustomerGetter {
     private final static String TAG = "CustomerGetter";
-    public static Map<String, Customer> getCustomersFromReferences(List<String> customerReferences, DataSnapshot usersSnapshot) {
+
+    public static Map<String, Customer> getCustomersFromReferences(Collection<String> customerReferences, DataSnapshot usersSnapshot) {
         if(customerReferences == null) {
             Log.d(TAG, "customerReferences is null");
             return new LinkedHashMap<>();
@@ -33,10 +36,11 @@ public class CustomerGetter {
             if(StringUtilities.isNullOrEmpty(customerKey)) {
                 continue;
             }
-            DataSnapshot customer = usersSnapshot.child(customerKey);
-            if (customer.exists()) {
-                customers.add(customer.getValue(Customer.class));
-                unsortedCustomerMap.put(customerKey, customer.getValue(Customer.class));
+            DataSnapshot customerSnapshot = usersSnapshot.child(customerKey);
+            if (customerSnapshot.exists()) {
+                Customer customer = FirebaseMappers.getValue(customerSnapshot, Customer.class);
+                customers.add(customer);
+                unsortedCustomerMap.put(customerKey, customer);
             }
         }
         List<Map.Entry<String, Customer>> mapEntryList = new LinkedList<Map.Entry<String, Customer>>(unsortedCustomerMap.entrySet());
@@ -54,7 +58,9 @@ public class CustomerGetter {
     private static class LastNameComparator implements Comparator<Customer> {
         @Override
         public int compare(Customer o1, Customer o2) {
-            return o1.getLastName().compareToIgnoreCase(o2.getLastName());
+            String lastName1 = o1.getLastName() == null ? "" : o1.getLastName();
+            String lastName2 = o2.getLastName() == null ? "" : o2.getLastName();
+            return lastName1.compareToIgnoreCase(lastName2);
         }
     }
 
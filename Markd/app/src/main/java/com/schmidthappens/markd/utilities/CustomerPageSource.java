@@ -0,0 +1,331 @@
+package com.schmidthappens.markd.utilities;
+
+import android.util.Log;
+
+import com.google.firebase.database.ChildEventListener;
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseError;
+import com.google.firebase.database.DatabaseReference;
+import com.google.firebase.database.Query;
+import com.google.firebase.database.ValueEventListener;
+import com.schmidthappens.markd.data_objects.CustomerSummary;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Reads a contractor's customers a page at a time in last name order. Each page is one query on
+ * ContractorCustomerIndex continuing after the last customer of the page before, sort key then uid,
+ * followed by the page's CustomerSummary reads side by side. So the first rows cost the same two round
+ * trips however many customers there are, and only the pages scrolled to are held.
+ * The range read so far is kept live with child events on the index, one listener per page's range,
+ * customers added to it, moved by a new last name or removed are handed on one at a time.
+ * One page is read at a time, used from the main thread.
+ */
+
+public class CustomerPageSource {
+    private static final String TAG = "CustomerPageSource";
+    public static final int DEFAULT_PAGE_SIZE = 50;
+
+    public interface OnPageLoadedListener {
+        /*
+            The page's customers by uid in last name order, after those of every earlier page
+         */
+        void onPageLoaded(LinkedHashMap<String, CustomerSummary> customers);
+        /*
+            Every customer has been read, loadNextPage does nothing after this
+         */
+        void onEndReached();
+        /*
+            Newly in the range read so far
+         */
+        void onCustomerAdded(String customerReference, CustomerSummary customer);
+        /*
+            The customer's sort key changed, they may have moved out of the range and come back with a later page
+         */
+        void onCustomerMoved(String customerReference, String sortKey);
+        void onCustomerRemoved(String customerReference);
+        void onFailed(DatabaseError databaseError);
+    }
+
+    private final DatabaseReference root;
+    private final String contractorReference;
+    private final int pageSize;
+    private final OnPageLoadedListener listener;
+    //Where the next page starts, null before the first
+    private String lastSortKey;
+    private String lastCustomerReference;
+    private Query pageQuery;
+    private ValueEventListener pageListener;
+    private CustomerFetcher pageFetcher;
+    //Sort key of each customer handed on and still in the range read so far
+    private final Map<String, String> sortKeys = new HashMap<>();
+    //One query per page, by range number
+    private final List<Query> rangeQueries = new ArrayList<>();
+    private final List<ChildEventListener> rangeListeners = new ArrayList<>();
+    //The ranges each customer is in
+    private final Map<String, Set<Integer>> rangesOf = new HashMap<>();
+    private final Map<String, CustomerFetcher> addedFetchers = new HashMap<>();
+    private boolean endReached;
+    private boolean cancelled;
+
+    public CustomerPageSource(DatabaseReference root, String contractorReference, OnPageLoadedListener listener) {
+        this(root, contractorReference, DEFAULT_PAGE_SIZE, listener);
+    }
+    public CustomerPageSource(DatabaseReference root, String contractorReference, int pageSize, OnPageLoadedListener listener) {
+        this.root = root;
+        this.contractorReference = contractorReference;
+        this.pageSize = Math.max(1, pageSize);
+        this.listener = listener;
+    }
+
+    /*
+        Does nothing while a page is loading or once the end is reached, so it can be called on every bind
+     */
+    public void loadNextPage() {
+        if(cancelled || endReached || isLoading()) {
+            return;
+        }
+        Query query = root.child(ContractorCustomerIndex.PATH).child(contractorReference).orderByValue();
+        final boolean skipFirst = lastCustomerReference != null;
+        if(skipFirst) {
+            //startAt includes the last customer of the page before, so read one more and drop it
+            query = query.startAt(lastSortKey, lastCustomerReference).limitToFirst(pageSize + 1);
+        } else {
+            query = query.limitToFirst(pageSize);
+        }
+        pageQuery = query;
+        pageListener = new ValueEventListener() {
+            @Override
+            public void onDataChange(DataSnapshot pageSnapshot) {
+                clearPageQuery();
+                onPageRead(pageSnapshot, skipFirst);
+            }
+
+            @Override
+            public void onCancelled(DatabaseError databaseError) {
+                clearPageQuery();
+                Log.w(TAG, "page read failed:" + contractorReference, databaseError.toException());
+                listener.onFailed(databaseError);
+            }
+        };
+        pageQuery.addListenerForSingleValueEvent(pageListener);
+    }
+    public boolean isLoading() {
+        return pageQuery != null || pageFetcher != null;
+    }
+    public boolean isEndReached() {
+        return endReached;
+    }
+    /*
+        False once the customer has been removed, so late events for a row on its way out can be ignored
+     */
+    public boolean contains(String customerReference) {
+        return sortKeys.containsKey(customerReference);
+    }
+    /*
+        Nothing is handed on after this
+     */
+    public void cancel() {
+        cancelled = true;
+        if(pageQuery != null) {
+            pageQuery.removeEventListener(pageListener);
+            clearPageQuery();
+        }
+        if(pageFetcher != null) {
+            pageFetcher.cancel();
+            pageFetcher = null;
+        }
+        stopWatchingRanges();
+        for(CustomerFetcher addedFetcher : addedFetchers.values()) {
+            addedFetcher.cancel();
+        }
+        addedFetchers.clear();
+    }
+
+    private void clearPageQuery() {
+        pageQuery = null;
+        pageListener = null;
+    }
+    /*
+        The cursor only moves past customers handed on. Once a summary read fails the page is cut at the
+        first customer not handed on, so the next page starts with them again. Customers missing from
+        a page that read without failures are gone and skipped.
+     */
+    private void onPageRead(DataSnapshot pageSnapshot, boolean skipFirst) {
+        final List<String> customerReferences = new ArrayList<>();
+        final Map<String, String> pageSortKeys = new HashMap<>();
+        for(DataSnapshot customerSnapshot : pageSnapshot.getChildren()) {
+            if(skipFirst && customerSnapshot.getKey().equals(lastCustomerReference)) {
+                continue;
+            }
+            customerReferences.add(customerSnapshot.getKey());
+            pageSortKeys.put(customerSnapshot.getKey(), getSortKey(customerSnapshot));
+        }
+        final boolean isLastPage = customerReferences.size() < pageSize;
+        Log.d(TAG, "page:" + customerReferences.size() + " last:" + isLastPage);
+        final Map<String, CustomerSummary> fetched = new HashMap<>();
+        final boolean[] failed = {false};
+        //The whole page at once, reads share one connection so this is about one round trip
+        pageFetcher = new CustomerFetcher(root, pageSize, new CustomerFetcher.OnCustomersFetchedListener() {
+            @Override
+            public void onCustomerFetched(String customerReference, CustomerSummary customer) {
+                fetched.put(customerReference, customer);
+            }
+
+            @Override
+            public void onFetchFinished() {
+                pageFetcher = null;
+                String startSortKey = lastSortKey;
+                String startCustomerReference = lastCustomerReference;
+                LinkedHashMap<String, CustomerSummary> customers = new LinkedHashMap<>();
+                boolean cut = false;
+                for(String customerReference : customerReferences) {
+                    if(!fetched.containsKey(customerReference)) {
+                        if(failed[0]) {
+                            cut = true;
+                            break;
+                        }
+                        continue;
+                    }
+                    customers.put(customerReference, fetched.get(customerReference));
+                    lastSortKey = pageSortKeys.get(customerReference);
+                    lastCustomerReference = customerReference;
+                    sortKeys.put(lastCustomerReference, lastSortKey);
+                }
+                if(cut && customers.isEmpty()) {
+                    //onFailed has been called, the next loadNextPage tries the page again
+                    Log.d(TAG, "page not read:" + customerReferences.get(0));
+                    return;
+                }
+                endReached = isLastPage && !cut;
+                watchRange(startSortKey, startCustomerReference);
+                listener.onPageLoaded(customers);
+                if(endReached) {
+                    listener.onEndReached();
+                }
+            }
+
+            @Override
+            public void onFailed(DatabaseError databaseError) {
+                failed[0] = true;
+                listener.onFailed(databaseError);
+            }
+        });
+        pageFetcher.fetch(customerReferences);
+    }
+
+    /*
+        Just the page's own range, from where it started through the cursor, so each customer is synced by
+        about one listener however many pages are read. Open ended once the end is reached.
+        Neighbouring ranges share their boundary customer, rangesOf counts them so it is only removed once
+        no range has it, and a customer moving between ranges is not lost whichever event comes first.
+     */
+    private void watchRange(String startSortKey, String startCustomerReference) {
+        Query query = root.child(ContractorCustomerIndex.PATH).child(contractorReference).orderByValue();
+        if(startCustomerReference != null) {
+            query = query.startAt(startSortKey, startCustomerReference);
+        }
+        if(!endReached && lastCustomerReference != null) {
+            query = query.endAt(lastSortKey, lastCustomerReference);
+        }
+        final int range = rangeQueries.size();
+        ChildEventListener listener = new ChildEventListener() {
+            @Override
+            public void onChildAdded(DataSnapshot customerSnapshot, String previousChildName) {
+                onIndexed(range, customerSnapshot.getKey(), getSortKey(customerSnapshot));
+            }
+
+            @Override
+            public void onChildChanged(DataSnapshot customerSnapshot, String previousChildName) {
+                onIndexed(range, customerSnapshot.getKey(), getSortKey(customerSnapshot));
+            }
+
+            @Override
+            public void onChildRemoved(DataSnapshot customerSnapshot) {
+                onUnindexed(range, customerSnapshot.getKey());
+            }
+
+            @Override
+            public void onChildMoved(DataSnapshot customerSnapshot, String previousChildName) {
+                //Comes with onChildChanged, which has the new sort key
+            }
+
+            @Override
+            public void onCancelled(DatabaseError databaseError) {
+                Log.w(TAG, "range listener cancelled:" + contractorReference, databaseError.toException());
+                rangeListeners.set(range, null);
+                CustomerPageSource.this.listener.onFailed(databaseError);
+            }
+        };
+        rangeQueries.add(query);
+        rangeListeners.add(listener);
+        query.addChildEventListener(listener);
+    }
+    private void stopWatchingRanges() {
+        for(int range = 0; range < rangeQueries.size(); range++) {
+            if(rangeListeners.get(range) != null) {
+                rangeQueries.get(range).removeEventListener(rangeListeners.get(range));
+            }
+        }
+        rangeQueries.clear();
+        rangeListeners.clear();
+        rangesOf.clear();
+    }
+    private void onIndexed(int range, final String customerReference, String sortKey) {
+        Set<Integer> ranges = rangesOf.get(customerReference);
+        if(ranges == null) {
+            ranges = new HashSet<>();
+            rangesOf.put(customerReference, ranges);
+        }
+        ranges.add(range);
+        String oldSortKey = sortKeys.put(customerReference, sortKey);
+        if(oldSortKey == null) {
+            CustomerFetcher addedFetcher = new CustomerFetcher(root, new CustomerFetcher.OnCustomersFetchedListener() {
+                @Override
+                public void onCustomerFetched(String customerReference, CustomerSummary customer) {
+                    listener.onCustomerAdded(customerReference, customer);
+                }
+
+                @Override
+                public void onFetchFinished() {
+                    addedFetchers.remove(customerReference);
+                }
+
+                @Override
+                public void onFailed(DatabaseError databaseError) {
+                    listener.onFailed(databaseError);
+                }
+            });
+            addedFetchers.put(customerReference, addedFetcher);
+            addedFetcher.fetch(Collections.singletonList(customerReference));
+        } else if(!oldSortKey.equals(sortKey)) {
+            listener.onCustomerMoved(customerReference, sortKey);
+        }
+    }
+    private void onUnindexed(int range, String customerReference) {
+        Set<Integer> ranges = rangesOf.get(customerReference);
+        if(ranges == null || !ranges.remove(range) || !ranges.isEmpty()) {
+            return;
+        }
+        rangesOf.remove(customerReference);
+        if(sortKeys.remove(customerReference) == null) {
+            return;
+        }
+        CustomerFetcher addedFetcher = addedFetchers.remove(customerReference);
+        if(addedFetcher != null) {
+            addedFetcher.cancel();
+        }
+        listener.onCustomerRemoved(customerReference);
+    }
+    private static String getSortKey(DataSnapshot customerSnapshot) {
+        Object sortKey = customerSnapshot.getValue();
+        return sortKey instanceof String ? (String)sortKey : "";
+    }
+}
@@ -0,0 +1,143 @@
+package com.schmidthappens.markd.utilities;
+
+import com.schmidthappens.markd.data_objects.CustomerSummary;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * As you type search over a contractor's customers. Every word of the name and address line, so last name,
+ * first name, street and city, is kept in a sorted word index, and a query matches the customers having
+ * a word starting with each query word. A prefix is one subMap range of the index, so a search over
+ * thousands of customers takes well under a frame. Used from the main thread.
+ */
+
+public class CustomerSearchIndex {
+    //Sorts after every word character, so subMap(prefix, prefix + it) is every word starting with prefix
+    private static final String RANGE_END = "\uffff";
+
+    private final TreeMap<String, Set<String>> customersByWord = new TreeMap<>();
+    private final Map<String, List<String>> wordsByCustomer = new HashMap<>();
+
+    /*
+        Replaces anything indexed for customerReference
+     */
+    public void put(String customerReference, CustomerSummary customer) {
+        remove(customerReference);
+        List<String> words = getWords(customer);
+        wordsByCustomer.put(customerReference, words);
+        for(String word : words) {
+            Set<String> customers = customersByWord.get(word);
+            if(customers == null) {
+                customers = new HashSet<>();
+                customersByWord.put(word, customers);
+            }
+            customers.add(customerReference);
+        }
+    }
+    public void remove(String customerReference) {
+        List<String> words = wordsByCustomer.remove(customerReference);
+        if(words == null) {
+            return;
+        }
+        for(String word : words) {
+            Set<String> customers = customersByWord.get(word);
+            customers.remove(customerReference);
+            if(customers.isEmpty()) {
+                customersByWord.remove(word);
+            }
+        }
+    }
+    public boolean contains(String customerReference) {
+        return wordsByCustomer.containsKey(customerReference);
+    }
+    public int size() {
+        return wordsByCustomer.size();
+    }
+
+    /*
+        Customers with a word starting with every word of query, every customer for a blank query
+     */
+    public Set<String> search(String query) {
+        List<String> queryWords = getWords(query);
+        if(queryWords.isEmpty()) {
+            return new HashSet<>(wordsByCustomer.keySet());
+        }
+        //Longest word first, it usually narrows the most
+        Collections.sort(queryWords, new Comparator<String>() {
+            @Override
+            public int compare(String word1, String word2) {
+                return word2.length() - word1.length();
+            }
+        });
+        Set<String> matches = getCustomersWithPrefix(queryWords.get(0));
+        for(int i = 1; i < queryWords.size() && !matches.isEmpty(); i++) {
+            matches.retainAll(getCustomersWithPrefix(queryWords.get(i)));
+        }
+        return matches;
+    }
+    /*
+        Same answer as search(query).contains for one customer, without the index
+     */
+    public static boolean matches(CustomerSummary customer, String query) {
+        List<String> words = getWords(customer);
+        for(String queryWord : getWords(query)) {
+            boolean found = false;
+            for(String word : words) {
+                if(word.startsWith(queryWord)) {
+                    found = true;
+                    break;
+                }
+            }
+            if(!found) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Set<String> getCustomersWithPrefix(String prefix) {
+        Set<String> customers = new HashSet<>();
+        SortedMap<String, Set<String>> words = customersByWord.subMap(prefix, prefix + RANGE_END);
+        for(Set<String> customersWithWord : words.values()) {
+            customers.addAll(customersWithWord);
+        }
+        return customers;
+    }
+    private static List<String> getWords(CustomerSummary customer) {
+        Set<String> words = new LinkedHashSet<>(getWords(customer.getName()));
+        words.addAll(getWords(customer.getAddress()));
+        return new ArrayList<>(words);
+    }
+    /*
+        Lowercased runs of letters and digits, apostrophes dropped so "O'Brien" is found by "obr"
+     */
+    static List<String> getWords(String text) {
+        List<String> words = new ArrayList<>();
+        if(text == null) {
+            return words;
+        }
+        StringBuilder word = new StringBuilder();
+        for(int i = 0; i <= text.length(); i++) {
+            char character = i < text.length() ? text.charAt(i) : ' ';
+            if(Character.isLetterOrDigit(character)) {
+                word.append(Character.toLowerCase(character));
+            } else if(character == '\'' || character == '\u2019') {
+                continue;
+            } else if(word.length() > 0) {
+                words.add(word.toString());
+                word.setLength(0);
+            }
+        }
+        return words;
+    }
+}
@@ -0,0 +1,88 @@
+package com.schmidthappens.markd.utilities;
+
+import android.util.Log;
+
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseError;
+import com.google.firebase.database.DatabaseReference;
+import com.google.firebase.database.ValueEventListener;
+import com.schmidthappens.markd.data_objects.CustomerSummary;
+import com.schmidthappens.markd.data_objects.FirebaseMappers;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Listens to customer_summaries/{uid} for just the customers on screen, so a customer editing their
+ * name or address updates their one row. The first value of each watch is the summary already shown,
+ * listeners are expected to ignore what did not change. Watches are counted, a customer is listened to
+ * until every watch of them is undone. Used from the main thread.
+ */
+
+public class CustomerSummaryWatcher {
+    private static final String TAG = "CustomerSummaryWatcher";
+
+    public interface OnSummaryChangedListener {
+        void onSummaryChanged(String customerReference, CustomerSummary customer);
+    }
+
+    private final DatabaseReference summariesReference;
+    private final OnSummaryChangedListener listener;
+    private final Map<String, ValueEventListener> watches = new HashMap<>();
+    private final Map<String, Integer> watchCounts = new HashMap<>();
+
+    public CustomerSummaryWatcher(DatabaseReference root, OnSummaryChangedListener listener) {
+        this.summariesReference = root.child(CustomerSummary.PATH);
+        this.listener = listener;
+    }
+
+    public void watch(final String customerReference) {
+        if(customerReference == null) {
+            return;
+        }
+        Integer watchCount = watchCounts.get(customerReference);
+        watchCounts.put(customerReference, watchCount == null ? 1 : watchCount + 1);
+        if(watchCount != null) {
+            return;
+        }
+        ValueEventListener summaryListener = new ValueEventListener() {
+            @Override
+            public void onDataChange(DataSnapshot summarySnapshot) {
+                CustomerSummary summary = summarySnapshot.exists() ? FirebaseMappers.getValue(summarySnapshot, CustomerSummary.class) : null;
+                if(summary != null) {
+                    listener.onSummaryChanged(customerReference, summary);
+                }
+            }
+
+            @Override
+            public void onCancelled(DatabaseError databaseError) {
+                Log.w(TAG, "summary listener cancelled:" + customerReference, databaseError.toException());
+                watches.remove(customerReference);
+            }
+        };
+        watches.put(customerReference, summaryListener);
+        summariesReference.child(customerReference).addValueEventListener(summaryListener);
+    }
+    public void unwatch(String customerReference) {
+        Integer watchCount = watchCounts.get(customerReference);
+        if(watchCount == null) {
+            return;
+        }
+        if(watchCount > 1) {
+            watchCounts.put(customerReference, watchCount - 1);
+            return;
+        }
+        watchCounts.remove(customerReference);
+        ValueEventListener summaryListener = watches.remove(customerReference);
+        if(summaryListener != null) {
+            summariesReference.child(customerReference).removeEventListener(summaryListener);
+        }
+    }
+    public void unwatchAll() {
+        for(Map.Entry<String, ValueEventListener> watch : watches.entrySet()) {
+            summariesReference.child(watch.getKey()).removeEventListener(watch.getValue());
+        }
+        watches.clear();
+        watchCounts.clear();
+    }
+}
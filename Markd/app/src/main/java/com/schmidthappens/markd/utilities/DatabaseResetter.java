@@ -1,5 +1,6 @@
 package com.schmidthappens.markd.utilities;
 
+import android.content.Context;
 import android.provider.ContactsContract;
 
 import com.google.firebase.database.DatabaseReference;
@@ -7,18 +8,21 @@ import com.google.firebase.database.FirebaseDatabase;
 import com.schmidthappens.markd.data_objects.Contractor;
 import com.schmidthappens.markd.data_objects.ContractorDetails;
 import com.schmidthappens.markd.data_objects.Customer;
+import com.schmidthappens.markd.data_objects.CustomerSummary;
+import com.schmidthappens.markd.data_objects.FirebaseDatabaseInstance;
 import com.schmidthappens.markd.data_objects.TempContractorData;
 import com.schmidthappens.markd.data_objects.TempCustomerData;
 
-import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
  * Created by joshua.schmidtibm.com on 11/18/17.
  */
 
 public class DatabaseResetter {
-    public static void resetDatabase() {
-        FirebaseDatabase database = FirebaseDatabase.getInstance();
+    public static void resetDatabase(Context context) {
+        FirebaseDatabase database = FirebaseDatabaseInstance.getDatabase();
         DatabaseReference userReference = database.getReference("users");
         DatabaseReference zipCodesReference = database.getReference("zip_codes");
 
@@ -317,11 +321,13 @@ public class DatabaseResetter {
         zipCodesReference.child("06840").child("defaultRealtorFour").setValue("Realtor");
 
         //Default Customer
+        Customer defaultCustomer = TempCustomerData.makeCustomer();
         userReference.child("R1EyDxbQK3Uf8ohZDNrazgM4FVc2")
-                .setValue(TempCustomerData.makeCustomer());
+                .setValue(defaultCustomer);
+        database.getReference().updateChildren(CustomerSummary.getUpdates("R1EyDxbQK3Uf8ohZDNrazgM4FVc2", defaultCustomer));
 
-        ArrayList<String> customers = new ArrayList<>();
-        customers.add("R1EyDxbQK3Uf8ohZDNrazgM4FVc2");
+        Map<String, Boolean> customers = new HashMap<>();
+        customers.put("R1EyDxbQK3Uf8ohZDNrazgM4FVc2", true);
         userReference.child("s5VWMQvH17ZJnVqxtOkqvWpufmu2").setValue(new Contractor("632e4355-612f-4ab6-a206-7d2586048b5f")
                 .setCustomers(customers)
                 .setFirstName("Mario")
@@ -334,5 +340,16 @@ public class DatabaseResetter {
                 .setWebsiteUrl("www.nintendo.com")
                 .setZipCode("06840"))
                 );
+
+        //Rebuilds zip_codes_by_type and contractor_geohashes from the zip_codes written above
+        rebuildContractorIndexes(context);
+    }
+    /*
+        Admin only, reads all of zip_codes. Also picks up contractors older builds listed only there.
+     */
+    public static void rebuildContractorIndexes(Context context) {
+        DatabaseReference root = FirebaseDatabaseInstance.getDatabase().getReference();
+        ContractorIndexBackfill.clearIndexVersions(root);
+        ContractorIndexBackfill.runIfNeeded(context, root);
     }
 }
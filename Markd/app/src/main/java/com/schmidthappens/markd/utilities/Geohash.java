@@ -0,0 +1,147 @@
+package com.schmidthappens.markd.utilities;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Standard base 32 geohashes. Points in the same cell share a prefix, so everything near a point
+ * is found by a few key range reads of the cells covering its radius.
+ */
+
+public class Geohash {
+    private static final String BASE32 = "0123456789bcdefghjkmnpqrstuvwxyz";
+    private static final double MILES_PER_DEGREE_LATITUDE = 69.0;
+    //Longer than any search radius needs, about 16 feet
+    public static final int PRECISION = 9;
+    //Radius searches use at most 3 x 3 cells, so never more than 9 range reads
+    private static final int MAX_CELLS_PER_SIDE = 3;
+
+    public static String encode(double latitude, double longitude, int precision) {
+        double[] latitudeRange = {-90, 90};
+        double[] longitudeRange = {-180, 180};
+        StringBuilder hash = new StringBuilder(precision);
+        boolean isLongitudeBit = true;
+        int bits = 0;
+        int character = 0;
+        while(hash.length() < precision) {
+            double[] range = isLongitudeBit ? longitudeRange : latitudeRange;
+            double value = isLongitudeBit ? longitude : latitude;
+            double middle = (range[0] + range[1]) / 2;
+            character <<= 1;
+            if(value >= middle) {
+                character |= 1;
+                range[0] = middle;
+            } else {
+                range[1] = middle;
+            }
+            isLongitudeBit = !isLongitudeBit;
+            if(++bits == 5) {
+                hash.append(BASE32.charAt(character));
+                bits = 0;
+                character = 0;
+            }
+        }
+        return hash.toString();
+    }
+    /*
+        Center of the cell as {latitude, longitude}, null if hash has characters outside the alphabet
+     */
+    public static double[] decode(String hash) {
+        double[] bounds = getBounds(hash);
+        if(bounds == null) {
+            return null;
+        }
+        return new double[]{(bounds[0] + bounds[2]) / 2, (bounds[1] + bounds[3]) / 2};
+    }
+    /*
+        The cell as {min latitude, min longitude, max latitude, max longitude}, null if hash has characters outside the alphabet
+     */
+    public static double[] getBounds(String hash) {
+        double[] latitudeRange = {-90, 90};
+        double[] longitudeRange = {-180, 180};
+        boolean isLongitudeBit = true;
+        for(int i = 0; i < hash.length(); i++) {
+            int character = BASE32.indexOf(hash.charAt(i));
+            if(character < 0) {
+                return null;
+            }
+            for(int bit = 4; bit >= 0; bit--) {
+                double[] range = isLongitudeBit ? longitudeRange : latitudeRange;
+                double middle = (range[0] + range[1]) / 2;
+                if(((character >> bit) & 1) == 1) {
+                    range[0] = middle;
+                } else {
+                    range[1] = middle;
+                }
+                isLongitudeBit = !isLongitudeBit;
+            }
+        }
+        return new double[]{latitudeRange[0], longitudeRange[0], latitudeRange[1], longitudeRange[1]};
+    }
+    /*
+        Miles from the point to the nearest point of the cell, 0 inside it. Nothing in the cell is nearer.
+     */
+    public static double distanceToCellMiles(double latitude, double longitude, double[] bounds) {
+        if(longitude >= bounds[1] && longitude <= bounds[3]) {
+            double nearestLatitude = Math.max(bounds[0], Math.min(bounds[2], latitude));
+            return ZipCodeIndex.distanceMiles(latitude, longitude, nearestLatitude, longitude);
+        }
+        //Nearest point is on the closer side edge, where the great circle through the point meets that meridian at a right angle
+        double edgeLongitude = isWestOf(longitude, bounds[1], bounds[3]) ? bounds[1] : bounds[3];
+        double longitudeDelta = Math.toRadians(edgeLongitude - longitude);
+        double perpendicularLatitude = Math.toDegrees(Math.atan2(Math.tan(Math.toRadians(latitude)), Math.cos(longitudeDelta)));
+        double nearestLatitude = Math.max(bounds[0], Math.min(bounds[2], perpendicularLatitude));
+        return ZipCodeIndex.distanceMiles(latitude, longitude, nearestLatitude, edgeLongitude);
+    }
+    private static boolean isWestOf(double longitude, double minLongitude, double maxLongitude) {
+        double toWestEdge = (minLongitude - longitude + 360) % 360;
+        double toEastEdge = (longitude - maxLongitude + 360) % 360;
+        return toWestEdge <= toEastEdge;
+    }
+
+    /*
+        Prefixes whose cells together cover every point within radiusMiles, the longest that need at most 3 x 3 cells
+     */
+    public static Set<String> getCoveringPrefixes(double latitude, double longitude, double radiusMiles) {
+        double latitudeSpan = radiusMiles / MILES_PER_DEGREE_LATITUDE;
+        double cosLatitude = Math.cos(Math.toRadians(Math.min(89.0, Math.abs(latitude) + latitudeSpan)));
+        double longitudeSpan = Math.min(180, radiusMiles / (MILES_PER_DEGREE_LATITUDE * cosLatitude));
+        double minLatitude = Math.max(-90, latitude - latitudeSpan);
+        double maxLatitude = Math.min(90, latitude + latitudeSpan);
+        double minLongitude = Math.max(-180, longitude - longitudeSpan);
+        double maxLongitude = Math.min(180, longitude + longitudeSpan);
+
+        int precision = PRECISION;
+        while(precision > 1) {
+            double[] cellSize = getCellSize(precision);
+            if((maxLatitude - minLatitude) / cellSize[0] < MAX_CELLS_PER_SIDE - 1
+                    && (maxLongitude - minLongitude) / cellSize[1] < MAX_CELLS_PER_SIDE - 1) {
+                break;
+            }
+            precision--;
+        }
+        double[] cellSize = getCellSize(precision);
+        Set<String> prefixes = new LinkedHashSet<>();
+        for(double cellLatitude = minLatitude; ; cellLatitude = Math.min(maxLatitude, cellLatitude + cellSize[0])) {
+            for(double cellLongitude = minLongitude; ; cellLongitude = Math.min(maxLongitude, cellLongitude + cellSize[1])) {
+                prefixes.add(encode(cellLatitude, cellLongitude, precision));
+                if(cellLongitude >= maxLongitude) {
+                    break;
+                }
+            }
+            if(cellLatitude >= maxLatitude) {
+                break;
+            }
+        }
+        return prefixes;
+    }
+    /*
+        {latitude degrees, longitude degrees} of one cell, longitude takes the odd bit
+     */
+    static double[] getCellSize(int precision) {
+        int bits = precision * 5;
+        int longitudeBits = (bits + 1) / 2;
+        int latitudeBits = bits / 2;
+        return new double[]{180 / Math.pow(2, latitudeBits), 360 / Math.pow(2, longitudeBits)};
+    }
+}
@@ -0,0 +1,135 @@
+package com.schmidthappens.markd.utilities;
+
+import android.util.Log;
+
+import com.google.firebase.database.DatabaseError;
+import com.google.firebase.database.DatabaseReference;
+import com.schmidthappens.markd.data_objects.NotificationInbox;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One message to many customers, one multi-path update per MAX_RECIPIENTS_PER_WRITE customers, each
+ * adding a push keyed child to the customer's inbox. The writes are all sent at once and share the
+ * connection, so thousands of customers take about one round trip.
+ * Customers of a failed write are handed back so the message can be sent again to just them.
+ * Used from the main thread.
+ */
+
+public class NotificationBroadcast {
+    private static final String TAG = "NotificationBroadcast";
+    //A few hundred bytes each, keeps every write far under the payload limit and progress coming often
+    public static final int MAX_RECIPIENTS_PER_WRITE = 500;
+
+    /*
+        Where the writes go, the database root outside of tests
+     */
+    interface Writer {
+        String pushKey(String customerId);
+        void updateChildren(Map<String, Object> updates, DatabaseReference.CompletionListener completionListener);
+    }
+
+    public interface OnBroadcastProgressListener {
+        /*
+            Another write is done, sentCount is every customer written to so far
+         */
+        void onChunkSent(int sentCount, int totalCount);
+        /*
+            Every write is done or failed, failedCustomers did not get the message
+         */
+        void onBroadcastFinished(int sentCount, List<String> failedCustomers);
+    }
+
+    private final Writer writer;
+    private final List<String> failedCustomers = new ArrayList<>();
+    private OnBroadcastProgressListener listener;
+    private int totalCount;
+    private int sentCount;
+
+    NotificationBroadcast(final DatabaseReference root) {
+        this(new Writer() {
+            @Override
+            public String pushKey(String customerId) {
+                return root.child(NotificationInbox.PATH).child(customerId).push().getKey();
+            }
+
+            @Override
+            public void updateChildren(Map<String, Object> updates, DatabaseReference.CompletionListener completionListener) {
+                root.updateChildren(updates, completionListener);
+            }
+        });
+    }
+    NotificationBroadcast(Writer writer) {
+        this.writer = writer;
+    }
+
+    /*
+        Blank customers are skipped, nothing is written for an empty message or company
+     */
+    void send(Collection<String> customers, String message, String companyFrom, OnBroadcastProgressListener listener) {
+        this.listener = listener;
+        List<String> recipients = new ArrayList<>();
+        if(!StringUtilities.isNullOrEmpty(message) && !StringUtilities.isNullOrEmpty(companyFrom) && customers != null) {
+            for(String customer : customers) {
+                if(!StringUtilities.isNullOrEmpty(customer)) {
+                    recipients.add(customer);
+                }
+            }
+        }
+        totalCount = recipients.size();
+        if(recipients.isEmpty()) {
+            finish();
+            return;
+        }
+        Map<String, Object> notification = NotificationInbox.getValue(companyFrom, message);
+        for(int start = 0; start < totalCount; start += MAX_RECIPIENTS_PER_WRITE) {
+            final List<String> chunk = recipients.subList(start, Math.min(totalCount, start + MAX_RECIPIENTS_PER_WRITE));
+            writer.updateChildren(getUpdates(chunk, notification), new DatabaseReference.CompletionListener() {
+                @Override
+                public void onComplete(DatabaseError databaseError, DatabaseReference databaseReference) {
+                    onChunkWritten(chunk, databaseError);
+                }
+            });
+        }
+        Log.d(TAG, "broadcasting to:" + totalCount);
+    }
+    /*
+        The writes still go out but the listener is not called again, for a screen going away
+     */
+    public void cancel() {
+        listener = null;
+    }
+
+    private Map<String, Object> getUpdates(List<String> chunk, Map<String, Object> notification) {
+        Map<String, Object> updates = new HashMap<>();
+        for(String customer : chunk) {
+            updates.put(NotificationInbox.getPath(customer, writer.pushKey(customer)), notification);
+        }
+        return updates;
+    }
+    private void onChunkWritten(List<String> chunk, DatabaseError databaseError) {
+        if(databaseError != null) {
+            Log.e(TAG, "broadcast write of " + chunk.size() + " failed", databaseError.toException());
+            failedCustomers.addAll(chunk);
+        } else {
+            sentCount += chunk.size();
+            if(listener != null) {
+                listener.onChunkSent(sentCount, totalCount);
+            }
+        }
+        if(sentCount + failedCustomers.size() == totalCount) {
+            finish();
+        }
+    }
+    private void finish() {
+        if(listener != null) {
+            OnBroadcastProgressListener finishedListener = listener;
+            listener = null;
+            finishedListener.onBroadcastFinished(sentCount, failedCustomers);
+        }
+    }
+}
@@ -5,13 +5,16 @@ import android.util.Log;
 import com.google.firebase.database.DataSnapshot;
 import com.google.firebase.database.DatabaseError;
 import com.google.firebase.database.DatabaseReference;
-import com.google.firebase.database.FirebaseDatabase;
+import com.google.firebase.database.MutableData;
+import com.google.firebase.database.Query;
+import com.google.firebase.database.Transaction;
 import com.google.firebase.database.ValueEventListener;
 import com.google.firebase.iid.FirebaseInstanceId;
-import com.schmidthappens.markd.data_objects.CustomerNotificationMessage;
+import com.schmidthappens.markd.data_objects.FirebaseDatabaseInstance;
+import com.schmidthappens.markd.data_objects.NotificationInbox;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Collection;
+import java.util.Map;
 
 /**
  * Created by joshua.schmidtibm.com on 11/24/17.
@@ -21,43 +24,97 @@ public class NotificationHandler {
     private final static String TAG = "NotificationsHandler";
 
     //Mark:- Static methods
-    public static void sendNotification(String customerId, final String message, final String companyFrom) {
-        final DatabaseReference notificationMessages = FirebaseDatabase.getInstance().getReference("notifications/"+customerId);
-        notificationMessages.addListenerForSingleValueEvent(new ValueEventListener() {
+    /*
+        One push keyed child written straight away, the inbox is not read
+     */
+    public static void sendNotification(final String customerId, final String message, final String companyFrom) {
+        DatabaseReference root = FirebaseDatabaseInstance.getDatabase().getReference();
+        String pushKey = root.child(NotificationInbox.PATH).child(customerId).push().getKey();
+        root.updateChildren(NotificationInbox.getUpdates(customerId, pushKey, companyFrom, message), new DatabaseReference.CompletionListener() {
             @Override
-            public void onDataChange(DataSnapshot dataSnapshot) {
-                List<CustomerNotificationMessage> notifications = new ArrayList<>();
-                for(DataSnapshot string: dataSnapshot.getChildren()) {
-                    notifications.add(string.getValue(CustomerNotificationMessage.class));
+            public void onComplete(DatabaseError databaseError, DatabaseReference databaseReference) {
+                if(databaseError != null) {
+                    Log.e(TAG, "notification to " + customerId + " failed", databaseError.toException());
                 }
-                notifications.add(0, new CustomerNotificationMessage(companyFrom, message));
-                notificationMessages.setValue(notifications);
-            }
-
-            @Override
-            public void onCancelled(DatabaseError databaseError) {
-                Log.e(TAG, databaseError.toString());
             }
         });
     }
 
-    public static void sendNotifications(List<String> customers, final String message, final String companyFrom) {
-        if(!StringUtilities.isNullOrEmpty(message) && !StringUtilities.isNullOrEmpty(companyFrom) && customers != null) {
-            for (String customer : customers) {
-                if (!StringUtilities.isNullOrEmpty(customer)) {
-                    sendNotification(customer, message, companyFrom);
-                }
-            }
-        }
+    /*
+        Every customer's message in a few multi-path updates, cancel the returned broadcast when the
+        listener goes away
+     */
+    public static NotificationBroadcast broadcastNotification(Collection<String> customers, String message, String companyFrom, NotificationBroadcast.OnBroadcastProgressListener listener) {
+        NotificationBroadcast broadcast = new NotificationBroadcast(FirebaseDatabaseInstance.getDatabase().getReference());
+        broadcast.send(customers, message, companyFrom, listener);
+        return broadcast;
     }
 
+    /*
+        Oldest first by sentAt, an inbox still in the old array shape is migrated first
+     */
     public static boolean getNotifications(String customerId, ValueEventListener listener) {
         if(StringUtilities.isNullOrEmpty(customerId) || listener == null) {
             return false;
         }
 
-        DatabaseReference userReference = FirebaseDatabase.getInstance().getReference().child("notifications").child(customerId);
-        userReference.addValueEventListener(listener);
+        DatabaseReference inboxReference = FirebaseDatabaseInstance.getDatabase().getReference().child(NotificationInbox.PATH).child(customerId);
+        migrateInboxIfNeeded(inboxReference);
+        getInboxQuery(inboxReference).addValueEventListener(listener);
         return true;
     }
+    public static void removeNotificationsListener(String customerId, ValueEventListener listener) {
+        if(StringUtilities.isNullOrEmpty(customerId) || listener == null) {
+            return;
+        }
+        getInboxQuery(FirebaseDatabaseInstance.getDatabase().getReference().child(NotificationInbox.PATH).child(customerId)).removeEventListener(listener);
+    }
+    private static Query getInboxQuery(DatabaseReference inboxReference) {
+        return inboxReference.orderByChild(NotificationInbox.SENT_AT);
+    }
+
+    /*
+        notifications/{uid}/0 only exists while the inbox is still an array
+     */
+    private static void migrateInboxIfNeeded(final DatabaseReference inboxReference) {
+        inboxReference.child("0").addListenerForSingleValueEvent(new ValueEventListener() {
+            @Override
+            public void onDataChange(DataSnapshot firstIndexSnapshot) {
+                if(firstIndexSnapshot.exists()) {
+                    migrateInbox(inboxReference);
+                }
+            }
+
+            @Override
+            public void onCancelled(DatabaseError databaseError) {
+                Log.e(TAG, databaseError.toString());
+            }
+        });
+    }
+    /*
+        In a transaction so a message sent while migrating is kept
+     */
+    private static void migrateInbox(DatabaseReference inboxReference) {
+        inboxReference.runTransaction(new Transaction.Handler() {
+            @Override
+            public Transaction.Result doTransaction(MutableData inboxData) {
+                Object plainInbox = inboxData.getValue();
+                if(!NotificationInbox.isLegacyPlainValue(plainInbox)) {
+                    return Transaction.success(inboxData);
+                }
+                Map<String, Object> inbox = NotificationInbox.fromLegacyPlainValue(plainInbox);
+                inboxData.setValue(inbox.isEmpty() ? null : inbox);
+                return Transaction.success(inboxData);
+            }
+
+            @Override
+            public void onComplete(DatabaseError databaseError, boolean committed, DataSnapshot inboxSnapshot) {
+                if(databaseError != null) {
+                    Log.e(TAG, "inbox migration failed", databaseError.toException());
+                } else {
+                    Log.d(TAG, "migrated inbox:" + inboxSnapshot.getKey());
+                }
+            }
+        });
+    }
 }
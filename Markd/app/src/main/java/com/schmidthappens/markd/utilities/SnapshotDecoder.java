@@ -0,0 +1,108 @@
+package com.schmidthappens.markd.utilities;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.support.annotation.MainThread;
+import android.util.Log;
+
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseError;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Converts snapshots into data objects on a small background pool and hands the result back on the main thread.
+ * Only the newest snapshot given to a decoder is delivered, older decodes are cancelled or dropped.
+ * A decoder that throws is reported to the listener's onFailed the same way, as a DatabaseError.
+ */
+
+public class SnapshotDecoder<T> {
+    private static final String TAG = "SnapshotDecoder";
+    private static final int THREAD_COUNT = Math.max(1, Math.min(2, Runtime.getRuntime().availableProcessors() - 1));
+    private static final ExecutorService executor = Executors.newFixedThreadPool(THREAD_COUNT, new ThreadFactory() {
+        private final AtomicInteger threadNumber = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, TAG + "-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        }
+    });
+    private static final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    public interface Decoder<T> {
+        //Runs on a background thread
+        T decode(DataSnapshot snapshot);
+    }
+    public interface OnDecodedListener<T> {
+        //Runs on the main thread
+        void onDecoded(DataSnapshot snapshot, T value);
+        void onFailed(DataSnapshot snapshot, DatabaseError databaseError);
+    }
+
+    private final Decoder<T> decoder;
+    private final AtomicInteger generation = new AtomicInteger();
+    private Future<?> pendingDecode;
+
+    public SnapshotDecoder(Decoder<T> decoder) {
+        this.decoder = decoder;
+    }
+
+    @MainThread
+    public void decode(final DataSnapshot snapshot, final OnDecodedListener<T> listener) {
+        final int decodeGeneration = generation.incrementAndGet();
+        if(pendingDecode != null) {
+            pendingDecode.cancel(false);
+        }
+        pendingDecode = executor.submit(new Runnable() {
+            @Override
+            public void run() {
+                if(decodeGeneration != generation.get()) {
+                    return;
+                }
+                final T value;
+                try {
+                    value = decoder.decode(snapshot);
+                } catch (RuntimeException exception) {
+                    Log.e(TAG, "Unable to decode " + snapshot.getKey(), exception);
+                    final DatabaseError databaseError = DatabaseError.fromException(exception);
+                    mainHandler.post(new Runnable() {
+                        @Override
+                        public void run() {
+                            if(decodeGeneration == generation.get()) {
+                                listener.onFailed(snapshot, databaseError);
+                            }
+                        }
+                    });
+                    return;
+                }
+                mainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        if(decodeGeneration == generation.get()) {
+                            listener.onDecoded(snapshot, value);
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    /*
+        Drops any decode that has not been delivered yet
+     */
+    @MainThread
+    public void cancel() {
+        generation.incrementAndGet();
+        if(pendingDecode != null) {
+            pendingDecode.cancel(false);
+            pendingDecode = null;
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.schmidthappens.markd.utilities;
+
+import android.util.Log;
+
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseError;
+import com.google.firebase.database.DatabaseReference;
+import com.google.firebase.database.ValueEventListener;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Finds contractors of a type in a radius search result by reading zip_codes_by_type/{contractorType}/{zip}
+ * for only those zips, nearest first with at most maxConcurrentReads zips in flight.
+ * While older builds, which only write zip_codes, are in use zip_codes/{zip} is read alongside and
+ * the contractors of the type in both are merged, see ContractorIndexes.isOlderBuildsInUse.
+ * Results are merged in distance order as reads come back and handed to the listener as soon as every
+ * nearer zip is in, so the nearest contractors show while farther zips are still being read.
+ * No more zips are read once maxContractors are found. One search per reader, used from the main thread.
+ */
+
+public class ZipCodeContractorReader {
+    private static final String TAG = "ZipCodeContractorReadr";
+    public static final int DEFAULT_MAX_CONCURRENT_READS = 4;
+    public static final int DEFAULT_MAX_CONTRACTORS = 25;
+
+    public interface OnContractorsFoundListener {
+        /*
+            The next contractor keys nearest first, none farther than any found later
+         */
+        void onContractorsFound(List<String> contractorReferences);
+        /*
+            No more contractors are coming, at most maxContractors were found in all
+         */
+        void onSearchFinished();
+        void onFailed(DatabaseError databaseError);
+    }
+
+    private final DatabaseReference zipCodesByTypeReference;
+    private final DatabaseReference zipCodesReference;
+    private final boolean readsZipCodes;
+    private final int maxConcurrentReads;
+    private final int maxContractors;
+
+    private List<String> zipCodes;
+    private String contractorType;
+    private OnContractorsFoundListener listener;
+    //Contractors per zip in zipCodes order, null until every read of the zip comes back
+    private List<List<String>> contractorsAtZip;
+    private final List<String> contractors = new ArrayList<>();
+    private int nextRead;
+    private int nextMerge;
+    private int readsInFlight;
+    private int reads;
+    private int failedReads;
+    private DatabaseError lastError;
+    private boolean finished;
+
+    public ZipCodeContractorReader(DatabaseReference root) {
+        this(root, DEFAULT_MAX_CONCURRENT_READS, DEFAULT_MAX_CONTRACTORS);
+    }
+    public ZipCodeContractorReader(DatabaseReference root, int maxConcurrentReads, int maxContractors) {
+        this.zipCodesByTypeReference = root.child(ContractorIndexes.ZIP_CODES_BY_TYPE);
+        this.zipCodesReference = root.child(ContractorIndexes.ZIP_CODES);
+        this.readsZipCodes = ContractorIndexes.isOlderBuildsInUse();
+        this.maxConcurrentReads = Math.max(1, maxConcurrentReads);
+        this.maxContractors = Math.max(1, maxContractors);
+    }
+
+    /*
+        zipCodeMap as given by ZipCodeUtilities.findZipCodesByRadius, distance to zip code
+     */
+    public void read(Map<Double, String> zipCodeMap, String contractorType, OnContractorsFoundListener listener) {
+        if(this.listener != null) {
+            throw new IllegalStateException("ZipCodeContractorReader is single use");
+        }
+        this.zipCodes = new ArrayList<>(zipCodeMap.values());
+        this.contractorType = contractorType;
+        this.listener = listener;
+        this.contractorsAtZip = new ArrayList<>(zipCodes.size());
+        for(int i = 0; i < zipCodes.size(); i++) {
+            contractorsAtZip.add(null);
+        }
+        readMore();
+        finishIfDone();
+    }
+    /*
+        Reads still in flight are ignored and the listener is not called
+     */
+    public void cancel() {
+        finished = true;
+    }
+
+    private void readMore() {
+        while(!finished && readsInFlight < maxConcurrentReads && nextRead < zipCodes.size() && contractors.size() < maxContractors) {
+            final int zipIndex = nextRead++;
+            readsInFlight++;
+            final String zipCode = zipCodes.get(zipIndex);
+            final Set<String> contractorsInZip = new LinkedHashSet<>();
+            final int[] pendingReads = {readsZipCodes ? 2 : 1};
+            reads += pendingReads[0];
+            zipCodesByTypeReference.child(contractorType).child(zipCode).addListenerForSingleValueEvent(new ValueEventListener() {
+                @Override
+                public void onDataChange(DataSnapshot zipCodeSnapshot) {
+                    contractorsInZip.addAll(ContractorUtilities.getContractorsAtZipCode(zipCodeSnapshot));
+                    onRead(zipIndex, contractorsInZip, --pendingReads[0]);
+                }
+
+                @Override
+                public void onCancelled(DatabaseError databaseError) {
+                    onReadFailed(zipIndex, contractorsInZip, --pendingReads[0], databaseError);
+                }
+            });
+            if(!readsZipCodes) {
+                continue;
+            }
+            zipCodesReference.child(zipCode).addListenerForSingleValueEvent(new ValueEventListener() {
+                @Override
+                public void onDataChange(DataSnapshot zipCodeSnapshot) {
+                    contractorsInZip.addAll(ContractorUtilities.getContractorsOfTypeAtZipCode(zipCodeSnapshot, contractorType));
+                    onRead(zipIndex, contractorsInZip, --pendingReads[0]);
+                }
+
+                @Override
+                public void onCancelled(DatabaseError databaseError) {
+                    onReadFailed(zipIndex, contractorsInZip, --pendingReads[0], databaseError);
+                }
+            });
+        }
+    }
+    private void onReadFailed(int zipIndex, Set<String> contractorsInZip, int pendingReads, DatabaseError databaseError) {
+        Log.w(TAG, "read failed:" + zipCodes.get(zipIndex), databaseError.toException());
+        failedReads++;
+        lastError = databaseError;
+        onRead(zipIndex, contractorsInZip, pendingReads);
+    }
+    private void onRead(int zipIndex, Set<String> contractorsInZip, int pendingReads) {
+        if(pendingReads > 0) {
+            return;
+        }
+        readsInFlight--;
+        if(finished) {
+            return;
+        }
+        contractorsAtZip.set(zipIndex, new ArrayList<>(contractorsInZip));
+        //Only whole nearer zips are merged so a far zip answering first cannot push out a near one
+        int merged = contractors.size();
+        while(nextMerge < zipCodes.size() && contractorsAtZip.get(nextMerge) != null && contractors.size() < maxContractors) {
+            contractors.addAll(contractorsAtZip.get(nextMerge));
+            nextMerge++;
+        }
+        int found = Math.min(contractors.size(), maxContractors);
+        if(found > merged) {
+            listener.onContractorsFound(new ArrayList<>(contractors.subList(merged, found)));
+        }
+        readMore();
+        finishIfDone();
+    }
+    private void finishIfDone() {
+        boolean enoughContractors = contractors.size() >= maxContractors;
+        if(finished || (!enoughContractors && nextMerge < zipCodes.size())) {
+            return;
+        }
+        finished = true;
+        if(failedReads > 0 && failedReads == reads) {
+            listener.onFailed(lastError);
+            return;
+        }
+        Log.d(TAG, "found " + Math.min(contractors.size(), maxContractors) + " reading " + nextRead + " of " + zipCodes.size() + " zips");
+        listener.onSearchFinished();
+    }
+}
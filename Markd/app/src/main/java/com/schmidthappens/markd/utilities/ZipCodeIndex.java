@@ -0,0 +1,310 @@
+package com.schmidthappens.markd.utilities;
+
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Answers zip code radius searches from a table of zip centroids instead of zipcodeapi.com.
+ * The table is read in place from a ByteBuffer, on device the memory mapped zip_codes.bin asset.
+ * Layout, all ints big endian:
+ *   header    MAGIC, VERSION, zipCount, minLatitude, minLongitude, rows, columns
+ *   zips      zipCount x (zip, latitude * 1e6, longitude * 1e6), sorted by zip
+ *   cells     rows * columns + 1 offsets into entries, one cell per whole degree
+ *   entries   zipCount indexes into zips, grouped by cell
+ * Longitudes do not wrap at 180, no two US zips within a search radius are on opposite sides of it.
+ */
+
+public class ZipCodeIndex {
+    static final int MAGIC = 0x5A495043;
+    static final int VERSION = 1;
+    private static final int HEADER_INTS = 7;
+    private static final int ZIP_INTS = 3;
+    private static final double MICRO_DEGREES = 1e6;
+    private static final double EARTH_RADIUS_MILES = 3958.7613;
+    private static final double MILES_PER_DEGREE_LATITUDE = 69.0;
+
+    private final ByteBuffer table;
+    private final int zipCount;
+    private final int minLatitude;
+    private final int minLongitude;
+    private final int rows;
+    private final int columns;
+    private final int zipsStart;
+    private final int cellsStart;
+    private final int entriesStart;
+
+    public ZipCodeIndex(ByteBuffer table) {
+        this.table = table;
+        if(table.capacity() < HEADER_INTS * 4 || table.getInt(0) != MAGIC || table.getInt(4) != VERSION) {
+            throw new IllegalArgumentException("Not a version " + VERSION + " zip code table");
+        }
+        zipCount = table.getInt(8);
+        minLatitude = table.getInt(12);
+        minLongitude = table.getInt(16);
+        rows = table.getInt(20);
+        columns = table.getInt(24);
+        zipsStart = HEADER_INTS * 4;
+        cellsStart = zipsStart + zipCount * ZIP_INTS * 4;
+        entriesStart = cellsStart + (rows * columns + 1) * 4;
+        if(table.capacity() < entriesStart + zipCount * 4) {
+            throw new IllegalArgumentException("Truncated zip code table");
+        }
+    }
+
+    public int size() {
+        return zipCount;
+    }
+    public boolean contains(String zipCode) {
+        return indexOf(zipCode) >= 0;
+    }
+    /*
+        Centroid as {latitude, longitude}, null if zipCode is not in the table
+     */
+    public double[] getLocation(String zipCode) {
+        int zip = indexOf(zipCode);
+        return zip < 0 ? null : new double[]{getLatitude(zip), getLongitude(zip)};
+    }
+
+    //Mark:- Radius Search
+    /*
+        Same shape as ZipCodeUtilities.sortZipCodes, distance in miles to zip code, nearest first.
+        Null if zipCode is not in the table.
+     */
+    public Map<Double, String> getZipCodesByRadius(String zipCode, double radiusMiles) {
+        int origin = indexOf(zipCode);
+        if(origin < 0) {
+            return null;
+        }
+        double originLatitude = getLatitude(origin);
+        double originLongitude = getLongitude(origin);
+        double latitudeSpan = radiusMiles / MILES_PER_DEGREE_LATITUDE;
+        double cosLatitude = Math.cos(Math.toRadians(Math.min(89.0, Math.abs(originLatitude) + latitudeSpan)));
+        double longitudeSpan = radiusMiles / (MILES_PER_DEGREE_LATITUDE * cosLatitude);
+
+        int firstRow = Math.max(0, (int)Math.floor(originLatitude - latitudeSpan) - minLatitude);
+        int lastRow = Math.min(rows - 1, (int)Math.floor(originLatitude + latitudeSpan) - minLatitude);
+        int firstColumn = Math.max(0, (int)Math.floor(originLongitude - longitudeSpan) - minLongitude);
+        int lastColumn = Math.min(columns - 1, (int)Math.floor(originLongitude + longitudeSpan) - minLongitude);
+
+        Map<Double, String> zipCodeMap = new TreeMap<>();
+        for(int row = firstRow; row <= lastRow; row++) {
+            for(int column = firstColumn; column <= lastColumn; column++) {
+                int cell = row * columns + column;
+                int entryEnd = getCellOffset(cell + 1);
+                for(int entry = getCellOffset(cell); entry < entryEnd; entry++) {
+                    int zip = table.getInt(entriesStart + entry * 4);
+                    double distance = distanceMiles(originLatitude, originLongitude, getLatitude(zip), getLongitude(zip));
+                    if(distance <= radiusMiles) {
+                        //zipcodeapi.com rounds to 3 places, keys collide the same way sortZipCodes handles
+                        Double key = Math.round(distance * 1000) / 1000.0;
+                        while(zipCodeMap.containsKey(key)) {
+                            key += 0.0000001;
+                        }
+                        zipCodeMap.put(key, formatZip(table.getInt(zipsStart + zip * ZIP_INTS * 4)));
+                    }
+                }
+            }
+        }
+        return zipCodeMap;
+    }
+
+    /*
+        Great circle distance by the haversine formula
+     */
+    public static double distanceMiles(double latitude1, double longitude1, double latitude2, double longitude2) {
+        double latitudeDelta = Math.toRadians(latitude2 - latitude1);
+        double longitudeDelta = Math.toRadians(longitude2 - longitude1);
+        double a = Math.sin(latitudeDelta / 2) * Math.sin(latitudeDelta / 2)
+                + Math.cos(Math.toRadians(latitude1)) * Math.cos(Math.toRadians(latitude2))
+                * Math.sin(longitudeDelta / 2) * Math.sin(longitudeDelta / 2);
+        return 2 * EARTH_RADIUS_MILES * Math.asin(Math.min(1.0, Math.sqrt(a)));
+    }
+
+    //Mark:- Table Access
+    private int indexOf(String zipCode) {
+        int zip = parseZip(zipCode);
+        if(zip < 0) {
+            return -1;
+        }
+        int low = 0;
+        int high = zipCount - 1;
+        while(low <= high) {
+            int middle = (low + high) >>> 1;
+            int middleZip = table.getInt(zipsStart + middle * ZIP_INTS * 4);
+            if(middleZip < zip) {
+                low = middle + 1;
+            } else if(middleZip > zip) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+    private double getLatitude(int zip) {
+        return table.getInt(zipsStart + (zip * ZIP_INTS + 1) * 4) / MICRO_DEGREES;
+    }
+    private double getLongitude(int zip) {
+        return table.getInt(zipsStart + (zip * ZIP_INTS + 2) * 4) / MICRO_DEGREES;
+    }
+    private int getCellOffset(int cell) {
+        return table.getInt(cellsStart + cell * 4);
+    }
+
+    private static int parseZip(String zipCode) {
+        if(zipCode == null) {
+            return -1;
+        }
+        String trimmed = zipCode.trim();
+        if(trimmed.length() != 5) {
+            return -1;
+        }
+        try {
+            return Integer.parseInt(trimmed);
+        } catch (NumberFormatException exception) {
+            return -1;
+        }
+    }
+    private static String formatZip(int zip) {
+        return String.format(Locale.US, "%05d", zip);
+    }
+
+    //Mark:- Building
+    /*
+        Writes the table, used to generate zip_codes.bin from the Census ZCTA gazetteer and by tests
+     */
+    public static class Builder {
+        private final List<int[]> zips = new ArrayList<>();
+
+        /*
+            Run by the updateZipCodeTable gradle task, arguments are the gazetteer and the table to write
+         */
+        public static void main(String[] args) throws IOException {
+            if(args.length != 2) {
+                throw new IllegalArgumentException("Usage: Builder <gazetteer.txt> <zip_codes.bin>");
+            }
+            BufferedReader gazetteer = new BufferedReader(new InputStreamReader(new FileInputStream(args[0]), "UTF-8"));
+            byte[] table;
+            try {
+                table = new Builder().addGazetteer(gazetteer).build();
+            } finally {
+                gazetteer.close();
+            }
+            FileOutputStream output = new FileOutputStream(args[1]);
+            try {
+                output.write(table);
+            } finally {
+                output.close();
+            }
+        }
+
+        public Builder add(String zipCode, double latitude, double longitude) {
+            int zip = parseZip(zipCode);
+            if(zip < 0) {
+                throw new IllegalArgumentException("Not a 5 digit zip code: " + zipCode);
+            }
+            zips.add(new int[]{zip, (int)Math.round(latitude * MICRO_DEGREES), (int)Math.round(longitude * MICRO_DEGREES)});
+            return this;
+        }
+        /*
+            Tab separated Census gazetteer, GEOID plus INTPTLAT and INTPTLONG columns, header line first
+         */
+        public Builder addGazetteer(BufferedReader gazetteer) throws IOException {
+            String header = gazetteer.readLine();
+            if(header == null) {
+                return this;
+            }
+            List<String> columnNames = new ArrayList<>();
+            for(String columnName : header.split("\t")) {
+                columnNames.add(columnName.trim());
+            }
+            int zipColumn = columnNames.indexOf("GEOID");
+            int latitudeColumn = columnNames.indexOf("INTPTLAT");
+            int longitudeColumn = columnNames.indexOf("INTPTLONG");
+            if(zipColumn < 0 || latitudeColumn < 0 || longitudeColumn < 0) {
+                throw new IOException("Missing GEOID, INTPTLAT or INTPTLONG column");
+            }
+            String line;
+            while((line = gazetteer.readLine()) != null) {
+                String[] columns = line.split("\t");
+                if(columns.length > Math.max(zipColumn, Math.max(latitudeColumn, longitudeColumn))) {
+                    add(columns[zipColumn].trim(), Double.parseDouble(columns[latitudeColumn].trim()), Double.parseDouble(columns[longitudeColumn].trim()));
+                }
+            }
+            return this;
+        }
+
+        public byte[] build() {
+            List<int[]> sortedZips = new ArrayList<>(zips);
+            Collections.sort(sortedZips, new Comparator<int[]>() {
+                @Override
+                public int compare(int[] first, int[] second) {
+                    return Integer.compare(first[0], second[0]);
+                }
+            });
+            int minLatitude = 0;
+            int minLongitude = 0;
+            int maxLatitude = 0;
+            int maxLongitude = 0;
+            for(int index = 0; index < sortedZips.size(); index++) {
+                int latitude = degreeOf(sortedZips.get(index)[1]);
+                int longitude = degreeOf(sortedZips.get(index)[2]);
+                if(index == 0) {
+                    minLatitude = maxLatitude = latitude;
+                    minLongitude = maxLongitude = longitude;
+                }
+                minLatitude = Math.min(minLatitude, latitude);
+                maxLatitude = Math.max(maxLatitude, latitude);
+                minLongitude = Math.min(minLongitude, longitude);
+                maxLongitude = Math.max(maxLongitude, longitude);
+            }
+            int rows = maxLatitude - minLatitude + 1;
+            int columns = maxLongitude - minLongitude + 1;
+
+            //Counting sort of zip indexes by cell
+            int[] cellOffsets = new int[rows * columns + 1];
+            int[] cellOfZip = new int[sortedZips.size()];
+            for(int index = 0; index < sortedZips.size(); index++) {
+                int[] zip = sortedZips.get(index);
+                cellOfZip[index] = (degreeOf(zip[1]) - minLatitude) * columns + degreeOf(zip[2]) - minLongitude;
+                cellOffsets[cellOfZip[index] + 1]++;
+            }
+            for(int cell = 1; cell < cellOffsets.length; cell++) {
+                cellOffsets[cell] += cellOffsets[cell - 1];
+            }
+            int[] entries = new int[sortedZips.size()];
+            int[] nextEntry = cellOffsets.clone();
+            for(int index = 0; index < sortedZips.size(); index++) {
+                entries[nextEntry[cellOfZip[index]]++] = index;
+            }
+
+            ByteBuffer table = ByteBuffer.allocate((HEADER_INTS + sortedZips.size() * (ZIP_INTS + 1) + cellOffsets.length) * 4);
+            table.putInt(MAGIC).putInt(VERSION).putInt(sortedZips.size())
+                    .putInt(minLatitude).putInt(minLongitude).putInt(rows).putInt(columns);
+            for(int[] zip : sortedZips) {
+                table.putInt(zip[0]).putInt(zip[1]).putInt(zip[2]);
+            }
+            for(int cellOffset : cellOffsets) {
+                table.putInt(cellOffset);
+            }
+            for(int entry : entries) {
+                table.putInt(entry);
+            }
+            return table.array();
+        }
+        private static int degreeOf(int microDegrees) {
+            return (int)Math.floor(microDegrees / MICRO_DEGREES);
+        }
+    }
+}
@@ -1,30 +1,160 @@
 package com.schmidthappens.markd.utilities;
 
 import android.app.Activity;
+import android.content.Context;
+import android.content.res.AssetFileDescriptor;
 import android.util.Log;
-import android.widget.Toast;
 
 import com.android.volley.RequestQueue;
 import com.android.volley.Response;
 import com.android.volley.VolleyError;
 import com.android.volley.toolbox.JsonObjectRequest;
 import com.android.volley.toolbox.Volley;
-import com.schmidthappens.markd.customer_subactivities.ChangeContractorActivity;
 
 import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
 import java.util.Collections;
 import java.util.Map;
 import java.util.TreeMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 
 /**
  * Created by joshua.schmidtibm.com on 11/18/17.
+ *
+ * Radius searches are answered from the checked in zip_codes.bin asset, refreshed by the updateZipCodeTable gradle
+ * task, see ZipCodeIndex. zipcodeapi.com is only called for zip codes it does not have or if the asset fails to map.
+ * Either way results go through a ZipRadiusCache first, so searching again or with fewer miles is not refetched.
  */
 
 public class ZipCodeUtilities {
     private static final String TAG = "ZipCodeUtilities";
+    private static final String ZIP_CODE_ASSET = "zip_codes.bin";
+    private static final String RADIUS_CACHE_FILE = "zip_code_radius_cache";
+    private static ZipCodeIndex zipCodeIndex;
+    private static boolean zipCodeIndexMissing;
+    private static ZipRadiusCache radiusCache;
+    //Reads and writes the radius cache file in order, off the main thread
+    private static final Executor cacheExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, TAG + "-cache");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        }
+    });
+
+    public interface OnZipCodesFoundListener {
+        void onZipCodesFound(Map<Double, String> zipCodeMap);
+        void onFailed(String error);
+    }
+
+    /*
+        Calls listener with the same map sortZipCodes gives for the zipcodeapi.com response.
+        Cached and local results are delivered before this returns.
+     */
+    public static void findZipCodesByRadius(final Activity context, final String zipCode, String radius, final OnZipCodesFoundListener listener) {
+        final double radiusMiles;
+        try {
+            radiusMiles = getRadiusMiles(radius);
+        } catch (NumberFormatException exception) {
+            listener.onFailed(exception.toString());
+            return;
+        }
+        final ZipRadiusCache cache = getRadiusCache(context);
+        Map<Double, String> zipCodeMap = cache.get(zipCode, radiusMiles);
+        if(zipCodeMap != null) {
+            Log.d(TAG, "cached:" + zipCode + "/" + radiusMiles);
+            listener.onZipCodesFound(zipCodeMap);
+            return;
+        }
+        ZipCodeIndex index = getZipCodeIndex(context);
+        zipCodeMap = index == null ? null : index.getZipCodesByRadius(zipCode, radiusMiles);
+        if(zipCodeMap != null) {
+            cache.put(zipCode, radiusMiles, zipCodeMap);
+            listener.onZipCodesFound(zipCodeMap);
+            return;
+        }
+        getZipCodesByRadius(context, zipCode, radius, new Response.Listener<JSONObject>() {
+            @Override
+            public void onResponse(JSONObject response) {
+                try {
+                    Map<Double, String> zipCodeMap = sortZipCodes(response.getJSONArray("zip_codes"));
+                    cache.put(zipCode, radiusMiles, zipCodeMap);
+                    listener.onZipCodesFound(zipCodeMap);
+                } catch (JSONException exception) {
+                    listener.onFailed(exception.toString());
+                }
+            }
+        }, new Response.ErrorListener() {
+            @Override
+            public void onErrorResponse(VolleyError error) {
+                listener.onFailed(error.toString());
+            }
+        });
+    }
+    /*
+        zipcodeapi.com is asked for 1 mile when the seekbar is at 0
+     */
+    public static double getRadiusMiles(String radius) {
+        return radius.equals("0") ? 1 : Double.parseDouble(radius);
+    }
+    /*
+        Maps the zip code table and starts reading the radius cache ahead of the first search
+     */
+    public static void loadZipCodeIndex(Context context) {
+        getZipCodeIndex(context);
+        getRadiusCache(context);
+    }
+    /*
+        Centroid as {latitude, longitude}, null if the table does not have zipCode. Maps the table on first use.
+     */
+    public static double[] getZipCodeLocation(Context context, String zipCode) {
+        ZipCodeIndex index = getZipCodeIndex(context);
+        return index == null ? null : index.getLocation(zipCode);
+    }
+    public static boolean hasZipCodeIndex(Context context) {
+        return getZipCodeIndex(context) != null;
+    }
+    private static synchronized ZipRadiusCache getRadiusCache(Context context) {
+        if(radiusCache == null) {
+            radiusCache = new ZipRadiusCache(new File(context.getApplicationContext().getCacheDir(), RADIUS_CACHE_FILE),
+                    ZipRadiusCache.DEFAULT_MAX_ENTRIES, ZipRadiusCache.DEFAULT_TTL_MILLIS, cacheExecutor);
+            radiusCache.loadInBackground();
+        }
+        return radiusCache;
+    }
+    /*
+        The asset is mapped rather than read so the table is paged in by the searches that touch it
+     */
+    private static synchronized ZipCodeIndex getZipCodeIndex(Context context) {
+        if(zipCodeIndex != null || zipCodeIndexMissing) {
+            return zipCodeIndex;
+        }
+        try {
+            AssetFileDescriptor descriptor = context.getApplicationContext().getAssets().openFd(ZIP_CODE_ASSET);
+            FileInputStream inputStream = descriptor.createInputStream();
+            try {
+                zipCodeIndex = new ZipCodeIndex(inputStream.getChannel().map(FileChannel.MapMode.READ_ONLY, descriptor.getStartOffset(), descriptor.getLength()));
+                Log.d(TAG, "zip codes mapped:" + zipCodeIndex.size());
+            } finally {
+                inputStream.close();
+            }
+        } catch (IOException | IllegalArgumentException exception) {
+            //The checked in table is in every build, without it contractors are left out of contractor_geohashes
+            Log.e(TAG, "zip code table missing:" + exception.toString());
+            zipCodeIndexMissing = true;
+        }
+        return zipCodeIndex;
+    }
 
     public static void getZipCodesByRadius(final Activity context, final String zipCode, final String radius, final Response.Listener<JSONObject> successListener, final Response.ErrorListener errorListener) {
         // Instantiate the RequestQueue.
@@ -0,0 +1,231 @@
+package com.schmidthappens.markd.utilities;
+
+import android.util.Log;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.Executor;
+
+/**
+ * Least recently used radius search results, keyed by origin zip and radius in miles.
+ * Everything within a radius is also within any larger one, so a smaller search is answered
+ * by cutting down a cached larger result and a larger result replaces the smaller ones.
+ * Entries expire after ttlMillis and are kept in memory. The file is read once and written after changes
+ * on ioExecutor, so lookups never touch the disk. ioExecutor has to run tasks one at a time in order.
+ */
+
+public class ZipRadiusCache {
+    private static final String TAG = "ZipRadiusCache";
+    private static final int FILE_VERSION = 1;
+    public static final int DEFAULT_MAX_ENTRIES = 20;
+    public static final long DEFAULT_TTL_MILLIS = 7L * 24 * 60 * 60 * 1000;
+
+    private final File file;
+    private final int maxEntries;
+    private final long ttlMillis;
+    private final Executor ioExecutor;
+    //Access ordered, eldest first
+    private final Map<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private boolean loaded;
+    private boolean saveScheduled;
+
+    public ZipRadiusCache(File file, int maxEntries, long ttlMillis, Executor ioExecutor) {
+        this.file = file;
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttlMillis;
+        this.ioExecutor = ioExecutor;
+    }
+
+    /*
+        Reads the file on ioExecutor, a lookup that gets there first reads it instead
+     */
+    public void loadInBackground() {
+        ioExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                synchronized(ZipRadiusCache.this) {
+                    load();
+                }
+            }
+        });
+    }
+
+    //Mark:- Lookup
+    /*
+        Zip codes within radiusMiles of zipCode nearest first, null if no unexpired entry covers the radius
+     */
+    public synchronized Map<Double, String> get(String zipCode, double radiusMiles) {
+        load();
+        Entry covering = null;
+        long now = currentTimeMillis();
+        for(Entry entry : new ArrayList<>(entries.values())) {
+            if(isExpired(entry, now)) {
+                entries.remove(entry.getKey());
+            } else if(entry.zipCode.equals(zipCode) && entry.radiusMiles >= radiusMiles
+                    && (covering == null || entry.radiusMiles < covering.radiusMiles)) {
+                covering = entry;
+            }
+        }
+        if(covering == null) {
+            return null;
+        }
+        //Marks it recently used
+        entries.get(covering.getKey());
+        return new TreeMap<>(covering.zipCodes.headMap(radiusMiles, true));
+    }
+    public synchronized void put(String zipCode, double radiusMiles, Map<Double, String> zipCodes) {
+        load();
+        Iterator<Entry> iterator = entries.values().iterator();
+        while(iterator.hasNext()) {
+            Entry entry = iterator.next();
+            if(entry.zipCode.equals(zipCode) && entry.radiusMiles <= radiusMiles) {
+                iterator.remove();
+            }
+        }
+        Entry entry = new Entry(zipCode, radiusMiles, currentTimeMillis(), new TreeMap<>(zipCodes));
+        entries.put(entry.getKey(), entry);
+        iterator = entries.values().iterator();
+        while(entries.size() > maxEntries && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+        scheduleSave();
+    }
+    public synchronized int size() {
+        load();
+        return entries.size();
+    }
+
+    long currentTimeMillis() {
+        return System.currentTimeMillis();
+    }
+    private boolean isExpired(Entry entry, long now) {
+        return now - entry.fetchedAt > ttlMillis || now < entry.fetchedAt;
+    }
+
+    //Mark:- File
+    private void load() {
+        if(loaded) {
+            return;
+        }
+        loaded = true;
+        if(!file.exists()) {
+            return;
+        }
+        DataInputStream input = null;
+        try {
+            input = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+            if(input.readInt() != FILE_VERSION) {
+                return;
+            }
+            long now = currentTimeMillis();
+            int entryCount = input.readInt();
+            for(int i = 0; i < entryCount; i++) {
+                String zipCode = input.readUTF();
+                double radiusMiles = input.readDouble();
+                long fetchedAt = input.readLong();
+                int zipCount = input.readInt();
+                TreeMap<Double, String> zipCodes = new TreeMap<>();
+                for(int j = 0; j < zipCount; j++) {
+                    double distance = input.readDouble();
+                    zipCodes.put(distance, input.readUTF());
+                }
+                Entry entry = new Entry(zipCode, radiusMiles, fetchedAt, zipCodes);
+                if(!isExpired(entry, now)) {
+                    entries.put(entry.getKey(), entry);
+                }
+            }
+            Log.d(TAG, "loaded:" + entries.size());
+        } catch (IOException exception) {
+            Log.d(TAG, "discarding unreadable cache:" + exception.toString());
+            entries.clear();
+        } finally {
+            close(input);
+        }
+    }
+    /*
+        Puts close together are written once, by whichever save runs after the last of them
+     */
+    private void scheduleSave() {
+        if(saveScheduled) {
+            return;
+        }
+        saveScheduled = true;
+        ioExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                List<Entry> snapshot;
+                synchronized(ZipRadiusCache.this) {
+                    saveScheduled = false;
+                    snapshot = new ArrayList<>(entries.values());
+                }
+                save(snapshot);
+            }
+        });
+    }
+    //Entries are never changed once made, so the snapshot is written without holding the lock
+    private void save(List<Entry> snapshot) {
+        DataOutputStream output = null;
+        try {
+            output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+            output.writeInt(FILE_VERSION);
+            output.writeInt(snapshot.size());
+            //Eldest first so reading them back in order keeps the use order
+            for(Entry entry : snapshot) {
+                output.writeUTF(entry.zipCode);
+                output.writeDouble(entry.radiusMiles);
+                output.writeLong(entry.fetchedAt);
+                output.writeInt(entry.zipCodes.size());
+                for(Map.Entry<Double, String> zipCode : entry.zipCodes.entrySet()) {
+                    output.writeDouble(zipCode.getKey());
+                    output.writeUTF(zipCode.getValue());
+                }
+            }
+        } catch (IOException exception) {
+            Log.d(TAG, "save failed:" + exception.toString());
+        } finally {
+            close(output);
+        }
+    }
+    private static void close(Closeable closeable) {
+        if(closeable == null) {
+            return;
+        }
+        try {
+            closeable.close();
+        } catch (IOException exception) {
+            Log.d(TAG, exception.toString());
+        }
+    }
+
+    private static class Entry {
+        private final String zipCode;
+        private final double radiusMiles;
+        private final long fetchedAt;
+        private final NavigableMap<Double, String> zipCodes;
+
+        Entry(String zipCode, double radiusMiles, long fetchedAt, NavigableMap<Double, String> zipCodes) {
+            this.zipCode = zipCode;
+            this.radiusMiles = radiusMiles;
+            this.fetchedAt = fetchedAt;
+            this.zipCodes = zipCodes;
+        }
+        String getKey() {
+            return zipCode + "/" + radiusMiles;
+        }
+    }
+}
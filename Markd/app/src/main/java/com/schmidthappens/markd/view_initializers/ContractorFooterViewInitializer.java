@@ -10,6 +10,7 @@ import android.text.util.Linkify;
 import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
+import android.view.ViewGroup;
 import android.widget.ImageView;
 import android.widget.TextView;
 import android.widget.Toast;
@@ -60,10 +61,7 @@ public class ContractorFooterViewInitializer {
         });
 
         if(isRecyclerViewHolder) {
-            v.setBackgroundColor(ContextCompat.getColor(ctx, R.color.colorLabel));
-            contractorName.setTextColor(ContextCompat.getColor(ctx, R.color.black));
-            phoneNumber.setTextColor(ContextCompat.getColor(ctx, R.color.black));
-            website.setTextColor(ContextCompat.getColor(ctx, R.color.black));
+            styleForRecyclerView(ctx, v);
         } else {
            Linkify.addLinks(phoneNumber, Linkify.PHONE_NUMBERS);
            Linkify.addLinks(website, Linkify.WEB_URLS);
@@ -74,6 +72,21 @@ public class ContractorFooterViewInitializer {
         return v;
     }
 
+    /*
+        Empty footer for a recycled list row, the holder finds the views once and sets them on each bind
+     */
+    public static View inflateRecyclerFooterView(Context ctx, ViewGroup parent) {
+        View v = LayoutInflater.from(ctx).inflate(R.layout.view_footer, parent, false);
+        styleForRecyclerView(ctx, v);
+        return v;
+    }
+    private static void styleForRecyclerView(Context ctx, View v) {
+        v.setBackgroundColor(ContextCompat.getColor(ctx, R.color.colorLabel));
+        ((TextView)v.findViewById(R.id.footer_contractor_name)).setTextColor(ContextCompat.getColor(ctx, R.color.black));
+        ((TextView)v.findViewById(R.id.footer_phone_number)).setTextColor(ContextCompat.getColor(ctx, R.color.black));
+        ((TextView)v.findViewById(R.id.footer_website)).setTextColor(ContextCompat.getColor(ctx, R.color.black));
+    }
+
     public static View createFooterView(final Context ctx, final String contractorType) {
         LayoutInflater inflater = LayoutInflater.from(ctx);
         View v = inflater.inflate(R.layout.view_default_footer, null);
@@ -23,7 +23,7 @@ import java.util.List;
 
 public class ServiceFileListViewInitializer {
     private static final String TAG = "ServiceFileListViewInit";
-    public static View createFileListView(final Context ctx, final List<FirebaseFile> files, final String uid, final String serviceType, final int serviceId) {
+    public static View createFileListView(final Context ctx, final List<FirebaseFile> files, final String uid, final String serviceType, final String serviceGuid) {
         LayoutInflater viewInflater = LayoutInflater.from(ctx);
         View view = viewInflater.inflate(R.layout.view_file_list, null);
         LinearLayout listOfFiles = (LinearLayout)view.findViewById(R.id.file_list);
@@ -34,7 +34,7 @@ public class ServiceFileListViewInitializer {
             public void onClick(View v) {
                 Log.d(TAG, "Add file");
                 ctx.startActivity(
-                        createServiceFileIntent(ctx, uid, serviceType, serviceId)
+                        createServiceFileIntent(ctx, uid, serviceType, serviceGuid)
                 );
             }
         });
@@ -62,7 +62,7 @@ public class ServiceFileListViewInitializer {
                             public void onClick(View v) {
                                 Log.d(TAG, "View file:" + fileName);
                                 ctx.startActivity(
-                                        createServiceFileIntent(ctx, uid, serviceType, serviceId, fileIdFinal, fileName, fileGuid)
+                                        createServiceFileIntent(ctx, uid, serviceType, serviceGuid, fileIdFinal, fileName, fileGuid)
                                 );
                             }
                         });
@@ -75,19 +75,19 @@ public class ServiceFileListViewInitializer {
         return view;
     }
 
-    private static Intent createServiceFileIntent(Context context, String uid, String serviceType, int serviceId) {
+    private static Intent createServiceFileIntent(Context context, String uid, String serviceType, String serviceGuid) {
         Intent intentToCreateServiceFile = new Intent(context, ServiceFileDetailActivity.class);
         intentToCreateServiceFile.putExtra("customerId", uid);
         intentToCreateServiceFile.putExtra("serviceType", serviceType);
-        intentToCreateServiceFile.putExtra("serviceId", serviceId);
+        intentToCreateServiceFile.putExtra("serviceGuid", serviceGuid);
         intentToCreateServiceFile.putExtra("fileId", -1);
         return  intentToCreateServiceFile;
     }
-    private static Intent createServiceFileIntent(Context context, String uid, String serviceType, int serviceId, int fileId, String fileName, String fileGuid) {
+    private static Intent createServiceFileIntent(Context context, String uid, String serviceType, String serviceGuid, int fileId, String fileName, String fileGuid) {
         Intent intentToCreateServiceFile = new Intent(context, ServiceFileDetailActivity.class);
         intentToCreateServiceFile.putExtra("customerId", uid);
         intentToCreateServiceFile.putExtra("serviceType", serviceType);
-        intentToCreateServiceFile.putExtra("serviceId", serviceId);
+        intentToCreateServiceFile.putExtra("serviceGuid", serviceGuid);
         intentToCreateServiceFile.putExtra("fileId", fileId);
         intentToCreateServiceFile.putExtra("fileName", fileName);
         intentToCreateServiceFile.putExtra("fileGuid", fileGuid);
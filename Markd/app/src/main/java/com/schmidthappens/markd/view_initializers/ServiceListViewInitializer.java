@@ -66,7 +66,7 @@ public class ServiceListViewInitializer {
                     v.setOnClickListener(new View.OnClickListener() {
                         @Override
                         public void onClick(View v) {
-                            ctx.startActivity(getServiceDetailActivityIntent(ctx, service, services.indexOf(service), isContractorViewing, uid));
+                            ctx.startActivity(getServiceDetailActivityIntent(ctx, service, isContractorViewing, uid));
                         }
                     });
                 }
@@ -77,11 +77,11 @@ public class ServiceListViewInitializer {
         return view;
     }
 
-    private static Intent getServiceDetailActivityIntent(Context ctx,  ContractorService service, int serviceId, boolean isContractor, String customerId) {
+    private static Intent getServiceDetailActivityIntent(Context ctx,  ContractorService service, boolean isContractor, String customerId) {
         Intent intentToReturn = new Intent(ctx, ServiceDetailActivity.class);
         if(service != null) {
             intentToReturn.putExtra("originalActivity", ctx.getClass());
-            intentToReturn.putExtra("serviceId", serviceId);
+            intentToReturn.putExtra("serviceGuid", service.getGuid());
             intentToReturn.putExtra("contractor", service.getContractor());
             intentToReturn.putExtra("description", service.getComments());
         }
@@ -0,0 +1,163 @@
+package com.schmidthappens.markd.data_objects;
+
+import com.google.firebase.database.DatabaseError;
+import com.google.firebase.database.DatabaseReference;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * CommitQueue batching against a writer that records each updateChildren. The flush timer never fires
+ * in local tests so a window lasts until flush is called.
+ */
+
+public class CommitQueueTest {
+    private List<Map<String, Object>> written;
+    private List<DatabaseReference.CompletionListener> completionListeners;
+    private CommitQueue queue;
+
+    @Before
+    public void setUp() {
+        written = new ArrayList<>();
+        completionListeners = new ArrayList<>();
+        queue = new CommitQueue(new CommitQueue.Writer() {
+            @Override
+            public void updateChildren(Map<String, Object> updates, DatabaseReference.CompletionListener completionListener) {
+                written.add(updates);
+                completionListeners.add(completionListener);
+            }
+        });
+    }
+
+    @Test
+    public void writes_within_the_window_are_one_update() {
+        queue.enqueue("users/a/hotWater/manufacturer", "Rheem");
+        queue.enqueue("users/a/boiler/model", "B2");
+        queue.enqueue("users/b/homeInformation/street", "1 Main St");
+        assertTrue(written.isEmpty());
+
+        queue.flush();
+        assertEquals(1, written.size());
+        assertEquals(new HashSet<>(Arrays.asList("users/a/hotWater/manufacturer", "users/a/boiler/model", "users/b/homeInformation/street")), written.get(0).keySet());
+    }
+
+    @Test
+    public void flush_with_nothing_pending_writes_nothing() {
+        queue.flush();
+        assertTrue(written.isEmpty());
+    }
+
+    @Test
+    public void zero_window_writes_immediately() {
+        queue.setWindowMillis(0);
+        queue.enqueue("users/a/hotWater/manufacturer", "Rheem");
+        queue.enqueue("users/a/boiler/model", "B2");
+        assertEquals(2, written.size());
+        assertFalse(queue.hasPending("users/a"));
+    }
+
+    @Test
+    public void later_write_to_same_path_wins() {
+        queue.enqueue("users/a/hotWater/manufacturer", "Rheem");
+        queue.enqueue("users/a/hotWater/manufacturer", "Bradford White");
+        queue.flush();
+        assertEquals("Bradford White", written.get(0).get("users/a/hotWater/manufacturer"));
+        assertEquals(1, written.get(0).size());
+    }
+
+    @Test
+    public void child_write_folds_into_pending_parent() {
+        Map<String, Object> hotWater = new LinkedHashMap<>();
+        hotWater.put("manufacturer", "Rheem");
+        hotWater.put("model", "X1");
+        queue.enqueue("users/a/hotWater", hotWater);
+        queue.enqueue("users/a/hotWater/model", "X2");
+        queue.flush();
+
+        assertEquals(1, written.get(0).size());
+        Object merged = written.get(0).get("users/a/hotWater");
+        assertEquals("Rheem", FirebaseValues.getChild(merged, "manufacturer"));
+        assertEquals("X2", FirebaseValues.getChild(merged, "model"));
+    }
+
+    @Test
+    public void parent_write_replaces_pending_children() {
+        queue.enqueue("users/a/hotWater/model", "X2");
+        queue.enqueue("users/a/hotWater/manufacturer", "Rheem");
+        Map<String, Object> hotWater = new LinkedHashMap<>();
+        hotWater.put("model", "X3");
+        queue.enqueue("users/a/hotWater", hotWater);
+        queue.flush();
+
+        assertEquals(new HashSet<>(Arrays.asList("users/a/hotWater")), written.get(0).keySet());
+        Object replaced = written.get(0).get("users/a/hotWater");
+        assertEquals("X3", FirebaseValues.getChild(replaced, "model"));
+        assertNull(FirebaseValues.getChild(replaced, "manufacturer"));
+    }
+
+    @Test
+    public void siblings_sharing_a_prefix_do_not_overlap() {
+        queue.enqueue("users/a/panels", "p");
+        queue.enqueue("users/a/panelsCount", 2);
+        queue.flush();
+        assertEquals(2, written.get(0).size());
+    }
+
+    @Test
+    public void has_pending_at_above_and_below() {
+        queue.enqueue("users/a/hotWater/model", "X2");
+        assertTrue(queue.hasPending("users/a/hotWater/model"));
+        assertTrue(queue.hasPending("users/a/hotWater"));
+        assertTrue(queue.hasPending("users/a/hotWater/model/extra"));
+        assertFalse(queue.hasPending("users/a/boiler"));
+        assertFalse(queue.hasPending("users/a/hotWaterTank"));
+
+        queue.flush();
+        assertFalse(queue.hasPending("users/a/hotWater"));
+    }
+
+    @Test
+    public void pending_value_overlays_acknowledged_value() {
+        Map<String, Object> acknowledged = new LinkedHashMap<>();
+        acknowledged.put("manufacturer", "Rheem");
+        acknowledged.put("model", "X1");
+        queue.enqueue("users/a/hotWater/model", "X2");
+
+        Object pendingValue = queue.getPendingValue("users/a/hotWater", acknowledged);
+        assertEquals("Rheem", FirebaseValues.getChild(pendingValue, "manufacturer"));
+        assertEquals("X2", FirebaseValues.getChild(pendingValue, "model"));
+        assertEquals("X2", queue.getPendingValue("users/a/hotWater/model", "X1"));
+        assertEquals("X1", FirebaseValues.getChild(acknowledged, "model"));
+    }
+
+    @Test
+    public void failed_flush_reports_every_path() {
+        final List<Set<String>> failedPaths = new ArrayList<>();
+        queue.addOnFlushFailedListener(new CommitQueue.OnFlushFailedListener() {
+            @Override
+            public void onFlushFailed(Set<String> paths, DatabaseError databaseError) {
+                failedPaths.add(paths);
+            }
+        });
+        queue.enqueue("users/a/hotWater/model", "X2");
+        queue.enqueue("contractor_customers/c/a", "smith");
+        queue.flush();
+
+        completionListeners.get(0).onComplete(null, null);
+        assertTrue(failedPaths.isEmpty());
+        completionListeners.get(0).onComplete(DatabaseError.fromCode(DatabaseError.PERMISSION_DENIED), null);
+        assertEquals(1, failedPaths.size());
+        assertTrue(CommitQueue.overlaps(failedPaths.get(0), "users/a"));
+        assertFalse(CommitQueue.overlaps(failedPaths.get(0), "users/b"));
+    }
+}
@@ -0,0 +1,217 @@
+package com.schmidthappens.markd.data_objects;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class FirebaseDiffTest {
+    @Test
+    public void unchanged_customer_has_no_updates() {
+        Customer customer = makeCustomer();
+        Object acknowledged = FirebaseValues.toPlainValue(customer);
+
+        Map<String, Object> updates = FirebaseDiff.diff(acknowledged, customer);
+        assertTrue(updates.toString(), updates.isEmpty());
+    }
+
+    @Test
+    public void changed_field_is_single_leaf_write() {
+        Customer customer = makeCustomer();
+        Object acknowledged = FirebaseValues.toPlainValue(customer);
+
+        customer.getHotWater().setModel("Model Y");
+        Map<String, Object> updates = FirebaseDiff.diff(acknowledged, customer);
+        assertEquals(1, updates.size());
+        assertEquals("Model Y", updates.get("hotWater/model"));
+    }
+
+    @Test
+    public void removed_property_is_written_as_null() {
+        Customer customer = makeCustomer();
+        Object acknowledged = FirebaseValues.toPlainValue(customer);
+
+        customer.setHotWater(null);
+        Map<String, Object> updates = FirebaseDiff.diff(acknowledged, customer);
+        assertEquals(1, updates.size());
+        assertTrue(updates.containsKey("hotWater"));
+        assertNull(updates.get("hotWater"));
+    }
+
+    @Test
+    public void whole_numbers_match_snapshot_longs() {
+        //Firebase hands back 3.0 as 3L and 1500 as 1500L
+        Map<String, Object> acknowledged = new LinkedHashMap<>();
+        acknowledged.put("bedrooms", 3L);
+        acknowledged.put("bathrooms", 2.5);
+        acknowledged.put("squareFootage", 1500L);
+
+        Map<String, Object> updates = FirebaseDiff.diff(acknowledged, new Home(3.0, 2.5, 1500));
+        assertTrue(updates.toString(), updates.isEmpty());
+
+        updates = FirebaseDiff.diff(acknowledged, new Home(3.0, 2.0, 1500));
+        assertEquals(1, updates.size());
+        assertEquals(2.0, updates.get("bathrooms"));
+    }
+
+    @Test
+    public void double_pole_edit_writes_only_touched_breakers() {
+        Panel panel = new Panel(Panel.TwoHundred, makeBreakers(40));
+        Object acknowledged = FirebaseValues.toPlainValue(panel);
+
+        //Breaker 40 becomes the top of a double pole so breakers 41 and 42 are added
+        panel.editBreaker(40, new Breaker(40, "Dryer", Breaker.THIRTY_AMP, Breaker.DoublePole));
+        Map<String, Object> updates = FirebaseDiff.diff(acknowledged, panel);
+
+        assertEquals(new HashSet<>(Arrays.asList("breakerList/39", "breakerList/40", "breakerList/41", "numberOfBreakers")), updates.keySet());
+        assertEquals(42, updates.get("numberOfBreakers"));
+        Map<?, ?> bottom = (Map<?, ?>)updates.get("breakerList/41");
+        assertEquals(Breaker.DoublePoleBottom, bottom.get("breakerType"));
+        assertEquals("Dryer", bottom.get("breakerDescription"));
+    }
+
+    @Test
+    public void single_breaker_description_is_one_leaf_write() {
+        Customer customer = makeCustomer();
+        Object acknowledged = FirebaseValues.toPlainValue(customer);
+
+        Panel panel = KeyedItems.sorted(customer.getPanels()).get(0);
+        panel.getBreakerList().get(9).setBreakerDescription("Garage");
+        Map<String, Object> updates = FirebaseDiff.diff(acknowledged, customer);
+        assertEquals(1, updates.size());
+        assertEquals("Garage", updates.get("panels/" + panel.getGuid() + "/breakerList/9/breakerDescription"));
+    }
+
+    @Test
+    public void added_and_removed_services_are_one_key_writes() {
+        Customer customer = makeCustomer();
+        customer.addService(new ContractorService(10, 18, 2016, "First", "Older", null), "Plumber");
+        Object acknowledged = FirebaseValues.toPlainValue(customer);
+
+        ContractorService newest = new ContractorService(10, 19, 2016, "Second", "Newer", null);
+        customer.addService(newest, "Plumber");
+        Map<String, Object> updates = FirebaseDiff.diff(acknowledged, customer);
+        assertEquals(Collections.singleton("plumbingServices/" + newest.getGuid()), updates.keySet());
+        assertEquals(newest, KeyedItems.sorted(customer.getPlumbingServices()).get(0));
+
+        acknowledged = FirebaseValues.toPlainValue(customer);
+        String oldestGuid = KeyedItems.sorted(customer.getPlumbingServices()).get(1).getGuid();
+        customer.deleteService(oldestGuid, "Plumber");
+        updates = FirebaseDiff.diff(acknowledged, customer);
+        assertEquals(Collections.singleton("plumbingServices/" + oldestGuid), updates.keySet());
+        assertNull(updates.get("plumbingServices/" + oldestGuid));
+    }
+
+    @Test
+    public void array_shaped_panels_are_keyed_by_guid_in_order() {
+        List<Object> legacyPanels = new ArrayList<>();
+        for(int i = 0; i < 3; i++) {
+            Map<String, Object> legacyPanel = FirebaseMappers.get(Panel.class).toMap(new Panel(Panel.TwoHundred, makeBreakers(2)));
+            legacyPanel.remove("guid");
+            legacyPanel.put("panelDescription", "Panel " + i);
+            legacyPanels.add(legacyPanel);
+        }
+        Map<String, Object> plainCustomer = new LinkedHashMap<>();
+        plainCustomer.put("panels", legacyPanels);
+
+        Customer customer = FirebaseMappers.fromPlainValue(plainCustomer, Customer.class);
+        List<Panel> panels = KeyedItems.sorted(customer.getPanels());
+        assertEquals(3, panels.size());
+        for(int i = 0; i < panels.size(); i++) {
+            assertEquals("Panel " + i, panels.get(i).getPanelDescription());
+            assertEquals(panels.get(i), customer.getPanels().get(panels.get(i).getGuid()));
+        }
+        //Decoding the same array again gives the same keys
+        Customer decodedAgain = FirebaseMappers.fromPlainValue(plainCustomer, Customer.class);
+        assertEquals(customer.getPanels().keySet(), decodedAgain.getPanels().keySet());
+        assertTrue(KeyedItems.isLegacyPlainValue(legacyPanels));
+        assertFalse(KeyedItems.isLegacyPlainValue(FirebaseValues.toPlainValue(customer.getPanels())));
+    }
+
+    @Test
+    public void appended_and_removed_list_items() {
+        List<Object> acknowledged = new ArrayList<>();
+        acknowledged.add("first");
+        acknowledged.add("second");
+        acknowledged.add("third");
+
+        Map<String, Object> updates = new LinkedHashMap<>();
+        FirebaseDiff.diff("list", acknowledged, Arrays.asList("first", "second"), updates);
+        assertEquals(1, updates.size());
+        assertTrue(updates.containsKey("list/2"));
+        assertNull(updates.get("list/2"));
+
+        updates.clear();
+        FirebaseDiff.diff("list", acknowledged, Arrays.asList("first", "second", "third", "fourth"), updates);
+        assertEquals(1, updates.size());
+        assertEquals("fourth", updates.get("list/3"));
+    }
+
+    @Test
+    public void new_section_is_written_whole() {
+        Map<String, Object> updates = new LinkedHashMap<>();
+        FirebaseDiff.diff("home", null, new Home(3.0, 2.5, 1500), updates);
+        assertEquals(1, updates.size());
+        assertEquals(FirebaseValues.toPlainValue(new Home(3.0, 2.5, 1500)), updates.get("home"));
+    }
+
+    @Test
+    public void many_small_changes_replace_whole_node() {
+        Breaker breaker = new Breaker(1, "Kitchen");
+        Object acknowledged = FirebaseValues.toPlainValue(breaker);
+
+        Breaker edited = new Breaker(1, "Bedroom", Breaker.FIFTEEN_AMP, Breaker.DoublePole);
+        Map<String, Object> updates = new LinkedHashMap<>();
+        FirebaseDiff.diff("panels/0/breakerList/0", acknowledged, edited, updates);
+        assertEquals(1, updates.size());
+        assertEquals(FirebaseValues.toPlainValue(edited), updates.get("panels/0/breakerList/0"));
+    }
+
+    @Test
+    public void double_pole_edit_on_large_panels_is_a_small_update() {
+        Customer customer = makeCustomer();
+        List<Panel> panels = new ArrayList<>();
+        for(int i = 0; i < 20; i++) {
+            panels.add(new Panel(i == 0, Panel.TwoHundred, makeBreakers(200)));
+        }
+        customer.setPanels(KeyedItems.fromList(panels));
+        Object acknowledged = FirebaseValues.toPlainValue(customer);
+        long fullRecordBytes = FirebaseValues.estimateJsonBytes(acknowledged);
+
+        Panel panel = KeyedItems.sorted(customer.getPanels()).get(10);
+        panel.editBreaker(100, new Breaker(100, "Dryer", Breaker.THIRTY_AMP, Breaker.DoublePole));
+        Map<String, Object> updates = FirebaseDiff.diff(acknowledged, customer);
+
+        String panelPath = "panels/" + panel.getGuid() + "/breakerList/";
+        assertEquals(new HashSet<>(Arrays.asList(panelPath + "99", panelPath + "101")), updates.keySet());
+        long updateBytes = FirebaseValues.estimateJsonBytes(FirebaseValues.toPlainValue(updates));
+        assertTrue(updateBytes + " bytes of " + fullRecordBytes, updateBytes * 100 < fullRecordBytes);
+    }
+
+    //Mark:- Helpers
+    static Customer makeCustomer() {
+        Customer customer = new Customer();
+        customer.setFirstName("Jerry");
+        customer.setLastName("Seinfeld");
+        customer.setHome(new Home(3.0, 2.5, 1500));
+        customer.setHotWater(new HotWater("Rheem", "Model X", "10.18.16", 12, "Years"));
+        List<Panel> panels = new ArrayList<>();
+        panels.add(new Panel(Panel.TwoHundred, makeBreakers(20)));
+        customer.setPanels(KeyedItems.fromList(panels));
+        return customer;
+    }
+    static List<Breaker> makeBreakers(int count) {
+        List<Breaker> breakers = new ArrayList<>();
+        for(int i = 1; i <= count; i++) {
+            breakers.add(new Breaker(i, "Breaker " + i));
+        }
+        return breakers;
+    }
+}
@@ -0,0 +1,193 @@
+package com.schmidthappens.markd.data_objects;
+
+import com.google.firebase.database.Exclude;
+import com.schmidthappens.markd.file_storage.FirebaseFile;
+
+import org.junit.Test;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.Assert.*;
+
+/**
+ * Generated mappers against the values a reflective bean mapper sees through the public getters,
+ * in both directions, with Firebase's naming rules.
+ */
+
+public class FirebaseMapperTest {
+    @Test
+    public void generated_encoding_matches_getters() {
+        Customer customer = makeCustomer();
+        assertEquals(toPlainValue(customer), FirebaseMappers.get(Customer.class).toMap(customer));
+    }
+
+    @Test
+    public void customer_round_trips_through_generated_decoding() {
+        Object plainCustomer = toPlainValue(makeCustomer());
+        Customer decoded = FirebaseMappers.fromPlainValue(plainCustomer, Customer.class);
+        assertEquals(plainCustomer, toPlainValue(decoded));
+        assertEquals("architect", decoded.getArchitectReference());
+        assertEquals("plumber", decoded.getPlumberReference());
+        assertEquals("painter", decoded.getPainterReference());
+    }
+
+    @Test
+    public void contractor_round_trips_through_generated_decoding() {
+        Contractor contractor = new Contractor("logo.png")
+                .setNamePrefix("Mr.")
+                .setFirstName("Art")
+                .setLastName("Vandelay")
+                .setType("Plumber")
+                .setContractorDetails(new ContractorDetails("Vandelay Industries", "2125551234", "http://vandelay.com", "10001"))
+                .setCustomers(KeyedSets.fromPlainValue(Arrays.asList("customerOne", "customerTwo")));
+        Object plainContractor = toPlainValue(contractor);
+        Contractor decoded = FirebaseMappers.fromPlainValue(plainContractor, Contractor.class);
+
+        assertEquals(plainContractor, toPlainValue(decoded));
+        assertEquals("logo.png", decoded.getLogoFileName());
+        assertEquals("Vandelay Industries", decoded.getContractorDetails().getCompanyName());
+        assertEquals(2, decoded.getCustomers().size());
+    }
+
+    @Test
+    public void customer_set_with_index_entries_decodes_every_member() {
+        //Migrated, then an older build added uidC at the next index and uidB was removed
+        Map<String, Object> plainCustomers = new LinkedHashMap<>();
+        plainCustomers.put("uidA", true);
+        plainCustomers.put("2", "uidC");
+        plainCustomers.put("3", "uidB");
+        plainCustomers.put("uidB", false);
+        Map<String, Object> plainContractor = new LinkedHashMap<>();
+        plainContractor.put("type", "Plumber");
+        plainContractor.put("customers", plainCustomers);
+        Contractor decoded = FirebaseMappers.fromPlainValue(plainContractor, Contractor.class);
+
+        assertTrue(KeyedSets.isLegacyPlainValue(plainCustomers));
+        assertEquals(new HashSet<>(Arrays.asList("uidA", "uidC")), KeyedSets.members(decoded.getCustomers()));
+        Map<String, Boolean> migrated = KeyedSets.fromPlainValue(plainCustomers);
+        assertEquals(new HashSet<>(Arrays.asList("uidA", "uidC")), migrated.keySet());
+        assertFalse(KeyedSets.isLegacyPlainValue(migrated));
+    }
+
+    @Test
+    public void sparse_customer_array_is_legacy() {
+        List<Object> plainCustomers = Arrays.<Object>asList("uidA", null, "uidC");
+        assertTrue(KeyedSets.isLegacyPlainValue(plainCustomers));
+        assertEquals(new HashSet<>(Arrays.asList("uidA", "uidC")), KeyedSets.fromPlainValue(plainCustomers).keySet());
+        Map<String, Object> keyed = new LinkedHashMap<>();
+        keyed.put("uidA", true);
+        keyed.put("uidB", false);
+        assertFalse(KeyedSets.isLegacyPlainValue(keyed));
+    }
+
+    @Test
+    public void breaker_list_is_set_before_number_of_breakers() {
+        Map<String, Object> plainPanel = new LinkedHashMap<>();
+        plainPanel.put("numberOfBreakers", 5);
+        plainPanel.put("breakerList", FirebaseMappers.writeList(FirebaseDiffTest.makeBreakers(3), FirebaseMappers.get(Breaker.class)));
+        Panel panel = FirebaseMappers.fromPlainValue(plainPanel, Panel.class);
+
+        assertEquals(5, panel.getNumberOfBreakers());
+        assertEquals(5, panel.getBreakerList().size());
+        assertEquals(FirebaseDiffTest.makeBreakers(3).get(2).getBreakerDescription(), panel.getBreakerList().get(2).getBreakerDescription());
+    }
+
+    @Test
+    public void saved_breakers_are_kept_whatever_the_key_order() {
+        List<Breaker> breakers = FirebaseDiffTest.makeBreakers(40);
+        Map<String, Object> plainPanel = new TreeMap<>();
+        plainPanel.put("breakerList", FirebaseMappers.writeList(breakers, FirebaseMappers.get(Breaker.class)));
+        plainPanel.put("numberOfBreakers", 40);
+        Panel panel = FirebaseMappers.fromPlainValue(plainPanel, Panel.class);
+
+        assertEquals(40, panel.getBreakerList().size());
+        assertEquals(breakers.get(39).getBreakerDescription(), panel.getBreakerList().get(39).getBreakerDescription());
+    }
+
+    //Mark:- Helpers
+    private static Customer makeCustomer() {
+        Customer customer = FirebaseDiffTest.makeCustomer();
+        List<Panel> panels = new ArrayList<>();
+        panels.add(new Panel(true, Panel.TwoHundred, FirebaseDiffTest.makeBreakers(40)));
+        customer.setPanels(KeyedItems.fromList(panels));
+        customer.setCompressor(new Compressor("Carrier", "Model C", "10.18.16", 15, "Years"));
+        customer.setArchitect("architect");
+        customer.setPlumber("plumber");
+        customer.setPainter("painter");
+        customer.setHomeImageFileName();
+
+        List<ContractorService> services = new ArrayList<>();
+        for(int i = 0; i < 10; i++) {
+            List<FirebaseFile> files = new ArrayList<>();
+            files.add(new FirebaseFile("invoice" + i + ".pdf"));
+            services.add(new ContractorService(10, 18, 2016, "Contractor " + i, "Service " + i, files));
+        }
+        customer.setElectricalServices(KeyedItems.fromList(services));
+        return customer;
+    }
+
+    /*
+        Plain value read through public getters and fields the way Firebase's bean mapper does, nulls dropped
+     */
+    private static Object toPlainValue(Object value) {
+        if(value == null || value instanceof String || value instanceof Number || value instanceof Boolean) {
+            return value;
+        } else if(value instanceof Enum) {
+            return ((Enum<?>)value).name();
+        } else if(value instanceof List) {
+            List<Object> list = new ArrayList<>();
+            for(Object item : (List<?>)value) {
+                list.add(toPlainValue(item));
+            }
+            return list;
+        } else if(value instanceof Map) {
+            Map<String, Object> map = new LinkedHashMap<>();
+            for(Map.Entry<?, ?> entry : ((Map<?, ?>)value).entrySet()) {
+                if(entry.getValue() != null) {
+                    map.put((String)entry.getKey(), toPlainValue(entry.getValue()));
+                }
+            }
+            return map;
+        }
+        Map<String, Object> bean = new LinkedHashMap<>();
+        try {
+            for(Method method : value.getClass().getMethods()) {
+                String name = method.getName();
+                boolean isGetter = (name.startsWith("get") && name.length() > 3) || (name.startsWith("is") && name.length() > 2);
+                if(!isGetter || method.getParameterTypes().length != 0 || method.getReturnType() == void.class
+                        || Modifier.isStatic(method.getModifiers()) || method.getDeclaringClass() == Object.class
+                        || method.isAnnotationPresent(Exclude.class)) {
+                    continue;
+                }
+                Object propertyValue = toPlainValue(method.invoke(value));
+                if(propertyValue != null) {
+                    bean.put(propertyName(name), propertyValue);
+                }
+            }
+            for(Field field : value.getClass().getFields()) {
+                if(!Modifier.isStatic(field.getModifiers()) && !field.isAnnotationPresent(Exclude.class) && field.get(value) != null) {
+                    bean.put(field.getName(), toPlainValue(field.get(value)));
+                }
+            }
+        } catch(ReflectiveOperationException exception) {
+            throw new AssertionError(exception);
+        }
+        return bean;
+    }
+    private static String propertyName(String methodName) {
+        char[] chars = methodName.substring(methodName.startsWith("is") ? 2 : 3).toCharArray();
+        for(int i = 0; i < chars.length && Character.isUpperCase(chars[i]); i++) {
+            chars[i] = Character.toLowerCase(chars[i]);
+        }
+        return new String(chars);
+    }
+}
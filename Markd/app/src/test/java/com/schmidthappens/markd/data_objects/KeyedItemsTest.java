@@ -0,0 +1,91 @@
+package com.schmidthappens.markd.data_objects;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class KeyedItemsTest {
+    @Test
+    public void array_keys_are_rekeyed_by_guid_in_index_order() {
+        Map<String, Panel> items = new LinkedHashMap<>();
+        items.put("10", makePanel("g10", "ten"));
+        items.put("2", makePanel("g2", "two"));
+        items.put("0", makePanel("g0", "zero"));
+        Map<String, Panel> normalized = KeyedItems.normalize(items);
+
+        assertEquals(new HashSet<>(Arrays.asList("g0", "g2", "g10")), normalized.keySet());
+        assertEquals(Arrays.asList("zero", "two", "ten"), descriptions(KeyedItems.sorted(normalized)));
+    }
+
+    @Test
+    public void keyed_map_is_unchanged() {
+        Map<String, Panel> items = new LinkedHashMap<>();
+        items.put("g0", makePanel("g0", "zero"));
+        assertSame(items, KeyedItems.normalize(items));
+    }
+
+    @Test
+    public void guid_key_replaces_the_index_key_of_the_same_item() {
+        Map<String, Panel> items = new LinkedHashMap<>();
+        items.put("0", makePanel("g0", "zero"));
+        items.put("1", makePanel("g1", "one"));
+        Panel edited = makePanel("g0", "zero edited");
+        edited.setSortKey(0);
+        items.put("g0", edited);
+        Map<String, Panel> normalized = KeyedItems.normalize(items);
+
+        assertEquals(new HashSet<>(Arrays.asList("g0", "g1")), normalized.keySet());
+        assertEquals(Arrays.asList("zero edited", "one"), descriptions(KeyedItems.sorted(normalized)));
+    }
+
+    @Test
+    public void guid_key_added_next_to_array_keys_is_kept() {
+        Map<String, Panel> items = new LinkedHashMap<>();
+        items.put("0", makePanel("g0", "zero"));
+        items.put("1", makePanel("g1", "one"));
+        Panel added = makePanel("g2", "added");
+        added.setSortKey(2);
+        items.put("g2", added);
+        Map<String, Panel> normalized = KeyedItems.normalize(items);
+
+        assertEquals(Arrays.asList("zero", "one", "added"), descriptions(KeyedItems.sorted(normalized)));
+    }
+
+    @Test
+    public void index_keys_come_before_other_keys_whatever_the_map_order() {
+        List<String> keys = Arrays.asList("b", "10", "a", "2", "0");
+        for(int start = 0; start < keys.size(); start++) {
+            Map<String, Panel> items = new LinkedHashMap<>();
+            for(int i = 0; i < keys.size(); i++) {
+                String key = keys.get((start + i) % keys.size());
+                items.put(key, makePanel(null, key));
+            }
+            assertEquals(Arrays.asList("0", "2", "10", "a", "b"), descriptions(KeyedItems.sorted(KeyedItems.normalize(items))));
+        }
+    }
+
+    //Mark:- Helpers
+    private static Panel makePanel(String guid, String description) {
+        //Panel() leaves the guid null like an item stored without one
+        Panel panel = new Panel();
+        if(guid != null) {
+            panel.setGuid(guid);
+        }
+        panel.setPanelDescription(description);
+        return panel;
+    }
+    private static List<String> descriptions(List<Panel> panels) {
+        List<String> descriptions = new ArrayList<>();
+        for(Panel panel : panels) {
+            descriptions.add(panel.getPanelDescription());
+        }
+        return descriptions;
+    }
+}
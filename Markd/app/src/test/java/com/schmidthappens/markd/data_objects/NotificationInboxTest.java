@@ -0,0 +1,87 @@
+package com.schmidthappens.markd.data_objects;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class NotificationInboxTest {
+    @Test
+    public void array_inbox_is_legacy() {
+        assertTrue(NotificationInbox.isLegacyPlainValue(Arrays.asList(makeLegacy("01.02.18", "newest"))));
+        assertFalse(NotificationInbox.isLegacyPlainValue(null));
+    }
+
+    @Test
+    public void keyed_inbox_with_sent_at_is_not_legacy() {
+        Map<String, Object> inbox = new LinkedHashMap<>();
+        inbox.put("-KeyA", makeKeyed("hello", 1000L));
+        assertFalse(NotificationInbox.isLegacyPlainValue(inbox));
+    }
+
+    @Test
+    public void migration_keeps_newest_first_order_within_a_day() {
+        List<Object> array = new ArrayList<>();
+        array.add(makeLegacy("01.02.18", "newest"));
+        array.add(makeLegacy("01.02.18", "middle"));
+        array.add(makeLegacy("01.01.18", "oldest"));
+
+        Map<String, Object> inbox = NotificationInbox.fromLegacyPlainValue(array);
+        assertEquals(3, inbox.size());
+        long newest = getSentAt(inbox, "newest");
+        long middle = getSentAt(inbox, "middle");
+        long oldest = getSentAt(inbox, "oldest");
+        assertTrue(newest > middle);
+        assertTrue(middle > oldest);
+        assertFalse(NotificationInbox.isLegacyPlainValue(inbox));
+        for(String key : inbox.keySet()) {
+            assertTrue(key, key.startsWith("legacy_"));
+        }
+    }
+
+    @Test
+    public void migration_keeps_messages_sent_after_the_array() {
+        Map<String, Object> mixed = new LinkedHashMap<>();
+        mixed.put("0", makeLegacy("01.02.18", "old"));
+        mixed.put("-KeyA", makeKeyed("new", 1516000000000L));
+
+        Map<String, Object> inbox = NotificationInbox.fromLegacyPlainValue(mixed);
+        assertEquals(2, inbox.size());
+        assertEquals(mixed.get("-KeyA"), inbox.get("-KeyA"));
+        assertTrue(getSentAt(inbox, "new") > getSentAt(inbox, "old"));
+        //A retried transaction gives the same keys
+        assertEquals(inbox.keySet(), NotificationInbox.fromLegacyPlainValue(mixed).keySet());
+    }
+
+    @Test
+    public void unparseable_date_sorts_first() {
+        assertTrue(NotificationInbox.getLegacySentAt("not a date", 0) < NotificationInbox.getLegacySentAt("01.01.18", 5));
+    }
+
+    private static Map<String, Object> makeLegacy(String dateSent, String message) {
+        Map<String, Object> notification = new LinkedHashMap<>();
+        notification.put("dateSent", dateSent);
+        notification.put("companyFrom", "Mario Bros.");
+        notification.put("message", message);
+        return notification;
+    }
+    private static Map<String, Object> makeKeyed(String message, long sentAt) {
+        Map<String, Object> notification = makeLegacy("01.15.18", message);
+        notification.put(NotificationInbox.SENT_AT, sentAt);
+        return notification;
+    }
+    private static long getSentAt(Map<String, Object> inbox, String message) {
+        for(Object value : inbox.values()) {
+            Map<?, ?> notification = (Map<?, ?>)value;
+            if(message.equals(notification.get("message"))) {
+                return (Long)notification.get(NotificationInbox.SENT_AT);
+            }
+        }
+        throw new AssertionError("no message " + message);
+    }
+}
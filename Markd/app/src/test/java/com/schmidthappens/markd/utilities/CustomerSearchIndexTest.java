@@ -0,0 +1,95 @@
+package com.schmidthappens.markd.utilities;
+
+import com.schmidthappens.markd.data_objects.CustomerSummary;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * Word prefix search over customer summaries.
+ */
+public class CustomerSearchIndexTest {
+    private static final String[] LAST_NAMES = {"Schmidt", "O'Brien", "Simpson", "Seinfeld", "Smith", "Johnson", "Garcia", "Nguyen"};
+    private static final String[] FIRST_NAMES = {"Joshua", "Brittany", "Homer", "Jerry", "Anna", "Luis", "Mai", "Sam"};
+    private static final String[] STREETS = {"Travelers Blvd", "Main St", "Elm St", "Post Rd", "Hollow Tree Ridge Rd"};
+    private static final String[] CITIES = {"Darien", "Norwalk", "Stamford", "New Canaan", "Westport"};
+
+    @Test
+    public void matches_word_prefixes_of_name_and_address() {
+        CustomerSearchIndex index = new CustomerSearchIndex();
+        index.put("josh", summary("Mr. and Mrs. Joshua Schmidt", "schmidt", "1234 Travelers Blvd Darien, CT 06820"));
+        index.put("conan", summary("Conan O'Brien", "o'brien", "5 Main St Norwalk, CT 06850"));
+
+        assertEquals(set("josh"), index.search("schm"));
+        assertEquals(set("josh"), index.search("trav"));
+        assertEquals(set("conan"), index.search("obr"));
+        assertEquals(set("conan"), index.search("NORWALK"));
+        assertEquals(set("josh"), index.search("josh dar"));
+        assertEquals(set(), index.search("josh norwalk"));
+        assertEquals(set("josh", "conan"), index.search("ct"));
+        assertEquals(set("josh", "conan"), index.search("  "));
+        //Words match from their start only
+        assertEquals(set(), index.search("midt"));
+    }
+
+    @Test
+    public void put_replaces_and_remove_forgets() {
+        CustomerSearchIndex index = new CustomerSearchIndex();
+        index.put("josh", summary("Joshua Schmidt", "schmidt", "1234 Travelers Blvd Darien, CT 06820"));
+        index.put("josh", summary("Joshua Schmidt", "schmidt", "9 Elm St Westport, CT 06880"));
+        assertEquals(set(), index.search("darien"));
+        assertEquals(set("josh"), index.search("westport"));
+
+        index.remove("josh");
+        assertEquals(0, index.size());
+        assertEquals(set(), index.search("josh"));
+    }
+
+    @Test
+    public void search_agrees_with_matches() {
+        Map<String, CustomerSummary> customers = makeCustomers(500, new Random(7));
+        CustomerSearchIndex index = new CustomerSearchIndex();
+        for(Map.Entry<String, CustomerSummary> customer : customers.entrySet()) {
+            index.put(customer.getKey(), customer.getValue());
+        }
+        for(String query : Arrays.asList("s", "sch", "jo main", "new can", "o'b", "12", "garcia stam", "x")) {
+            Set<String> expected = new HashSet<>();
+            for(Map.Entry<String, CustomerSummary> customer : customers.entrySet()) {
+                if(CustomerSearchIndex.matches(customer.getValue(), query)) {
+                    expected.add(customer.getKey());
+                }
+            }
+            assertEquals(query, expected, index.search(query));
+        }
+    }
+
+    private static Map<String, CustomerSummary> makeCustomers(int count, Random random) {
+        Map<String, CustomerSummary> customers = new HashMap<>();
+        for(int i = 0; i < count; i++) {
+            String lastName = LAST_NAMES[random.nextInt(LAST_NAMES.length)];
+            String name = FIRST_NAMES[random.nextInt(FIRST_NAMES.length)] + " " + lastName;
+            String address = (1 + random.nextInt(2000)) + " " + STREETS[random.nextInt(STREETS.length)] + " "
+                    + CITIES[random.nextInt(CITIES.length)] + ", CT 06" + (800 + random.nextInt(100));
+            customers.put("customer" + i, summary(name, lastName.toLowerCase(), address));
+        }
+        return customers;
+    }
+    private static CustomerSummary summary(String name, String sortKey, String address) {
+        CustomerSummary summary = new CustomerSummary();
+        summary.setName(name);
+        summary.setSortKey(sortKey);
+        summary.setAddress(address);
+        return summary;
+    }
+    private static Set<String> set(String... customerReferences) {
+        return new HashSet<>(Arrays.asList(customerReferences));
+    }
+}
@@ -0,0 +1,76 @@
+package com.schmidthappens.markd.utilities;
+
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * Geohash encoding and the cells a radius search reads.
+ */
+public class GeohashTest {
+    @Test
+    public void encodes_known_hashes() {
+        assertEquals("u4pruydqqvj", Geohash.encode(57.64911, 10.40744, 11));
+        assertEquals("dr7", Geohash.encode(41.1646, -73.4974, 3));
+    }
+
+    @Test
+    public void decodes_to_cell_center() {
+        String hash = Geohash.encode(41.1646, -73.4974, Geohash.PRECISION);
+        double[] location = Geohash.decode(hash);
+        assertEquals(41.1646, location[0], 0.0001);
+        assertEquals(-73.4974, location[1], 0.0001);
+        assertNull(Geohash.decode("dr7a"));
+    }
+
+    @Test
+    public void radius_is_covered_by_at_most_nine_cells() {
+        Random random = new Random(3);
+        for(int search = 0; search < 200; search++) {
+            double latitude = 20 + random.nextDouble() * 45;
+            double longitude = -160 + random.nextDouble() * 95;
+            double radius = 1 + random.nextDouble() * 100;
+            Set<String> prefixes = Geohash.getCoveringPrefixes(latitude, longitude, radius);
+            assertTrue(prefixes.toString(), prefixes.size() <= 9);
+
+            for(int point = 0; point < 50; point++) {
+                double bearing = random.nextDouble() * 2 * Math.PI;
+                double miles = random.nextDouble() * radius;
+                double pointLatitude = latitude + Math.cos(bearing) * miles / 69.0;
+                double pointLongitude = longitude + Math.sin(bearing) * miles / (69.0 * Math.cos(Math.toRadians(pointLatitude)));
+                if(ZipCodeIndex.distanceMiles(latitude, longitude, pointLatitude, pointLongitude) > radius) {
+                    continue;
+                }
+                String hash = Geohash.encode(pointLatitude, pointLongitude, Geohash.PRECISION);
+                boolean covered = false;
+                for(String prefix : prefixes) {
+                    covered |= hash.startsWith(prefix);
+                }
+                assertTrue(hash + " not in " + prefixes, covered);
+            }
+        }
+    }
+
+    @Test
+    public void nothing_in_a_cell_is_nearer_than_its_distance() {
+        Random random = new Random(5);
+        for(int search = 0; search < 200; search++) {
+            double latitude = -60 + random.nextDouble() * 120;
+            double longitude = -180 + random.nextDouble() * 360;
+            String cell = Geohash.encode(latitude + (random.nextDouble() - 0.5) * 4, longitude + (random.nextDouble() - 0.5) * 4, 1 + random.nextInt(4));
+            double[] bounds = Geohash.getBounds(cell);
+            double cellDistance = Geohash.distanceToCellMiles(latitude, longitude, bounds);
+            for(int point = 0; point < 50; point++) {
+                double pointLatitude = bounds[0] + random.nextDouble() * (bounds[2] - bounds[0]);
+                double pointLongitude = bounds[1] + random.nextDouble() * (bounds[3] - bounds[1]);
+                double distance = ZipCodeIndex.distanceMiles(latitude, longitude, pointLatitude, pointLongitude);
+                assertTrue(cell + " " + distance + " < " + cellDistance, distance >= cellDistance - 0.001);
+            }
+        }
+        String cell = Geohash.encode(41.1646, -73.4974, 5);
+        assertEquals(0, Geohash.distanceToCellMiles(41.1646, -73.4974, Geohash.getBounds(cell)), 0);
+    }
+}
@@ -0,0 +1,133 @@
+package com.schmidthappens.markd.utilities;
+
+import com.google.firebase.database.DatabaseError;
+import com.google.firebase.database.DatabaseReference;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * NotificationBroadcast chunking and accounting against a writer that records each updateChildren and
+ * completes it only when told to.
+ */
+
+public class NotificationBroadcastTest {
+    private List<Map<String, Object>> written;
+    private List<DatabaseReference.CompletionListener> completionListeners;
+    private NotificationBroadcast broadcast;
+    private RecordingListener listener;
+
+    private static class RecordingListener implements NotificationBroadcast.OnBroadcastProgressListener {
+        final List<Integer> sentCounts = new ArrayList<>();
+        int finishedCount;
+        int finishedSentCount = -1;
+        List<String> failedCustomers;
+
+        @Override
+        public void onChunkSent(int sentCount, int totalCount) {
+            sentCounts.add(sentCount);
+        }
+
+        @Override
+        public void onBroadcastFinished(int sentCount, List<String> failedCustomers) {
+            finishedCount++;
+            finishedSentCount = sentCount;
+            this.failedCustomers = failedCustomers;
+        }
+    }
+
+    @Before
+    public void setUp() {
+        written = new ArrayList<>();
+        completionListeners = new ArrayList<>();
+        broadcast = new NotificationBroadcast(new NotificationBroadcast.Writer() {
+            @Override
+            public String pushKey(String customerId) {
+                return "key_" + customerId;
+            }
+
+            @Override
+            public void updateChildren(Map<String, Object> updates, DatabaseReference.CompletionListener completionListener) {
+                written.add(updates);
+                completionListeners.add(completionListener);
+            }
+        });
+        listener = new RecordingListener();
+    }
+
+    @Test
+    public void customers_are_split_into_writes_of_at_most_the_limit() {
+        broadcast.send(customers(1001), "Time for a tune up", "Mario Bros.", listener);
+        assertEquals(3, written.size());
+        assertEquals(500, written.get(0).size());
+        assertEquals(500, written.get(1).size());
+        assertEquals(1, written.get(2).size());
+    }
+
+    @Test
+    public void exactly_the_limit_is_one_write() {
+        broadcast.send(customers(NotificationBroadcast.MAX_RECIPIENTS_PER_WRITE), "Time for a tune up", "Mario Bros.", listener);
+        assertEquals(1, written.size());
+    }
+
+    @Test
+    public void each_customer_gets_a_push_child_of_their_inbox() {
+        broadcast.send(Arrays.asList("a", "", null, "b"), "Time for a tune up", "Mario Bros.", listener);
+        assertEquals(1, written.size());
+        assertEquals(new HashSet<>(Arrays.asList("notifications/a/key_a", "notifications/b/key_b")), written.get(0).keySet());
+        Map<?, ?> notification = (Map<?, ?>)written.get(0).get("notifications/a/key_a");
+        assertEquals("Mario Bros.", notification.get("companyFrom"));
+        assertEquals("Time for a tune up", notification.get("message"));
+    }
+
+    @Test
+    public void failed_writes_hand_back_their_customers() {
+        List<String> customers = customers(1200);
+        broadcast.send(customers, "Time for a tune up", "Mario Bros.", listener);
+        completionListeners.get(1).onComplete(DatabaseError.fromCode(DatabaseError.PERMISSION_DENIED), null);
+        completionListeners.get(0).onComplete(null, null);
+        assertEquals(0, listener.finishedCount);
+        completionListeners.get(2).onComplete(null, null);
+
+        assertEquals(Arrays.asList(500, 700), listener.sentCounts);
+        assertEquals(1, listener.finishedCount);
+        assertEquals(700, listener.finishedSentCount);
+        assertEquals(customers.subList(500, 1000), listener.failedCustomers);
+    }
+
+    @Test
+    public void nothing_is_written_without_a_message() {
+        broadcast.send(customers(3), "", "Mario Bros.", listener);
+        assertTrue(written.isEmpty());
+        assertEquals(1, listener.finishedCount);
+        assertEquals(0, listener.finishedSentCount);
+        assertTrue(listener.failedCustomers.isEmpty());
+    }
+
+    @Test
+    public void cancelled_broadcast_does_not_call_the_listener() {
+        broadcast.send(customers(600), "Time for a tune up", "Mario Bros.", listener);
+        completionListeners.get(0).onComplete(null, null);
+        broadcast.cancel();
+        completionListeners.get(1).onComplete(null, null);
+        assertEquals(Arrays.asList(500), listener.sentCounts);
+        assertEquals(0, listener.finishedCount);
+    }
+
+    private static List<String> customers(int count) {
+        List<String> customers = new ArrayList<>();
+        for(int i = 0; i < count; i++) {
+            customers.add("customer" + i);
+        }
+        return customers;
+    }
+}
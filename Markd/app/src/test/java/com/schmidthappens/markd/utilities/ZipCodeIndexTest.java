@@ -0,0 +1,114 @@
+package com.schmidthappens.markd.utilities;
+
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.Assert.*;
+
+/**
+ * Radius searches against a ZipCodeIndex table written by ZipCodeIndex.Builder.
+ */
+public class ZipCodeIndexTest {
+    private static ZipCodeIndex index(ZipCodeIndex.Builder builder) {
+        return new ZipCodeIndex(ByteBuffer.wrap(builder.build()));
+    }
+
+    @Test
+    public void finds_zips_inside_radius_nearest_first() {
+        ZipCodeIndex index = index(new ZipCodeIndex.Builder()
+                .add("06840", 41.1646, -73.4974)
+                .add("06820", 41.0782, -73.4824)
+                .add("06850", 41.1280, -73.4446)
+                .add("10001", 40.7507, -73.9965)
+                .add("90001", 33.9740, -118.2484));
+
+        Map<Double, String> zipCodes = index.getZipCodesByRadius("06840", 10);
+        assertEquals(3, zipCodes.size());
+        List<String> ordered = new ArrayList<>(zipCodes.values());
+        assertEquals("06840", ordered.get(0));
+        assertEquals("06850", ordered.get(1));
+        assertEquals("06820", ordered.get(2));
+        assertEquals(0.0, zipCodes.keySet().iterator().next(), 0);
+    }
+
+    @Test
+    public void unknown_zip_is_null() {
+        ZipCodeIndex index = index(new ZipCodeIndex.Builder().add("06840", 41.1646, -73.4974));
+        assertNull(index.getZipCodesByRadius("99999", 50));
+        assertNull(index.getZipCodesByRadius("6840", 50));
+        assertNull(index.getZipCodesByRadius(null, 50));
+    }
+
+    @Test
+    public void equal_distances_are_all_kept() {
+        ZipCodeIndex index = index(new ZipCodeIndex.Builder()
+                .add("50000", 40.0, -90.0)
+                .add("50001", 40.1, -90.0)
+                .add("50002", 39.9, -90.0));
+        Map<Double, String> zipCodes = index.getZipCodesByRadius("50000", 20);
+        assertEquals(3, zipCodes.size());
+        assertEquals("50000", zipCodes.values().iterator().next());
+    }
+
+    @Test
+    public void haversine_distances() {
+        assertEquals(69.09, ZipCodeIndex.distanceMiles(40, -90, 41, -90), 0.01);
+        //New York to Los Angeles
+        assertEquals(2448, ZipCodeIndex.distanceMiles(40.7507, -73.9965, 33.9740, -118.2484), 5);
+    }
+
+    @Test
+    public void grid_search_matches_brute_force() {
+        Random random = new Random(7);
+        ZipCodeIndex.Builder builder = new ZipCodeIndex.Builder();
+        List<double[]> points = new ArrayList<>();
+        for(int zip = 0; zip < 5000; zip++) {
+            double latitude = 25 + random.nextDouble() * 24;
+            double longitude = -124 + random.nextDouble() * 57;
+            builder.add(String.format(Locale.US, "%05d", zip), latitude, longitude);
+            points.add(new double[]{latitude, longitude});
+        }
+        ZipCodeIndex index = index(builder);
+        assertEquals(5000, index.size());
+
+        for(int origin = 0; origin < 5000; origin += 97) {
+            for(double radius : new double[]{1, 25, 60, 150}) {
+                Map<Double, String> expected = new TreeMap<>();
+                for(int zip = 0; zip < points.size(); zip++) {
+                    double distance = ZipCodeIndex.distanceMiles(points.get(origin)[0], points.get(origin)[1], points.get(zip)[0], points.get(zip)[1]);
+                    if(distance <= radius) {
+                        expected.put(distance + zip * 1e-12, String.format(Locale.US, "%05d", zip));
+                    }
+                }
+                Map<Double, String> actual = index.getZipCodesByRadius(String.format(Locale.US, "%05d", origin), radius);
+                assertEquals("origin " + origin + " radius " + radius, new ArrayList<>(expected.values()).size(), actual.size());
+                assertTrue(actual.values().containsAll(expected.values()));
+            }
+        }
+    }
+
+    @Test
+    public void reads_census_gazetteer() throws Exception {
+        String gazetteer = "GEOID\tALAND\tAWATER\tALAND_SQMI\tAWATER_SQMI\tINTPTLAT\tINTPTLONG\n"
+                + "06840\t59811345\t1744457\t23.093\t0.674\t41.164614\t-73.497411\n"
+                + "06820\t33890853\t5381373\t13.085\t2.078\t41.078193\t-73.482365\n";
+        ZipCodeIndex index = index(new ZipCodeIndex.Builder().addGazetteer(new BufferedReader(new StringReader(gazetteer))));
+        assertEquals(2, index.size());
+        assertTrue(index.contains("06820"));
+        assertEquals(2, index.getZipCodesByRadius("06840", 10).size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejects_other_data() {
+        new ZipCodeIndex(ByteBuffer.wrap(new byte[64]));
+    }
+}
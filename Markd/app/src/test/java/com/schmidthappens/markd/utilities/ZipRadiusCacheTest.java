@@ -0,0 +1,171 @@
+package com.schmidthappens.markd.utilities;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.*;
+
+/**
+ * Containment reuse, expiry, eviction and persistence of ZipRadiusCache.
+ */
+public class ZipRadiusCacheTest {
+    private static final long TTL = 60000;
+
+    //Runs file tasks only when told to, in order
+    private static class QueuedExecutor implements Executor {
+        final List<Runnable> tasks = new ArrayList<>();
+
+        @Override
+        public void execute(Runnable task) {
+            tasks.add(task);
+        }
+        void runAll() {
+            while(!tasks.isEmpty()) {
+                tasks.remove(0).run();
+            }
+        }
+    }
+    private static final Executor DIRECT = new Executor() {
+        @Override
+        public void execute(Runnable task) {
+            task.run();
+        }
+    };
+
+    private static class TestCache extends ZipRadiusCache {
+        long now = 1000;
+
+        TestCache(File file, int maxEntries) {
+            this(file, maxEntries, DIRECT);
+        }
+        TestCache(File file, int maxEntries, Executor ioExecutor) {
+            super(file, maxEntries, TTL, ioExecutor);
+        }
+        @Override
+        long currentTimeMillis() {
+            return now;
+        }
+    }
+
+    private static File tempFile() throws Exception {
+        File file = File.createTempFile("zip_radius", null);
+        file.delete();
+        file.deleteOnExit();
+        return file;
+    }
+    private static Map<Double, String> result() {
+        Map<Double, String> zipCodes = new TreeMap<>();
+        zipCodes.put(0.0, "06840");
+        zipCodes.put(4.2, "06850");
+        zipCodes.put(6.1, "06820");
+        zipCodes.put(18.5, "06901");
+        zipCodes.put(24.9, "10001");
+        return zipCodes;
+    }
+
+    @Test
+    public void smaller_radius_is_cut_from_larger_result() throws Exception {
+        TestCache cache = new TestCache(tempFile(), 10);
+        cache.put("06840", 25, result());
+
+        assertEquals(result(), cache.get("06840", 25));
+        assertEquals(Arrays.asList("06840", "06850", "06820"), new ArrayList<>(cache.get("06840", 10).values()));
+        assertEquals(Arrays.asList("06840"), new ArrayList<>(cache.get("06840", 1).values()));
+        assertNull(cache.get("06840", 30));
+        assertNull(cache.get("06850", 5));
+    }
+
+    @Test
+    public void larger_result_replaces_smaller_ones() throws Exception {
+        TestCache cache = new TestCache(tempFile(), 10);
+        cache.put("06840", 5, new TreeMap<>(((TreeMap<Double, String>)result()).headMap(5.0, true)));
+        cache.put("06840", 10, new TreeMap<>(((TreeMap<Double, String>)result()).headMap(10.0, true)));
+        cache.put("06840", 25, result());
+        assertEquals(1, cache.size());
+        assertEquals(3, cache.get("06840", 10).size());
+    }
+
+    @Test
+    public void entries_expire() throws Exception {
+        TestCache cache = new TestCache(tempFile(), 10);
+        cache.put("06840", 25, result());
+        cache.now += TTL + 1;
+        assertNull(cache.get("06840", 10));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void least_recently_used_is_evicted() throws Exception {
+        TestCache cache = new TestCache(tempFile(), 2);
+        cache.put("06840", 25, result());
+        cache.put("06850", 25, result());
+        cache.get("06840", 5);
+        cache.put("06820", 25, result());
+        assertNotNull(cache.get("06840", 25));
+        assertNull(cache.get("06850", 25));
+        assertNotNull(cache.get("06820", 25));
+    }
+
+    @Test
+    public void survives_restart() throws Exception {
+        File file = tempFile();
+        TestCache cache = new TestCache(file, 10);
+        cache.put("06840", 25, result());
+
+        assertEquals(result(), new TestCache(file, 10).get("06840", 25));
+        TestCache expired = new TestCache(file, 10);
+        expired.now += TTL + 1;
+        assertNull(expired.get("06840", 25));
+    }
+
+    @Test
+    public void unreadable_file_is_ignored() throws Exception {
+        File file = tempFile();
+        FileOutputStream output = new FileOutputStream(file);
+        output.write(new byte[]{0, 0, 0, 1, 0, 0});
+        output.close();
+        TestCache cache = new TestCache(file, 10);
+        assertNull(cache.get("06840", 25));
+        cache.put("06840", 25, result());
+        assertEquals(result(), new TestCache(file, 10).get("06840", 25));
+    }
+
+    @Test
+    public void puts_are_saved_once_on_the_executor() throws Exception {
+        File file = tempFile();
+        QueuedExecutor ioExecutor = new QueuedExecutor();
+        TestCache cache = new TestCache(file, 10, ioExecutor);
+        cache.loadInBackground();
+        ioExecutor.runAll();
+        cache.put("06840", 25, result());
+        cache.put("06850", 25, result());
+        assertFalse(file.exists());
+        assertEquals(1, ioExecutor.tasks.size());
+
+        ioExecutor.runAll();
+        TestCache restarted = new TestCache(file, 10);
+        assertEquals(result(), restarted.get("06840", 25));
+        assertEquals(result(), restarted.get("06850", 25));
+    }
+
+    @Test
+    public void lookup_before_the_queued_load_reads_the_file() throws Exception {
+        File file = tempFile();
+        new TestCache(file, 10).put("06840", 25, result());
+        QueuedExecutor ioExecutor = new QueuedExecutor();
+        TestCache cache = new TestCache(file, 10, ioExecutor);
+        cache.loadInBackground();
+        assertEquals(result(), cache.get("06840", 25));
+        //The queued load finds the file already read
+        ioExecutor.runAll();
+        assertEquals(1, cache.size());
+    }
+}
@@ -0,0 +1,593 @@
+package com.schmidthappens.markd.mapper;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Messager;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.annotation.processing.SupportedOptions;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+
+/**
+ * Generates a {Class}_FirebaseMapper with straight-line fromMap/toMap code for every concrete
+ * @IgnoreExtraProperties class, plus a FirebaseMapperRegistry to look them up by class.
+ *
+ * Properties follow the same rules as Firebase's CustomClassMapper so the wire format does not change:
+ * public get/is getters and public fields are written, public or package void setters and public fields are read.
+ * CustomClassMapper reads a getter without a setter straight into the field of the same name, the generated
+ * mapper can not reach private fields so it uses a set method returning the object itself instead, like
+ * Contractor's, which must only assign the field. A property with neither is an error.
+ * @Exclude members are skipped. Values are set in the order the class declares its fields, superclass first,
+ * since some setters depend on what was set before, e.g. Panel.setNumberOfBreakers pads the breakerList.
+ *
+ * The option firebaseMapper.package names the package holding FirebaseMapper and FirebaseMappers,
+ * the registry is generated there.
+ */
+
+@SupportedAnnotationTypes(FirebaseMapperProcessor.IGNORE_EXTRA_PROPERTIES)
+@SupportedOptions(FirebaseMapperProcessor.PACKAGE_OPTION)
+public class FirebaseMapperProcessor extends AbstractProcessor {
+    static final String IGNORE_EXTRA_PROPERTIES = "com.google.firebase.database.IgnoreExtraProperties";
+    static final String PACKAGE_OPTION = "firebaseMapper.package";
+    private static final String EXCLUDE = "com.google.firebase.database.Exclude";
+    private static final String MAPPER_SUFFIX = "_FirebaseMapper";
+    private static final String REGISTRY_NAME = "FirebaseMapperRegistry";
+
+    private boolean generated;
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnvironment) {
+        if(generated || annotations.isEmpty()) {
+            return false;
+        }
+        generated = true;
+
+        TypeElement annotation = elements().getTypeElement(IGNORE_EXTRA_PROPERTIES);
+        List<TypeElement> mappedTypes = new ArrayList<>();
+        for(Element element : roundEnvironment.getElementsAnnotatedWith(annotation)) {
+            //Abstract classes are mapped through their subclasses
+            if(element.getKind() == ElementKind.CLASS && !element.getModifiers().contains(Modifier.ABSTRACT)) {
+                mappedTypes.add((TypeElement)element);
+            }
+        }
+        if(mappedTypes.isEmpty()) {
+            return false;
+        }
+        Collections.sort(mappedTypes, new Comparator<TypeElement>() {
+            @Override
+            public int compare(TypeElement first, TypeElement second) {
+                return first.getQualifiedName().toString().compareTo(second.getQualifiedName().toString());
+            }
+        });
+
+        String runtimePackage = processingEnv.getOptions().get(PACKAGE_OPTION);
+        if(runtimePackage == null) {
+            runtimePackage = getPackageName(mappedTypes.get(0));
+        }
+        for(TypeElement type : mappedTypes) {
+            writeMapper(type, runtimePackage);
+        }
+        writeRegistry(mappedTypes, runtimePackage);
+        return false;
+    }
+
+    //Mark:- Properties
+    private static class Property {
+        final String name;
+        ExecutableElement getter;
+        VariableElement publicField;
+        ExecutableElement setter;
+        VariableElement field;
+        //Set method returning the object, used only without a void setter
+        ExecutableElement chainedSetter;
+
+        Property(String name) {
+            this.name = name;
+        }
+        boolean isWritten() {
+            return getter != null || publicField != null;
+        }
+        boolean isRead() {
+            return setter != null || field != null || chainedSetter != null;
+        }
+        TypeMirror getWriteType() {
+            return getter != null ? getter.getReturnType() : publicField.asType();
+        }
+        TypeMirror getReadType() {
+            if(setter != null) {
+                return setter.getParameters().get(0).asType();
+            }
+            return chainedSetter != null ? chainedSetter.getParameters().get(0).asType() : field.asType();
+        }
+        ExecutableElement getReadSetter() {
+            return setter != null ? setter : chainedSetter;
+        }
+    }
+
+    private Map<String, Property> getProperties(TypeElement type) {
+        Map<String, Property> properties = new TreeMap<>();
+        List<? extends Element> members = elements().getAllMembers(type);
+
+        for(ExecutableElement method : ElementFilter.methodsIn(members)) {
+            if(isGetter(method)) {
+                String name = propertyName(method.getSimpleName().toString());
+                Property property = getProperty(properties, name);
+                if(property.getter != null) {
+                    error(method, "Found conflicting getters for " + name + " in " + type.getSimpleName());
+                }
+                property.getter = method;
+            }
+        }
+        for(VariableElement field : ElementFilter.fieldsIn(members)) {
+            Set<Modifier> modifiers = field.getModifiers();
+            if(modifiers.contains(Modifier.PUBLIC) && !modifiers.contains(Modifier.STATIC)
+                    && !modifiers.contains(Modifier.TRANSIENT) && !isExcluded(field)) {
+                Property property = getProperty(properties, field.getSimpleName().toString());
+                property.publicField = field;
+                if(!modifiers.contains(Modifier.FINAL)) {
+                    property.field = field;
+                }
+            }
+        }
+        for(ExecutableElement method : ElementFilter.methodsIn(members)) {
+            if(isSetter(method)) {
+                String name = propertyName(method.getSimpleName().toString());
+                Property property = getProperty(properties, name);
+                if(property.setter != null) {
+                    error(method, "Found conflicting setters for " + name + " in " + type.getSimpleName());
+                }
+                if(!isAccessibleFrom(method, type)) {
+                    error(method, "Setter for " + name + " is not visible to the generated mapper, make it public");
+                }
+                property.setter = method;
+            }
+        }
+        //CustomClassMapper reads getters without a setter into the field with the same name
+        for(Property property : properties.values()) {
+            if(property.getter != null && !property.isRead()) {
+                VariableElement field = findDeclaredField(type, property.name);
+                if(field == null || field.getModifiers().contains(Modifier.STATIC) || field.getModifiers().contains(Modifier.FINAL)) {
+                    continue;
+                }
+                property.chainedSetter = findChainedSetter(type, members, property.name, field.asType());
+                if(property.chainedSetter == null) {
+                    error(field, "Field " + property.name + " is read without a setter, add a void set" + capitalize(property.name) + " the generated mapper can call");
+                }
+            }
+        }
+        return properties;
+    }
+    /*
+        Order values are set in, the class's fields and setters as declared, superclasses first
+     */
+    private List<Property> inDeclarationOrder(TypeElement type, Map<String, Property> properties) {
+        List<TypeElement> hierarchy = new ArrayList<>();
+        TypeElement current = type;
+        while(current != null && !current.getQualifiedName().contentEquals("java.lang.Object")) {
+            hierarchy.add(0, current);
+            TypeMirror superclass = current.getSuperclass();
+            current = superclass.getKind() == TypeKind.DECLARED ? (TypeElement)((DeclaredType)superclass).asElement() : null;
+        }
+        Map<String, Property> ordered = new LinkedHashMap<>();
+        for(TypeElement declaringType : hierarchy) {
+            for(Element member : declaringType.getEnclosedElements()) {
+                String name = null;
+                if(member.getKind() == ElementKind.FIELD) {
+                    name = member.getSimpleName().toString();
+                } else if(member.getKind() == ElementKind.METHOD && isSetter((ExecutableElement)member)) {
+                    name = propertyName(member.getSimpleName().toString());
+                }
+                if(name != null && properties.containsKey(name) && !ordered.containsKey(name)) {
+                    ordered.put(name, properties.get(name));
+                }
+            }
+        }
+        //Anything else, e.g. a setter only inherited from an interface, goes last by name
+        for(Property property : properties.values()) {
+            if(!ordered.containsKey(property.name)) {
+                ordered.put(property.name, property);
+            }
+        }
+        return new ArrayList<>(ordered.values());
+    }
+    private static Property getProperty(Map<String, Property> properties, String name) {
+        Property property = properties.get(name);
+        if(property == null) {
+            property = new Property(name);
+            properties.put(name, property);
+        }
+        return property;
+    }
+    private boolean isGetter(ExecutableElement method) {
+        String name = method.getSimpleName().toString();
+        Set<Modifier> modifiers = method.getModifiers();
+        if(!modifiers.contains(Modifier.PUBLIC) || modifiers.contains(Modifier.STATIC)
+                || !method.getParameters().isEmpty() || method.getReturnType().getKind() == TypeKind.VOID
+                || isDeclaredInObject(method) || isExcluded(method)) {
+            return false;
+        }
+        return (name.startsWith("get") && name.length() > 3) || (name.startsWith("is") && name.length() > 2);
+    }
+    private boolean isSetter(ExecutableElement method) {
+        String name = method.getSimpleName().toString();
+        Set<Modifier> modifiers = method.getModifiers();
+        return name.startsWith("set") && name.length() > 3
+                && !modifiers.contains(Modifier.STATIC)
+                && method.getParameters().size() == 1
+                && method.getReturnType().getKind() == TypeKind.VOID
+                && !isDeclaredInObject(method) && !isExcluded(method);
+    }
+    /*
+        set{Name}(fieldType) returning the object itself, visible to the generated mapper
+     */
+    private ExecutableElement findChainedSetter(TypeElement type, List<? extends Element> members, String name, TypeMirror fieldType) {
+        for(ExecutableElement method : ElementFilter.methodsIn(members)) {
+            Set<Modifier> modifiers = method.getModifiers();
+            if(method.getSimpleName().contentEquals("set" + capitalize(name)) && !modifiers.contains(Modifier.STATIC)
+                    && method.getParameters().size() == 1 && types().isSameType(method.getParameters().get(0).asType(), fieldType)
+                    && types().isAssignable(type.asType(), method.getReturnType())
+                    && isAccessibleFrom(method, type) && !isExcluded(method)) {
+                return method;
+            }
+        }
+        return null;
+    }
+    private VariableElement findDeclaredField(TypeElement type, String name) {
+        TypeElement current = type;
+        while(current != null && !current.getQualifiedName().contentEquals("java.lang.Object")) {
+            for(VariableElement field : ElementFilter.fieldsIn(current.getEnclosedElements())) {
+                if(field.getSimpleName().contentEquals(name)) {
+                    return field;
+                }
+            }
+            TypeMirror superclass = current.getSuperclass();
+            current = superclass.getKind() == TypeKind.DECLARED ? (TypeElement)((DeclaredType)superclass).asElement() : null;
+        }
+        return null;
+    }
+    private boolean isAccessibleFrom(Element member, TypeElement type) {
+        Set<Modifier> modifiers = member.getModifiers();
+        if(modifiers.contains(Modifier.PUBLIC)) {
+            return true;
+        }
+        if(modifiers.contains(Modifier.PRIVATE)) {
+            return false;
+        }
+        //Package and protected members can be used from the mapper in the same package
+        return getPackageName((TypeElement)member.getEnclosingElement()).equals(getPackageName(type));
+    }
+    private boolean isDeclaredInObject(ExecutableElement method) {
+        return ((TypeElement)method.getEnclosingElement()).getQualifiedName().contentEquals("java.lang.Object");
+    }
+    private boolean isExcluded(Element element) {
+        return hasAnnotation(element, EXCLUDE);
+    }
+    private static boolean hasAnnotation(Element element, String annotationName) {
+        for(AnnotationMirror annotation : element.getAnnotationMirrors()) {
+            if(((TypeElement)annotation.getAnnotationType().asElement()).getQualifiedName().contentEquals(annotationName)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    private static String capitalize(String name) {
+        return name.isEmpty() ? name : Character.toUpperCase(name.charAt(0)) + name.substring(1);
+    }
+    //Same naming as CustomClassMapper: drop the prefix and lowercase the leading run of capitals
+    static String propertyName(String methodName) {
+        String name;
+        if(methodName.startsWith("is")) {
+            name = methodName.substring(2);
+        } else {
+            name = methodName.substring(3);
+        }
+        char[] chars = name.toCharArray();
+        int position = 0;
+        while(position < chars.length && Character.isUpperCase(chars[position])) {
+            chars[position] = Character.toLowerCase(chars[position]);
+            position++;
+        }
+        return new String(chars);
+    }
+
+    //Mark:- Type Conversion
+    /*
+        Expression converting the plain value in valueName to type, or null if type is not supported
+     */
+    private String readExpression(TypeMirror type, String valueName) {
+        switch (type.getKind()) {
+            case INT:
+                return "FirebaseMappers.readInteger(" + valueName + ")";
+            case LONG:
+                return "FirebaseMappers.readLong(" + valueName + ")";
+            case DOUBLE:
+                return "FirebaseMappers.readDouble(" + valueName + ")";
+            case FLOAT:
+                return "FirebaseMappers.readFloat(" + valueName + ")";
+            case BOOLEAN:
+                return "FirebaseMappers.readBoolean(" + valueName + ")";
+            case DECLARED:
+                break;
+            default:
+                return null;
+        }
+        String leafReader = leafReader(type);
+        if(leafReader != null) {
+            return leafReader.isEmpty() ? valueName : "FirebaseMappers." + leafReader + "(" + valueName + ")";
+        }
+        TypeElement element = (TypeElement)types().asElement(type);
+        String qualifiedName = element.getQualifiedName().toString();
+        List<? extends TypeMirror> typeArguments = ((DeclaredType)type).getTypeArguments();
+        if(qualifiedName.equals("java.util.List") && typeArguments.size() == 1) {
+            String elementArgument = elementArgument(typeArguments.get(0));
+            return elementArgument == null ? null : "FirebaseMappers.readList(" + valueName + ", " + elementArgument + ")";
+        } else if(qualifiedName.equals("java.util.Map") && typeArguments.size() == 2 && isString(typeArguments.get(0))) {
+            String elementArgument = elementArgument(typeArguments.get(1));
+            return elementArgument == null ? null : "FirebaseMappers.readMap(" + valueName + ", " + elementArgument + ")";
+        } else if(element.getKind() == ElementKind.ENUM) {
+            return "FirebaseMappers.readEnum(" + valueName + ", " + qualifiedName + ".class)";
+        } else if(isMapped(element)) {
+            return "FirebaseMappers.readObject(" + valueName + ", " + mapperName(element) + ".INSTANCE)";
+        }
+        return null;
+    }
+    /*
+        Expression converting valueExpression of type to its plain value, or null if type is not supported
+     */
+    private String writeExpression(TypeMirror type, String valueExpression) {
+        if(type.getKind().isPrimitive()) {
+            return valueExpression;
+        } else if(type.getKind() != TypeKind.DECLARED) {
+            return null;
+        }
+        String leafReader = leafReader(type);
+        if(leafReader != null) {
+            return leafReader.isEmpty() ? "FirebaseMappers.writeValue(" + valueExpression + ")" : valueExpression;
+        }
+        TypeElement element = (TypeElement)types().asElement(type);
+        String qualifiedName = element.getQualifiedName().toString();
+        List<? extends TypeMirror> typeArguments = ((DeclaredType)type).getTypeArguments();
+        if(qualifiedName.equals("java.util.List") && typeArguments.size() == 1) {
+            String elementArgument = elementArgument(typeArguments.get(0));
+            if(elementArgument == null) {
+                return null;
+            }
+            return elementArgument.endsWith(".INSTANCE") ? "FirebaseMappers.writeList(" + valueExpression + ", " + elementArgument + ")"
+                    : "FirebaseMappers.writeList(" + valueExpression + ")";
+        } else if(qualifiedName.equals("java.util.Map") && typeArguments.size() == 2 && isString(typeArguments.get(0))) {
+            String elementArgument = elementArgument(typeArguments.get(1));
+            if(elementArgument == null) {
+                return null;
+            }
+            return elementArgument.endsWith(".INSTANCE") ? "FirebaseMappers.writeMap(" + valueExpression + ", " + elementArgument + ")"
+                    : "FirebaseMappers.writeMap(" + valueExpression + ")";
+        } else if(element.getKind() == ElementKind.ENUM) {
+            return "FirebaseMappers.writeEnum(" + valueExpression + ")";
+        } else if(isMapped(element)) {
+            return "FirebaseMappers.writeObject(" + valueExpression + ", " + mapperName(element) + ".INSTANCE)";
+        }
+        return null;
+    }
+    /*
+        Reader method for values stored as is, "" for Object, null for everything else
+     */
+    private String leafReader(TypeMirror type) {
+        if(type.getKind() != TypeKind.DECLARED) {
+            return null;
+        }
+        String qualifiedName = ((TypeElement)types().asElement(type)).getQualifiedName().toString();
+        switch (qualifiedName) {
+            case "java.lang.String":
+                return "readString";
+            case "java.lang.Integer":
+                return "readInteger";
+            case "java.lang.Long":
+                return "readLong";
+            case "java.lang.Double":
+                return "readDouble";
+            case "java.lang.Float":
+                return "readFloat";
+            case "java.lang.Boolean":
+                return "readBoolean";
+            case "java.lang.Object":
+                return "";
+            default:
+                return null;
+        }
+    }
+    /*
+        Second argument of the list and map helpers: a leaf class or a mapper
+     */
+    private String elementArgument(TypeMirror elementType) {
+        if(elementType.getKind() != TypeKind.DECLARED || !((DeclaredType)elementType).getTypeArguments().isEmpty()) {
+            return null;
+        }
+        TypeElement element = (TypeElement)types().asElement(elementType);
+        if(leafReader(elementType) != null) {
+            return element.getQualifiedName() + ".class";
+        } else if(isMapped(element)) {
+            return mapperName(element) + ".INSTANCE";
+        }
+        return null;
+    }
+    private boolean isString(TypeMirror type) {
+        return type.getKind() == TypeKind.DECLARED && ((TypeElement)types().asElement(type)).getQualifiedName().contentEquals("java.lang.String");
+    }
+    private boolean isMapped(TypeElement element) {
+        return element.getKind() == ElementKind.CLASS && !element.getModifiers().contains(Modifier.ABSTRACT)
+                && hasAnnotation(element, IGNORE_EXTRA_PROPERTIES);
+    }
+
+    //Mark:- Code Generation
+    private void writeMapper(TypeElement type, String runtimePackage) {
+        if(!hasAccessibleConstructor(type)) {
+            error(type, type.getSimpleName() + " needs a public no-argument constructor");
+            return;
+        }
+        String packageName = getPackageName(type);
+        String typeName = type.getQualifiedName().toString();
+        String mapperSimpleName = mapperSimpleName(type);
+        Map<String, Property> properties = getProperties(type);
+
+        StringBuilder code = new StringBuilder();
+        code.append("// Generated by FirebaseMapperProcessor from ").append(type.getSimpleName()).append(", do not edit.\n");
+        code.append("package ").append(packageName).append(";\n\n");
+        code.append("import ").append(runtimePackage).append(".FirebaseMapper;\n");
+        code.append("import ").append(runtimePackage).append(".FirebaseMappers;\n\n");
+        code.append("import java.util.LinkedHashMap;\n");
+        code.append("import java.util.Map;\n\n");
+        code.append("public final class ").append(mapperSimpleName).append(" implements FirebaseMapper<").append(typeName).append("> {\n");
+        code.append("    public static final ").append(mapperSimpleName).append(" INSTANCE = new ").append(mapperSimpleName).append("();\n\n");
+        code.append("    private ").append(mapperSimpleName).append("() {\n    }\n\n");
+
+        code.append("    @Override\n");
+        code.append("    public Class<").append(typeName).append("> getType() {\n");
+        code.append("        return ").append(typeName).append(".class;\n");
+        code.append("    }\n\n");
+
+        code.append("    @Override\n");
+        code.append("    public ").append(typeName).append(" fromMap(Map<String, Object> map) {\n");
+        code.append("        ").append(typeName).append(" object = new ").append(typeName).append("();\n");
+        code.append("        Object value;\n");
+        for(Property property : inDeclarationOrder(type, properties)) {
+            if(!property.isRead()) {
+                continue;
+            }
+            String read = readExpression(property.getReadType(), "value");
+            if(read == null) {
+                error(property.getReadSetter() != null ? property.getReadSetter() : property.field, "Unsupported property type " + property.getReadType() + " for " + property.name);
+                continue;
+            }
+            code.append("        value = map.get(\"").append(property.name).append("\");\n");
+            code.append("        if(value != null) {\n");
+            if(property.getReadSetter() != null) {
+                code.append("            object.").append(property.getReadSetter().getSimpleName()).append("(").append(read).append(");\n");
+            } else {
+                code.append("            object.").append(property.field.getSimpleName()).append(" = ").append(read).append(";\n");
+            }
+            code.append("        }\n");
+        }
+        code.append("        return object;\n");
+        code.append("    }\n\n");
+
+        code.append("    @Override\n");
+        code.append("    public Map<String, Object> toMap(").append(typeName).append(" object) {\n");
+        code.append("        Map<String, Object> map = new LinkedHashMap<>();\n");
+        for(Property property : properties.values()) {
+            if(!property.isWritten()) {
+                continue;
+            }
+            String getterExpression = property.getter != null ? "object." + property.getter.getSimpleName() + "()" : "object." + property.publicField.getSimpleName();
+            String write = writeExpression(property.getWriteType(), getterExpression);
+            if(write == null) {
+                error(property.getter != null ? property.getter : property.publicField, "Unsupported property type " + property.getWriteType() + " for " + property.name);
+                continue;
+            }
+            if(property.getWriteType().getKind().isPrimitive()) {
+                code.append("        map.put(\"").append(property.name).append("\", ").append(write).append(");\n");
+            } else {
+                code.append("        FirebaseMappers.put(map, \"").append(property.name).append("\", ").append(write).append(");\n");
+            }
+        }
+        code.append("        return map;\n");
+        code.append("    }\n");
+        code.append("}\n");
+
+        writeSource(packageName + "." + mapperSimpleName, code.toString(), type);
+    }
+    private void writeRegistry(List<TypeElement> mappedTypes, String runtimePackage) {
+        StringBuilder code = new StringBuilder();
+        code.append("// Generated by FirebaseMapperProcessor, do not edit.\n");
+        code.append("package ").append(runtimePackage).append(";\n\n");
+        code.append("import java.util.HashMap;\n");
+        code.append("import java.util.Map;\n\n");
+        code.append("public final class ").append(REGISTRY_NAME).append(" {\n");
+        code.append("    private static final Map<Class<?>, FirebaseMapper<?>> mappers = new HashMap<>();\n\n");
+        code.append("    static {\n");
+        for(TypeElement type : mappedTypes) {
+            code.append("        register(").append(mapperName(type)).append(".INSTANCE);\n");
+        }
+        code.append("    }\n\n");
+        code.append("    private ").append(REGISTRY_NAME).append("() {\n    }\n\n");
+        code.append("    private static void register(FirebaseMapper<?> mapper) {\n");
+        code.append("        mappers.put(mapper.getType(), mapper);\n");
+        code.append("    }\n\n");
+        code.append("    @SuppressWarnings(\"unchecked\")\n");
+        code.append("    public static <T> FirebaseMapper<T> get(Class<T> type) {\n");
+        code.append("        return (FirebaseMapper<T>)mappers.get(type);\n");
+        code.append("    }\n");
+        code.append("}\n");
+
+        writeSource(runtimePackage + "." + REGISTRY_NAME, code.toString(), mappedTypes.toArray(new Element[mappedTypes.size()]));
+    }
+    private boolean hasAccessibleConstructor(TypeElement type) {
+        for(ExecutableElement constructor : ElementFilter.constructorsIn(type.getEnclosedElements())) {
+            if(constructor.getParameters().isEmpty() && !constructor.getModifiers().contains(Modifier.PRIVATE)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    private void writeSource(String qualifiedName, String code, Element... originatingElements) {
+        try (Writer writer = processingEnv.getFiler().createSourceFile(qualifiedName, originatingElements).openWriter()) {
+            writer.write(code);
+        } catch (IOException exception) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Unable to write " + qualifiedName + ": " + exception.getMessage());
+        }
+    }
+
+    //Mark:- Helpers
+    private String mapperName(TypeElement type) {
+        return getPackageName(type) + "." + mapperSimpleName(type);
+    }
+    private String mapperSimpleName(TypeElement type) {
+        String packageName = getPackageName(type);
+        String qualifiedName = type.getQualifiedName().toString();
+        String nestedName = packageName.isEmpty() ? qualifiedName : qualifiedName.substring(packageName.length() + 1);
+        return nestedName.replace('.', '_') + MAPPER_SUFFIX;
+    }
+    private String getPackageName(TypeElement type) {
+        PackageElement packageElement = elements().getPackageOf(type);
+        return packageElement.getQualifiedName().toString();
+    }
+    private void error(Element element, String message) {
+        Messager messager = processingEnv.getMessager();
+        messager.printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+    private Elements elements() {
+        return processingEnv.getElementUtils();
+    }
+    private Types types() {
+        return processingEnv.getTypeUtils();
+    }
+}